@@ -1,5 +1,6 @@
 package campuspaths;
 
+import java.nio.file.Paths;
 import java.util.*;
 import com.google.gson.Gson;
 import spark.Spark;
@@ -23,7 +24,10 @@ public class SparkServer {
     public static void main(String[] args) {
         CORSFilter corsFilter = new CORSFilter();
         corsFilter.apply();
-        CampusMap campusMap = new CampusMap();
+        // An optional argument names a graph snapshot file, which
+        // lets the server start without rebuilding the campus graph.
+        CampusMap campusMap = args.length > 0 ?
+                new CampusMap(Paths.get(args[0])) : new CampusMap();
 
         /*
            Returns the shortest path between two buildings as
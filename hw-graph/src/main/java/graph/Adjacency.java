@@ -0,0 +1,559 @@
+package graph;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * <b>Adjacency</b> is the mutable set of edges between one node of a
+ * DirectLGraph and its neighbors, stored as (neighbor, label) pairs. The
+ * node itself is not stored, so the same class holds a node's outgoing
+ * edges (where the neighbor is the destination) and its incoming edges
+ * (where the neighbor is the source).
+ *
+ * While a node has at most SMALL_LIMIT edges, the pairs are kept in two
+ * parallel arrays and found by linear search, which for so few pairs is
+ * as fast as hashing and allocates nothing. Beyond that the edges are
+ * promoted to a hash map from each neighbor to its labels, and they are
+ * demoted back to arrays once the count falls to half the limit.
+ *
+ * Pairs are visited in the order they were added, except that while
+ * promoted, all pairs with the same neighbor are visited together, in the
+ * order their neighbors were first added. The order never depends on
+ * hash codes, so it is the same in every run.
+ *
+ * @param <N> The type of nodes in the graph.
+ * @param <E> The type of edges in the graph.
+ */
+final class Adjacency<N,E> {
+
+    // ABSTRACTION FUNCTION:
+    //      If byOther == null, AF(r) = the pairs (others[k], labels[k])
+    //      for 0 <= k < size.
+    //      Otherwise, AF(r) = the pairs (n, l) for each key n of byOther
+    //      and each label l of byOther.get(n).
+
+    // REPRESENTATION INVARIANT:
+    //      others, labels != null and others.length == labels.length.
+    //      No neighbor or label stored is null, and no pair is stored
+    //      twice.
+    //      If byOther == null, size <= others.length and
+    //      size <= SMALL_LIMIT.
+    //      If byOther != null, others.length == 0, no Bucket in byOther
+    //      is empty, and size == the total size of the Buckets.
+
+
+    // Debug flag; change to TRUE to enable checkReps.
+    private static final boolean DEBUG = false;
+
+    // Most edges kept in arrays before they are promoted to a hash map.
+    static final int SMALL_LIMIT = 8;
+
+    private static final Object[] NONE = new Object[0];
+
+    private Object[] others;
+    private Object[] labels;
+    private int size;
+    private Map<N, Bucket<E>> byOther;
+
+    /**
+     * Creates a new, empty set of edges.
+     *
+     * @spec.effects Constructs an empty Adjacency.
+     */
+    Adjacency() {
+        this.others = NONE;
+        this.labels = NONE;
+        this.size = 0;
+        this.byOther = null;
+        checkRep();
+    }
+
+    /**
+     * Returns the number of edges.
+     *
+     * @return the number of (neighbor, label) pairs.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether there is an edge to a neighbor with a label.
+     *
+     * @param other The neighbor.
+     * @param label The label of the edge.
+     * @return TRUE if the pair (other, label) is stored; FALSE if not.
+     */
+    boolean contains(Object other, Object label) {
+        if (byOther != null) {
+            Bucket<E> bucket = byOther.get(other);
+            return bucket != null && bucket.contains(label);
+        }
+        return find(other, label) >= 0;
+    }
+
+    /**
+     * Adds an edge to a neighbor with a label.
+     *
+     * @param other The neighbor.
+     * @param label The label of the edge.
+     * @spec.requires other != null, label != null
+     * @spec.effects Adds the pair (other, label) if it is not stored.
+     * @return TRUE if the pair was added; FALSE if it was already stored.
+     */
+    boolean add(N other, E label) {
+        if (byOther != null) {
+            Bucket<E> bucket = byOther.get(other);
+            if (bucket == null) {
+                byOther.put(other, new Bucket<>(label));
+            } else if (!bucket.add(label)) {
+                return false;
+            }
+        } else if (find(other, label) >= 0) {
+            return false;
+        } else if (size == SMALL_LIMIT) {
+            promote();
+            byOther.computeIfAbsent(other, n -> new Bucket<>()).add(label);
+        } else {
+            if (size == others.length) {
+                int capacity = Math.min(SMALL_LIMIT, Math.max(2, 2 * size));
+                others = Arrays.copyOf(others, capacity);
+                labels = Arrays.copyOf(labels, capacity);
+            }
+            others[size] = other;
+            labels[size] = label;
+        }
+
+        size++;
+        checkRep();
+        return true;
+    }
+
+    /**
+     * Removes an edge to a neighbor with a label.
+     *
+     * @param other The neighbor.
+     * @param label The label of the edge.
+     * @spec.effects Removes the pair (other, label) if it is stored.
+     * @return TRUE if the pair was removed; FALSE if it was not stored.
+     */
+    boolean remove(Object other, Object label) {
+        if (byOther != null) {
+            Bucket<E> bucket = byOther.get(other);
+            if (bucket == null || !bucket.remove(label)) {
+                return false;
+            }
+            if (bucket.size() == 0) {
+                byOther.remove(other);
+            }
+            size--;
+            demoteIfSmall();
+        } else {
+            int k = find(other, label);
+            if (k < 0) {
+                return false;
+            }
+            removeAt(k);
+        }
+
+        checkRep();
+        return true;
+    }
+
+    /**
+     * Removes every edge to a neighbor.
+     *
+     * @param other The neighbor.
+     * @spec.effects Removes every pair whose neighbor is other.
+     * @return the number of edges removed.
+     */
+    int removeAll(Object other) {
+        int before = size;
+        if (byOther != null) {
+            Bucket<E> bucket = byOther.remove(other);
+            if (bucket != null) {
+                size -= bucket.size();
+                demoteIfSmall();
+            }
+        } else {
+            for (int k = size - 1; k >= 0; k--) {
+                if (others[k].equals(other)) {
+                    removeAt(k);
+                }
+            }
+        }
+
+        checkRep();
+        return before - size;
+    }
+
+    /**
+     * Returns the least label, in natural order, of the edges to a
+     * neighbor. When there is a single such edge its label is returned
+     * without being compared.
+     *
+     * @param other The neighbor.
+     * @throws ClassCastException if the labels of the edges to other are
+     * not mutually Comparable.
+     * @return the least label of the edges to other, or null if there are
+     * none.
+     */
+    E cheapest(Object other) {
+        if (byOther != null) {
+            Bucket<E> bucket = byOther.get(other);
+            return bucket == null ? null : bucket.cheapest();
+        }
+
+        E cheapest = null;
+        for (int k = 0; k < size; k++) {
+            if (others[k].equals(other)) {
+                E label = label(k);
+                if (cheapest == null || compare(label, cheapest) < 0) {
+                    cheapest = label;
+                }
+            }
+        }
+        return cheapest;
+    }
+
+    /**
+     * Passes each neighbor, once, with the least label of its edges.
+     *
+     * @param action The action that receives each neighbor and label.
+     * @throws ClassCastException if the labels of the edges to a neighbor
+     * are not mutually Comparable.
+     */
+    void forEachCheapest(BiConsumer<? super N, ? super E> action) {
+        if (byOther != null) {
+            for (Map.Entry<N, Bucket<E>> entry : byOther.entrySet()) {
+                action.accept(entry.getKey(), entry.getValue().cheapest());
+            }
+            return;
+        }
+
+        for (int k = 0; k < size; k++) {
+            if (firstIndexOf(others[k]) == k) {
+                action.accept(other(k), cheapest(others[k]));
+            }
+        }
+    }
+
+    /**
+     * Passes each edge to an action.
+     *
+     * @param action The action that receives the neighbor and label of
+     *               each edge.
+     */
+    void forEach(BiConsumer<? super N, ? super E> action) {
+        if (byOther != null) {
+            for (Map.Entry<N, Bucket<E>> entry : byOther.entrySet()) {
+                N other = entry.getKey();
+                entry.getValue().forEach(label -> action.accept(other, label));
+            }
+            return;
+        }
+
+        for (int k = 0; k < size; k++) {
+            action.accept(other(k), label(k));
+        }
+    }
+
+    /**
+     * Passes the neighbor of each edge to an action, once per edge.
+     *
+     * @param action The action that receives the neighbor of each edge.
+     */
+    void forEachOther(Consumer<? super N> action) {
+        if (byOther != null) {
+            for (Map.Entry<N, Bucket<E>> entry : byOther.entrySet()) {
+                for (int k = entry.getValue().size(); k > 0; k--) {
+                    action.accept(entry.getKey());
+                }
+            }
+            return;
+        }
+
+        for (int k = 0; k < size; k++) {
+            action.accept(other(k));
+        }
+    }
+
+    /**
+     * Returns an iterator that makes a value from each edge.
+     *
+     * @param make The function that makes a value from the neighbor and
+     *             label of an edge.
+     * @param <T>  The type of the values.
+     * @spec.requires the edges are not changed while the iterator is used.
+     * @return an iterator over the values made from each edge. The
+     * iterator does not support remove.
+     */
+    <T> Iterator<T> iterator(BiFunction<? super N, ? super E, ? extends T> make) {
+        if (byOther == null) {
+            return new Iterator<T>() {
+                private int next = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+                @Override
+                public T next() {
+                    if (next >= size) {
+                        throw new NoSuchElementException();
+                    }
+                    T value = make.apply(other(next), label(next));
+                    next++;
+                    return value;
+                }
+            };
+        }
+
+        Iterator<Map.Entry<N, Bucket<E>>> entries = byOther.entrySet().iterator();
+        return new Iterator<T>() {
+            private N other;
+            private Iterator<E> labelsOfOther = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                return labelsOfOther.hasNext() || entries.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!labelsOfOther.hasNext()) {
+                    Map.Entry<N, Bucket<E>> entry = entries.next();
+                    other = entry.getKey();
+                    labelsOfOther = entry.getValue().iterator();
+                }
+                return make.apply(other, labelsOfOther.next());
+            }
+        };
+    }
+
+    // Returns an estimate of the heap bytes retained by these edges, not
+    // counting neighbors and labels.
+    long estimatedBytes() {
+        long bytes = GraphStats.object(3 * GraphStats.REFERENCE + 4);
+        if (byOther == null) {
+            return others.length == 0 ? bytes :
+                    bytes + 2 * GraphStats.referenceArray(others.length);
+        }
+
+        bytes += GraphStats.linkedHashMap(byOther.size());
+        for (Bucket<E> bucket : byOther.values()) {
+            bytes += GraphStats.object(3 * GraphStats.REFERENCE);
+            if (bucket.labels != null) {
+                bytes += GraphStats.linkedHashSet(bucket.labels.size());
+            }
+        }
+        return bytes;
+    }
+
+    // Returns the position of the pair (other, label) in the arrays, or
+    // -1 if it is not there.
+    private int find(Object other, Object label) {
+        for (int k = 0; k < size; k++) {
+            if (others[k].equals(other) && labels[k].equals(label)) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    // Returns the first position of other in the arrays, or -1.
+    private int firstIndexOf(Object other) {
+        for (int k = 0; k < size; k++) {
+            if (others[k].equals(other)) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    // Removes the pair at position k of the arrays, keeping the order of
+    // the others.
+    private void removeAt(int k) {
+        size--;
+        System.arraycopy(others, k + 1, others, k, size - k);
+        System.arraycopy(labels, k + 1, labels, k, size - k);
+        others[size] = null;
+        labels[size] = null;
+        if (size == 0) {
+            others = NONE;
+            labels = NONE;
+        }
+    }
+
+    // Moves the pairs from the arrays into byOther.
+    private void promote() {
+        byOther = new LinkedHashMap<>();
+        for (int k = 0; k < size; k++) {
+            byOther.computeIfAbsent(other(k), n -> new Bucket<>()).add(label(k));
+        }
+        others = NONE;
+        labels = NONE;
+    }
+
+    // Moves the pairs from byOther back into arrays once there are few
+    // enough of them.
+    private void demoteIfSmall() {
+        if (size > SMALL_LIMIT / 2) {
+            return;
+        }
+
+        Object[] newOthers = size == 0 ? NONE : new Object[SMALL_LIMIT / 2];
+        Object[] newLabels = size == 0 ? NONE : new Object[SMALL_LIMIT / 2];
+        int k = 0;
+        for (Map.Entry<N, Bucket<E>> entry : byOther.entrySet()) {
+            Iterator<E> labelsOfOther = entry.getValue().iterator();
+            while (labelsOfOther.hasNext()) {
+                newOthers[k] = entry.getKey();
+                newLabels[k] = labelsOfOther.next();
+                k++;
+            }
+        }
+        others = newOthers;
+        labels = newLabels;
+        byOther = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private N other(int k) {
+        return (N) others[k];
+    }
+
+    @SuppressWarnings("unchecked")
+    private E label(int k) {
+        return (E) labels[k];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> int compare(E a, E b) {
+        return ((Comparable<? super E>) a).compareTo(b);
+    }
+
+    /**
+     * The labels of the edges to one neighbor, once edges are hashed, along
+     * with the least of them once it has been asked for. Most neighbors have
+     * one edge, so a single label is kept without a set.
+     */
+    private static final class Bucket<E> {
+        // The only label, or null if there are several.
+        private E only;
+
+        // All the labels if there are several, or null.
+        private Set<E> labels;
+
+        // The least label, or null if not yet known.
+        private E cheapest;
+
+        private Bucket() {
+        }
+
+        private Bucket(E label) {
+            this.only = label;
+        }
+
+        private int size() {
+            return labels != null ? labels.size() : (only != null ? 1 : 0);
+        }
+
+        private boolean contains(Object label) {
+            return labels != null ? labels.contains(label) : label.equals(only);
+        }
+
+        private boolean add(E label) {
+            if (only == null && labels == null) {
+                only = label;
+                return true;
+            } else if (contains(label)) {
+                return false;
+            }
+
+            if (labels == null) {
+                labels = new LinkedHashSet<>();
+                labels.add(only);
+                only = null;
+            }
+            labels.add(label);
+            if (cheapest != null && compare(label, cheapest) < 0) {
+                cheapest = label;
+            }
+            return true;
+        }
+
+        private boolean remove(Object label) {
+            if (labels == null) {
+                if (!label.equals(only)) {
+                    return false;
+                }
+                only = null;
+            } else {
+                if (!labels.remove(label)) {
+                    return false;
+                }
+                if (labels.size() == 1) {
+                    only = labels.iterator().next();
+                    labels = null;
+                }
+            }
+            if (label.equals(cheapest)) {
+                cheapest = null;
+            }
+            return true;
+        }
+
+        private E cheapest() {
+            if (labels == null) {
+                return only;
+            } else if (cheapest == null) {
+                for (E label : labels) {
+                    if (cheapest == null || compare(label, cheapest) < 0) {
+                        cheapest = label;
+                    }
+                }
+            }
+            return cheapest;
+        }
+
+        private void forEach(Consumer<? super E> action) {
+            if (labels == null) {
+                action.accept(only);
+            } else {
+                labels.forEach(action);
+            }
+        }
+
+        private Iterator<E> iterator() {
+            return labels == null ? Collections.singletonList(only).iterator() :
+                    labels.iterator();
+        }
+    }
+
+    // Checks if the rep invariant holds. Throws exception if the
+    // rep invariant is violated.
+    private void checkRep() {
+        if (DEBUG) {
+            assert others.length == labels.length;
+            if (byOther == null) {
+                assert size <= others.length && size <= SMALL_LIMIT;
+                for (int k = 0; k < size; k++) {
+                    assert others[k] != null && labels[k] != null;
+                    assert find(others[k], labels[k]) == k;
+                }
+            } else {
+                assert others.length == 0;
+                int count = 0;
+                for (Bucket<E> bucket : byOther.values()) {
+                    assert bucket.size() > 0;
+                    assert bucket.labels == null || bucket.labels.size() > 1;
+                    count += bucket.size();
+                }
+                assert count == size;
+            }
+        }
+    }
+}
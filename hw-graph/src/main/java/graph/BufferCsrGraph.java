@@ -0,0 +1,397 @@
+package graph;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.*;
+
+/**
+ * <b>BufferCsrGraph</b> is an immutable directed weighted multigraph in
+ * compressed sparse row (CSR) form, like CsrGraph, whose offsets, edge
+ * destinations and weights are read from NIO buffers instead of Java
+ * arrays. The buffers can be views of a memory-mapped file, so that a
+ * graph loaded by GraphSnapshots is usable as soon as the file is mapped
+ * and its edges never have to be copied onto the heap.
+ *
+ * Nodes are stored in the same buffer as encoded bytes. A graph mapped by
+ * GraphSnapshots also maps the position of each node's bytes and a hash
+ * table from nodes to ids, so it decodes a node each time it is looked
+ * up by id, and finds the id of a node by encoding it and comparing bytes,
+ * without decoding the other nodes. Otherwise the nodes are decoded all at
+ * once, the first time a node is looked up. Listing the nodes with
+ * getNodes or toString also decodes them all.
+ *
+ * A BufferCsrGraph can also be copied from any WeightedGraph with
+ * offHeapCopy, which puts the edges in direct buffers outside the Java
+ * heap. The garbage collector never scans or moves direct memory, so a
+ * large graph kept there does not lengthen collection pauses. Only the
+ * nodes and their index stay on the heap.
+ *
+ * Since a BufferCsrGraph cannot be modified after it is created, it is
+ * safe to share a single instance between any number of threads.
+ *
+ * @param <N> The type of nodes in the graph.
+ */
+public final class BufferCsrGraph<N> implements WeightedGraph<N> {
+
+    // ABSTRACTION FUNCTION:
+    //      BufferCsrGraph is a directed weighted multigraph such that
+    //          node i = the i-th node decoded by codec from nodeBytes, for
+    //          0 <= i < nodeCount.
+    //          the edges from node i = for each e in
+    //          [offsets.get(i)..offsets.get(i + 1) - 1], an edge from node
+    //          i to node targets.get(e) with weight weights.get(e).
+    //      If nodeBytes == null, node i = index.get(i) instead.
+    //      index, once not null, holds the decoded nodes.
+    //      If nodeOffsets != null, the bytes of node i are
+    //      [nodeOffsets.get(i)..nodeOffsets.get(i + 1) - 1] of nodeBytes,
+    //      and the id of node i is found at slot
+    //      PagedCsrGraph.hash(bytes of node i) of the open addressing
+    //      table table, or at a later slot, with -1 marking an empty slot.
+
+    // REPRESENTATION INVARIANT:
+    //      offsets, targets, weights != null.
+    //      Either nodeBytes, codec != null, or index != null.
+    //      No buffer is ever modified.
+    //      offsets.limit() == nodeCount + 1, offsets.get(0) == 0,
+    //      offsets is non-decreasing, and
+    //      offsets.get(nodeCount) == targets.limit() == weights.limit().
+    //      0 <= targets.get(e) < nodeCount for all e.
+    //      If index != null, index.size() == nodeCount.
+    //      nodeOffsets == null exactly when table == null, and then
+    //      nodeBytes != null, nodeOffsets.limit() == nodeCount + 1 and
+    //      table.limit() == PagedCsrGraph.tableSize(nodeCount).
+
+
+    // Debug flag; change to TRUE to enable checkReps.
+    private static final boolean DEBUG = false;
+
+    private final int nodeCount;
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final DoubleBuffer weights;
+    private final ByteBuffer nodeBytes;
+    private final IntBuffer nodeOffsets;
+    private final IntBuffer table;
+    private final GraphCodec<N> codec;
+
+    // Decoded nodes, or null until a node is first looked up. The
+    // encoded nodes are null if this was set at construction.
+    private volatile NodeIndex<N> index;
+
+    /**
+     * Creates a new BufferCsrGraph from buffers that are already in CSR
+     * form. The buffers are read with absolute gets from index 0, and
+     * callers must not modify them afterward.
+     *
+     * @param nodeCount The number of nodes in the graph.
+     * @param offsets   The first edge id of each node, followed by the
+     *                  total number of edges.
+     * @param targets   The destination node id of each edge.
+     * @param weights   The weight of each edge.
+     * @param nodeBytes   The nodes, encoded one after another by codec.
+     * @param nodeOffsets The position of each node's bytes in nodeBytes,
+     *                    followed by their total length, or null.
+     * @param table       The node table of a snapshot (see
+     *                    PagedCsrGraph.nodeTable), or null if
+     *                    nodeOffsets is.
+     * @param codec       The codec that encodes and decodes the nodes.
+     * @spec.requires the arguments satisfy the representation invariant,
+     * and codec encodes equal nodes to equal bytes if table != null.
+     * @spec.effects Constructs a new BufferCsrGraph.
+     */
+    BufferCsrGraph(int nodeCount, IntBuffer offsets, IntBuffer targets,
+                   DoubleBuffer weights, ByteBuffer nodeBytes,
+                   IntBuffer nodeOffsets, IntBuffer table, GraphCodec<N> codec) {
+        this.nodeCount = nodeCount;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.nodeBytes = nodeBytes;
+        this.nodeOffsets = nodeOffsets;
+        this.table = table;
+        this.codec = codec;
+        checkRep();
+    }
+
+    // Creates a new BufferCsrGraph whose nodes are already indexed.
+    private BufferCsrGraph(NodeIndex<N> index, IntBuffer offsets, IntBuffer targets,
+                           DoubleBuffer weights) {
+        this.nodeCount = index.size();
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.nodeBytes = null;
+        this.nodeOffsets = null;
+        this.table = null;
+        this.codec = null;
+        this.index = index;
+        checkRep();
+    }
+
+    /**
+     * Returns a copy of a weighted graph whose edges are kept in direct
+     * buffers, off the Java heap. Node ids, nodes and the order of each
+     * node's edges are the same as in the original graph, and later
+     * changes to the original are not reflected in the copy. The direct
+     * memory is freed when the copy is garbage collected.
+     *
+     * @param graph The graph to copy.
+     * @param <N>   The type of nodes in the graph.
+     * @throws NullPointerException if graph == null
+     * @throws IllegalArgumentException if the graph has more than
+     * Integer.MAX_VALUE / 8 edges, which do not fit in one buffer.
+     * @return a new BufferCsrGraph with the nodes and edges of graph.
+     */
+    public static <N> BufferCsrGraph<N> offHeapCopy(WeightedGraph<N> graph) {
+        int nodeCount = graph.nodeCount();
+        int edgeCount = graph.edgeCount();
+        if (edgeCount > Integer.MAX_VALUE / 8 || nodeCount >= Integer.MAX_VALUE / 4) {
+            throw new IllegalArgumentException("Graph is too large for one buffer.");
+        }
+
+        NodeIndex<N> index = new NodeIndex<>(nodeCount);
+        IntBuffer offsets = direct(4 * (nodeCount + 1)).asIntBuffer();
+        IntBuffer targets = direct(4 * edgeCount).asIntBuffer();
+        DoubleBuffer weights = direct(8 * edgeCount).asDoubleBuffer();
+        for (int i = 0; i < nodeCount; i++) {
+            index.intern(graph.getNode(i));
+            offsets.put(i, targets.position());
+            graph.forEachEdge(i, (dest, weight) -> {
+                targets.put(dest);
+                weights.put(weight);
+            });
+        }
+        offsets.put(nodeCount, targets.position());
+        targets.rewind();
+        weights.rewind();
+
+        return new BufferCsrGraph<>(index, offsets, targets, weights);
+    }
+
+    @Override
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public int edgeCount() {
+        return targets.limit();
+    }
+
+    @Override
+    public int indexOf(N node) {
+        if (index != null || table == null) {
+            return nodes().indexOf(node);
+        } else if (node == null) {
+            return -1;
+        }
+
+        byte[] bytes = PagedCsrGraph.encode(codec, node);
+        int mask = table.limit() - 1;
+        for (int slot = PagedCsrGraph.hash(bytes, 0, bytes.length) & mask; ;
+             slot = (slot + 1) & mask) {
+            int id = table.get(slot);
+            if (id < 0 || hasBytes(id, bytes)) {
+                return id;
+            }
+        }
+    }
+
+    @Override
+    public N getNode(int id) {
+        if (index != null || nodeOffsets == null) {
+            return nodes().get(id);
+        } else if (id < 0 || id >= nodeCount) {
+            throw new IndexOutOfBoundsException("No node with id " + id + ".");
+        }
+
+        ByteBuffer in = nodeBytes.duplicate();
+        in.position(nodeOffsets.get(id));
+        return codec.decode(in);
+    }
+
+    /**
+     * Returns an unmodifiable list of the nodes of this graph, where the
+     * node at index i has id i.
+     *
+     * @return a list of the nodes of this graph in id order.
+     */
+    public List<N> getNodes() {
+        return nodes().asList();
+    }
+
+    @Override
+    public int outDegree(int id) {
+        return offsets.get(id + 1) - offsets.get(id);
+    }
+
+    @Override
+    public void forEachEdge(int id, WeightedEdgeVisitor visitor) {
+        int end = offsets.get(id + 1);
+        for (int e = offsets.get(id); e < end; e++) {
+            visitor.visit(targets.get(e), weights.get(e));
+        }
+    }
+
+    /**
+     * Returns the id of the first edge leaving the specified node.
+     *
+     * @param id The id of the node.
+     * @throws IndexOutOfBoundsException if id is not a node id of this graph.
+     * @return the first edge id of the node.
+     */
+    public int edgesStart(int id) {
+        return offsets.get(id);
+    }
+
+    /**
+     * Returns one past the id of the last edge leaving the specified node.
+     *
+     * @param id The id of the node.
+     * @throws IndexOutOfBoundsException if id is not a node id of this graph.
+     * @return the exclusive upper bound of the edge ids of the node.
+     */
+    public int edgesEnd(int id) {
+        return offsets.get(id + 1);
+    }
+
+    /**
+     * Returns the id of the destination node of the specified edge.
+     *
+     * @param edge The id of the edge.
+     * @throws IndexOutOfBoundsException if edge is not an edge id of this graph.
+     * @return the node id that the edge points to.
+     */
+    public int edgeDest(int edge) {
+        return targets.get(edge);
+    }
+
+    /**
+     * Returns the weight of the specified edge.
+     *
+     * @param edge The id of the edge.
+     * @throws IndexOutOfBoundsException if edge is not an edge id of this graph.
+     * @return the weight of the edge.
+     */
+    public double edgeWeight(int edge) {
+        return weights.get(edge);
+    }
+
+    /**
+     * Returns a string representation of this graph, containing the
+     * nodes and weighted edges from each node in id order.
+     *
+     * @return a string of the edges of this graph, or "{}" if the graph
+     * is empty.
+     */
+    @Override
+    public String toString() {
+        if (nodeCount == 0) {
+            return "{}";
+        }
+
+        NodeIndex<N> nodes = nodes();
+        StringBuilder result = new StringBuilder();
+
+        for (int i = 0; i < nodeCount; i++) {
+            result.append(nodes.get(i)).append(": ");
+
+            for (int e = offsets.get(i); e < offsets.get(i + 1); e++) {
+                result.append("(").append(nodes.get(i)).append(" --[")
+                        .append(weights.get(e)).append("]--> ")
+                        .append(nodes.get(targets.get(e))).append(") ");
+            }
+            result.append("\n");
+        }
+
+        return result.toString();
+    }
+
+    // Returns an estimate of the heap bytes retained by this graph, not
+    // counting its nodes or the memory behind its buffers, which is
+    // mapped or direct rather than heap memory.
+    long estimatedBytes() {
+        // Each buffer object holds about 64 bytes of fields.
+        int buffers = 4 + (table == null ? 0 : 2);
+        return GraphStats.object(9 * GraphStats.REFERENCE + 4) + buffers * 64 +
+                (index == null ? 0 : NodeIndex.estimatedBytes(nodeCount));
+    }
+
+    // Returns the bytes of mapped or direct memory behind this graph's
+    // buffers, which is the capacity of each buffer.
+    long offHeapBytes() {
+        return 4L * offsets.capacity() + 4L * targets.capacity() +
+                8L * weights.capacity() +
+                (nodeBytes == null ? 0 : nodeBytes.capacity()) +
+                (nodeOffsets == null ? 0 : 4L * nodeOffsets.capacity()) +
+                (table == null ? 0 : 4L * table.capacity());
+    }
+
+    // Returns a new direct buffer of the given size in native byte order,
+    // which is the order its int and double views read fastest.
+    private static ByteBuffer direct(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    // Returns whether the encoded bytes of node id are bytes.
+    private boolean hasBytes(int id, byte[] bytes) {
+        int start = nodeOffsets.get(id);
+        if (nodeOffsets.get(id + 1) - start != bytes.length) {
+            return false;
+        }
+        for (int k = 0; k < bytes.length; k++) {
+            if (nodeBytes.get(start + k) != bytes[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Returns the decoded nodes, decoding them on first use.
+    private NodeIndex<N> nodes() {
+        NodeIndex<N> nodes = index;
+        if (nodes == null) {
+            synchronized (this) {
+                nodes = index;
+                if (nodes == null) {
+                    ByteBuffer in = nodeBytes.duplicate();
+                    nodes = new NodeIndex<>(nodeCount);
+                    for (int i = 0; i < nodeCount; i++) {
+                        nodes.intern(codec.decode(in));
+                    }
+                    if (nodes.size() != nodeCount) {
+                        throw new IllegalStateException("Snapshot contains" +
+                                " duplicate nodes.");
+                    }
+                    index = nodes;
+                }
+            }
+        }
+        return nodes;
+    }
+
+    // Checks if the rep invariant holds. Throws exception if the
+    // rep invariant is violated.
+    private void checkRep() {
+        if (DEBUG) {
+            assert (nodeBytes != null && codec != null) || index != null;
+            assert (nodeOffsets == null) == (table == null);
+            if (nodeOffsets != null) {
+                assert nodeBytes != null;
+                assert nodeOffsets.limit() == nodeCount + 1;
+                assert table.limit() == PagedCsrGraph.tableSize(nodeCount);
+            }
+            assert offsets.limit() == nodeCount + 1;
+            assert offsets.get(0) == 0;
+            for (int i = 0; i < nodeCount; i++) {
+                assert offsets.get(i) <= offsets.get(i + 1);
+            }
+            assert offsets.get(nodeCount) == targets.limit();
+            assert targets.limit() == weights.limit();
+            for (int e = 0; e < targets.limit(); e++) {
+                assert targets.get(e) >= 0 && targets.get(e) < nodeCount;
+            }
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package graph;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * <b>ConcurrentDirectLGraph</b> is a thread-safe, mutable representation of
+ * a directed labeled multigraph that can be read by any number of threads
+ * while other threads add and remove edges.
+ *
+ * Each node's outgoing edges are kept as an immutable set that is replaced
+ * as a whole whenever an edge of that node is added or removed. Readers
+ * therefore never take a lock and always see either the old or the new set
+ * of a node, never a partly updated one. Writers only lock the entry of the
+ * node whose edges they change, so edits to different nodes proceed in
+ * parallel. Nodes can be added but not removed.
+ *
+ * As in DirectLGraph, no two edges with the same parent and child nodes
+ * will have the same edge label, and no two nodes store equal data.
+ *
+ * @param <N> The type of nodes in the graph.
+ * @param <E> The type of edges in the graph.
+ */
+public class ConcurrentDirectLGraph<N,E> implements LGraphView<N,E> {
+
+    // ABSTRACTION FUNCTION:
+    //      AF(r) = Graph as a ConcurrentHashMap<N, Set<Edge<N,E>>> g
+    //      such that
+    //          "Graph is empty" = if g is empty.
+    //          "n1: " = if g contains node n1 and n1 has no children.
+    //          "n1: (n1 --[edge1]--> n2)" = if g contains node n1 with child
+    //          node n2 connected one-way by edge labeled "edge1".
+
+    // REPRESENTATION INVARIANT:
+    //      All nodes and edges in the graph != null.
+    //      Every edge set in nodeMap is unmodifiable and is never changed
+    //      after it is published.
+    //      Every edge in nodeMap.get(n) has source n and a destination
+    //      that is a key of nodeMap.
+    //      No two edges share the same source, destination, and label.
+
+
+    // Debug flag; change to TRUE to enable checkReps.
+    private static final boolean DEBUG = false;
+
+    private final ConcurrentMap<N, Set<Edge<N,E>>> nodeMap;
+
+    /**
+     * Creates a new thread-safe directed labeled multigraph.
+     *
+     * @spec.effects Constructs an empty ConcurrentDirectLGraph.
+     */
+    public ConcurrentDirectLGraph() {
+        this.nodeMap = new ConcurrentHashMap<>();
+        checkRep();
+    }
+
+    /**
+     * Returns a copy of the set of nodes in this graph.
+     *
+     * @return A set of the nodes contained in this graph.
+     */
+    @Override
+    public Set<N> getNodes() {
+        return new HashSet<>(this.nodeMap.keySet());
+    }
+
+    /**
+     * Returns an unmodifiable live view of the nodes in this graph. The
+     * view may be iterated while nodes are being added; the iteration
+     * sees every node that existed when it began and may or may not see
+     * nodes added since.
+     *
+     * @return A read-only view of the nodes contained in this graph.
+     */
+    @Override
+    public Set<N> getNodesView() {
+        return Collections.unmodifiableSet(this.nodeMap.keySet());
+    }
+
+    /**
+     * Returns a copy of the set of edges from the specified node.
+     *
+     * @param node The node to be queried.
+     * @throws NullPointerException if node == null or node is not in
+     * this graph.
+     * @return A set of all the edges from this node, or an empty set if
+     * there are no edges from this node.
+     */
+    @Override
+    public Set<Edge<N,E>> getEdges(N node) {
+        return new HashSet<>(edgesOf(node));
+    }
+
+    /**
+     * Returns the edges from the specified node as of this call. The
+     * returned set is an immutable snapshot: it does not reflect later
+     * changes, and may be read safely while the graph is modified.
+     *
+     * @param node The node to be queried.
+     * @throws NullPointerException if node == null or node is not in
+     * this graph.
+     * @return An unmodifiable snapshot of the edges from this node.
+     */
+    @Override
+    public Set<Edge<N,E>> getEdgesView(N node) {
+        return edgesOf(node);
+    }
+
+    /**
+     * Passes the destination and label of each edge from the specified
+     * node to an action. The edges passed are those of the node at the
+     * time of the call.
+     *
+     * @param node   The node to be queried.
+     * @param action The action that receives the destination and label
+     *               of each edge.
+     * @throws NullPointerException if node == null, node is not in this
+     * graph, or action == null.
+     */
+    @Override
+    public void forEachEdge(N node, BiConsumer<? super N, ? super E> action) {
+        if (action == null) {
+            throw new NullPointerException("Action cannot be null.");
+        }
+
+        for (Edge<N,E> edge : edgesOf(node)) {
+            action.accept(edge.getDest(), edge.getLabel());
+        }
+    }
+
+    /**
+     * Passes each child of the specified node to an action, once for
+     * every edge that leads to it. The edges followed are those of the
+     * node at the time of the call.
+     *
+     * @param node   The node to be queried.
+     * @param action The action that receives each child.
+     * @throws NullPointerException if node == null, node is not in this
+     * graph, or action == null.
+     */
+    @Override
+    public void forEachChild(N node, Consumer<? super N> action) {
+        if (action == null) {
+            throw new NullPointerException("Action cannot be null.");
+        }
+
+        for (Edge<N,E> edge : edgesOf(node)) {
+            action.accept(edge.getDest());
+        }
+    }
+
+    /**
+     * Returns whether this graph contains the specified node.
+     *
+     * @param node The node to be queried.
+     * @return TRUE if this graph contains the node; FALSE if not.
+     */
+    @Override
+    public boolean hasNode(N node) {
+        return node != null && this.nodeMap.containsKey(node);
+    }
+
+    /**
+     * Returns whether this graph contains the specified edge.
+     *
+     * @param source The starting node of the edge.
+     * @param dest   The ending node of the edge.
+     * @param label  The label of the edge to query.
+     * @return TRUE if this graph contains the edge; FALSE if not.
+     */
+    @Override
+    public boolean hasEdge(N source, N dest, E label) {
+        if (source == null || dest == null || label == null) {
+            return false;
+        }
+
+        Set<Edge<N,E>> edgeSet = this.nodeMap.get(source);
+        return edgeSet != null && edgeSet.contains(new Edge<>(source, dest, label));
+    }
+
+    /**
+     * Adds a node to this graph.
+     *
+     * @param node The new node to be added.
+     * @spec.effects Adds a node to the graph if the node does not already
+     * exist.
+     * @throws NullPointerException if node == null
+     * @return TRUE if the new node is successfully added; FALSE if the node
+     * already exists.
+     */
+    public boolean addNode(N node) {
+        if (node == null) {
+            throw new NullPointerException("Node cannot be null.");
+        }
+
+        return this.nodeMap.putIfAbsent(node, Collections.emptySet()) == null;
+    }
+
+    /**
+     * Creates a labeled edge between two nodes. Only the entry of source
+     * is locked while the edge is added.
+     *
+     * @param source The starting node of the edge.
+     * @param dest   The ending node of the edge.
+     * @param label  The label of the new edge to be added.
+     * @spec.effects Adds a new edge to the graph if both of the nodes
+     * exist and if the edge does not already exist.
+     * @throws NullPointerException if any argument is null.
+     * @return TRUE if the new edge is successfully added; FALSE if not
+     * (the edge already exists or the source or destination nodes do not
+     * exist.)
+     */
+    public boolean addEdge(N source, N dest, E label) {
+        if (source == null || dest == null || label == null) {
+            throw new NullPointerException("Source, destination, or label" +
+                    " cannot be null.");
+        } else if (!hasNode(dest)) {
+            return false;
+        }
+
+        Edge<N,E> newEdge = new Edge<>(source, dest, label);
+        boolean[] added = new boolean[1];
+        nodeMap.computeIfPresent(source, (node, edges) -> {
+            if (edges.contains(newEdge)) {
+                return edges;
+            }
+            Set<Edge<N,E>> copy = new HashSet<>(edges);
+            copy.add(newEdge);
+            added[0] = true;
+            return Collections.unmodifiableSet(copy);
+        });
+
+        checkRep();
+        return added[0];
+    }
+
+    /**
+     * Removes a specified edge between two nodes. Only the entry of source
+     * is locked while the edge is removed.
+     *
+     * @param source The starting node of the edge.
+     * @param dest   The ending node of the edge.
+     * @param label  The label of the edge to be removed.
+     * @spec.effects Removes the edge from the graph if it exists.
+     * @return TRUE if the edge is successfully removed; FALSE if the edge
+     * does not exist in the graph.
+     */
+    public boolean removeEdge(N source, N dest, E label) {
+        if (source == null || dest == null || label == null) {
+            return false;
+        }
+
+        Edge<N,E> edgeToRemove = new Edge<>(source, dest, label);
+        boolean[] removed = new boolean[1];
+        nodeMap.computeIfPresent(source, (node, edges) -> {
+            if (!edges.contains(edgeToRemove)) {
+                return edges;
+            }
+            Set<Edge<N,E>> copy = new HashSet<>(edges);
+            copy.remove(edgeToRemove);
+            removed[0] = true;
+            return copy.isEmpty() ? Collections.emptySet() :
+                    Collections.unmodifiableSet(copy);
+        });
+
+        checkRep();
+        return removed[0];
+    }
+
+    /**
+     * Returns a set of all the children of the specified node.
+     *
+     * @param node The node to be queried.
+     * @throws NullPointerException if node == null or node is not in
+     * this graph.
+     * @return A set of all the children from this node, or an empty set
+     * if there are no children from this node.
+     */
+    @Override
+    public Set<N> listChildren(N node) {
+        Set<N> children = new HashSet<>();
+        forEachChild(node, children::add);
+        return children;
+    }
+
+    /**
+     * Returns a string representation of this graph, containing the
+     * nodes and edges from each node.
+     *
+     * @return a string of the map of this graph or "{}" if the map is
+     * empty.
+     */
+    @Override
+    public String toString() {
+        if (nodeMap.isEmpty()) {
+            return "{}";
+        }
+
+        StringBuilder result = new StringBuilder();
+
+        for (Map.Entry<N, Set<Edge<N,E>>> entry : nodeMap.entrySet()) {
+            result.append(entry.getKey()).append(": ");
+
+            for (Edge<N,E> edge : entry.getValue()) {
+                result.append(edge.toString()).append(" ");
+            }
+            result.append("\n");
+        }
+
+        return result.toString();
+    }
+
+    // Returns the current edge set of node, throwing an exception if the
+    // node is null or not in this graph.
+    private Set<Edge<N,E>> edgesOf(N node) {
+        Set<Edge<N,E>> edges = node == null ? null : nodeMap.get(node);
+        if (edges == null) {
+            throw new NullPointerException("Node cannot be null.");
+        }
+        return edges;
+    }
+
+    // Checks if the rep invariant holds. Throws exception if the
+    // rep invariant is violated. Only the parts of the invariant that
+    // cannot be changed by concurrent writers are checked.
+    private void checkRep() {
+        if (DEBUG) {
+            for (Map.Entry<N, Set<Edge<N,E>>> entry : nodeMap.entrySet()) {
+                for (Edge<N,E> edge : entry.getValue()) {
+                    assert edge != null;
+                    assert edge.getSource().equals(entry.getKey());
+                    assert nodeMap.containsKey(edge.getDest());
+                }
+            }
+        }
+    }
+}
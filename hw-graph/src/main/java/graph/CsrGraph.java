@@ -0,0 +1,304 @@
+package graph;
+import java.util.*;
+
+/**
+ * <b>CsrGraph</b> is an immutable snapshot of a directed multigraph with
+ * numeric edge weights, stored in compressed sparse row (CSR) form.
+ *
+ * Each node is identified by a dense integer id in [0..nodeCount() - 1].
+ * The outgoing edges of node i occupy the edge ids in
+ * [edgesStart(i)..edgesEnd(i) - 1], and each edge id maps to the id of its
+ * destination node and its weight. All lookups are array reads, so walking
+ * a node's edges allocates nothing.
+ *
+ * Since a CsrGraph cannot be modified after it is created, it is safe to
+ * share a single instance between any number of threads.
+ *
+ * @param <N> The type of nodes in the graph.
+ */
+public final class CsrGraph<N> implements WeightedGraph<N> {
+
+    // ABSTRACTION FUNCTION:
+    //      CsrGraph is a directed weighted multigraph such that
+    //          node i = index.get(i), for 0 <= i < index.size().
+    //          the edges from node i = for each e in
+    //          [offsets[i]..offsets[i + 1] - 1], an edge from node i to
+    //          node targets[e] with weight weights[e].
+
+    // REPRESENTATION INVARIANT:
+    //      index, offsets, targets, weights != null.
+    //      index is never modified.
+    //      offsets.length == index.size() + 1, offsets[0] == 0,
+    //      offsets is non-decreasing, and
+    //      offsets[index.size()] == targets.length == weights.length.
+    //      0 <= targets[e] < index.size() for all e.
+
+
+    // Debug flag; change to TRUE to enable checkReps.
+    private static final boolean DEBUG = false;
+
+    private final NodeIndex<N> index;
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] weights;
+
+    /**
+     * Creates a new CsrGraph from arrays that are already in CSR form.
+     * The index and arrays are not copied; callers must not modify them
+     * afterward.
+     *
+     * @param index   The ids of the nodes of the graph.
+     * @param offsets The first edge id of each node, followed by the total
+     *                number of edges.
+     * @param targets The destination node id of each edge.
+     * @param weights The weight of each edge.
+     * @spec.requires the arguments satisfy the representation invariant.
+     * @spec.effects Constructs a new CsrGraph.
+     */
+    CsrGraph(NodeIndex<N> index, int[] offsets, int[] targets, double[] weights) {
+        this.index = index;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        checkRep();
+    }
+
+    /**
+     * Returns the reverse of a graph: a graph with the same nodes and node
+     * ids, with an edge from j to i of weight w for each edge from i to j
+     * of weight w in the graph. Searches that work backward from a
+     * destination, such as bidirectional searches, read the edges into a
+     * node from the reverse graph's edges out of it.
+     *
+     * The edges into each node are listed in order of their source's id,
+     * and then in the order the graph lists them.
+     *
+     * @param graph The graph to reverse.
+     * @param <N>   The type of nodes in the graph.
+     * @throws NullPointerException if graph == null
+     * @return a new CsrGraph with the edges of graph reversed.
+     */
+    public static <N> CsrGraph<N> reverseOf(WeightedGraph<N> graph) {
+        int nodeCount = graph.nodeCount();
+        NodeIndex<N> index = new NodeIndex<>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            index.intern(graph.getNode(i));
+        }
+
+        // Count the edges into each node, then place each edge after the
+        // edges into its destination from lower source ids.
+        int[] offsets = new int[nodeCount + 1];
+        for (int i = 0; i < nodeCount; i++) {
+            graph.forEachEdge(i, (dest, weight) -> offsets[dest + 1]++);
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        int[] targets = new int[offsets[nodeCount]];
+        double[] weights = new double[offsets[nodeCount]];
+        int[] next = Arrays.copyOf(offsets, nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            int source = i;
+            graph.forEachEdge(i, (dest, weight) -> {
+                int e = next[dest]++;
+                targets[e] = source;
+                weights[e] = weight;
+            });
+        }
+        return new CsrGraph<>(index, offsets, targets, weights);
+    }
+
+    /**
+     * Returns the number of nodes in this graph.
+     *
+     * @return the number of nodes in this graph.
+     */
+    @Override
+    public int nodeCount() {
+        return index.size();
+    }
+
+    /**
+     * Returns the number of edges in this graph, counting each parallel
+     * edge separately.
+     *
+     * @return the number of edges in this graph.
+     */
+    @Override
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * Returns whether this graph contains the specified node.
+     *
+     * @param node The node to be queried.
+     * @return TRUE if this graph contains the node; FALSE if not.
+     */
+    @Override
+    public boolean hasNode(N node) {
+        return index.contains(node);
+    }
+
+    /**
+     * Returns the id of the specified node.
+     *
+     * @param node The node to be queried.
+     * @return the id of the node, or -1 if the node is not in this graph.
+     */
+    @Override
+    public int indexOf(N node) {
+        return index.indexOf(node);
+    }
+
+    /**
+     * Returns the node with the specified id.
+     *
+     * @param id The id of the node.
+     * @throws IndexOutOfBoundsException if id is not a node id of this graph.
+     * @return the node with the specified id.
+     */
+    @Override
+    public N getNode(int id) {
+        return index.get(id);
+    }
+
+    /**
+     * Returns an unmodifiable list of the nodes of this graph, where the
+     * node at index i has id i.
+     *
+     * @return a list of the nodes of this graph in id order.
+     */
+    public List<N> getNodes() {
+        return index.asList();
+    }
+
+    /**
+     * Returns the number of edges leaving the specified node.
+     *
+     * @param id The id of the node.
+     * @throws IndexOutOfBoundsException if id is not a node id of this graph.
+     * @return the out-degree of the node.
+     */
+    @Override
+    public int outDegree(int id) {
+        return offsets[id + 1] - offsets[id];
+    }
+
+    /**
+     * Passes each edge leaving the specified node to a visitor, in edge
+     * id order.
+     *
+     * @param id      The id of the node.
+     * @param visitor The visitor that receives each edge.
+     * @throws IndexOutOfBoundsException if id is not a node id of this graph.
+     * @spec.requires visitor != null
+     */
+    @Override
+    public void forEachEdge(int id, WeightedEdgeVisitor visitor) {
+        for (int e = offsets[id]; e < offsets[id + 1]; e++) {
+            visitor.visit(targets[e], weights[e]);
+        }
+    }
+
+    /**
+     * Returns the id of the first edge leaving the specified node.
+     *
+     * @param id The id of the node.
+     * @throws IndexOutOfBoundsException if id is not a node id of this graph.
+     * @return the first edge id of the node.
+     */
+    public int edgesStart(int id) {
+        return offsets[id];
+    }
+
+    /**
+     * Returns one past the id of the last edge leaving the specified node.
+     *
+     * @param id The id of the node.
+     * @throws IndexOutOfBoundsException if id is not a node id of this graph.
+     * @return the exclusive upper bound of the edge ids of the node.
+     */
+    public int edgesEnd(int id) {
+        return offsets[id + 1];
+    }
+
+    /**
+     * Returns the id of the destination node of the specified edge.
+     *
+     * @param edge The id of the edge.
+     * @throws IndexOutOfBoundsException if edge is not an edge id of this graph.
+     * @return the node id that the edge points to.
+     */
+    public int edgeDest(int edge) {
+        return targets[edge];
+    }
+
+    /**
+     * Returns the weight of the specified edge.
+     *
+     * @param edge The id of the edge.
+     * @throws IndexOutOfBoundsException if edge is not an edge id of this graph.
+     * @return the weight of the edge.
+     */
+    public double edgeWeight(int edge) {
+        return weights[edge];
+    }
+
+    /**
+     * Returns a string representation of this graph, containing the
+     * nodes and weighted edges from each node in id order.
+     *
+     * @return a string of the edges of this graph, or "{}" if the graph
+     * is empty.
+     */
+    @Override
+    public String toString() {
+        if (index.size() == 0) {
+            return "{}";
+        }
+
+        StringBuilder result = new StringBuilder();
+
+        for (int i = 0; i < index.size(); i++) {
+            result.append(index.get(i)).append(": ");
+
+            for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                result.append("(").append(index.get(i)).append(" --[")
+                        .append(weights[e]).append("]--> ")
+                        .append(index.get(targets[e])).append(") ");
+            }
+            result.append("\n");
+        }
+
+        return result.toString();
+    }
+
+    // Returns an estimate of the heap bytes retained by this graph, not
+    // counting its nodes.
+    long estimatedBytes() {
+        return GraphStats.object(4 * GraphStats.REFERENCE) +
+                NodeIndex.estimatedBytes(index.size()) +
+                GraphStats.intArray(offsets.length) +
+                GraphStats.intArray(targets.length) +
+                GraphStats.doubleArray(weights.length);
+    }
+
+    // Checks if the rep invariant holds. Throws exception if the
+    // rep invariant is violated.
+    private void checkRep() {
+        if (DEBUG) {
+            assert offsets.length == index.size() + 1;
+            assert offsets[0] == 0;
+            for (int i = 0; i < index.size(); i++) {
+                assert offsets[i] <= offsets[i + 1];
+            }
+            assert offsets[index.size()] == targets.length;
+            assert targets.length == weights.length;
+            for (int target : targets) {
+                assert target >= 0 && target < index.size();
+            }
+        }
+    }
+}
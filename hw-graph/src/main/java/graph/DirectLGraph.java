@@ -1,5 +1,11 @@
 package graph;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
 
 /**
  * <b>DirectLGraph</b> is a mutable representation of a directed labeled
@@ -12,32 +18,67 @@ import java.util.*;
  * No two edges with the same parent and child nodes will have the same edge
  * label, and no two nodes store equal data.
  *
+ * Each node keeps its edges as (destination, label) pairs, without Edge
+ * objects. Nodes with few edges, which in road-like graphs is nearly all
+ * of them, keep the pairs in small arrays; nodes with many edges keep them
+ * hashed by destination. Edge objects are made only when edges are read
+ * through getEdges, getEdgesView and similar methods; forEachEdge and
+ * forEachChild read the pairs directly.
+ *
+ * The views, streams and writeTo visit nodes in the order they were added,
+ * and the edges of each node in the order they were added, except that
+ * the edges of a node with many edges are grouped by child. The order
+ * does not depend on hash codes, so a graph built the same way is always
+ * written the same way.
+ *
+ * GraphListeners can be registered to hear of each change, and version
+ * counts the changes made, so that caches built from the graph can be
+ * updated instead of rebuilt; GraphChangeLog keeps a bounded history of
+ * them.
+ *
  * @param <N> The type of nodes in the graph.
  * @param <E> The type of edges in the graph.
  *
  */
-public class DirectLGraph<N,E> {
+public class DirectLGraph<N,E> implements LGraphView<N,E> {
 
     // ABSTRACTION FUNCTION:
     //      DirectLGraph is a directed labeled multigraph that stores
     //      nodes and one-way labeled edges connected to each node.
     //
-    //      AF(r) = Graph as a HashMap<N, Set<Edge<N,E>>> g such that
+    //      AF(r) = Graph as a HashMap<N, Adjacency<N,E>> g such that
     //          "Graph is empty" = if g is empty.
     //          "n1: " = if g contains node n1 and n1 has no children.
-    //          "n1: (n1 --[edge1]--> n2)" = if g contains node n1 with child
+    //          "n1: (n1 --[edge1]--> n2)" = if g contains node n1 and
+    //          g.get(n1) holds the pair (n2, "edge1"), so n1 has child
     //          node n2 connected one-way by edge labeled "edge1".
+    //
+    //      If incomingMap != null, it is an index of the same edges keyed
+    //      by destination: incomingMap.get(n2) holds the pair (n1, l) for
+    //      every edge of g from n1 to n2 with label l.
 
     // REPRESENTATION INVARIANT:
     //      All nodes and edges in the graph != null.
     //      No nodes store the same name.
     //      No two edges share the same source, destination, and label.
+    //      Every destination in nodeMap.get(n) is a key of nodeMap.
+    //      If incomingMap != null, incomingMap has the same keys as
+    //      nodeMap, and incomingMap.get(n2) holds (n1, l) if and only if
+    //      nodeMap.get(n1) holds (n2, l).
+    //      listeners != null and contains no nulls, and version >= 0.
 
 
     // Debug flag; change to TRUE to enable checkReps.
     private static final boolean DEBUG = false;
 
-    private final Map<N, Set<Edge<N,E>>> nodeMap;
+    private final Map<N, Adjacency<N,E>> nodeMap;
+
+    // Incoming edges of each node, or null if not indexed.
+    private final Map<N, Adjacency<N,E>> incomingMap;
+
+    // Listeners told of each change, and the number of changes made.
+    private final List<GraphListener<? super N, ? super E>> listeners;
+    private long version;
 
     /**
      * Creates a new directed labeled multigraph.
@@ -45,10 +86,72 @@ public class DirectLGraph<N,E> {
      * @spec.effects Constructs an empty DirectLGraph.
      */
     public DirectLGraph() {
-        this.nodeMap = new HashMap<>();
+        this(false);
+    }
+
+    /**
+     * Creates a new directed labeled multigraph that can optionally keep
+     * an index of the incoming edges of each node. The index makes
+     * getIncomingEdges, listParents and removeNode take time
+     * proportional to the degree of the node instead of the size of the
+     * graph, at the cost of one more set entry per edge.
+     *
+     * @param indexIncoming TRUE to keep an index of incoming edges.
+     * @spec.effects Constructs an empty DirectLGraph.
+     */
+    public DirectLGraph(boolean indexIncoming) {
+        this.nodeMap = new LinkedHashMap<>();
+        this.incomingMap = indexIncoming ? new HashMap<>() : null;
+        this.listeners = new ArrayList<>(0);
         checkRep();
     }
 
+    /**
+     * Returns whether this graph keeps an index of incoming edges.
+     *
+     * @return TRUE if incoming edges are indexed; FALSE if not.
+     */
+    public boolean hasIncomingIndex() {
+        return incomingMap != null;
+    }
+
+    /**
+     * Registers a listener to be told of every later change to this
+     * graph. See GraphListener for the order of the calls.
+     *
+     * @param listener The listener to add.
+     * @throws NullPointerException if listener == null
+     * @spec.effects Adds listener to the listeners of this graph.
+     */
+    public void addListener(GraphListener<? super N, ? super E> listener) {
+        if (listener == null) {
+            throw new NullPointerException("Listener cannot be null.");
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener added with addListener.
+     *
+     * @param listener The listener to remove.
+     * @spec.effects Removes listener from the listeners of this graph.
+     * @return TRUE if the listener was registered; FALSE if not.
+     */
+    public boolean removeListener(GraphListener<? super N, ? super E> listener) {
+        return listeners.remove(listener);
+    }
+
+    /**
+     * Returns the version of this graph, which starts at 0 and increases
+     * by one with each change: each node or edge added or removed,
+     * counting each edge removed along with a node.
+     *
+     * @return the number of changes made to this graph.
+     */
+    public long version() {
+        return version;
+    }
+
 
     /**
      * Returns a set of all the nodes in this graph in
@@ -56,6 +159,7 @@ public class DirectLGraph<N,E> {
      *
      * @return A set of the nodes contained in this graph.
      */
+    @Override
     public Set<N> getNodes() {
         checkRep();
         return new HashSet<>(this.nodeMap.keySet());
@@ -70,6 +174,7 @@ public class DirectLGraph<N,E> {
      * if there are no edges from this node, or null if the specified
      * node does not exist in the graph.
      */
+    @Override
     public Set<Edge<N,E>> getEdges(N node) {
         checkRep();
 
@@ -77,8 +182,122 @@ public class DirectLGraph<N,E> {
             throw new NullPointerException("Node cannot be null.");
         }
 
+        Set<Edge<N,E>> edges = new HashSet<>();
+        nodeMap.get(node).forEach((dest, label) -> edges.add(new Edge<>(node, dest, label)));
+
+        checkRep();
+        return edges;
+    }
+
+    /**
+     * Returns an unmodifiable live view of the nodes in this graph.
+     * Unlike getNodes, no copy is made: the view reflects later changes
+     * to this graph, and must not be iterated while the graph is being
+     * modified.
+     *
+     * @return A read-only view of the nodes contained in this graph.
+     */
+    @Override
+    public Set<N> getNodesView() {
+        checkRep();
+        return Collections.unmodifiableSet(this.nodeMap.keySet());
+    }
+
+    /**
+     * Returns an unmodifiable live view of the edges from the specified
+     * node. Unlike getEdges, no copy is made: the view reflects later
+     * changes to this graph, and must not be iterated while the graph is
+     * being modified. The view makes a new Edge for each edge it returns.
+     *
+     * @param node The node to be queried.
+     * @throws NullPointerException if node == null or node is not in
+     * this graph.
+     * @return A read-only view of the edges from this node.
+     */
+    @Override
+    public Set<Edge<N,E>> getEdgesView(N node) {
+        checkRep();
+
+        if (node == null || !hasNode(node)) {
+            throw new NullPointerException("Node cannot be null.");
+        }
+
+        return new EdgesView(node, nodeMap.get(node));
+    }
+
+    /**
+     * Passes the destination and label of each edge from the specified
+     * node to an action, without copying the node's edges.
+     *
+     * @param node   The node to be queried.
+     * @param action The action that receives the destination and label
+     *               of each edge.
+     * @throws NullPointerException if node == null, node is not in this
+     * graph, or action == null.
+     * @spec.requires action does not modify this graph.
+     */
+    @Override
+    public void forEachEdge(N node, BiConsumer<? super N, ? super E> action) {
+        checkRep();
+
+        if (node == null || !hasNode(node) || action == null) {
+            throw new NullPointerException("Node and action cannot be null.");
+        }
+
+        nodeMap.get(node).forEach(action);
+    }
+
+    /**
+     * Passes each child of the specified node to an action, without
+     * copying the node's edges. A child is passed once for every edge
+     * that leads to it, so a child reached by parallel edges is passed
+     * more than once.
+     *
+     * @param node   The node to be queried.
+     * @param action The action that receives each child.
+     * @throws NullPointerException if node == null, node is not in this
+     * graph, or action == null.
+     * @spec.requires action does not modify this graph.
+     */
+    @Override
+    public void forEachChild(N node, Consumer<? super N> action) {
         checkRep();
-        return new HashSet<>(nodeMap.get(node));
+
+        if (node == null || !hasNode(node) || action == null) {
+            throw new NullPointerException("Node and action cannot be null.");
+        }
+
+        nodeMap.get(node).forEachOther(action);
+    }
+
+    /**
+     * Returns a stream of the nodes in this graph, backed by the
+     * splittable spliterator of the graph's node table, so that a
+     * parallel stream divides the nodes evenly between threads.
+     *
+     * @spec.requires this graph is not modified while the stream is used.
+     * @return a stream of the nodes contained in this graph.
+     */
+    @Override
+    public Stream<N> nodes() {
+        checkRep();
+        return nodeMap.keySet().stream();
+    }
+
+    /**
+     * Returns a stream of every edge in this graph, backed by the
+     * splittable spliterator of the graph's node table. A parallel stream
+     * divides the nodes between threads and streams the edges of each
+     * node without copying them or looking the node up again.
+     *
+     * @spec.requires this graph is not modified while the stream is used.
+     * @return a stream of the edges contained in this graph.
+     */
+    @Override
+    public Stream<Edge<N,E>> edges() {
+        checkRep();
+        return nodeMap.entrySet().stream().flatMap(entry ->
+                new EdgesView(entry.getKey(), entry.getValue()).stream());
     }
 
     /**
@@ -88,6 +307,7 @@ public class DirectLGraph<N,E> {
      * @spec.requires node != null
      * @return TRUE if this graph contains the node; FALSE if not.
      */
+    @Override
     public boolean hasNode(N node) {
         checkRep();
         return this.nodeMap.containsKey(node);
@@ -103,20 +323,62 @@ public class DirectLGraph<N,E> {
      * @spec.requires source != null, dest != null, label != null
      * @return TRUE if this graph contains the edge; FALSE if not.
      */
+    @Override
     public boolean hasEdge(N source, N dest, E label) {
         checkRep();
         if (source == null || dest == null || label == null) {
             return false;
         }
 
-        Edge<N,E> edgeToFind = new Edge<>(source, dest, label);
-        Set<Edge<N,E>> edgeSet = this.nodeMap.get(source);
+        Adjacency<N,E> edges = nodeMap.get(source);
+        return edges != null && edges.contains(dest, label);
+    }
 
-        if (edgeSet == null) {
-            return false;
+    /**
+     * Returns the edge from one node to another with the least label, in
+     * the natural ordering of labels. Among parallel edges, this is the
+     * one a shortest-path search needs, so the others can be skipped.
+     * For a node with few edges this is a scan of those edges; for a node
+     * whose edges are hashed, the least edge to each child is remembered
+     * between calls, so this takes constant time unless that edge has
+     * been removed since the last call.
+     *
+     * @param source The starting node of the edge.
+     * @param dest   The ending node of the edge.
+     * @throws ClassCastException if the labels of the edges from source
+     * to dest are not mutually Comparable.
+     * @return the edge from source to dest with the least label, or null
+     * if there is no edge from source to dest.
+     */
+    public Edge<N,E> getCheapestEdge(N source, N dest) {
+        checkRep();
+        Adjacency<N,E> edges = nodeMap.get(source);
+        E label = edges == null ? null : edges.cheapest(dest);
+        return label == null ? null : new Edge<>(source, dest, label);
+    }
+
+    /**
+     * Passes the destination and label of the cheapest edge (as defined
+     * by getCheapestEdge) from the specified node to each of its children,
+     * skipping the other parallel edges.
+     *
+     * @param node   The node to be queried.
+     * @param action The action that receives the destination and label
+     *               of each cheapest edge.
+     * @throws NullPointerException if node == null, node is not in this
+     * graph, or action == null.
+     * @throws ClassCastException if the labels of parallel edges are not
+     * mutually Comparable.
+     * @spec.requires action does not modify this graph.
+     */
+    public void forEachCheapestEdge(N node, BiConsumer<? super N, ? super E> action) {
+        checkRep();
+
+        if (node == null || !hasNode(node) || action == null) {
+            throw new NullPointerException("Node and action cannot be null.");
         }
 
-        return edgeSet.contains(edgeToFind);
+        nodeMap.get(node).forEachCheapest(action);
     }
 
     /**
@@ -135,7 +397,80 @@ public class DirectLGraph<N,E> {
             return false;
         }
 
-        this.nodeMap.put(node, new HashSet<>());
+        this.nodeMap.put(node, new Adjacency<>());
+        if (incomingMap != null) {
+            this.incomingMap.put(node, new Adjacency<>());
+        }
+
+        version++;
+        for (GraphListener<? super N, ? super E> listener : listeners) {
+            listener.nodeAdded(node);
+        }
+        return true;
+    }
+
+    /**
+     * Removes a node from this graph, along with every edge to or from it.
+     *
+     * @param node The node to be removed.
+     * @spec.effects Removes the node and its edges from the graph if the
+     * node exists.
+     * @return TRUE if the node is successfully removed; FALSE if the node
+     * does not exist in the graph.
+     */
+    public boolean removeNode(N node) {
+        checkRep();
+        if (node == null || !hasNode(node)) {
+            return false;
+        }
+
+        // Listeners are told of each edge removed, so collect them first.
+        List<Edge<N,E>> removedEdges = null;
+        if (!listeners.isEmpty()) {
+            removedEdges = new ArrayList<>(getEdgesView(node));
+            for (Edge<N,E> edge : getIncomingEdges(node)) {
+                if (!edge.getSource().equals(node)) {
+                    removedEdges.add(edge);
+                }
+            }
+        }
+
+        Adjacency<N,E> outgoing = nodeMap.remove(node);
+        int[] removedCount = {outgoing.size()};
+        if (incomingMap != null) {
+            // Reflexive edges were already removed with outgoing.
+            incomingMap.remove(node).forEachOther(source -> {
+                if (!source.equals(node)) {
+                    removedCount[0] += nodeMap.get(source).removeAll(node);
+                }
+            });
+            outgoing.forEachOther(dest -> {
+                if (!dest.equals(node)) {
+                    incomingMap.get(dest).removeAll(node);
+                }
+            });
+        } else {
+            for (Adjacency<N,E> edges : nodeMap.values()) {
+                removedCount[0] += edges.removeAll(node);
+            }
+        }
+
+        if (removedEdges == null) {
+            version += removedCount[0] + 1;
+        } else {
+            for (Edge<N,E> edge : removedEdges) {
+                version++;
+                for (GraphListener<? super N, ? super E> listener : listeners) {
+                    listener.edgeRemoved(edge.getSource(), edge.getDest(), edge.getLabel());
+                }
+            }
+            version++;
+            for (GraphListener<? super N, ? super E> listener : listeners) {
+                listener.nodeRemoved(node);
+            }
+        }
+
+        checkRep();
         return true;
     }
 
@@ -161,8 +496,18 @@ public class DirectLGraph<N,E> {
             return false;
         }
 
-        Edge<N,E> newEdge = new Edge<>(source, dest, label);
-        return nodeMap.get(source).add(newEdge);
+        if (!nodeMap.get(source).add(dest, label)) {
+            return false;
+        }
+        if (incomingMap != null) {
+            incomingMap.get(dest).add(source, label);
+        }
+
+        version++;
+        for (GraphListener<? super N, ? super E> listener : listeners) {
+            listener.edgeAdded(source, dest, label);
+        }
+        return true;
     }
 
     /**
@@ -178,12 +523,22 @@ public class DirectLGraph<N,E> {
      */
     public boolean removeEdge(N source, N dest, E label) {
         checkRep();
-        if (!hasEdge(source, dest, label)) {
+        if (source == null || dest == null || label == null) {
             return false;
         }
 
-        Edge<N,E> edgeToRemove = new Edge<>(source, dest, label);
-        nodeMap.get(source).remove(edgeToRemove);
+        Adjacency<N,E> outgoing = nodeMap.get(source);
+        if (outgoing == null || !outgoing.remove(dest, label)) {
+            return false;
+        }
+        if (incomingMap != null) {
+            incomingMap.get(dest).remove(source, label);
+        }
+
+        version++;
+        for (GraphListener<? super N, ? super E> listener : listeners) {
+            listener.edgeRemoved(source, dest, label);
+        }
         return true;
     }
 
@@ -196,23 +551,118 @@ public class DirectLGraph<N,E> {
      * if there are no children from this node, or null if the specified
      * node does not exist in the graph.
      */
+    @Override
     public Set<N> listChildren(N node) {
         checkRep();
 
-        Set<Edge<N,E>> edges = new HashSet<>(getEdges(node));
         Set<N> children = new HashSet<>();
+        forEachChild(node, children::add);
+
+        checkRep();
+        return children;
+    }
 
-        for (Edge<N,E> nextEdge : edges) {
-            children.add(nextEdge.getDest());
+    /**
+     * Returns a set of all the edges that point to the specified node.
+     * This takes time proportional to the in-degree of the node if
+     * incoming edges are indexed, and to the size of the graph if not.
+     *
+     * @param node The node to be queried.
+     * @throws NullPointerException if node == null or node is not in
+     * this graph.
+     * @return A set of all the edges to this node, or an empty set if
+     * there are no edges to this node.
+     */
+    public Set<Edge<N,E>> getIncomingEdges(N node) {
+        checkRep();
+
+        if (node == null || !hasNode(node)) {
+            throw new NullPointerException("Node cannot be null.");
+        }
+
+        Set<Edge<N,E>> incoming = new HashSet<>();
+        if (incomingMap != null) {
+            incomingMap.get(node).forEach((source, label) ->
+                    incoming.add(new Edge<>(source, node, label)));
+            return incoming;
         }
 
+        for (Map.Entry<N, Adjacency<N,E>> entry : nodeMap.entrySet()) {
+            entry.getValue().forEach((dest, label) -> {
+                if (dest.equals(node)) {
+                    incoming.add(new Edge<>(entry.getKey(), node, label));
+                }
+            });
+        }
+        return incoming;
+    }
+
+    /**
+     * Returns a set of all the parents of the specified node, that is,
+     * the nodes with an edge to it.
+     *
+     * @param node The node to be queried.
+     * @throws NullPointerException if node == null or node is not in
+     * this graph.
+     * @return A set of all the parents of this node, or an empty set if
+     * there are no edges to this node.
+     */
+    public Set<N> listParents(N node) {
         checkRep();
-        return children;
+
+        Set<N> parents = new HashSet<>();
+        for (Edge<N,E> edge : getIncomingEdges(node)) {
+            parents.add(edge.getSource());
+        }
+
+        checkRep();
+        return parents;
+    }
+
+    /**
+     * Returns an immutable compressed sparse row snapshot of this graph,
+     * where each edge label is converted to a numeric weight. Later
+     * changes to this graph are not reflected in the snapshot.
+     *
+     * @param weight The function that converts an edge label to its weight.
+     * @throws NullPointerException if weight == null
+     * @return a new CsrGraph containing the nodes and edges of this graph.
+     */
+    public CsrGraph<N> freeze(ToDoubleFunction<? super E> weight) {
+        checkRep();
+        if (weight == null) {
+            throw new NullPointerException("Weight function cannot be null.");
+        }
+
+        NodeIndex<N> index = NodeIndex.of(nodeMap.keySet());
+        int edgeCount = 0;
+        for (Adjacency<N,E> edges : nodeMap.values()) {
+            edgeCount += edges.size();
+        }
+
+        int[] offsets = new int[index.size() + 1];
+        int[] targets = new int[edgeCount];
+        double[] weights = new double[edgeCount];
+        int[] next = {0};
+
+        for (int i = 0; i < index.size(); i++) {
+            offsets[i] = next[0];
+            nodeMap.get(index.get(i)).forEach((dest, label) -> {
+                targets[next[0]] = index.indexOf(dest);
+                weights[next[0]] = weight.applyAsDouble(label);
+                next[0]++;
+            });
+        }
+        offsets[index.size()] = next[0];
+
+        return new CsrGraph<>(index, offsets, targets, weights);
     }
 
     /**
      * Returns a string representation of this graph, containing the
-     * nodes and edges from each node.
+     * nodes and edges from each node in the same order as writeTo. The
+     * whole graph is built into one string; use writeTo to write a large
+     * graph without doing so.
      *
      * @return a string of the map of this graph or a blank line
      * if the map is empty.
@@ -225,17 +675,67 @@ public class DirectLGraph<N,E> {
         }
 
         StringBuilder result = new StringBuilder();
+        try {
+            writeTo(result);
+        } catch (IOException e) {
+            // A StringBuilder never throws IOException.
+            throw new UncheckedIOException(e);
+        }
+        return result.toString();
+    }
 
-        for (N node : nodeMap.keySet()) {
-            result.append(node).append(": ");
+    // Returns an estimate of the heap bytes retained by this graph, not
+    // counting its nodes and labels.
+    long estimatedBytes() {
+        long bytes = GraphStats.object(3 * GraphStats.REFERENCE + 8) +
+                GraphStats.object(4 + 2 * GraphStats.REFERENCE) +
+                GraphStats.referenceArray(listeners.size()) +
+                GraphStats.linkedHashMap(nodeMap.size());
+        for (Adjacency<N,E> edges : nodeMap.values()) {
+            bytes += edges.estimatedBytes();
+        }
 
-            for (Edge<N,E> edge : nodeMap.get(node)) {
-                result.append(edge.toString()).append(" ");
+        if (incomingMap != null) {
+            bytes += GraphStats.hashMap(incomingMap.size());
+            for (Adjacency<N,E> edges : incomingMap.values()) {
+                bytes += edges.estimatedBytes();
             }
-            result.append("\n");
         }
+        return bytes;
+    }
 
-        return result.toString();
+    /**
+     * An unmodifiable live view of the edges from one node, which makes an
+     * Edge for each pair of the node's Adjacency as it is read.
+     */
+    private final class EdgesView extends AbstractSet<Edge<N,E>> {
+        private final N source;
+        private final Adjacency<N,E> edges;
+
+        private EdgesView(N source, Adjacency<N,E> edges) {
+            this.source = source;
+            this.edges = edges;
+        }
+
+        @Override
+        public int size() {
+            return edges.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Edge)) {
+                return false;
+            }
+            Edge<?,?> edge = (Edge<?,?>) o;
+            return source.equals(edge.getSource()) &&
+                    edges.contains(edge.getDest(), edge.getLabel());
+        }
+
+        @Override
+        public Iterator<Edge<N,E>> iterator() {
+            return edges.iterator((dest, label) -> new Edge<>(source, dest, label));
+        }
     }
 
     // Checks if the rep invariant holds. Throws exception if the
@@ -243,21 +743,31 @@ public class DirectLGraph<N,E> {
 
     private void checkRep() {
         if (DEBUG) {
-            // Check for any null keys, edge sets, or edges.
+            // Check for any null keys or edge sets.
             assert !(nodeMap.containsKey(null));
             assert !(nodeMap.containsValue(null));
-            for (N node : nodeMap.keySet()) {
-                assert !nodeMap.get(node).contains(null);
-            }
 
-            // Verify that no nodes store the same name data.
-            Set<N> checkNodes = new HashSet<>(nodeMap.keySet());
-            assert (checkNodes.size() == nodeMap.keySet().size());
+            // Check that every edge leads to a node of the graph.
+            for (Adjacency<N,E> edges : nodeMap.values()) {
+                edges.forEachOther(dest -> {
+                    assert nodeMap.containsKey(dest);
+                });
+            }
 
-            // Check for any identical edges.
-            for (N node : checkNodes) {
-                Set<Edge<N,E>> checkEdges = new HashSet<>(nodeMap.get(node));
-                assert (checkEdges.size() == nodeMap.get(node).size());
+            // Check that the incoming index matches the outgoing edges.
+            if (incomingMap != null) {
+                assert incomingMap.keySet().equals(nodeMap.keySet());
+                int outgoingCount = 0;
+                int incomingCount = 0;
+                for (Map.Entry<N, Adjacency<N,E>> entry : nodeMap.entrySet()) {
+                    N node = entry.getKey();
+                    entry.getValue().forEach((dest, label) -> {
+                        assert incomingMap.get(dest).contains(node, label);
+                    });
+                    outgoingCount += entry.getValue().size();
+                    incomingCount += incomingMap.get(node).size();
+                }
+                assert outgoingCount == incomingCount;
             }
         }
     }
@@ -0,0 +1,371 @@
+package graph;
+import java.util.*;
+
+/**
+ * <b>DirectWGraph</b> is a mutable representation of a directed weighted
+ * multigraph whose edge weights are stored as primitive doubles.
+ *
+ * It behaves like a DirectLGraph with Double labels, but keeps each node's
+ * outgoing edges in parallel arrays of destination ids and weights instead
+ * of sets of Edge objects, so that no weight is ever boxed.
+ *
+ * No two edges with the same parent and child nodes will have the same
+ * weight, and no two nodes store equal data. Node ids are assigned in the
+ * order that nodes are added.
+ *
+ * @param <N> The type of nodes in the graph.
+ */
+public class DirectWGraph<N> implements WeightedGraph<N> {
+
+    // ABSTRACTION FUNCTION:
+    //      DirectWGraph is a directed weighted multigraph such that
+    //          node i = index.get(i), for 0 <= i < index.size().
+    //          the edges from node i = for each 0 <= k < degrees[i], an
+    //          edge from node i to node dests[i][k] with weight
+    //          weights[i][k].
+
+    // REPRESENTATION INVARIANT:
+    //      index, dests, weights, degrees != null.
+    //      dests[i].length == weights[i].length >= degrees[i] for all
+    //      0 <= i < index.size().
+    //      0 <= dests[i][k] < index.size() for all k < degrees[i].
+    //      weights[i][k] is finite for all k < degrees[i].
+    //      No two edges share the same source, destination, and weight.
+    //      edgeCount == the sum of degrees[i].
+
+
+    // Debug flag; change to TRUE to enable checkReps.
+    private static final boolean DEBUG = false;
+
+    // Capacity of a node's edge arrays once it gets its first edge.
+    private static final int INITIAL_DEGREE = 4;
+
+    private static final int[] NO_DESTS = new int[0];
+    private static final double[] NO_WEIGHTS = new double[0];
+
+    private final NodeIndex<N> index;
+    private int[][] dests;
+    private double[][] weights;
+    private int[] degrees;
+    private int edgeCount;
+
+    /**
+     * Creates a new directed weighted multigraph.
+     *
+     * @spec.effects Constructs an empty DirectWGraph.
+     */
+    public DirectWGraph() {
+        this.index = new NodeIndex<>();
+        this.dests = new int[INITIAL_DEGREE][];
+        this.weights = new double[INITIAL_DEGREE][];
+        this.degrees = new int[INITIAL_DEGREE];
+        this.edgeCount = 0;
+        checkRep();
+    }
+
+    // Creates a graph from tables already built by a GraphBuilder. The
+    // graph takes ownership of the arguments.
+    DirectWGraph(NodeIndex<N> index, int[][] dests, double[][] weights,
+                 int[] degrees, int edgeCount) {
+        this.index = index;
+        this.dests = dests;
+        this.weights = weights;
+        this.degrees = degrees;
+        this.edgeCount = edgeCount;
+        checkRep();
+    }
+
+    @Override
+    public int nodeCount() {
+        return index.size();
+    }
+
+    @Override
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    @Override
+    public int indexOf(N node) {
+        return index.indexOf(node);
+    }
+
+    @Override
+    public N getNode(int id) {
+        return index.get(id);
+    }
+
+    /**
+     * Returns an unmodifiable list of the nodes of this graph, where the
+     * node at index i has id i.
+     *
+     * @return a list of the nodes of this graph in id order.
+     */
+    public List<N> getNodes() {
+        return index.asList();
+    }
+
+    @Override
+    public int outDegree(int id) {
+        Objects.checkIndex(id, index.size());
+        return degrees[id];
+    }
+
+    @Override
+    public void forEachEdge(int id, WeightedEdgeVisitor visitor) {
+        Objects.checkIndex(id, index.size());
+        int[] nodeDests = dests[id];
+        double[] nodeWeights = weights[id];
+        for (int k = 0; k < degrees[id]; k++) {
+            visitor.visit(nodeDests[k], nodeWeights[k]);
+        }
+    }
+
+    /**
+     * Returns whether this graph contains the specified edge.
+     *
+     * @param source The starting node of the edge.
+     * @param dest   The ending node of the edge.
+     * @param weight The weight of the edge to query.
+     * @return TRUE if this graph contains the edge; FALSE if not.
+     */
+    public boolean hasEdge(N source, N dest, double weight) {
+        int sourceId = indexOf(source);
+        int destId = indexOf(dest);
+        return sourceId >= 0 && destId >= 0 &&
+                findEdge(sourceId, destId, weight) >= 0;
+    }
+
+    /**
+     * Adds a node to this graph.
+     *
+     * @param node The new node to be added.
+     * @spec.effects Adds a node to the graph if the node does not already
+     * exist, with the next unused id.
+     * @throws NullPointerException if node == null
+     * @return TRUE if the new node is successfully added; FALSE if the node
+     * already exists.
+     */
+    public boolean addNode(N node) {
+        checkRep();
+        if (node == null) {
+            throw new NullPointerException("Node cannot be null.");
+        } else if (index.contains(node)) {
+            return false;
+        }
+
+        int id = index.size();
+        if (id == degrees.length) {
+            int capacity = Math.max(INITIAL_DEGREE, 2 * id);
+            dests = Arrays.copyOf(dests, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+            degrees = Arrays.copyOf(degrees, capacity);
+        }
+        index.intern(node);
+        dests[id] = NO_DESTS;
+        weights[id] = NO_WEIGHTS;
+
+        checkRep();
+        return true;
+    }
+
+    /**
+     * Creates a weighted edge between two nodes.
+     *
+     * @param source The starting node of the edge.
+     * @param dest   The ending node of the edge.
+     * @param weight The weight of the new edge to be added.
+     * @spec.effects Adds a new edge to the graph if both of the nodes
+     * exist and if the edge does not already exist.
+     * @throws NullPointerException if source or dest is null.
+     * @throws IllegalArgumentException if weight is NaN or infinite.
+     * @return TRUE if the new edge is successfully added; FALSE if not
+     * (the edge already exists or the source or destination nodes do not
+     * exist.)
+     */
+    public boolean addEdge(N source, N dest, double weight) {
+        checkRep();
+        if (source == null || dest == null) {
+            throw new NullPointerException("Source or destination cannot" +
+                    " be null.");
+        } else if (!Double.isFinite(weight)) {
+            throw new IllegalArgumentException("Weight cannot be NaN or" +
+                    " infinite.");
+        }
+
+        int sourceId = indexOf(source);
+        int destId = indexOf(dest);
+        if (sourceId < 0 || destId < 0 || findEdge(sourceId, destId, weight) >= 0) {
+            return false;
+        }
+
+        int degree = degrees[sourceId];
+        if (degree == dests[sourceId].length) {
+            int capacity = Math.max(INITIAL_DEGREE, 2 * degree);
+            dests[sourceId] = Arrays.copyOf(dests[sourceId], capacity);
+            weights[sourceId] = Arrays.copyOf(weights[sourceId], capacity);
+        }
+        dests[sourceId][degree] = destId;
+        weights[sourceId][degree] = weight;
+        degrees[sourceId]++;
+        edgeCount++;
+
+        checkRep();
+        return true;
+    }
+
+    /**
+     * Removes a specified edge between two nodes.
+     *
+     * @param source The starting node of the edge.
+     * @param dest   The ending node of the edge.
+     * @param weight The weight of the edge to be removed.
+     * @spec.effects Removes the edge from the graph if it exists. The order
+     * in which the remaining edges of source are visited may change.
+     * @return TRUE if the edge is successfully removed; FALSE if the edge
+     * does not exist in the graph.
+     */
+    public boolean removeEdge(N source, N dest, double weight) {
+        checkRep();
+        int sourceId = indexOf(source);
+        int destId = indexOf(dest);
+        int k = (sourceId < 0 || destId < 0) ? -1 : findEdge(sourceId, destId, weight);
+        if (k < 0) {
+            return false;
+        }
+
+        // Move the last edge into the removed slot.
+        int last = --degrees[sourceId];
+        dests[sourceId][k] = dests[sourceId][last];
+        weights[sourceId][k] = weights[sourceId][last];
+        edgeCount--;
+
+        checkRep();
+        return true;
+    }
+
+    /**
+     * Returns a set of all the children of the specified node.
+     *
+     * @param node The node to be queried.
+     * @throws NullPointerException if node is null or not in this graph.
+     * @return A set of all the children from this node, or an empty set
+     * if there are no children from this node.
+     */
+    public Set<N> listChildren(N node) {
+        int id = indexOf(node);
+        if (id < 0) {
+            throw new NullPointerException("Node cannot be null.");
+        }
+
+        Set<N> children = new HashSet<>();
+        for (int k = 0; k < degrees[id]; k++) {
+            children.add(index.get(dests[id][k]));
+        }
+        return children;
+    }
+
+    /**
+     * Returns an immutable compressed sparse row snapshot of this graph.
+     * Node ids in the snapshot are the same as in this graph, and later
+     * changes to this graph are not reflected in the snapshot.
+     *
+     * @return a new CsrGraph containing the nodes and edges of this graph.
+     */
+    public CsrGraph<N> freeze() {
+        checkRep();
+        int[] offsets = new int[index.size() + 1];
+        int[] targets = new int[edgeCount];
+        double[] edgeWeights = new double[edgeCount];
+        int next = 0;
+
+        for (int i = 0; i < index.size(); i++) {
+            offsets[i] = next;
+            System.arraycopy(dests[i], 0, targets, next, degrees[i]);
+            System.arraycopy(weights[i], 0, edgeWeights, next, degrees[i]);
+            next += degrees[i];
+        }
+        offsets[index.size()] = next;
+
+        return new CsrGraph<>(NodeIndex.of(index.asList()), offsets,
+                targets, edgeWeights);
+    }
+
+    /**
+     * Returns a string representation of this graph, containing the
+     * nodes and edges from each node in id order.
+     *
+     * @return a string of the edges of this graph, or "{}" if the graph
+     * is empty.
+     */
+    @Override
+    public String toString() {
+        if (index.size() == 0) {
+            return "{}";
+        }
+
+        StringBuilder result = new StringBuilder();
+
+        for (int i = 0; i < index.size(); i++) {
+            result.append(index.get(i)).append(": ");
+
+            for (int k = 0; k < degrees[i]; k++) {
+                result.append("(").append(index.get(i)).append(" --[")
+                        .append(weights[i][k]).append("]--> ")
+                        .append(index.get(dests[i][k])).append(") ");
+            }
+            result.append("\n");
+        }
+
+        return result.toString();
+    }
+
+    // Returns the position of the edge from sourceId to destId with the
+    // given weight among the edges of sourceId, or -1 if there is none.
+    private int findEdge(int sourceId, int destId, double weight) {
+        for (int k = 0; k < degrees[sourceId]; k++) {
+            if (dests[sourceId][k] == destId &&
+                    Double.compare(weights[sourceId][k], weight) == 0) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    // Returns an estimate of the heap bytes retained by this graph, not
+    // counting its nodes. Spare capacity in the arrays is counted, since
+    // it is retained too.
+    long estimatedBytes() {
+        long bytes = GraphStats.object(4 * GraphStats.REFERENCE + 4) +
+                NodeIndex.estimatedBytes(index.size()) +
+                2 * GraphStats.referenceArray(dests.length) +
+                GraphStats.intArray(degrees.length);
+        for (int i = 0; i < index.size(); i++) {
+            // Nodes without edges share the same empty arrays.
+            if (dests[i].length > 0) {
+                bytes += GraphStats.intArray(dests[i].length) +
+                        GraphStats.doubleArray(weights[i].length);
+            }
+        }
+        return bytes;
+    }
+
+    // Checks if the rep invariant holds. Throws exception if the
+    // rep invariant is violated.
+    private void checkRep() {
+        if (DEBUG) {
+            int count = 0;
+            for (int i = 0; i < index.size(); i++) {
+                assert dests[i].length == weights[i].length;
+                assert degrees[i] <= dests[i].length;
+                for (int k = 0; k < degrees[i]; k++) {
+                    assert dests[i][k] >= 0 && dests[i][k] < index.size();
+                    assert Double.isFinite(weights[i][k]);
+                    assert findEdge(i, dests[i][k], weights[i][k]) == k;
+                }
+                count += degrees[i];
+            }
+            assert count == edgeCount;
+        }
+    }
+}
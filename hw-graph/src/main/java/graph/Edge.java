@@ -34,6 +34,15 @@ public class Edge<N,E> {
         checkRep();
     }
 
+    /**
+     * Returns the source of this edge.
+     *
+     * @return the starting node of this edge.
+     */
+    public N getSource() {
+        return this.source;
+    }
+
     /**
      * Returns the destination of this edge.
      *
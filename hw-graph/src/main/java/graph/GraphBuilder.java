@@ -0,0 +1,486 @@
+package graph;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * <b>GraphBuilder</b> collects the nodes and weighted edges of a directed
+ * graph and then builds a DirectWGraph or CsrGraph holding them in one pass.
+ *
+ * Compared with adding edges to a DirectWGraph one at a time, a builder
+ * does not look up whether each edge already exists as it is added and
+ * does not grow per-node arrays as edges arrive. Edges are kept in flat
+ * arrays, presized from the expected counts, and each node's edges are
+ * copied into arrays of exactly the right size when the graph is built.
+ *
+ * Nodes are added implicitly by the edges that use them, and get ids in
+ * the order they are first seen. An edge that repeats the source,
+ * destination, and weight of an earlier edge is dropped when the graph is
+ * built, as DirectWGraph.addEdge would. A builder can only build once.
+ *
+ * @param <N> The type of nodes in the graph.
+ */
+public final class GraphBuilder<N> {
+
+    // ABSTRACTION FUNCTION:
+    //      AF(r) = the graph whose node with id i is index.get(i), for
+    //      0 <= i < index.size(), and whose edges are, in the order they
+    //      were added, an edge from node sources[k] to node dests[k] with
+    //      weight weights[k], for 0 <= k < edgeCount.
+    //      built is TRUE once the graph has been built.
+
+    // REPRESENTATION INVARIANT:
+    //      index, sources, dests, weights != null.
+    //      sources.length == dests.length == weights.length >= edgeCount.
+    //      0 <= sources[k], dests[k] < index.size() for all k < edgeCount.
+    //      weights[k] is finite for all k < edgeCount.
+
+
+    // Debug flag; change to TRUE to enable checkReps.
+    private static final boolean DEBUG = false;
+
+    // Fewest items that addEdgesParallel gives to one thread.
+    private static final int MIN_CHUNK = 4096;
+
+    // Most edges of one node whose repeats are found by scanning rather
+    // than hashing.
+    private static final int SCAN_LIMIT = 8;
+
+    private final NodeIndex<N> index;
+    private int[] sources;
+    private int[] dests;
+    private double[] weights;
+    private int edgeCount;
+    private boolean built;
+
+    /**
+     * Creates a new builder with room for an expected number of nodes and
+     * edges. The counts are only hints: a builder can hold more.
+     *
+     * @param expectedNodes The number of nodes the graph is expected to have.
+     * @param expectedEdges The number of edges the graph is expected to have.
+     * @throws IllegalArgumentException if either count is negative.
+     * @spec.effects Constructs an empty GraphBuilder.
+     */
+    public GraphBuilder(int expectedNodes, int expectedEdges) {
+        if (expectedNodes < 0 || expectedEdges < 0) {
+            throw new IllegalArgumentException("Expected counts cannot be" +
+                    " negative.");
+        }
+        this.index = new NodeIndex<>(expectedNodes);
+        this.sources = new int[expectedEdges];
+        this.dests = new int[expectedEdges];
+        this.weights = new double[expectedEdges];
+        this.edgeCount = 0;
+        this.built = false;
+        checkRep();
+    }
+
+    /**
+     * Adds a node to the graph being built.
+     *
+     * @param node The node to be added.
+     * @spec.effects Adds the node if it has not already been added.
+     * @throws NullPointerException if node == null
+     * @throws IllegalStateException if the graph has already been built.
+     * @return the id of the node in the built graph.
+     */
+    public int addNode(N node) {
+        checkNotBuilt();
+        return index.intern(node);
+    }
+
+    /**
+     * Adds a weighted edge to the graph being built, along with its
+     * source and destination nodes if they have not been added yet.
+     *
+     * @param source The starting node of the edge.
+     * @param dest   The ending node of the edge.
+     * @param weight The weight of the edge.
+     * @spec.effects Adds the edge and any of its nodes not yet added.
+     * @throws NullPointerException if source or dest is null.
+     * @throws IllegalArgumentException if weight is NaN or infinite.
+     * @throws IllegalStateException if the graph has already been built.
+     */
+    public void addEdge(N source, N dest, double weight) {
+        checkNotBuilt();
+        if (!Double.isFinite(weight)) {
+            throw new IllegalArgumentException("Weight cannot be NaN or" +
+                    " infinite.");
+        }
+
+        int sourceId = index.intern(source);
+        int destId = index.intern(dest);
+        if (edgeCount == sources.length) {
+            ensureEdgeCapacity(Math.max(16, 2 * edgeCount));
+        }
+        sources[edgeCount] = sourceId;
+        dests[edgeCount] = destId;
+        weights[edgeCount] = weight;
+        edgeCount++;
+    }
+
+    /**
+     * Adds one weighted edge for each item in a batch, for example one per
+     * record read from a file. Each item's source, destination and weight
+     * are computed once.
+     *
+     * @param items  The items to add edges for.
+     * @param source The function that gives the starting node of an item's edge.
+     * @param dest   The function that gives the ending node of an item's edge.
+     * @param weight The function that gives the weight of an item's edge.
+     * @param <T>    The type of the items.
+     * @spec.effects Adds an edge for each item, in iteration order, and
+     * any nodes not yet added.
+     * @throws NullPointerException if any argument is null, or a function
+     * returns a null node.
+     * @throws IllegalArgumentException if a weight is NaN or infinite.
+     * @throws IllegalStateException if the graph has already been built.
+     */
+    public <T> void addEdges(Iterable<? extends T> items,
+                             Function<? super T, ? extends N> source,
+                             Function<? super T, ? extends N> dest,
+                             ToDoubleFunction<? super T> weight) {
+        checkNotBuilt();
+        if (items == null || source == null || dest == null || weight == null) {
+            throw new NullPointerException("Items and functions cannot be null.");
+        }
+
+        if (items instanceof Collection) {
+            ensureEdgeCapacity(edgeCount + ((Collection<?>) items).size());
+        }
+        for (T item : items) {
+            addEdge(source.apply(item), dest.apply(item), weight.applyAsDouble(item));
+        }
+    }
+
+    /**
+     * Adds one weighted edge for each item in a batch, like addEdges, but
+     * computes the edges of different parts of the batch on different
+     * threads of the common fork-join pool. The result is the same as
+     * calling addEdges with the same arguments: nodes get the same ids and
+     * edges are kept in the same order.
+     *
+     * The batch is split into chunks, and each chunk computes its items'
+     * nodes and weights and numbers its own nodes. The chunks' node numbers
+     * are then merged in order into this builder, which is the only step
+     * that runs on one thread, and their edges are copied in parallel.
+     * Small batches, and batches on a machine with one processor, are
+     * added on the calling thread.
+     *
+     * @param items  The items to add edges for.
+     * @param source The function that gives the starting node of an item's edge.
+     * @param dest   The function that gives the ending node of an item's edge.
+     * @param weight The function that gives the weight of an item's edge.
+     * @param <T>    The type of the items.
+     * @spec.requires the functions can be called from several threads at
+     * once, and items is not modified during the call.
+     * @spec.effects Adds an edge for each item, in list order, and any nodes
+     * not yet added.
+     * @throws NullPointerException if any argument is null, or a function
+     * returns a null node.
+     * @throws IllegalArgumentException if a weight is NaN or infinite.
+     * @throws IllegalStateException if the graph has already been built.
+     */
+    public <T> void addEdgesParallel(List<? extends T> items,
+                                     Function<? super T, ? extends N> source,
+                                     Function<? super T, ? extends N> dest,
+                                     ToDoubleFunction<? super T> weight) {
+        checkNotBuilt();
+        if (items == null || source == null || dest == null || weight == null) {
+            throw new NullPointerException("Items and functions cannot be null.");
+        }
+
+        int size = items.size();
+        int chunkCount = Runtime.getRuntime().availableProcessors() < 2 ? 1 :
+                Math.min(size / MIN_CHUNK, 4 * ForkJoinPool.getCommonPoolParallelism());
+        if (chunkCount < 2) {
+            addEdges(items, source, dest, weight);
+        } else {
+            addEdgesParallel(items, source, dest, weight, chunkCount);
+        }
+    }
+
+    /**
+     * Adds one weighted edge for each item in a batch, like
+     * addEdgesParallel, but always splits the batch into the given number
+     * of chunks, however small the batch or few the processors. This is
+     * useful for testing, and for callers that know better than this
+     * builder how finely their batch should be split. Chunks may be empty
+     * if there are more chunks than items.
+     *
+     * @param items      The items to add edges for.
+     * @param source     The function that gives the starting node of an item's edge.
+     * @param dest       The function that gives the ending node of an item's edge.
+     * @param weight     The function that gives the weight of an item's edge.
+     * @param chunkCount The number of chunks to split the batch into.
+     * @param <T>        The type of the items.
+     * @spec.requires the functions can be called from several threads at
+     * once, and items is not modified during the call.
+     * @spec.effects Adds an edge for each item, in list order, and any nodes
+     * not yet added.
+     * @throws NullPointerException if any argument is null, or a function
+     * returns a null node.
+     * @throws IllegalArgumentException if chunkCount < 1, or a weight is
+     * NaN or infinite.
+     * @throws IllegalStateException if the graph has already been built.
+     */
+    public <T> void addEdgesParallel(List<? extends T> items,
+                                     Function<? super T, ? extends N> source,
+                                     Function<? super T, ? extends N> dest,
+                                     ToDoubleFunction<? super T> weight,
+                                     int chunkCount) {
+        checkNotBuilt();
+        if (items == null || source == null || dest == null || weight == null) {
+            throw new NullPointerException("Items and functions cannot be null.");
+        } else if (chunkCount < 1) {
+            throw new IllegalArgumentException("There must be at least one chunk.");
+        }
+
+        // Compute each chunk's edges in terms of its own node numbers.
+        int size = items.size();
+        List<GraphBuilder<N>> chunks = IntStream.range(0, chunkCount).parallel()
+                .mapToObj(c -> {
+                    List<? extends T> part = items.subList(
+                            (int) ((long) size * c / chunkCount),
+                            (int) ((long) size * (c + 1) / chunkCount));
+                    GraphBuilder<N> chunk = new GraphBuilder<>(0, part.size());
+                    chunk.addEdges(part, source, dest, weight);
+                    return chunk;
+                })
+                .collect(Collectors.toList());
+        mergeChunks(chunks);
+    }
+
+    /**
+     * Returns the number of nodes added so far.
+     *
+     * @return the number of nodes added so far.
+     */
+    public int nodeCount() {
+        return index.size();
+    }
+
+    /**
+     * Returns the number of edges added so far, including any that repeat
+     * an earlier edge.
+     *
+     * @return the number of edges added so far.
+     */
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Builds a mutable DirectWGraph of the nodes and edges added, in which
+     * each node's edges are visited in the order they were added.
+     *
+     * @spec.effects Marks this builder as built.
+     * @throws IllegalStateException if the graph has already been built.
+     * @return a new DirectWGraph holding the nodes and edges added.
+     */
+    public DirectWGraph<N> build() {
+        checkNotBuilt();
+        built = true;
+
+        int[] offsets = groupBySource();
+        int nodeCount = index.size();
+        int[][] nodeDests = new int[nodeCount][];
+        double[][] nodeWeights = new double[nodeCount][];
+        int[] degrees = new int[nodeCount];
+        int total = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            int degree = offsets[i + 1] - offsets[i];
+            nodeDests[i] = Arrays.copyOfRange(dests, offsets[i], offsets[i] + degree);
+            nodeWeights[i] = Arrays.copyOfRange(weights, offsets[i], offsets[i] + degree);
+            degrees[i] = degree;
+            total += degree;
+        }
+
+        return new DirectWGraph<>(index, nodeDests, nodeWeights, degrees, total);
+    }
+
+    /**
+     * Builds an immutable CsrGraph of the nodes and edges added, in which
+     * each node's edges are visited in the order they were added. This
+     * skips the intermediate DirectWGraph when the graph will only be
+     * read.
+     *
+     * @spec.effects Marks this builder as built.
+     * @throws IllegalStateException if the graph has already been built.
+     * @return a new CsrGraph holding the nodes and edges added.
+     */
+    public CsrGraph<N> buildSnapshot() {
+        checkNotBuilt();
+        built = true;
+
+        int[] offsets = groupBySource();
+        int total = offsets[index.size()];
+        return new CsrGraph<>(index, offsets, Arrays.copyOf(dests, total),
+                Arrays.copyOf(weights, total));
+    }
+
+    // Adds the nodes and edges of unbuilt builders to this one, in order.
+    // Nodes are merged on this thread, in chunk order, so that they get
+    // the ids they would have had if added here one by one. Edges are then
+    // copied in parallel, each chunk to its own range of the edge arrays.
+    private void mergeChunks(List<GraphBuilder<N>> chunks) {
+        int[][] globalIds = new int[chunks.size()][];
+        int[] starts = new int[chunks.size()];
+        int total = edgeCount;
+        for (int c = 0; c < chunks.size(); c++) {
+            GraphBuilder<N> chunk = chunks.get(c);
+            globalIds[c] = new int[chunk.index.size()];
+            for (int i = 0; i < chunk.index.size(); i++) {
+                globalIds[c][i] = index.intern(chunk.index.get(i));
+            }
+            starts[c] = total;
+            total += chunk.edgeCount;
+        }
+        ensureEdgeCapacity(total);
+
+        IntStream.range(0, chunks.size()).parallel().forEach(c -> {
+            GraphBuilder<N> chunk = chunks.get(c);
+            int[] ids = globalIds[c];
+            for (int k = 0; k < chunk.edgeCount; k++) {
+                sources[starts[c] + k] = ids[chunk.sources[k]];
+                dests[starts[c] + k] = ids[chunk.dests[k]];
+            }
+            System.arraycopy(chunk.weights, 0, weights, starts[c], chunk.edgeCount);
+        });
+        edgeCount = total;
+        checkRep();
+    }
+
+    // Reorders the first edgeCount edges so that the edges of each source
+    // are together, in source id order and in the order they were added,
+    // and drops repeated edges. Returns the offsets of each source's edges,
+    // with offsets[index.size()] the number of edges kept.
+    private int[] groupBySource() {
+        int nodeCount = index.size();
+        int[] offsets = new int[nodeCount + 1];
+        for (int k = 0; k < edgeCount; k++) {
+            offsets[sources[k] + 1]++;
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        // Counting sort by source, which keeps the order edges were added.
+        int[] next = Arrays.copyOf(offsets, nodeCount);
+        int[] sortedDests = new int[edgeCount];
+        double[] sortedWeights = new double[edgeCount];
+        for (int k = 0; k < edgeCount; k++) {
+            int slot = next[sources[k]]++;
+            sortedDests[slot] = dests[k];
+            sortedWeights[slot] = weights[k];
+        }
+
+        // Drop repeated edges, compacting in place. The edges kept for a
+        // node with few edges are scanned; a node with more keeps the
+        // positions of its kept edges in a hash table, so that the pass
+        // takes time linear in the number of edges however they are
+        // spread between nodes.
+        int kept = 0;
+        int[] table = new int[0];
+        for (int i = 0; i < nodeCount; i++) {
+            int start = offsets[i];
+            int end = offsets[i + 1];
+            offsets[i] = kept;
+            if (end - start <= SCAN_LIMIT) {
+                for (int k = start; k < end; k++) {
+                    if (!containsEdge(sortedDests, sortedWeights, offsets[i], kept,
+                            sortedDests[k], sortedWeights[k])) {
+                        sortedDests[kept] = sortedDests[k];
+                        sortedWeights[kept] = sortedWeights[k];
+                        kept++;
+                    }
+                }
+                continue;
+            }
+
+            // Open addressing with linear probing, at most half full.
+            int mask = 2 * Integer.highestOneBit(2 * (end - start)) - 1;
+            if (table.length <= mask) {
+                table = new int[mask + 1];
+            }
+            Arrays.fill(table, 0, mask + 1, -1);
+            for (int k = start; k < end; k++) {
+                int dest = sortedDests[k];
+                double weight = sortedWeights[k];
+                int slot = hash(dest, weight) & mask;
+                while (table[slot] >= 0 && (sortedDests[table[slot]] != dest ||
+                        Double.compare(sortedWeights[table[slot]], weight) != 0)) {
+                    slot = (slot + 1) & mask;
+                }
+                if (table[slot] < 0) {
+                    table[slot] = kept;
+                    sortedDests[kept] = dest;
+                    sortedWeights[kept] = weight;
+                    kept++;
+                }
+            }
+        }
+        offsets[nodeCount] = kept;
+
+        sources = null;
+        dests = sortedDests;
+        weights = sortedWeights;
+        return offsets;
+    }
+
+    // Returns whether an edge to dest with the given weight is among the
+    // edges in positions [start, end).
+    private static boolean containsEdge(int[] dests, double[] weights, int start,
+                                        int end, int dest, double weight) {
+        for (int k = start; k < end; k++) {
+            if (dests[k] == dest && Double.compare(weights[k], weight) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Returns a hash of an edge's destination and weight, equal for edges
+    // that Double.compare finds to have equal weights.
+    private static int hash(int dest, double weight) {
+        long bits = Double.doubleToLongBits(weight);
+        int h = dest * 0x9E3779B9 ^ (int) (bits ^ (bits >>> 32));
+        return h ^ (h >>> 16);
+    }
+
+    // Grows the edge arrays to hold at least capacity edges.
+    private void ensureEdgeCapacity(int capacity) {
+        if (capacity > sources.length) {
+            sources = Arrays.copyOf(sources, capacity);
+            dests = Arrays.copyOf(dests, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+        }
+    }
+
+    // Throws an exception if the graph has already been built.
+    private void checkNotBuilt() {
+        checkRep();
+        if (built) {
+            throw new IllegalStateException("Graph has already been built.");
+        }
+    }
+
+    // Checks if the rep invariant holds. Throws exception if the
+    // rep invariant is violated.
+    private void checkRep() {
+        if (DEBUG && !built) {
+            assert sources.length == dests.length;
+            assert dests.length == weights.length;
+            assert edgeCount <= sources.length;
+            for (int k = 0; k < edgeCount; k++) {
+                assert sources[k] >= 0 && sources[k] < index.size();
+                assert dests[k] >= 0 && dests[k] < index.size();
+                assert Double.isFinite(weights[k]);
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package graph;
+
+/**
+ * <b>GraphChange</b> is an immutable record of one change to a
+ * DirectLGraph, as kept by a GraphChangeLog: a node or edge that was
+ * added or removed, and the version of the graph after the change.
+ *
+ * @param <N> The type of nodes in the graph.
+ * @param <E> The type of edges in the graph.
+ */
+public final class GraphChange<N,E> {
+
+    // ABSTRACTION FUNCTION:
+    //      AF(r) = the change of kind kind that made version version of a
+    //      graph, to the node source if kind is a node change, or to the
+    //      edge from source to dest labeled label if it is an edge change.
+
+    // REPRESENTATION INVARIANT:
+    //      kind, source != null.
+    //      dest, label != null if and only if kind is EDGE_ADDED or
+    //      EDGE_REMOVED.
+
+
+    // Debug flag; change to TRUE to enable checkReps.
+    private static final boolean DEBUG = false;
+
+    /**
+     * The kinds of change that can be made to a graph.
+     */
+    public enum Kind {
+        NODE_ADDED, NODE_REMOVED, EDGE_ADDED, EDGE_REMOVED
+    }
+
+    private final Kind kind;
+    private final long version;
+    private final N source;
+    private final N dest;
+    private final E label;
+
+    /**
+     * Creates a new record of a change.
+     *
+     * @param kind    The kind of change.
+     * @param version The version of the graph after the change.
+     * @param source  The node changed, or the starting node of the edge.
+     * @param dest    The ending node of the edge, or null for a node change.
+     * @param label   The label of the edge, or null for a node change.
+     * @spec.requires the arguments satisfy the representation invariant.
+     * @spec.effects Constructs a new GraphChange.
+     */
+    GraphChange(Kind kind, long version, N source, N dest, E label) {
+        this.kind = kind;
+        this.version = version;
+        this.source = source;
+        this.dest = dest;
+        this.label = label;
+        checkRep();
+    }
+
+    /**
+     * Returns the kind of this change.
+     *
+     * @return the kind of this change.
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the version of the graph just after this change.
+     *
+     * @return the version this change made.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the node added or removed, or the starting node of the edge
+     * added or removed.
+     *
+     * @return the node this change is to or starts from.
+     */
+    public N getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the ending node of the edge added or removed.
+     *
+     * @return the ending node of the edge, or null if this is a node change.
+     */
+    public N getDest() {
+        return dest;
+    }
+
+    /**
+     * Returns the label of the edge added or removed.
+     *
+     * @return the label of the edge, or null if this is a node change.
+     */
+    public E getLabel() {
+        return label;
+    }
+
+    /**
+     * Returns whether this change adds or removes an edge.
+     *
+     * @return TRUE if this is an edge change; FALSE if it is a node change.
+     */
+    public boolean isEdgeChange() {
+        return kind == Kind.EDGE_ADDED || kind == Kind.EDGE_REMOVED;
+    }
+
+    /**
+     * Returns a string representation of this change.
+     *
+     * @return a string of the version, kind and node or edge changed.
+     */
+    @Override
+    public String toString() {
+        return version + " " + kind + " " +
+                (isEdgeChange() ? new Edge<>(source, dest, label).toString() : source);
+    }
+
+    // Checks if the rep invariant holds. Throws exception if the
+    // rep invariant is violated.
+    private void checkRep() {
+        if (DEBUG) {
+            assert kind != null && source != null;
+            assert (dest != null) == isEdgeChange();
+            assert (label != null) == isEdgeChange();
+        }
+    }
+}
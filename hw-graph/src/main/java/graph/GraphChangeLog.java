@@ -0,0 +1,191 @@
+package graph;
+import java.util.*;
+
+/**
+ * <b>GraphChangeLog</b> is a bounded log of the most recent changes to a
+ * DirectLGraph, each tagged with the version of the graph it made. A
+ * structure built from the graph can remember the version it was built
+ * at, and later ask the log for the changes since then to update only
+ * what they affect.
+ *
+ * The log keeps at most its capacity of changes; older ones are dropped.
+ * If changes a caller needs have been dropped, or were made before the
+ * log was attached, changesSince returns null, and the caller must
+ * rebuild from the graph itself.
+ *
+ * Like DirectLGraph, a GraphChangeLog is not safe to use from several
+ * threads at once.
+ *
+ * @param <N> The type of nodes in the graph.
+ * @param <E> The type of edges in the graph.
+ */
+public final class GraphChangeLog<N,E> implements GraphListener<N,E> {
+
+    // ABSTRACTION FUNCTION:
+    //      AF(r) = the changes ring[(start + k) % ring.length] for
+    //      0 <= k < size, in increasing order of version, to graph, which
+    //      are all the changes made to graph after version droppedThrough.
+
+    // REPRESENTATION INVARIANT:
+    //      graph, ring != null and ring.length >= 1.
+    //      0 <= start < ring.length and 0 <= size <= ring.length.
+    //      The versions of the changes in order are droppedThrough + 1,
+    //      droppedThrough + 2, and so on.
+
+
+    // Debug flag; change to TRUE to enable checkReps.
+    private static final boolean DEBUG = false;
+
+    private final DirectLGraph<N,E> graph;
+    private final GraphChange<N,E>[] ring;
+    private int start;
+    private int size;
+
+    // Version of the newest change not in the log.
+    private long droppedThrough;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private GraphChangeLog(DirectLGraph<N,E> graph, int capacity) {
+        this.graph = graph;
+        this.ring = (GraphChange<N,E>[]) new GraphChange[capacity];
+        this.droppedThrough = graph.version();
+        checkRep();
+    }
+
+    /**
+     * Creates a log of the changes to a graph and registers it as a
+     * listener of the graph. Only changes made after this call are logged.
+     *
+     * @param graph    The graph to log changes to.
+     * @param capacity The most changes the log keeps.
+     * @param <N>      The type of nodes in the graph.
+     * @param <E>      The type of edges in the graph.
+     * @throws NullPointerException if graph == null
+     * @throws IllegalArgumentException if capacity < 1
+     * @spec.effects Adds the new log as a listener of graph.
+     * @return a new, empty log of graph's changes.
+     */
+    public static <N,E> GraphChangeLog<N,E> attach(DirectLGraph<N,E> graph, int capacity) {
+        if (graph == null) {
+            throw new NullPointerException("Graph cannot be null.");
+        } else if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+
+        GraphChangeLog<N,E> log = new GraphChangeLog<>(graph, capacity);
+        graph.addListener(log);
+        return log;
+    }
+
+    /**
+     * Stops logging changes to the graph. The changes already logged are
+     * kept.
+     *
+     * @spec.effects Removes this log as a listener of its graph.
+     */
+    public void detach() {
+        graph.removeListener(this);
+    }
+
+    /**
+     * Returns the changes made to the graph after a version, oldest first.
+     *
+     * @param version The version to list the changes after.
+     * @throws IllegalArgumentException if version is greater than the
+     * current version of the graph.
+     * @return a new list of the changes with greater versions than
+     * version, or null if any of them is not in this log.
+     */
+    public List<GraphChange<N,E>> changesSince(long version) {
+        checkRep();
+        long latest = graph.version();
+        long logged = droppedThrough + size;
+        if (version > latest) {
+            throw new IllegalArgumentException("Version " + version +
+                    " is newer than the graph.");
+        } else if (version == latest) {
+            return new ArrayList<>();
+        } else if (version < droppedThrough || logged != latest) {
+            // Changes were dropped, or made while the log was detached.
+            return null;
+        }
+
+        int count = (int) (latest - version);
+        List<GraphChange<N,E>> changes = new ArrayList<>(count);
+        for (int k = size - count; k < size; k++) {
+            changes.add(ring[(start + k) % ring.length]);
+        }
+        return changes;
+    }
+
+    /**
+     * Returns the oldest version that changesSince can list changes after.
+     *
+     * @return the version just before the oldest change in this log.
+     */
+    public long oldestVersion() {
+        return droppedThrough;
+    }
+
+    /**
+     * Returns the number of changes in this log.
+     *
+     * @return the number of changes kept.
+     */
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void nodeAdded(N node) {
+        record(new GraphChange<>(GraphChange.Kind.NODE_ADDED, graph.version(), node, null, null));
+    }
+
+    @Override
+    public void nodeRemoved(N node) {
+        record(new GraphChange<>(GraphChange.Kind.NODE_REMOVED, graph.version(), node, null, null));
+    }
+
+    @Override
+    public void edgeAdded(N source, N dest, E label) {
+        record(new GraphChange<>(GraphChange.Kind.EDGE_ADDED, graph.version(), source, dest, label));
+    }
+
+    @Override
+    public void edgeRemoved(N source, N dest, E label) {
+        record(new GraphChange<>(GraphChange.Kind.EDGE_REMOVED, graph.version(), source, dest, label));
+    }
+
+    // Adds a change to the end of the log, dropping the oldest change if
+    // the log is full, or every change if some were missed while the log
+    // was detached.
+    private void record(GraphChange<N,E> change) {
+        if (change.getVersion() != droppedThrough + size + 1) {
+            Arrays.fill(ring, null);
+            start = 0;
+            size = 0;
+            droppedThrough = change.getVersion() - 1;
+        } else if (size == ring.length) {
+            ring[start] = null;
+            start = (start + 1) % ring.length;
+            size--;
+            droppedThrough++;
+        }
+        ring[(start + size) % ring.length] = change;
+        size++;
+        checkRep();
+    }
+
+    // Checks if the rep invariant holds. Throws exception if the
+    // rep invariant is violated.
+    private void checkRep() {
+        if (DEBUG) {
+            assert ring.length >= 1;
+            assert start >= 0 && start < ring.length;
+            assert size >= 0 && size <= ring.length;
+            for (int k = 0; k < size; k++) {
+                assert ring[(start + k) % ring.length].getVersion() == droppedThrough + k + 1;
+            }
+        }
+    }
+}
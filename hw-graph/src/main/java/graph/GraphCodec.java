@@ -0,0 +1,98 @@
+package graph;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <b>GraphCodec</b> converts the nodes or edge labels of a graph to and from
+ * bytes, so that GraphSnapshots can store graphs of any node and label type.
+ *
+ * A codec must read back exactly the bytes it wrote: decode, given a buffer
+ * positioned at the start of a value written by encode, must return an
+ * equal value and leave the buffer positioned just past it.
+ *
+ * @param <T> The type of values the codec converts.
+ */
+public interface GraphCodec<T> {
+
+    /**
+     * Writes a value.
+     *
+     * @param value The value to write.
+     * @param out   The output to write the value to.
+     * @throws IOException if the value cannot be written.
+     */
+    void encode(T value, DataOutput out) throws IOException;
+
+    /**
+     * Reads a value written by encode.
+     *
+     * @param in The buffer to read from, positioned at the start of a value.
+     * @spec.effects Advances the position of in past the value.
+     * @return the value read.
+     */
+    T decode(ByteBuffer in);
+
+    /**
+     * Returns a codec for strings, which stores each string as its UTF-8
+     * length followed by its UTF-8 bytes.
+     *
+     * @return a codec for strings.
+     */
+    static GraphCodec<String> strings() {
+        return new GraphCodec<String>() {
+            @Override
+            public void encode(String value, DataOutput out) throws IOException {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            @Override
+            public String decode(ByteBuffer in) {
+                byte[] bytes = new byte[in.getInt()];
+                in.get(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    /**
+     * Returns a codec for integers, which stores each as 4 bytes.
+     *
+     * @return a codec for integers.
+     */
+    static GraphCodec<Integer> integers() {
+        return new GraphCodec<Integer>() {
+            @Override
+            public void encode(Integer value, DataOutput out) throws IOException {
+                out.writeInt(value);
+            }
+
+            @Override
+            public Integer decode(ByteBuffer in) {
+                return in.getInt();
+            }
+        };
+    }
+
+    /**
+     * Returns a codec for doubles, which stores each as 8 bytes.
+     *
+     * @return a codec for doubles.
+     */
+    static GraphCodec<Double> doubles() {
+        return new GraphCodec<Double>() {
+            @Override
+            public void encode(Double value, DataOutput out) throws IOException {
+                out.writeDouble(value);
+            }
+
+            @Override
+            public Double decode(ByteBuffer in) {
+                return in.getDouble();
+            }
+        };
+    }
+}
@@ -0,0 +1,290 @@
+package graph;
+import java.util.*;
+
+/**
+ * <b>GraphDelta</b> is an immutable set of changes to a directed labeled
+ * multigraph: nodes and edges to remove, and nodes and edges to add. A
+ * delta is either listed directly with of, or computed as the difference
+ * between two versions of a graph with between.
+ *
+ * Applying a delta to a DirectLGraph with applyTo takes time proportional
+ * to the size of the delta, not to the size of the graph, so a small edit
+ * to a large map is cheap. Removing a node also takes time proportional
+ * to its degree if the graph indexes incoming edges, and to the size of
+ * the graph if not.
+ *
+ * A delta is applied in this order: its edges are removed, then its
+ * nodes are removed (along with any edges still touching them), then its
+ * nodes are added, then its edges are added. A delta is checked against
+ * the graph before any change is made, so it is applied either completely
+ * or not at all.
+ *
+ * @param <N> The type of nodes in the graph.
+ * @param <E> The type of edges in the graph.
+ */
+public final class GraphDelta<N,E> {
+
+    // ABSTRACTION FUNCTION:
+    //      AF(r) = the change to a graph that removes the edges in
+    //      removedEdges, then the nodes in removedNodes, then adds the
+    //      nodes in addedNodes, then the edges in addedEdges.
+
+    // REPRESENTATION INVARIANT:
+    //      removedNodes, addedNodes, removedEdges, addedEdges != null, are
+    //      unmodifiable, and contain no null nodes, edges or edge parts.
+
+
+    // Debug flag; change to TRUE to enable checkReps.
+    private static final boolean DEBUG = false;
+
+    private final Set<N> removedNodes;
+    private final Set<N> addedNodes;
+    private final Set<Edge<N,E>> removedEdges;
+    private final Set<Edge<N,E>> addedEdges;
+
+    private GraphDelta(Set<N> removedNodes, Set<N> addedNodes,
+                       Set<Edge<N,E>> removedEdges, Set<Edge<N,E>> addedEdges) {
+        this.removedNodes = Collections.unmodifiableSet(removedNodes);
+        this.addedNodes = Collections.unmodifiableSet(addedNodes);
+        this.removedEdges = Collections.unmodifiableSet(removedEdges);
+        this.addedEdges = Collections.unmodifiableSet(addedEdges);
+        checkRep();
+    }
+
+    /**
+     * Creates a delta from lists of changes. The collections are copied.
+     *
+     * @param removedNodes The nodes to remove.
+     * @param addedNodes   The nodes to add.
+     * @param removedEdges The edges to remove.
+     * @param addedEdges   The edges to add.
+     * @param <N>          The type of nodes in the graph.
+     * @param <E>          The type of edges in the graph.
+     * @throws NullPointerException if any argument, node, edge, or source,
+     * destination or label of an edge is null.
+     * @return a new delta with the given changes.
+     */
+    public static <N,E> GraphDelta<N,E> of(Collection<? extends N> removedNodes,
+                                           Collection<? extends N> addedNodes,
+                                           Collection<? extends Edge<N,E>> removedEdges,
+                                           Collection<? extends Edge<N,E>> addedEdges) {
+        return new GraphDelta<>(copyNodes(removedNodes), copyNodes(addedNodes),
+                copyEdges(removedEdges), copyEdges(addedEdges));
+    }
+
+    /**
+     * Computes the delta that changes one graph into another: applying it
+     * to a DirectLGraph equal to from makes it equal to to. Every edge of
+     * a node that is removed is listed as removed, so the delta also says
+     * exactly which edges disappear. This reads every node and edge of
+     * both graphs once.
+     *
+     * @param from The graph before the change.
+     * @param to   The graph after the change.
+     * @param <N>  The type of nodes in the graph.
+     * @param <E>  The type of edges in the graph.
+     * @throws NullPointerException if from == null or to == null
+     * @spec.requires neither graph is modified while the delta is computed.
+     * @return the delta from from to to.
+     */
+    public static <N,E> GraphDelta<N,E> between(LGraphView<N,E> from, LGraphView<N,E> to) {
+        if (from == null || to == null) {
+            throw new NullPointerException("Graphs cannot be null.");
+        }
+
+        Set<N> removedNodes = new LinkedHashSet<>();
+        Set<N> addedNodes = new LinkedHashSet<>();
+        Set<Edge<N,E>> removedEdges = new LinkedHashSet<>();
+        Set<Edge<N,E>> addedEdges = new LinkedHashSet<>();
+
+        for (N node : from.getNodesView()) {
+            boolean kept = to.hasNode(node);
+            if (!kept) {
+                removedNodes.add(node);
+            }
+            from.forEachEdge(node, (dest, label) -> {
+                if (!kept || !to.hasEdge(node, dest, label)) {
+                    removedEdges.add(new Edge<>(node, dest, label));
+                }
+            });
+        }
+        for (N node : to.getNodesView()) {
+            boolean existed = from.hasNode(node);
+            if (!existed) {
+                addedNodes.add(node);
+            }
+            to.forEachEdge(node, (dest, label) -> {
+                if (!existed || !from.hasEdge(node, dest, label)) {
+                    addedEdges.add(new Edge<>(node, dest, label));
+                }
+            });
+        }
+
+        return new GraphDelta<>(removedNodes, addedNodes, removedEdges, addedEdges);
+    }
+
+    /**
+     * Returns the nodes this delta removes.
+     *
+     * @return an unmodifiable set of the nodes to remove.
+     */
+    public Set<N> removedNodes() {
+        return removedNodes;
+    }
+
+    /**
+     * Returns the nodes this delta adds.
+     *
+     * @return an unmodifiable set of the nodes to add.
+     */
+    public Set<N> addedNodes() {
+        return addedNodes;
+    }
+
+    /**
+     * Returns the edges this delta removes, not counting edges that are
+     * removed only because one of their nodes is.
+     *
+     * @return an unmodifiable set of the edges to remove.
+     */
+    public Set<Edge<N,E>> removedEdges() {
+        return removedEdges;
+    }
+
+    /**
+     * Returns the edges this delta adds.
+     *
+     * @return an unmodifiable set of the edges to add.
+     */
+    public Set<Edge<N,E>> addedEdges() {
+        return addedEdges;
+    }
+
+    /**
+     * Returns whether this delta changes nothing.
+     *
+     * @return TRUE if this delta adds and removes no nodes or edges;
+     * FALSE if not.
+     */
+    public boolean isEmpty() {
+        return removedNodes.isEmpty() && addedNodes.isEmpty() &&
+                removedEdges.isEmpty() && addedEdges.isEmpty();
+    }
+
+    /**
+     * Applies this delta to a graph, either completely or, if it does not
+     * fit the graph, not at all. The delta fits if every node and edge it
+     * removes is in the graph, no node it adds is in the graph unless it
+     * is also removed, and every edge it adds is between nodes that are
+     * in the graph after the node changes and is not already in it.
+     *
+     * @param graph The graph to change.
+     * @throws NullPointerException if graph == null
+     * @throws IllegalArgumentException if this delta does not fit the
+     * graph, in which case the graph is not changed.
+     * @spec.effects Removes and adds the nodes and edges of this delta to
+     * and from graph.
+     */
+    public void applyTo(DirectLGraph<N,E> graph) {
+        checkRep();
+        if (graph == null) {
+            throw new NullPointerException("Graph cannot be null.");
+        }
+
+        for (Edge<N,E> edge : removedEdges) {
+            if (!graph.hasEdge(edge.getSource(), edge.getDest(), edge.getLabel())) {
+                throw new IllegalArgumentException("Graph has no edge " + edge + ".");
+            }
+        }
+        for (N node : removedNodes) {
+            if (!graph.hasNode(node)) {
+                throw new IllegalArgumentException("Graph has no node " + node + ".");
+            }
+        }
+        for (N node : addedNodes) {
+            if (graph.hasNode(node) && !removedNodes.contains(node)) {
+                throw new IllegalArgumentException("Graph already has node " + node + ".");
+            }
+        }
+        for (Edge<N,E> edge : addedEdges) {
+            N source = edge.getSource();
+            N dest = edge.getDest();
+            if (!hasNodeAfter(graph, source) || !hasNodeAfter(graph, dest)) {
+                throw new IllegalArgumentException("Edge " + edge + " is not" +
+                        " between nodes of the graph.");
+            } else if (graph.hasEdge(source, dest, edge.getLabel()) &&
+                    !removedEdges.contains(edge) && !removedNodes.contains(source) &&
+                    !removedNodes.contains(dest)) {
+                throw new IllegalArgumentException("Graph already has edge " + edge + ".");
+            }
+        }
+
+        for (Edge<N,E> edge : removedEdges) {
+            graph.removeEdge(edge.getSource(), edge.getDest(), edge.getLabel());
+        }
+        for (N node : removedNodes) {
+            graph.removeNode(node);
+        }
+        for (N node : addedNodes) {
+            graph.addNode(node);
+        }
+        for (Edge<N,E> edge : addedEdges) {
+            graph.addEdge(edge.getSource(), edge.getDest(), edge.getLabel());
+        }
+    }
+
+    /**
+     * Returns a string listing the changes in this delta.
+     *
+     * @return a string of the removed and added nodes and edges.
+     */
+    @Override
+    public String toString() {
+        return "-nodes " + removedNodes + " +nodes " + addedNodes +
+                " -edges " + removedEdges + " +edges " + addedEdges;
+    }
+
+    // Returns whether node is in graph once this delta's nodes are
+    // removed and added.
+    private boolean hasNodeAfter(DirectLGraph<N,E> graph, N node) {
+        return addedNodes.contains(node) ||
+                (graph.hasNode(node) && !removedNodes.contains(node));
+    }
+
+    private static <N> Set<N> copyNodes(Collection<? extends N> nodes) {
+        Set<N> copy = new LinkedHashSet<>();
+        for (N node : nodes) {
+            if (node == null) {
+                throw new NullPointerException("Node cannot be null.");
+            }
+            copy.add(node);
+        }
+        return copy;
+    }
+
+    private static <N,E> Set<Edge<N,E>> copyEdges(Collection<? extends Edge<N,E>> edges) {
+        Set<Edge<N,E>> copy = new LinkedHashSet<>();
+        for (Edge<N,E> edge : edges) {
+            if (edge == null || edge.getSource() == null || edge.getDest() == null ||
+                    edge.getLabel() == null) {
+                throw new NullPointerException("Edge and its parts cannot be null.");
+            }
+            copy.add(edge);
+        }
+        return copy;
+    }
+
+    // Checks if the rep invariant holds. Throws exception if the
+    // rep invariant is violated.
+    private void checkRep() {
+        if (DEBUG) {
+            assert !removedNodes.contains(null) && !addedNodes.contains(null);
+            for (Set<Edge<N,E>> edges : List.of(removedEdges, addedEdges)) {
+                for (Edge<N,E> edge : edges) {
+                    assert edge != null && edge.getSource() != null &&
+                            edge.getDest() != null && edge.getLabel() != null;
+                }
+            }
+        }
+    }
+}
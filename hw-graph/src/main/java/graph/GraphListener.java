@@ -0,0 +1,59 @@
+package graph;
+
+/**
+ * <b>GraphListener</b> is notified of each change to a DirectLGraph it is
+ * registered with, so that structures built from the graph, such as route
+ * caches or distance tables, can update just the parts a change affects.
+ *
+ * Each method is called after the change has been made and the graph's
+ * version has been increased for it. When a node is removed, the listener
+ * is first told of each edge to or from the node that is removed with it,
+ * and then of the node. Every method does nothing by default.
+ *
+ * @param <N> The type of nodes in the graph.
+ * @param <E> The type of edges in the graph.
+ */
+public interface GraphListener<N,E> {
+
+    /**
+     * Called after a node is added to the graph.
+     *
+     * @param node The node that was added.
+     * @spec.requires the graph is not modified by this method.
+     */
+    default void nodeAdded(N node) {
+    }
+
+    /**
+     * Called after a node is removed from the graph, once its edges have
+     * been reported as removed.
+     *
+     * @param node The node that was removed.
+     * @spec.requires the graph is not modified by this method.
+     */
+    default void nodeRemoved(N node) {
+    }
+
+    /**
+     * Called after an edge is added to the graph.
+     *
+     * @param source The starting node of the edge.
+     * @param dest   The ending node of the edge.
+     * @param label  The label of the edge.
+     * @spec.requires the graph is not modified by this method.
+     */
+    default void edgeAdded(N source, N dest, E label) {
+    }
+
+    /**
+     * Called after an edge is removed from the graph, either on its own
+     * or along with one of its nodes.
+     *
+     * @param source The starting node of the edge.
+     * @param dest   The ending node of the edge.
+     * @param label  The label of the edge.
+     * @spec.requires the graph is not modified by this method.
+     */
+    default void edgeRemoved(N source, N dest, E label) {
+    }
+}
@@ -0,0 +1,525 @@
+package graph;
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * <b>GraphSnapshots</b> saves graphs to and loads graphs from a compact,
+ * versioned binary file format, so that a program can start from a saved
+ * graph instead of rebuilding it from its source data.
+ *
+ * Weighted graphs are saved in CSR form and loaded with mapWeighted,
+ * which maps the file into memory and reads edges and nodes straight from
+ * it through a BufferCsrGraph, or opened with openPaged, which reads them
+ * from the file in pages through a PagedCsrGraph with a bounded page
+ * cache. DirectLGraphs are saved with writeLabeled and loaded with
+ * readLabeled, which decodes every node and label into a new graph. Nodes
+ * and labels are converted to bytes by GraphCodecs supplied by the
+ * caller.
+ *
+ * Every file starts with a header of:
+ * <ul>
+ * <li>the magic number 0x47534E50 ("GSNP") and the format version;</li>
+ * <li>the kind of graph, weighted or labeled, as one byte;</li>
+ * <li>the node and edge counts;</li>
+ * <li>a fingerprint of the data the graph was built from, which
+ * readSource returns; and</li>
+ * <li>a scale derived from the graph, which readScale returns.</li>
+ * </ul>
+ * A weighted file then holds its sections in this order: the CSR offsets
+ * (nodeCount + 1 ints), the edge destinations (edgeCount ints), the edge
+ * weights (edgeCount doubles), the position of each encoded node among
+ * the encoded nodes followed by their total length (nodeCount + 1 ints),
+ * a hash table from nodes to ids (see PagedCsrGraph), and the encoded
+ * nodes. A labeled file holds the encoded nodes, then for each node its
+ * out-degree followed by the destination id and encoded label of each
+ * edge. All numbers are big-endian, and a file of any other version is
+ * rejected.
+ *
+ * Files are written to a temporary file that then replaces the target, so
+ * a reader never sees a partly written snapshot. A single snapshot file
+ * must be smaller than 2 GB.
+ */
+public final class GraphSnapshots {
+
+    // This class does not represent an ADT.
+
+    private static final int MAGIC = 0x47534E50;
+    private static final int VERSION = 3;
+    private static final byte WEIGHTED = 1;
+    private static final byte LABELED = 2;
+
+    // Size of the header: magic, version, kind, node count, edge count,
+    // source fingerprint, scale.
+    private static final int HEADER_BYTES = 4 + 4 + 1 + 4 + 4 + 8 + 8;
+
+    private GraphSnapshots() {
+    }
+
+    /**
+     * Saves a weighted graph in CSR form, keeping its node ids, with a
+     * source fingerprint and scale of 0.
+     *
+     * @param graph     The graph to save.
+     * @param nodeCodec The codec that encodes the nodes of the graph.
+     * @param file      The file to save the graph to.
+     * @param <N>       The type of nodes in the graph.
+     * @spec.effects Creates or replaces file.
+     * @throws NullPointerException if any argument is null.
+     * @throws IOException if the file cannot be written.
+     */
+    public static <N> void writeWeighted(WeightedGraph<N> graph,
+                                         GraphCodec<? super N> nodeCodec,
+                                         Path file) throws IOException {
+        writeWeighted(graph, nodeCodec, file, 0, 0.0);
+    }
+
+    /**
+     * Saves a weighted graph in CSR form, keeping its node ids, along
+     * with a fingerprint of the data it was built from and a scale. A
+     * program that loads the snapshot can compare the fingerprint with
+     * readSource to tell whether the data has changed since the snapshot
+     * was saved. The scale is any number the caller derived from the
+     * graph, such as the scale of a search heuristic, and is read back
+     * with readScale so that it need not be computed again from every
+     * edge of the loaded graph.
+     *
+     * @param graph     The graph to save.
+     * @param nodeCodec The codec that encodes the nodes of the graph.
+     * @param file      The file to save the graph to.
+     * @param source    The fingerprint of the data the graph was built
+     *                  from, chosen by the caller.
+     * @param scale     The number to save with the graph.
+     * @param <N>       The type of nodes in the graph.
+     * @spec.effects Creates or replaces file.
+     * @throws NullPointerException if graph, nodeCodec or file is null.
+     * @throws IOException if the file cannot be written.
+     */
+    public static <N> void writeWeighted(WeightedGraph<N> graph,
+                                         GraphCodec<? super N> nodeCodec,
+                                         Path file, long source, double scale)
+            throws IOException {
+        if (graph == null || nodeCodec == null || file == null) {
+            throw new NullPointerException("Arguments cannot be null.");
+        }
+
+        int nodeCount = graph.nodeCount();
+        int[] offsets = new int[nodeCount + 1];
+        int[] targets = new int[graph.edgeCount()];
+        double[] weights = new double[graph.edgeCount()];
+        int[] next = {0};
+        for (int i = 0; i < nodeCount; i++) {
+            offsets[i] = next[0];
+            graph.forEachEdge(i, (dest, weight) -> {
+                targets[next[0]] = dest;
+                weights[next[0]] = weight;
+                next[0]++;
+            });
+        }
+        offsets[nodeCount] = next[0];
+
+        // The nodes are encoded first, since the node table needs the
+        // bytes of every node.
+        ByteArrayOutputStream nodeBytes = new ByteArrayOutputStream();
+        DataOutputStream nodeOut = new DataOutputStream(nodeBytes);
+        int[] nodeOffsets = new int[nodeCount + 1];
+        for (int i = 0; i < nodeCount; i++) {
+            nodeOffsets[i] = nodeOut.size();
+            nodeCodec.encode(graph.getNode(i), nodeOut);
+        }
+        nodeOffsets[nodeCount] = nodeOut.size();
+        byte[] encoded = nodeBytes.toByteArray();
+        int[] table = PagedCsrGraph.nodeTable(encoded, nodeOffsets);
+
+        write(file, out -> {
+            writeHeader(out, WEIGHTED, nodeCount, targets.length, source,
+                    scale);
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+            for (int target : targets) {
+                out.writeInt(target);
+            }
+            for (double weight : weights) {
+                out.writeDouble(weight);
+            }
+            for (int offset : nodeOffsets) {
+                out.writeInt(offset);
+            }
+            for (int slot : table) {
+                out.writeInt(slot);
+            }
+            out.write(encoded);
+        });
+    }
+
+    /**
+     * Loads a weighted graph saved by writeWeighted by mapping its file
+     * into memory. Edges and nodes are read from the mapping as they are
+     * used, so loading takes time independent of the size of the graph.
+     * The mapping stays valid after the file is closed, but the file must
+     * not be changed while the graph is in use.
+     *
+     * @param file      The file to load the graph from.
+     * @param nodeCodec The codec that decodes the nodes of the graph.
+     * @param <N>       The type of nodes in the graph.
+     * @throws NullPointerException if any argument is null.
+     * @throws IOException if the file cannot be read or is not a weighted
+     * graph snapshot of this version.
+     * @return a graph with the same node ids, nodes and edges as the saved
+     * graph.
+     */
+    public static <N> BufferCsrGraph<N> mapWeighted(Path file,
+                                                    GraphCodec<N> nodeCodec)
+            throws IOException {
+        if (file == null || nodeCodec == null) {
+            throw new NullPointerException("Arguments cannot be null.");
+        }
+
+        ByteBuffer buffer = map(file);
+        try {
+            readHeader(buffer, WEIGHTED);
+            int nodeCount = buffer.getInt();
+            int edgeCount = buffer.getInt();
+            buffer.getLong();
+            buffer.getDouble();
+            long[] starts = weightedRegions(nodeCount, edgeCount);
+            if (nodeCount < 0 || edgeCount < 0 ||
+                    starts[PagedCsrGraph.NODES] > buffer.limit()) {
+                throw new IOException("Snapshot is truncated.");
+            }
+
+            ByteBuffer offsets = slice(buffer, 4 * (nodeCount + 1));
+            ByteBuffer targets = slice(buffer, 4 * edgeCount);
+            ByteBuffer weights = slice(buffer, 8 * edgeCount);
+            ByteBuffer nodeOffsets = slice(buffer, 4 * (nodeCount + 1));
+            ByteBuffer table = slice(buffer,
+                    4 * PagedCsrGraph.tableSize(nodeCount));
+            return new BufferCsrGraph<>(nodeCount, offsets.asIntBuffer(),
+                    targets.asIntBuffer(), weights.asDoubleBuffer(),
+                    buffer.slice(), nodeOffsets.asIntBuffer(),
+                    table.asIntBuffer(), nodeCodec);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Snapshot is truncated.", e);
+        }
+    }
+
+    /**
+     * Opens a weighted graph saved by writeWeighted without loading or
+     * mapping it. Edges and nodes are read from the file in pages of
+     * pageSize bytes as they are used, and at most cacheBytes bytes of
+     * pages are kept in memory, so the graph can be much larger than the
+     * memory available for it. The file must not be changed while the
+     * graph is open, and the graph must be closed to close the file.
+     *
+     * @param file       The file to open the graph from.
+     * @param nodeCodec  The codec that decodes the nodes of the graph, and
+     *                   encodes nodes to find their ids.
+     * @param pageSize   The size in bytes of each page read from the file.
+     * @param cacheBytes The most bytes of pages to keep in memory.
+     * @param <N>        The type of nodes in the graph.
+     * @throws NullPointerException if file == null or nodeCodec == null
+     * @throws IllegalArgumentException if pageSize is not a positive
+     * multiple of 8, or cacheBytes < pageSize.
+     * @spec.requires nodeCodec encodes equal nodes to equal bytes.
+     * @throws IOException if the file cannot be read or is not a weighted
+     * graph snapshot of this version.
+     * @return a graph with the same node ids, nodes and edges as the saved
+     * graph.
+     */
+    public static <N> PagedCsrGraph<N> openPaged(Path file,
+                                                 GraphCodec<N> nodeCodec,
+                                                 int pageSize, long cacheBytes)
+            throws IOException {
+        if (file == null || nodeCodec == null) {
+            throw new NullPointerException("Arguments cannot be null.");
+        } else if (pageSize <= 0 || pageSize % 8 != 0) {
+            throw new IllegalArgumentException("Page size must be a positive" +
+                    " multiple of 8.");
+        } else if (cacheBytes < pageSize) {
+            throw new IllegalArgumentException("Cache must hold at least" +
+                    " one page.");
+        }
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is full or the file ends.
+            }
+            header.flip();
+            readHeader(header, WEIGHTED);
+            int nodeCount = header.getInt();
+            int edgeCount = header.getInt();
+            long[] starts = weightedRegions(nodeCount, edgeCount);
+            if (nodeCount < 0 || edgeCount < 0 ||
+                    starts[PagedCsrGraph.NODES] > channel.size()) {
+                throw new IOException("Snapshot is truncated.");
+            }
+
+            return new PagedCsrGraph<>(channel, nodeCodec, nodeCount, edgeCount,
+                    starts, pageSize, cacheBytes);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Saves a labeled graph.
+     *
+     * @param graph      The graph to save.
+     * @param nodeCodec  The codec that encodes the nodes of the graph.
+     * @param labelCodec The codec that encodes the edge labels of the graph.
+     * @param file       The file to save the graph to.
+     * @param <N>        The type of nodes in the graph.
+     * @param <E>        The type of edges in the graph.
+     * @spec.effects Creates or replaces file.
+     * @throws NullPointerException if any argument is null.
+     * @throws IOException if the file cannot be written.
+     */
+    public static <N,E> void writeLabeled(LGraphView<N,E> graph,
+                                          GraphCodec<? super N> nodeCodec,
+                                          GraphCodec<? super E> labelCodec,
+                                          Path file) throws IOException {
+        if (graph == null || nodeCodec == null || labelCodec == null ||
+                file == null) {
+            throw new NullPointerException("Arguments cannot be null.");
+        }
+
+        NodeIndex<N> index = NodeIndex.of(graph.getNodesView());
+        int edgeCount = 0;
+        for (int i = 0; i < index.size(); i++) {
+            edgeCount += graph.getEdgesView(index.get(i)).size();
+        }
+        int totalEdges = edgeCount;
+
+        write(file, out -> {
+            writeHeader(out, LABELED, index.size(), totalEdges, 0, 0.0);
+            for (int i = 0; i < index.size(); i++) {
+                nodeCodec.encode(index.get(i), out);
+            }
+            for (int i = 0; i < index.size(); i++) {
+                Set<Edge<N,E>> edges = graph.getEdgesView(index.get(i));
+                out.writeInt(edges.size());
+                for (Edge<N,E> edge : edges) {
+                    out.writeInt(index.indexOf(edge.getDest()));
+                    labelCodec.encode(edge.getLabel(), out);
+                }
+            }
+        });
+    }
+
+    /**
+     * Loads a labeled graph saved by writeLabeled into a new DirectLGraph.
+     *
+     * @param file       The file to load the graph from.
+     * @param nodeCodec  The codec that decodes the nodes of the graph.
+     * @param labelCodec The codec that decodes the edge labels of the graph.
+     * @param <N>        The type of nodes in the graph.
+     * @param <E>        The type of edges in the graph.
+     * @throws NullPointerException if any argument is null.
+     * @throws IOException if the file cannot be read or is not a labeled
+     * graph snapshot of this version.
+     * @return a new DirectLGraph with the same nodes and edges as the
+     * saved graph.
+     */
+    public static <N,E> DirectLGraph<N,E> readLabeled(Path file,
+                                                      GraphCodec<N> nodeCodec,
+                                                      GraphCodec<E> labelCodec)
+            throws IOException {
+        if (file == null || nodeCodec == null || labelCodec == null) {
+            throw new NullPointerException("Arguments cannot be null.");
+        }
+
+        ByteBuffer buffer = map(file);
+        try {
+            readHeader(buffer, LABELED);
+            int nodeCount = buffer.getInt();
+            buffer.getInt();
+            buffer.getLong();
+            buffer.getDouble();
+            if (nodeCount < 0) {
+                throw new IOException("Snapshot is truncated.");
+            }
+
+            List<N> nodes = new ArrayList<>(nodeCount);
+            DirectLGraph<N,E> graph = new DirectLGraph<>();
+            for (int i = 0; i < nodeCount; i++) {
+                N node = nodeCodec.decode(buffer);
+                nodes.add(node);
+                graph.addNode(node);
+            }
+            for (N node : nodes) {
+                int degree = buffer.getInt();
+                for (int k = 0; k < degree; k++) {
+                    N dest = nodes.get(buffer.getInt());
+                    graph.addEdge(node, dest, labelCodec.decode(buffer));
+                }
+            }
+            return graph;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Snapshot is truncated or corrupt.", e);
+        }
+    }
+
+    /**
+     * Returns the source fingerprint saved with a snapshot, reading only
+     * the header of the file.
+     *
+     * @param file The snapshot file to read.
+     * @throws NullPointerException if file == null
+     * @throws IOException if the file cannot be read or is not a graph
+     * snapshot of this version.
+     * @return the fingerprint passed to writeWeighted when the snapshot
+     * was saved, or 0 if none was passed.
+     */
+    public static long readSource(Path file) throws IOException {
+        return readHeader(file).getLong();
+    }
+
+    /**
+     * Returns the scale saved with a snapshot, reading only the header of
+     * the file.
+     *
+     * @param file The snapshot file to read.
+     * @throws NullPointerException if file == null
+     * @throws IOException if the file cannot be read or is not a graph
+     * snapshot of this version.
+     * @return the scale passed to writeWeighted when the snapshot was
+     * saved, or 0 if none was passed.
+     */
+    public static double readScale(Path file) throws IOException {
+        ByteBuffer header = readHeader(file);
+        header.getLong();
+        return header.getDouble();
+    }
+
+    // Something that writes the contents of a snapshot.
+    private interface SnapshotWriter {
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+
+    // Writes a snapshot to a temporary file beside file, then moves it
+    // over file.
+    private static void write(Path file, SnapshotWriter writer)
+            throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(),
+                absolute.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                writer.writeTo(out);
+            }
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void writeHeader(DataOutputStream out, byte kind,
+                                    int nodeCount, int edgeCount, long source,
+                                    double scale) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeByte(kind);
+        out.writeInt(nodeCount);
+        out.writeInt(edgeCount);
+        out.writeLong(source);
+        out.writeDouble(scale);
+    }
+
+    // Reads the header of a snapshot file, throws an exception unless its
+    // magic number and version are ones this class reads, and returns the
+    // header positioned at the source fingerprint.
+    private static ByteBuffer readHeader(Path file) throws IOException {
+        if (file == null) {
+            throw new NullPointerException("File cannot be null.");
+        }
+
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is full or the file ends.
+            }
+            header.flip();
+            readHeader(header);
+            header.getInt();
+            header.getInt();
+            return header;
+        }
+    }
+
+    // Reads the magic number, version and kind of a snapshot, and throws
+    // an exception unless they are ones this class reads.
+    private static void readHeader(ByteBuffer buffer, byte kind)
+            throws IOException {
+        if (readHeader(buffer) != kind) {
+            throw new IOException("Snapshot holds a different kind of graph.");
+        }
+    }
+
+    // Reads the magic number and version of a snapshot, throws an
+    // exception unless they are ones this class reads, and returns the
+    // kind of graph it holds.
+    private static byte readHeader(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+            throw new IOException("File is not a graph snapshot.");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version +
+                    ".");
+        }
+        return buffer.get();
+    }
+
+    // Returns the byte position of each region of a weighted snapshot, in
+    // the order of PagedCsrGraph's regions.
+    private static long[] weightedRegions(int nodeCount, int edgeCount) {
+        long[] starts = new long[PagedCsrGraph.NODES + 1];
+        starts[PagedCsrGraph.OFFSETS] = HEADER_BYTES;
+        starts[PagedCsrGraph.TARGETS] = starts[PagedCsrGraph.OFFSETS] +
+                4L * (nodeCount + 1);
+        starts[PagedCsrGraph.WEIGHTS] = starts[PagedCsrGraph.TARGETS] +
+                4L * edgeCount;
+        starts[PagedCsrGraph.NODE_OFFSETS] = starts[PagedCsrGraph.WEIGHTS] +
+                8L * edgeCount;
+        starts[PagedCsrGraph.TABLE] = starts[PagedCsrGraph.NODE_OFFSETS] +
+                4L * (nodeCount + 1);
+        starts[PagedCsrGraph.NODES] = starts[PagedCsrGraph.TABLE] +
+                4L * PagedCsrGraph.tableSize(nodeCount);
+        return starts;
+    }
+
+    // Maps the whole of a file read-only.
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot is too large to map.");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        }
+    }
+
+    // Returns the next length bytes of buffer as a buffer of their own,
+    // and advances buffer past them.
+    private static ByteBuffer slice(ByteBuffer buffer, int length) {
+        ByteBuffer slice = buffer.slice();
+        slice.limit(length);
+        buffer.position(buffer.position() + length);
+        return slice;
+    }
+}
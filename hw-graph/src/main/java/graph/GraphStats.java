@@ -0,0 +1,357 @@
+package graph;
+import java.util.*;
+
+/**
+ * <b>GraphStats</b> is an immutable summary of the shape and memory use of
+ * a graph at the time it was computed: node and edge counts, the
+ * distribution of out-degrees, the number of parallel edges, an
+ * estimate of the heap bytes the graph retains, and the bytes of direct
+ * or mapped memory it uses outside the heap.
+ *
+ * The byte estimate models a 64-bit HotSpot JVM with compressed references
+ * (12-byte object headers, 4-byte references, 8-byte alignment). It counts
+ * the graph's own tables, arrays and Edge objects, but not the node and
+ * label objects, which the caller may share with other structures. The
+ * graph classes in this package report their actual layout; other
+ * LGraphView implementations are estimated as if they were a hash map of
+ * hash sets of edges, like DirectLGraph without its indexes. Memory
+ * outside the heap, such as the buffers of a BufferCsrGraph, is counted
+ * separately, by the capacity of each buffer, since it is not limited by
+ * the heap size but still counts against the memory of the process.
+ */
+public final class GraphStats {
+
+    // ABSTRACTION FUNCTION:
+    //      AF(r) = the statistics of a graph with nodeCount nodes and
+    //      edgeCount edges, in which degreeCounts.get(d) nodes have
+    //      out-degree d, parallelEdgeCount edges share their source and
+    //      destination with an earlier edge, and which retains about
+    //      estimatedBytes bytes of heap and offHeapBytes bytes outside
+    //      the heap.
+
+    // REPRESENTATION INVARIANT:
+    //      degreeCounts != null and is unmodifiable.
+    //      nodeCount == the sum of the values of degreeCounts.
+    //      edgeCount == the sum of d * degreeCounts.get(d).
+    //      0 <= parallelEdgeCount <= edgeCount.
+    //      offHeapBytes >= 0.
+
+
+    // Debug flag; change to TRUE to enable checkReps.
+    private static final boolean DEBUG = false;
+
+    // Sizes of the parts of an object, in bytes.
+    static final int HEADER = 12;
+    static final int REFERENCE = 4;
+    static final int ARRAY_HEADER = 16;
+
+    // Size of a HashMap, and of one of its entries.
+    private static final long HASH_MAP = object(4 * REFERENCE + 4 * 4);
+    private static final long HASH_MAP_ENTRY = object(4 + 3 * REFERENCE);
+
+    // Extra size of a LinkedHashMap, and of one of its entries, over a
+    // HashMap.
+    private static final long LINKED_EXTRA = object(6 * REFERENCE + 4 * 4 + 1) - HASH_MAP;
+    private static final long LINKED_ENTRY_EXTRA = object(4 + 5 * REFERENCE) - HASH_MAP_ENTRY;
+
+    private final int nodeCount;
+    private final int edgeCount;
+    private final SortedMap<Integer, Integer> degreeCounts;
+    private final int parallelEdgeCount;
+    private final long estimatedBytes;
+    private final long offHeapBytes;
+
+    private GraphStats(int nodeCount, int edgeCount, SortedMap<Integer, Integer> degreeCounts,
+                       int parallelEdgeCount, long estimatedBytes, long offHeapBytes) {
+        this.nodeCount = nodeCount;
+        this.edgeCount = edgeCount;
+        this.degreeCounts = Collections.unmodifiableSortedMap(degreeCounts);
+        this.parallelEdgeCount = parallelEdgeCount;
+        this.estimatedBytes = estimatedBytes;
+        this.offHeapBytes = offHeapBytes;
+        checkRep();
+    }
+
+    /**
+     * Computes the statistics of a labeled graph. This reads every edge
+     * of the graph once.
+     *
+     * @param graph The graph to measure.
+     * @param <N>   The type of nodes in the graph.
+     * @param <E>   The type of edges in the graph.
+     * @throws NullPointerException if graph == null
+     * @spec.requires graph is not modified while it is measured.
+     * @return the statistics of the graph.
+     */
+    public static <N,E> GraphStats of(LGraphView<N,E> graph) {
+        SortedMap<Integer, Integer> degreeCounts = new TreeMap<>();
+        int nodeCount = 0;
+        int edgeCount = 0;
+        int parallelEdgeCount = 0;
+        long bytes = object(REFERENCE) + hashMap(graph.getNodesView().size());
+        Set<N> children = new HashSet<>();
+
+        for (N node : graph.getNodesView()) {
+            Set<Edge<N,E>> edges = graph.getEdgesView(node);
+            children.clear();
+            for (Edge<N,E> edge : edges) {
+                children.add(edge.getDest());
+            }
+            degreeCounts.merge(edges.size(), 1, Integer::sum);
+            nodeCount++;
+            edgeCount += edges.size();
+            parallelEdgeCount += edges.size() - children.size();
+            bytes += hashSet(edges.size()) + edges.size() * edgeObject();
+        }
+
+        if (graph instanceof DirectLGraph) {
+            bytes = ((DirectLGraph<N,E>) graph).estimatedBytes();
+        }
+        return new GraphStats(nodeCount, edgeCount, degreeCounts, parallelEdgeCount, bytes, 0);
+    }
+
+    /**
+     * Computes the statistics of a weighted graph. This reads every edge
+     * of the graph once.
+     *
+     * @param graph The graph to measure.
+     * @param <N>   The type of nodes in the graph.
+     * @throws NullPointerException if graph == null
+     * @spec.requires graph is not modified while it is measured.
+     * @return the statistics of the graph.
+     */
+    public static <N> GraphStats of(WeightedGraph<N> graph) {
+        SortedMap<Integer, Integer> degreeCounts = new TreeMap<>();
+        int nodeCount = graph.nodeCount();
+        int[] parallelEdgeCount = {0};
+
+        // seen[d] == i + 1 when node d has been reached from node i.
+        int[] seen = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            int stamp = i + 1;
+            degreeCounts.merge(graph.outDegree(i), 1, Integer::sum);
+            graph.forEachEdge(i, (dest, weight) -> {
+                if (seen[dest] == stamp) {
+                    parallelEdgeCount[0]++;
+                }
+                seen[dest] = stamp;
+            });
+        }
+
+        long bytes;
+        long offHeapBytes = 0;
+        if (graph instanceof CsrGraph) {
+            bytes = ((CsrGraph<N>) graph).estimatedBytes();
+        } else if (graph instanceof DirectWGraph) {
+            bytes = ((DirectWGraph<N>) graph).estimatedBytes();
+        } else if (graph instanceof BufferCsrGraph) {
+            bytes = ((BufferCsrGraph<N>) graph).estimatedBytes();
+            offHeapBytes = ((BufferCsrGraph<N>) graph).offHeapBytes();
+        } else if (graph instanceof PagedCsrGraph) {
+            bytes = ((PagedCsrGraph<N>) graph).estimatedBytes();
+        } else {
+            // Estimate other graphs as if they were a CsrGraph.
+            bytes = object(4 * REFERENCE) + NodeIndex.estimatedBytes(nodeCount) +
+                    intArray(nodeCount + 1) + intArray(graph.edgeCount()) +
+                    doubleArray(graph.edgeCount());
+        }
+        return new GraphStats(nodeCount, graph.edgeCount(), degreeCounts,
+                parallelEdgeCount[0], bytes, offHeapBytes);
+    }
+
+    /**
+     * Returns the number of nodes in the graph.
+     *
+     * @return the number of nodes in the graph.
+     */
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns the number of edges in the graph, counting each parallel
+     * edge separately.
+     *
+     * @return the number of edges in the graph.
+     */
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Returns the distribution of out-degrees in the graph.
+     *
+     * @return an unmodifiable map from each out-degree that occurs in the
+     * graph to the number of nodes with that out-degree, in increasing
+     * order of out-degree.
+     */
+    public SortedMap<Integer, Integer> outDegreeDistribution() {
+        return degreeCounts;
+    }
+
+    /**
+     * Returns the largest out-degree of any node in the graph.
+     *
+     * @return the largest out-degree, or 0 if the graph is empty.
+     */
+    public int maxOutDegree() {
+        return degreeCounts.isEmpty() ? 0 : degreeCounts.lastKey();
+    }
+
+    /**
+     * Returns the average out-degree of the nodes in the graph.
+     *
+     * @return the number of edges per node, or 0 if the graph is empty.
+     */
+    public double averageOutDegree() {
+        return nodeCount == 0 ? 0.0 : (double) edgeCount / nodeCount;
+    }
+
+    /**
+     * Returns the number of parallel edges in the graph, that is, edges
+     * that have the same source and destination as another edge, not
+     * counting the first edge between each pair of nodes.
+     *
+     * @return the number of edges beyond the first between each pair of
+     * nodes.
+     */
+    public int parallelEdgeCount() {
+        return parallelEdgeCount;
+    }
+
+    /**
+     * Returns an estimate of the heap bytes the graph retains, not
+     * counting its node and label objects.
+     *
+     * @return the estimated number of heap bytes retained by the graph.
+     */
+    public long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * Returns the number of bytes of direct or mapped memory outside the
+     * heap that the graph uses, such as the buffers of a BufferCsrGraph.
+     * This is not part of estimatedBytes.
+     *
+     * @return the number of bytes the graph uses outside the heap, or 0
+     * if it is kept entirely on the heap.
+     */
+    public long offHeapBytes() {
+        return offHeapBytes;
+    }
+
+    /**
+     * Returns the estimated heap bytes of the graph divided by its number
+     * of edges.
+     *
+     * @return the estimated bytes per edge, or 0 if the graph has no edges.
+     */
+    public double bytesPerEdge() {
+        return edgeCount == 0 ? 0.0 : (double) estimatedBytes / edgeCount;
+    }
+
+    /**
+     * Returns a one-line summary of these statistics.
+     *
+     * @return a string of the counts, degrees and estimated size, and
+     * of the bytes used outside the heap if there are any.
+     */
+    @Override
+    public String toString() {
+        String result = String.format("%d nodes, %d edges (%d parallel), out-degree" +
+                        " avg %.2f max %d, ~%d bytes (%.1f per edge)",
+                nodeCount, edgeCount, parallelEdgeCount, averageOutDegree(),
+                maxOutDegree(), estimatedBytes, bytesPerEdge());
+        if (offHeapBytes > 0) {
+            result += String.format(" + %d bytes off-heap", offHeapBytes);
+        }
+        return result;
+    }
+
+    // Returns the size of an object with fields taking fieldBytes bytes.
+    static long object(int fieldBytes) {
+        return align(HEADER + fieldBytes);
+    }
+
+    // Returns the size of an int array of the given length.
+    static long intArray(int length) {
+        return align(ARRAY_HEADER + 4L * length);
+    }
+
+    // Returns the size of a double array of the given length.
+    static long doubleArray(int length) {
+        return align(ARRAY_HEADER + 8L * length);
+    }
+
+    // Returns the size of an array of references of the given length.
+    static long referenceArray(int length) {
+        return align(ARRAY_HEADER + (long) REFERENCE * length);
+    }
+
+    // Returns the size of a HashMap with the given number of entries,
+    // grown from the default capacity, not counting its keys and values.
+    static long hashMap(int size) {
+        return hashMap(size, 16);
+    }
+
+    // Returns the size of a HashMap with the given number of entries,
+    // grown from the given initial capacity, not counting its keys and
+    // values.
+    static long hashMap(int size, int initialCapacity) {
+        if (size == 0) {
+            return HASH_MAP;
+        }
+        long capacity = initialCapacity;
+        while (size > capacity * 3 / 4) {
+            capacity *= 2;
+        }
+        return HASH_MAP + referenceArray((int) capacity) + size * HASH_MAP_ENTRY;
+    }
+
+    // Returns the size of a HashSet with the given number of elements,
+    // not counting the elements.
+    static long hashSet(int size) {
+        return object(REFERENCE) + hashMap(size);
+    }
+
+    // Returns the size of a LinkedHashMap with the given number of
+    // entries, grown from the default capacity, not counting its keys and
+    // values.
+    static long linkedHashMap(int size) {
+        return hashMap(size) + LINKED_EXTRA + size * LINKED_ENTRY_EXTRA;
+    }
+
+    // Returns the size of a LinkedHashSet with the given number of
+    // elements, not counting the elements.
+    static long linkedHashSet(int size) {
+        return object(REFERENCE) + linkedHashMap(size);
+    }
+
+    // Returns the size of an Edge, not counting its nodes and label.
+    static long edgeObject() {
+        return object(3 * REFERENCE);
+    }
+
+    // Rounds a size up to the 8-byte alignment of objects.
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    // Checks if the rep invariant holds. Throws exception if the
+    // rep invariant is violated.
+    private void checkRep() {
+        if (DEBUG) {
+            int nodes = 0;
+            long edges = 0;
+            for (Map.Entry<Integer, Integer> entry : degreeCounts.entrySet()) {
+                nodes += entry.getValue();
+                edges += (long) entry.getKey() * entry.getValue();
+            }
+            assert nodes == nodeCount;
+            assert edges == edgeCount;
+            assert parallelEdgeCount >= 0 && parallelEdgeCount <= edgeCount;
+            assert offHeapBytes >= 0;
+        }
+    }
+}
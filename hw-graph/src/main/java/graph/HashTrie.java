@@ -0,0 +1,442 @@
+package graph;
+import java.util.*;
+
+/**
+ * <b>HashTrie</b> is an immutable hash map that shares structure between
+ * versions: put and remove return a new map that reuses every part of the
+ * old map except the path from the root to the changed key. It is a hash
+ * array mapped trie that branches 32 ways on successive 5-bit slices of
+ * each key's hash code, so a change copies O(log32 n) small arrays instead
+ * of the whole map.
+ *
+ * Keys and values must not be null.
+ *
+ * @param <K> The type of keys in the map.
+ * @param <V> The type of values in the map.
+ */
+final class HashTrie<K,V> implements Iterable<Map.Entry<K,V>> {
+
+    // ABSTRACTION FUNCTION:
+    //      AF(r) = the map containing, for every Leaf reachable from root
+    //      (directly, inside a Collision, or through child Nodes), the
+    //      pair leaf.key -> leaf.value.
+
+    // REPRESENTATION INVARIANT:
+    //      root != null, and size == the number of reachable Leaves.
+    //      In every Node, slots.length == Integer.bitCount(bitmap) and
+    //      no slot is null.
+    //      A Leaf or Collision found at depth d below the root under
+    //      slot indexes i0..id has a hash whose 5-bit slices 0..d equal
+    //      i0..id.
+    //      Every Collision has at least two leaves, all with its hash
+    //      and with pairwise unequal keys.
+    //      No two reachable Leaves have equal keys.
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final HashTrie<?,?> EMPTY =
+            new HashTrie<>(new Node(0, new Object[0]), 0);
+
+    private final Node root;
+    private final int size;
+
+    private HashTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns the empty map.
+     *
+     * @param <K> The type of keys in the map.
+     * @param <V> The type of values in the map.
+     * @return an empty HashTrie.
+     */
+    @SuppressWarnings("unchecked")
+    static <K,V> HashTrie<K,V> empty() {
+        return (HashTrie<K,V>) EMPTY;
+    }
+
+    /**
+     * Returns the number of keys in this map.
+     *
+     * @return the number of keys in this map.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the value mapped to a key.
+     *
+     * @param key The key to look up.
+     * @return the value mapped to key, or null if key is not in this map.
+     */
+    @SuppressWarnings("unchecked")
+    V get(Object key) {
+        if (key == null) {
+            return null;
+        }
+
+        int hash = key.hashCode();
+        Object slot = root;
+        for (int shift = 0; slot instanceof Node; shift += BITS) {
+            Node node = (Node) slot;
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            slot = node.slots[Integer.bitCount(node.bitmap & (bit - 1))];
+        }
+
+        if (slot instanceof Leaf) {
+            Leaf leaf = (Leaf) slot;
+            return leaf.hash == hash && leaf.key.equals(key) ? (V) leaf.value : null;
+        }
+        Collision collision = (Collision) slot;
+        if (collision.hash == hash) {
+            for (Leaf leaf : collision.leaves) {
+                if (leaf.key.equals(key)) {
+                    return (V) leaf.value;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether a key is in this map.
+     *
+     * @param key The key to look up.
+     * @return TRUE if key is in this map; FALSE if not.
+     */
+    boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns a map that is this map with key mapped to value.
+     *
+     * @param key   The key to add or replace.
+     * @param value The value to map key to.
+     * @throws NullPointerException if key or value is null.
+     * @return a new map with the mapping, or this map if key is already
+     * mapped to the same value object.
+     */
+    HashTrie<K,V> put(K key, V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException("Key and value cannot be null.");
+        }
+
+        int[] added = new int[1];
+        Node newRoot = put(root, 0, new Leaf(key.hashCode(), key, value), added);
+        return newRoot == root ? this : new HashTrie<>(newRoot, size + added[0]);
+    }
+
+    /**
+     * Returns a map that is this map without key.
+     *
+     * @param key The key to remove.
+     * @return a new map without the key, or this map if key is not in it.
+     */
+    HashTrie<K,V> remove(Object key) {
+        if (key == null || !containsKey(key)) {
+            return this;
+        }
+
+        Object newRoot = remove(root, 0, key.hashCode(), key);
+        if (!(newRoot instanceof Node)) {
+            // The root must stay a Node, even if it holds a single leaf.
+            newRoot = newRoot == null ? EMPTY.root :
+                    new Node(bitFor(hashOf(newRoot), 0), new Object[] {newRoot});
+        }
+        return new HashTrie<>((Node) newRoot, size - 1);
+    }
+
+    /**
+     * Returns an iterator over the mappings in this map, in no particular
+     * order. The iterator does not support remove.
+     *
+     * @return an iterator over the mappings of this map.
+     */
+    @Override
+    public Iterator<Map.Entry<K,V>> iterator() {
+        return new TrieIterator();
+    }
+
+    // Returns node with leaf added at the given depth, or node itself if
+    // the key is already mapped to the same value. Sets added[0] to 1 if
+    // the key is new.
+    private static Node put(Node node, int shift, Leaf leaf, int[] added) {
+        int bit = bitFor(leaf.hash, shift);
+        int pos = Integer.bitCount(node.bitmap & (bit - 1));
+
+        if ((node.bitmap & bit) == 0) {
+            added[0] = 1;
+            Object[] slots = new Object[node.slots.length + 1];
+            System.arraycopy(node.slots, 0, slots, 0, pos);
+            slots[pos] = leaf;
+            System.arraycopy(node.slots, pos, slots, pos + 1, node.slots.length - pos);
+            return new Node(node.bitmap | bit, slots);
+        }
+
+        Object slot = node.slots[pos];
+        Object newSlot;
+        if (slot instanceof Node) {
+            newSlot = put((Node) slot, shift + BITS, leaf, added);
+        } else if (slot instanceof Leaf) {
+            Leaf old = (Leaf) slot;
+            if (old.hash == leaf.hash && old.key.equals(leaf.key)) {
+                newSlot = old.value == leaf.value ? old : leaf;
+            } else if (old.hash == leaf.hash) {
+                added[0] = 1;
+                newSlot = new Collision(leaf.hash, new Leaf[] {old, leaf});
+            } else {
+                added[0] = 1;
+                newSlot = merge(shift + BITS, old, leaf);
+            }
+        } else {
+            Collision old = (Collision) slot;
+            if (old.hash == leaf.hash) {
+                newSlot = old.with(leaf, added);
+            } else {
+                added[0] = 1;
+                newSlot = merge(shift + BITS, old, leaf);
+            }
+        }
+
+        if (newSlot == slot) {
+            return node;
+        }
+        Object[] slots = node.slots.clone();
+        slots[pos] = newSlot;
+        return new Node(node.bitmap, slots);
+    }
+
+    // Returns a Node at the given depth holding two slots whose hashes
+    // differ.
+    private static Node merge(int shift, Object a, Object b) {
+        int bitA = bitFor(hashOf(a), shift);
+        int bitB = bitFor(hashOf(b), shift);
+        if (bitA == bitB) {
+            return new Node(bitA, new Object[] {merge(shift + BITS, a, b)});
+        }
+        Object[] slots = Integer.compareUnsigned(bitA, bitB) < 0 ?
+                new Object[] {a, b} : new Object[] {b, a};
+        return new Node(bitA | bitB, slots);
+    }
+
+    // Returns slot without key, which must be in it. Returns null if
+    // nothing is left, and a single Leaf or Collision in place of a Node
+    // that would hold only that.
+    private static Object remove(Object slot, int shift, int hash, Object key) {
+        if (slot instanceof Leaf) {
+            return null;
+        } else if (slot instanceof Collision) {
+            return ((Collision) slot).without(key);
+        }
+
+        Node node = (Node) slot;
+        int bit = bitFor(hash, shift);
+        int pos = Integer.bitCount(node.bitmap & (bit - 1));
+        Object child = remove(node.slots[pos], shift + BITS, hash, key);
+
+        if (child != null) {
+            if (node.slots.length == 1 && !(child instanceof Node)) {
+                return child;
+            }
+            Object[] slots = node.slots.clone();
+            slots[pos] = child;
+            return new Node(node.bitmap, slots);
+        }
+
+        if (node.slots.length == 1) {
+            return null;
+        } else if (node.slots.length == 2 && !(node.slots[1 - pos] instanceof Node)) {
+            return node.slots[1 - pos];
+        }
+        Object[] slots = new Object[node.slots.length - 1];
+        System.arraycopy(node.slots, 0, slots, 0, pos);
+        System.arraycopy(node.slots, pos + 1, slots, pos, slots.length - pos);
+        return new Node(node.bitmap & ~bit, slots);
+    }
+
+    private static int bitFor(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private static int hashOf(Object slot) {
+        return slot instanceof Leaf ? ((Leaf) slot).hash : ((Collision) slot).hash;
+    }
+
+    // An inner node of the trie. Each slot is a Node, Leaf or Collision.
+    private static final class Node {
+        private final int bitmap;
+        private final Object[] slots;
+
+        private Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+    }
+
+    // A single key-value mapping, with the key's hash code cached.
+    private static final class Leaf implements Map.Entry<Object,Object> {
+        private final int hash;
+        private final Object key;
+        private final Object value;
+
+        private Leaf(int hash, Object key, Object value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public Object getKey() {
+            return key;
+        }
+
+        @Override
+        public Object getValue() {
+            return value;
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            throw new UnsupportedOperationException("HashTrie is immutable.");
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Map.Entry<?,?>)) {
+                return false;
+            }
+            Map.Entry<?,?> other = (Map.Entry<?,?>) obj;
+            return key.equals(other.getKey()) && value.equals(other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return hash ^ value.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    // Two or more mappings whose keys have the same full hash code.
+    private static final class Collision {
+        private final int hash;
+        private final Leaf[] leaves;
+
+        private Collision(int hash, Leaf[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+        // Returns this collision with leaf added or replacing the leaf
+        // with the same key, or this collision if nothing changes.
+        private Collision with(Leaf leaf, int[] added) {
+            for (int i = 0; i < leaves.length; i++) {
+                if (leaves[i].key.equals(leaf.key)) {
+                    if (leaves[i].value == leaf.value) {
+                        return this;
+                    }
+                    Leaf[] copy = leaves.clone();
+                    copy[i] = leaf;
+                    return new Collision(hash, copy);
+                }
+            }
+            added[0] = 1;
+            Leaf[] copy = Arrays.copyOf(leaves, leaves.length + 1);
+            copy[leaves.length] = leaf;
+            return new Collision(hash, copy);
+        }
+
+        // Returns this collision without the leaf for key, which must be
+        // present, or the single remaining Leaf.
+        private Object without(Object key) {
+            if (leaves.length == 2) {
+                return leaves[0].key.equals(key) ? leaves[1] : leaves[0];
+            }
+            Leaf[] copy = new Leaf[leaves.length - 1];
+            int next = 0;
+            for (Leaf leaf : leaves) {
+                if (!leaf.key.equals(key)) {
+                    copy[next++] = leaf;
+                }
+            }
+            return new Collision(hash, copy);
+        }
+    }
+
+    // Walks the trie depth-first, keeping the slot arrays and positions of
+    // the nodes above the current one on a stack.
+    private final class TrieIterator implements Iterator<Map.Entry<K,V>> {
+        private final Deque<Object[]> slotStack = new ArrayDeque<>();
+        private final Deque<Integer> posStack = new ArrayDeque<>();
+        private Leaf[] collision = null;
+        private int collisionPos = 0;
+        private Leaf next = null;
+
+        private TrieIterator() {
+            slotStack.push(root.slots);
+            posStack.push(0);
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K,V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<K,V> result = (Map.Entry<K,V>) (Map.Entry<?,?>) next;
+            advance();
+            return result;
+        }
+
+        // Moves next to the following leaf, or to null at the end.
+        private void advance() {
+            if (collision != null && collisionPos < collision.length) {
+                next = collision[collisionPos++];
+                return;
+            }
+            collision = null;
+
+            while (!slotStack.isEmpty()) {
+                Object[] slots = slotStack.peek();
+                int pos = posStack.pop();
+                if (pos == slots.length) {
+                    slotStack.pop();
+                    continue;
+                }
+                posStack.push(pos + 1);
+
+                Object slot = slots[pos];
+                if (slot instanceof Node) {
+                    slotStack.push(((Node) slot).slots);
+                    posStack.push(0);
+                } else if (slot instanceof Leaf) {
+                    next = (Leaf) slot;
+                    return;
+                } else {
+                    collision = ((Collision) slot).leaves;
+                    collisionPos = 1;
+                    next = collision[0];
+                    return;
+                }
+            }
+            next = null;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package graph;
+import java.util.*;
+
+/**
+ * <b>IndexedMinHeap</b> is a mutable priority queue of the integer ids
+ * 0 to capacity - 1, each held at most once with a double key. Unlike a
+ * PriorityQueue, it can lower the key of an id it already holds, so a
+ * search that finds a cheaper way to a node updates its entry instead of
+ * adding another one, and the queue never holds more entries than there
+ * are nodes.
+ *
+ * The heap is 4-ary: each entry has up to four children, which halves the
+ * height of the tree compared with a binary heap and keeps the children
+ * of an entry next to each other in memory. Adding an id or lowering its
+ * key takes O(log size) time, as does removing the minimum.
+ *
+ * Ids with equal keys are removed in the order their keys were set,
+ * first set first out. A search keyed by path cost therefore breaks ties
+ * the same way as one that adds a new entry to a PriorityQueue for each
+ * path and orders equal costs by when the entries were added.
+ *
+ * An id's key can be read after it is removed, until it is added again
+ * or the heap is cleared.
+ */
+public final class IndexedMinHeap {
+
+    // ABSTRACTION FUNCTION:
+    //      AF(r) = the set of pairs (heap[k], keys[heap[k]]) for
+    //      0 <= k < size, ordered by key and then by stamps[heap[k]], the
+    //      order in which their keys were set.
+
+    // REPRESENTATION INVARIANT:
+    //      heap, positions, keys, stamps != null.
+    //      positions.length, heap.length and stamps.length == keys.length.
+    //      0 <= size <= heap.length.
+    //      positions[heap[k]] == k for 0 <= k < size, and positions[i] == -1
+    //      for every id i not among heap[0..size-1].
+    //      heap[(k - 1) / 4] comes before heap[k] for 0 < k < size.
+    //      stamps[heap[k]] < nextStamp for 0 <= k < size.
+
+
+    // Debug flag; change to TRUE to enable checkReps.
+    private static final boolean DEBUG = false;
+
+    private static final int ARITY = 4;
+
+    private final int[] heap;
+    private final int[] positions;
+    private final double[] keys;
+    private final long[] stamps;
+    private long nextStamp;
+    private int size;
+
+    /**
+     * Creates a new, empty heap for the ids 0 to capacity - 1.
+     *
+     * @param capacity The number of ids the heap can hold.
+     * @throws IllegalArgumentException if capacity is negative.
+     * @spec.effects Constructs an empty IndexedMinHeap.
+     */
+    public IndexedMinHeap(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative.");
+        }
+        this.heap = new int[capacity];
+        this.positions = new int[capacity];
+        this.keys = new double[capacity];
+        this.stamps = new long[capacity];
+        Arrays.fill(positions, -1);
+        checkRep();
+    }
+
+    /**
+     * Returns the number of ids in the heap.
+     *
+     * @return the number of ids in the heap.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the heap holds no ids.
+     *
+     * @return true if and only if the heap is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns whether the heap holds an id.
+     *
+     * @param id The id to look for.
+     * @throws IndexOutOfBoundsException if id is not in [0, capacity).
+     * @return true if and only if id is in the heap.
+     */
+    public boolean contains(int id) {
+        return positions[id] >= 0;
+    }
+
+    /**
+     * Returns the key last given to an id.
+     *
+     * @param id The id to look up.
+     * @throws IndexOutOfBoundsException if id is not in [0, capacity).
+     * @return the key of id, which is unspecified if id has not been
+     * added since the heap was created or cleared.
+     */
+    public double key(int id) {
+        return keys[id];
+    }
+
+    /**
+     * Adds an id with a key, or lowers its key if it is already in the
+     * heap with a greater key.
+     *
+     * @param id  The id to add.
+     * @param key The key of the id.
+     * @throws IndexOutOfBoundsException if id is not in [0, capacity).
+     * @spec.effects Adds id with key if it is absent, or lowers its key
+     * to key if it is present with a greater key.
+     * @return true if id was added or its key was lowered.
+     */
+    public boolean offer(int id, double key) {
+        int position = positions[id];
+        if (position < 0) {
+            position = size++;
+        } else if (key >= keys[id]) {
+            return false;
+        }
+        keys[id] = key;
+        stamps[id] = nextStamp++;
+        siftUp(id, position);
+        checkRep();
+        return true;
+    }
+
+    /**
+     * Returns the id with the least key without removing it.
+     *
+     * @throws NoSuchElementException if the heap is empty.
+     * @return an id whose key is not greater than any other id's, and was
+     * set first among the ids with that key.
+     */
+    public int peek() {
+        if (size == 0) {
+            throw new NoSuchElementException("Heap is empty.");
+        }
+        return heap[0];
+    }
+
+    /**
+     * Removes and returns the id with the least key.
+     *
+     * @throws NoSuchElementException if the heap is empty.
+     * @spec.effects Removes the returned id.
+     * @return an id whose key was not greater than any other id's, and was
+     * set first among the ids with that key.
+     */
+    public int poll() {
+        int min = peek();
+        positions[min] = -1;
+        size--;
+        if (size > 0) {
+            siftDown(heap[size], 0);
+        }
+        checkRep();
+        return min;
+    }
+
+    /**
+     * Removes every id from the heap.
+     *
+     * @spec.effects Empties the heap.
+     */
+    public void clear() {
+        for (int k = 0; k < size; k++) {
+            positions[heap[k]] = -1;
+        }
+        size = 0;
+        checkRep();
+    }
+
+    // Places id at position k or above, moving down each ancestor that
+    // comes after it.
+    private void siftUp(int id, int k) {
+        while (k > 0) {
+            int parent = (k - 1) / ARITY;
+            if (!before(id, heap[parent])) {
+                break;
+            }
+            place(heap[parent], k);
+            k = parent;
+        }
+        place(id, k);
+    }
+
+    // Places id at position k or below, moving up each first child that
+    // comes before it.
+    private void siftDown(int id, int k) {
+        while (true) {
+            int first = ARITY * k + 1;
+            if (first >= size) {
+                break;
+            }
+            int least = first;
+            int last = Math.min(first + ARITY, size);
+            for (int child = first + 1; child < last; child++) {
+                if (before(heap[child], heap[least])) {
+                    least = child;
+                }
+            }
+            if (!before(heap[least], id)) {
+                break;
+            }
+            place(heap[least], k);
+            k = least;
+        }
+        place(id, k);
+    }
+
+    // Returns whether id a comes before id b: it has a smaller key, or an
+    // equal key that was set earlier.
+    private boolean before(int a, int b) {
+        return keys[a] < keys[b] || (keys[a] == keys[b] && stamps[a] < stamps[b]);
+    }
+
+    private void place(int id, int k) {
+        heap[k] = id;
+        positions[id] = k;
+    }
+
+    // Checks if the rep invariant holds. Throws exception if the
+    // rep invariant is violated.
+    private void checkRep() {
+        if (DEBUG) {
+            assert heap.length == keys.length && positions.length == keys.length;
+            assert stamps.length == keys.length;
+            assert size >= 0 && size <= heap.length;
+            int held = 0;
+            for (int i = 0; i < positions.length; i++) {
+                if (positions[i] >= 0) {
+                    held++;
+                    assert positions[i] < size && heap[positions[i]] == i;
+                }
+            }
+            assert held == size;
+            for (int k = 1; k < size; k++) {
+                assert before(heap[(k - 1) / ARITY], heap[k]);
+            }
+            for (int k = 0; k < size; k++) {
+                assert stamps[heap[k]] < nextStamp;
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package graph;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * <b>LGraphView</b> is the read-only API of a directed labeled multigraph.
+ * It is shared by graph implementations with different mutation and
+ * threading behavior, so that code which only reads a graph, such as a
+ * shortest path search, can run on any of them.
+ *
+ * @param <N> The type of nodes in the graph.
+ * @param <E> The type of edges in the graph.
+ */
+public interface LGraphView<N,E> {
+
+    /**
+     * Returns a copy of the set of nodes in this graph.
+     *
+     * @return A set of the nodes contained in this graph.
+     */
+    Set<N> getNodes();
+
+    /**
+     * Returns a read-only view of the nodes in this graph, without
+     * copying them. Implementations document whether the view reflects
+     * later changes to the graph.
+     *
+     * @return A read-only view of the nodes contained in this graph.
+     */
+    Set<N> getNodesView();
+
+    /**
+     * Returns a copy of the set of edges from the specified node.
+     *
+     * @param node The node to be queried.
+     * @throws NullPointerException if node == null or node is not in
+     * this graph.
+     * @return A set of all the edges from this node, or an empty set if
+     * there are no edges from this node.
+     */
+    Set<Edge<N,E>> getEdges(N node);
+
+    /**
+     * Returns a read-only view of the edges from the specified node,
+     * without copying them. Implementations document whether the view
+     * reflects later changes to the graph.
+     *
+     * @param node The node to be queried.
+     * @throws NullPointerException if node == null or node is not in
+     * this graph.
+     * @return A read-only view of the edges from this node.
+     */
+    Set<Edge<N,E>> getEdgesView(N node);
+
+    /**
+     * Passes the destination and label of each edge from the specified
+     * node to an action.
+     *
+     * @param node   The node to be queried.
+     * @param action The action that receives the destination and label
+     *               of each edge.
+     * @throws NullPointerException if node == null, node is not in this
+     * graph, or action == null.
+     * @spec.requires action does not modify this graph.
+     */
+    void forEachEdge(N node, BiConsumer<? super N, ? super E> action);
+
+    /**
+     * Passes each child of the specified node to an action, once for
+     * every edge that leads to it.
+     *
+     * @param node   The node to be queried.
+     * @param action The action that receives each child.
+     * @throws NullPointerException if node == null, node is not in this
+     * graph, or action == null.
+     * @spec.requires action does not modify this graph.
+     */
+    void forEachChild(N node, Consumer<? super N> action);
+
+    /**
+     * Returns whether this graph contains the specified node.
+     *
+     * @param node The node to be queried.
+     * @return TRUE if this graph contains the node; FALSE if not.
+     */
+    boolean hasNode(N node);
+
+    /**
+     * Returns whether this graph contains the specified edge.
+     *
+     * @param source The starting node of the edge.
+     * @param dest   The ending node of the edge.
+     * @param label  The label of the edge to query.
+     * @return TRUE if this graph contains the edge; FALSE if not.
+     */
+    boolean hasEdge(N source, N dest, E label);
+
+    /**
+     * Returns a set of all the children of the specified node.
+     *
+     * @param node The node to be queried.
+     * @throws NullPointerException if node == null or node is not in
+     * this graph.
+     * @return A set of all the children from this node, or an empty set
+     * if there are no children from this node.
+     */
+    Set<N> listChildren(N node);
+
+    /**
+     * Returns a stream of the nodes in this graph, read through
+     * getNodesView without copying. The stream can be made parallel, in
+     * which case it is split as finely as the view's spliterator allows.
+     *
+     * @spec.requires this graph is not modified while the stream is used.
+     * @return a stream of the nodes contained in this graph.
+     */
+    default Stream<N> nodes() {
+        return getNodesView().stream();
+    }
+
+    /**
+     * Returns a stream of every edge in this graph, read through the edge
+     * views of each node without copying. A parallel stream is split
+     * between nodes, so the edges of one node are always handled by the
+     * same thread.
+     *
+     * @spec.requires this graph is not modified while the stream is used.
+     * @return a stream of the edges contained in this graph.
+     */
+    default Stream<Edge<N,E>> edges() {
+        return nodes().flatMap(node -> getEdgesView(node).stream());
+    }
+
+    /**
+     * Writes the nodes and edges of this graph to out, one node per line,
+     * in the same format as toString: each node, a colon, and then each
+     * edge from it followed by a space. Nodes are written in the order of
+     * getNodesView, and the edges of each node in the order of its edge
+     * view. An empty graph writes nothing, where toString gives "{}".
+     * The text is appended piece by piece as the graph is read, so no
+     * more than one edge is ever held in memory, and a graph of any size
+     * can be written to a Writer or other stream.
+     *
+     * @param out The destination of the text.
+     * @throws NullPointerException if out == null
+     * @throws IOException if out throws an IOException.
+     * @spec.requires this graph is not modified while it is written.
+     * @spec.effects Appends the text of this graph to out.
+     */
+    default void writeTo(Appendable out) throws IOException {
+        if (out == null) {
+            throw new NullPointerException("Output cannot be null.");
+        }
+
+        for (N node : getNodesView()) {
+            out.append(String.valueOf(node)).append(": ");
+            for (Edge<N,E> edge : getEdgesView(node)) {
+                out.append('(').append(String.valueOf(node)).append(" --[")
+                        .append(String.valueOf(edge.getLabel())).append("]--> ")
+                        .append(String.valueOf(edge.getDest())).append(") ");
+            }
+            out.append('\n');
+        }
+    }
+}
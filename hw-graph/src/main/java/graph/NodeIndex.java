@@ -0,0 +1,183 @@
+package graph;
+import java.util.*;
+
+/**
+ * <b>NodeIndex</b> is a mutable, one-to-one mapping between nodes and dense
+ * integer ids. The first node added gets id 0, the next id 1, and so on, and
+ * a node keeps its id for the life of the index.
+ *
+ * Graph algorithms can intern the nodes they touch and then keep their
+ * per-node state in arrays or BitSets indexed by id, instead of in hash
+ * sets and maps keyed by node, so that each node is hashed only once.
+ *
+ * @param <N> The type of nodes in the index.
+ */
+public final class NodeIndex<N> {
+
+    // ABSTRACTION FUNCTION:
+    //      AF(r) = the mapping in which node nodes.get(i) has id i, for
+    //      0 <= i < nodes.size().
+
+    // REPRESENTATION INVARIANT:
+    //      nodes, ids != null.
+    //      No node in nodes is null and no two nodes are equal.
+    //      ids.size() == nodes.size() and ids.get(nodes.get(i)) == i
+    //      for all i.
+
+
+    // Debug flag; change to TRUE to enable checkReps.
+    private static final boolean DEBUG = false;
+
+    private final List<N> nodes;
+    private final Map<N, Integer> ids;
+
+    /**
+     * Creates a new, empty index.
+     *
+     * @spec.effects Constructs an empty NodeIndex.
+     */
+    public NodeIndex() {
+        this(16);
+    }
+
+    /**
+     * Creates a new, empty index with room for an expected number of
+     * nodes.
+     *
+     * @param expectedSize The number of nodes the index is expected to hold.
+     * @throws IllegalArgumentException if expectedSize is negative.
+     * @spec.effects Constructs an empty NodeIndex.
+     */
+    public NodeIndex(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size cannot be negative.");
+        }
+        this.nodes = new ArrayList<>(expectedSize);
+        this.ids = new HashMap<>(Math.max(16, (int) (expectedSize / 0.75f) + 1));
+        checkRep();
+    }
+
+    /**
+     * Creates a new index holding the given nodes, numbered in iteration
+     * order. Equal nodes after the first are ignored.
+     *
+     * @param nodes The nodes to index.
+     * @param <N>   The type of nodes in the index.
+     * @throws NullPointerException if nodes == null or contains null.
+     * @return a new NodeIndex of the nodes.
+     */
+    public static <N> NodeIndex<N> of(Collection<? extends N> nodes) {
+        NodeIndex<N> index = new NodeIndex<>(nodes.size());
+        for (N node : nodes) {
+            index.intern(node);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the number of nodes in this index.
+     *
+     * @return the number of nodes in this index, which is also the next
+     * id to be assigned.
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Returns the id of a node, adding the node with the next unused id
+     * if it is not yet in this index.
+     *
+     * @param node The node to look up or add.
+     * @spec.effects Adds node to this index if it is not already present.
+     * @throws NullPointerException if node == null
+     * @return the id of the node.
+     */
+    public int intern(N node) {
+        if (node == null) {
+            throw new NullPointerException("Node cannot be null.");
+        }
+
+        Integer id = ids.putIfAbsent(node, nodes.size());
+        if (id != null) {
+            return id;
+        }
+        nodes.add(node);
+        checkRep();
+        return nodes.size() - 1;
+    }
+
+    /**
+     * Returns the id of a node.
+     *
+     * @param node The node to look up.
+     * @return the id of the node, or -1 if the node is not in this index.
+     */
+    public int indexOf(Object node) {
+        Integer id = ids.get(node);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns whether a node is in this index.
+     *
+     * @param node The node to look up.
+     * @return TRUE if the node has an id; FALSE if not.
+     */
+    public boolean contains(Object node) {
+        return ids.containsKey(node);
+    }
+
+    /**
+     * Returns the node with the specified id.
+     *
+     * @param id The id of the node.
+     * @throws IndexOutOfBoundsException if id is not in [0..size() - 1].
+     * @return the node with the specified id.
+     */
+    public N get(int id) {
+        return nodes.get(id);
+    }
+
+    /**
+     * Returns an unmodifiable live view of the nodes in this index, where
+     * the node at position i has id i.
+     *
+     * @return a list of the nodes in id order.
+     */
+    public List<N> asList() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    /**
+     * Returns a string representation of this index.
+     *
+     * @return a string listing the nodes in id order.
+     */
+    @Override
+    public String toString() {
+        return nodes.toString();
+    }
+
+    // Returns an estimate of the heap bytes retained by an index of the
+    // given size, not counting the nodes. Ids above 127 are boxed
+    // Integers that are not shared with the Integer cache.
+    static long estimatedBytes(int size) {
+        return GraphStats.object(2 * GraphStats.REFERENCE) +
+                GraphStats.object(GraphStats.REFERENCE + 2 * 4) +
+                GraphStats.referenceArray(size) + GraphStats.hashMap(size) +
+                Math.max(0, size - 128) * GraphStats.object(4);
+    }
+
+    // Checks if the rep invariant holds. Throws exception if the
+    // rep invariant is violated.
+    private void checkRep() {
+        if (DEBUG) {
+            assert !nodes.contains(null);
+            assert ids.size() == nodes.size();
+            for (int i = 0; i < nodes.size(); i++) {
+                assert ids.get(nodes.get(i)) == i;
+            }
+        }
+    }
+}
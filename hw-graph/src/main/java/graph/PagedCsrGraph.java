@@ -0,0 +1,497 @@
+package graph;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <b>PagedCsrGraph</b> is an immutable directed weighted multigraph in
+ * compressed sparse row (CSR) form that stays on disk, in a weighted
+ * snapshot file written by GraphSnapshots, and reads its edges and nodes
+ * on demand. It is meant for graphs that do not fit in memory.
+ *
+ * Every part of the file is read in fixed-size pages, which are kept in a
+ * cache of at most a given number of bytes: the offsets, edge
+ * destinations and weights, and also the encoded nodes, their positions,
+ * and the hash table from nodes to ids that the snapshot holds. Looking up
+ * the edges of a node whose pages are cached costs about as much as with
+ * a BufferCsrGraph; any other lookup costs a file read per missing page,
+ * so queries slow down gradually, rather than fail, as the cache becomes
+ * small compared with the part of the graph they touch. Nothing else is
+ * kept per node, so the heap a PagedCsrGraph uses is bounded by its cache
+ * whatever the size of the graph.
+ *
+ * A node is decoded each time it is looked up by id, and finding the id
+ * of a node encodes it and compares the bytes with those in the file, so
+ * the codec must encode equal nodes to equal bytes.
+ *
+ * When the cache is full, a page is evicted in the order pages were read,
+ * except that a page used since it was last considered gets a second
+ * chance, which approximates evicting the least recently used page.
+ * A PagedCsrGraph is safe to share between threads. Cached pages are found
+ * without locking, and pages are read from the file outside any lock; only
+ * adding a page to the cache is done one thread at a time. It holds the
+ * file open until it is closed.
+ *
+ * @param <N> The type of nodes in the graph.
+ */
+public final class PagedCsrGraph<N> implements WeightedGraph<N>, Closeable {
+
+    // ABSTRACTION FUNCTION:
+    //      PagedCsrGraph is a directed weighted multigraph such that
+    //          int(r, i) = the int at byte regionStarts[r] + 4 * i of
+    //          channel.
+    //          node i = the node decoded by codec from the bytes
+    //          [int(NODE_OFFSETS, i)..int(NODE_OFFSETS, i + 1) - 1] of
+    //          region NODES, for 0 <= i < nodeCount.
+    //          the edges from node i = for each e in
+    //          [int(OFFSETS, i)..int(OFFSETS, i + 1) - 1], an edge from
+    //          node i to node int(TARGETS, e) with weight (the double at
+    //          byte regionStarts[WEIGHTS] + 8 * e).
+    //      The id of node i is found at slot hash(bytes of node i) of the
+    //      open addressing table of tableSize(nodeCount) ints in region
+    //      TABLE, or at a later slot, with -1 marking an empty slot.
+    //      pages holds copies of some of the pages of the file, where page
+    //      p of a region starting at byte s is the pageSize bytes starting
+    //      at byte s + p * pageSize. clock holds the keys of the cached
+    //      pages in the order they were added to the cache.
+
+    // REPRESENTATION INVARIANT:
+    //      channel, codec, regionStarts, pages, clock != null.
+    //      pageSize > 0 and pageSize % 8 == 0, so no value spans pages.
+    //      maxPages >= 1 and pages.size() <= maxPages.
+    //      clock and pages hold the same keys, when no thread holds the
+    //      lock on clock.
+    //      The file is a valid weighted snapshot of nodeCount nodes and
+    //      edgeCount edges, and is not modified while it is open.
+
+
+    // Debug flag; change to TRUE to enable checkReps.
+    private static final boolean DEBUG = false;
+
+    // Regions of the file, in file order, which are paged separately.
+    static final int OFFSETS = 0;
+    static final int TARGETS = 1;
+    static final int WEIGHTS = 2;
+    static final int NODE_OFFSETS = 3;
+    static final int TABLE = 4;
+    static final int NODES = 5;
+
+    private final FileChannel channel;
+    private final GraphCodec<N> codec;
+    private final int nodeCount;
+    private final int edgeCount;
+    private final long[] regionStarts;
+    private final int pageSize;
+    private final int maxPages;
+
+    // Cached pages keyed by region and page number. Read without locking;
+    // changed only while holding the lock on clock.
+    private final ConcurrentHashMap<Long, Page> pages;
+    private final ArrayDeque<Long> clock;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // A cached page, and whether it has been used since eviction last
+    // passed over it.
+    private static final class Page {
+        private final ByteBuffer bytes;
+        private volatile boolean used;
+
+        private Page(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Creates a new PagedCsrGraph over an open snapshot file.
+     *
+     * @param channel      The open snapshot file.
+     * @param codec        The codec that encodes and decodes the nodes.
+     * @param nodeCount    The number of nodes in the graph.
+     * @param edgeCount    The number of edges in the graph.
+     * @param regionStarts The byte position in the file of each region, in
+     *                     the order OFFSETS, TARGETS, WEIGHTS,
+     *                     NODE_OFFSETS, TABLE, NODES.
+     * @param pageSize     The size of a page in bytes.
+     * @param cacheBytes   The most bytes of pages to keep in memory.
+     * @spec.requires the arguments satisfy the representation invariant,
+     * and cacheBytes >= pageSize.
+     * @spec.effects Constructs a new PagedCsrGraph.
+     */
+    PagedCsrGraph(FileChannel channel, GraphCodec<N> codec, int nodeCount, int edgeCount,
+                  long[] regionStarts, int pageSize, long cacheBytes) {
+        this.channel = channel;
+        this.codec = codec;
+        this.nodeCount = nodeCount;
+        this.edgeCount = edgeCount;
+        this.regionStarts = regionStarts.clone();
+        this.pageSize = pageSize;
+        this.maxPages = (int) Math.min(Integer.MAX_VALUE, cacheBytes / pageSize);
+        this.pages = new ConcurrentHashMap<>();
+        this.clock = new ArrayDeque<>();
+        checkRep();
+    }
+
+    @Override
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UncheckedIOException if the file cannot be read.
+     */
+    @Override
+    public int indexOf(N node) {
+        if (node == null) {
+            return -1;
+        }
+
+        byte[] bytes = encode(codec, node);
+        int mask = tableSize(nodeCount) - 1;
+        for (int slot = hash(bytes, 0, bytes.length) & mask; ; slot = (slot + 1) & mask) {
+            int id = readInt(TABLE, slot);
+            if (id < 0 || Arrays.equals(nodeBytes(id), bytes)) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UncheckedIOException if the file cannot be read.
+     */
+    @Override
+    public N getNode(int id) {
+        checkId(id);
+        return codec.decode(ByteBuffer.wrap(nodeBytes(id)));
+    }
+
+    /**
+     * Returns an unmodifiable list of the nodes of this graph, where the
+     * node at index i has id i. Each node is decoded from the file when
+     * it is read from the list.
+     *
+     * @return a list of the nodes of this graph in id order.
+     */
+    public List<N> getNodes() {
+        return new AbstractList<N>() {
+            @Override
+            public N get(int id) {
+                return getNode(id);
+            }
+
+            @Override
+            public int size() {
+                return nodeCount;
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UncheckedIOException if the file cannot be read.
+     */
+    @Override
+    public int outDegree(int id) {
+        checkId(id);
+        return readInt(OFFSETS, id + 1) - readInt(OFFSETS, id);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UncheckedIOException if the file cannot be read.
+     */
+    @Override
+    public void forEachEdge(int id, WeightedEdgeVisitor visitor) {
+        checkId(id);
+        int start = readInt(OFFSETS, id);
+        int end = readInt(OFFSETS, id + 1);
+
+        // Visit the edges a page at a time, so that each page is looked
+        // up once rather than once per edge.
+        int e = start;
+        while (e < end) {
+            long targetByte = 4L * e;
+            long weightByte = 8L * e;
+            ByteBuffer targets = page(TARGETS, targetByte / pageSize);
+            ByteBuffer weights = page(WEIGHTS, weightByte / pageSize);
+            int targetPos = (int) (targetByte % pageSize);
+            int weightPos = (int) (weightByte % pageSize);
+            int run = Math.min(end - e, Math.min((pageSize - targetPos) / 4,
+                    (pageSize - weightPos) / 8));
+            for (int k = 0; k < run; k++) {
+                visitor.visit(targets.getInt(targetPos + 4 * k),
+                        weights.getDouble(weightPos + 8 * k));
+            }
+            e += run;
+        }
+    }
+
+    /**
+     * Returns the number of page lookups that found the page cached since
+     * this graph was opened.
+     *
+     * @return the number of page cache hits.
+     */
+    public long pageHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of page lookups that had to read the page from
+     * the file since this graph was opened.
+     *
+     * @return the number of page cache misses.
+     */
+    public long pageMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of pages now cached in memory.
+     *
+     * @return the number of cached pages.
+     */
+    public int cachedPages() {
+        return pages.size();
+    }
+
+    /**
+     * Closes the snapshot file. The graph cannot be read afterward.
+     *
+     * @throws IOException if the file cannot be closed.
+     * @spec.effects Closes the file and empties the page cache.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (clock) {
+            pages.clear();
+            clock.clear();
+        }
+        channel.close();
+    }
+
+    /**
+     * Returns a string representation of this graph, containing the
+     * nodes and weighted edges from each node in id order. This reads
+     * every page of the graph.
+     *
+     * @return a string of the edges of this graph, or "{}" if the graph
+     * is empty.
+     */
+    @Override
+    public String toString() {
+        if (nodeCount == 0) {
+            return "{}";
+        }
+
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < nodeCount; i++) {
+            N node = getNode(i);
+            result.append(node).append(": ");
+            forEachEdge(i, (dest, weight) -> result.append("(").append(node)
+                    .append(" --[").append(weight).append("]--> ")
+                    .append(getNode(dest)).append(") "));
+            result.append("\n");
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the number of slots in the node table of a snapshot of
+     * nodeCount nodes: a power of two at least twice nodeCount, so that
+     * the table is at most half full.
+     *
+     * @param nodeCount The number of nodes.
+     * @return the number of slots in the node table.
+     */
+    static int tableSize(int nodeCount) {
+        return 2 * Integer.highestOneBit(Math.max(1, 2 * nodeCount));
+    }
+
+    /**
+     * Builds the node table of a snapshot, in which node i is found at
+     * the slot given by the hash of its encoded bytes or, if that slot is
+     * taken, at the next free slot after it.
+     *
+     * @param nodeBytes   The encoded nodes, one after another.
+     * @param nodeOffsets The position of each node's bytes in nodeBytes,
+     *                    followed by the length of nodeBytes.
+     * @return the slots of the table, each the id of a node or -1.
+     */
+    static int[] nodeTable(byte[] nodeBytes, int[] nodeOffsets) {
+        int nodeCount = nodeOffsets.length - 1;
+        int[] table = new int[tableSize(nodeCount)];
+        Arrays.fill(table, -1);
+        int mask = table.length - 1;
+        for (int i = 0; i < nodeCount; i++) {
+            int slot = hash(nodeBytes, nodeOffsets[i], nodeOffsets[i + 1]) & mask;
+            while (table[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i;
+        }
+        return table;
+    }
+
+    /**
+     * Returns the bytes a codec encodes a value to.
+     *
+     * @param codec The codec to encode with.
+     * @param value The value to encode.
+     * @param <T>   The type of the value.
+     * @return a new array of the encoded bytes.
+     */
+    static <T> byte[] encode(GraphCodec<? super T> codec, T value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            codec.encode(value, new DataOutputStream(bytes));
+        } catch (IOException e) {
+            // A ByteArrayOutputStream never throws IOException.
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // Returns a hash of the bytes [start..end - 1] of bytes, which is the
+    // same in every run of every JVM.
+    static int hash(byte[] bytes, int start, int end) {
+        int h = 1;
+        for (int k = start; k < end; k++) {
+            h = 31 * h + bytes[k];
+        }
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // Returns an estimate of the heap bytes retained by this graph, with
+    // the page cache full.
+    long estimatedBytes() {
+        return GraphStats.object(7 * GraphStats.REFERENCE + 4 * 4) +
+                GraphStats.doubleArray(regionStarts.length) +
+                GraphStats.hashMap(maxPages) + GraphStats.referenceArray(maxPages) +
+                (long) maxPages * (GraphStats.object(GraphStats.REFERENCE + 1) +
+                        GraphStats.object(2 * GraphStats.REFERENCE + 4 * 4) +
+                        GraphStats.doubleArray(pageSize / 8));
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= nodeCount) {
+            throw new IndexOutOfBoundsException("No node with id " + id + ".");
+        }
+    }
+
+    // Returns the int at the given int index of a region.
+    private int readInt(int region, int i) {
+        long byteIndex = 4L * i;
+        return page(region, byteIndex / pageSize).getInt((int) (byteIndex % pageSize));
+    }
+
+    // Returns the encoded bytes of a node, which may span pages.
+    private byte[] nodeBytes(int id) {
+        int start = readInt(NODE_OFFSETS, id);
+        byte[] bytes = new byte[readInt(NODE_OFFSETS, id + 1) - start];
+        int done = 0;
+        while (done < bytes.length) {
+            long position = (long) start + done;
+            int pagePos = (int) (position % pageSize);
+            int run = Math.min(bytes.length - done, pageSize - pagePos);
+            // A duplicate leaves the shared position of the cached page
+            // untouched.
+            ByteBuffer page = page(NODES, position / pageSize).duplicate();
+            page.position(pagePos);
+            page.get(bytes, done, run);
+            done += run;
+        }
+        return bytes;
+    }
+
+    // Returns a page of a region, reading it from the file if it is not
+    // cached and evicting a page if the cache is full. The returned buffer
+    // is never changed, so it can be read after it has been evicted.
+    private ByteBuffer page(int region, long pageNumber) {
+        Long key = ((long) region << 40) | pageNumber;
+        Page page = pages.get(key);
+        if (page != null) {
+            hits.increment();
+            if (!page.used) {
+                page.used = true;
+            }
+            return page.bytes;
+        }
+
+        // Several threads may read the same page at once; the first to
+        // finish caches it, and the others use their own copy.
+        misses.increment();
+        ByteBuffer bytes = ByteBuffer.allocate(pageSize);
+        long position = regionStarts[region] + pageNumber * pageSize;
+        try {
+            while (bytes.hasRemaining()) {
+                int read = channel.read(bytes, position + bytes.position());
+                if (read < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        bytes.clear();
+
+        synchronized (clock) {
+            if (!pages.containsKey(key) && channel.isOpen()) {
+                if (pages.size() >= maxPages) {
+                    evict();
+                }
+                pages.put(key, new Page(bytes));
+                clock.addLast(key);
+            }
+            checkRep();
+        }
+        return bytes;
+    }
+
+    // Removes the first page in clock order that has not been used since
+    // it was last passed over, moving the pages passed over to the back.
+    private void evict() {
+        while (true) {
+            Long key = clock.pollFirst();
+            Page page = pages.get(key);
+            if (page.used) {
+                page.used = false;
+                clock.addLast(key);
+            } else {
+                pages.remove(key);
+                return;
+            }
+        }
+    }
+
+    // Checks if the rep invariant holds. Throws exception if the
+    // rep invariant is violated.
+    private void checkRep() {
+        if (DEBUG) {
+            assert channel != null && codec != null && regionStarts != null;
+            assert pages != null && clock != null;
+            assert pageSize > 0 && pageSize % 8 == 0;
+            assert maxPages >= 1 && pages.size() <= maxPages;
+            assert !Thread.holdsLock(clock) || pages.size() == clock.size();
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package graph;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * <b>PersistentLGraph</b> is an immutable, persistent representation of a
+ * directed labeled multigraph. Every mutation returns a new version of the
+ * graph and leaves the old version unchanged.
+ *
+ * Versions share structure: a new version reuses the edge sets of every
+ * node that the change did not touch, and all but O(log n) of the node
+ * table. Adding or removing an edge therefore costs time proportional to
+ * the degree of its source node, not the size of the graph. This makes it
+ * cheap to keep many versions at once, for example a published version that
+ * long-running queries keep reading while edits produce the next one, or
+ * temporary "what-if" versions with a few edges closed.
+ *
+ * Since a version never changes, it is safe to share between threads.
+ * Publishing a new version to readers is up to the caller, for example by
+ * storing it in a volatile field.
+ *
+ * As in DirectLGraph, no two edges with the same parent and child nodes
+ * will have the same edge label, and no two nodes store equal data.
+ *
+ * @param <N> The type of nodes in the graph.
+ * @param <E> The type of edges in the graph.
+ */
+public final class PersistentLGraph<N,E> implements LGraphView<N,E> {
+
+    // ABSTRACTION FUNCTION:
+    //      AF(r) = Graph as a HashTrie<N, Set<Edge<N,E>>> g such that
+    //          "Graph is empty" = if g is empty.
+    //          "n1: " = if g contains node n1 and n1 has no children.
+    //          "n1: (n1 --[edge1]--> n2)" = if g contains node n1 with child
+    //          node n2 connected one-way by edge labeled "edge1".
+
+    // REPRESENTATION INVARIANT:
+    //      All nodes and edges in the graph != null.
+    //      Every edge set in nodeMap is unmodifiable.
+    //      Every edge in nodeMap.get(n) has source n and a destination
+    //      that is a key of nodeMap.
+    //      No two edges share the same source, destination, and label.
+    //      edgeCount == the total size of the edge sets in nodeMap.
+
+
+    // Debug flag; change to TRUE to enable checkReps.
+    private static final boolean DEBUG = false;
+
+    private static final PersistentLGraph<?,?> EMPTY =
+            new PersistentLGraph<>(HashTrie.empty(), 0);
+
+    private final HashTrie<N, Set<Edge<N,E>>> nodeMap;
+    private final int edgeCount;
+
+    private PersistentLGraph(HashTrie<N, Set<Edge<N,E>>> nodeMap, int edgeCount) {
+        this.nodeMap = nodeMap;
+        this.edgeCount = edgeCount;
+        checkRep();
+    }
+
+    /**
+     * Returns the empty graph.
+     *
+     * @param <N> The type of nodes in the graph.
+     * @param <E> The type of edges in the graph.
+     * @return an empty PersistentLGraph.
+     */
+    @SuppressWarnings("unchecked")
+    public static <N,E> PersistentLGraph<N,E> empty() {
+        return (PersistentLGraph<N,E>) EMPTY;
+    }
+
+    /**
+     * Returns a persistent copy of another graph.
+     *
+     * @param graph The graph to copy.
+     * @param <N>   The type of nodes in the graph.
+     * @param <E>   The type of edges in the graph.
+     * @throws NullPointerException if graph == null
+     * @return a PersistentLGraph with the same nodes and edges as graph.
+     */
+    public static <N,E> PersistentLGraph<N,E> copyOf(LGraphView<N,E> graph) {
+        HashTrie<N, Set<Edge<N,E>>> nodeMap = HashTrie.empty();
+        int edgeCount = 0;
+        for (N node : graph.getNodesView()) {
+            Set<Edge<N,E>> edges = graph.getEdges(node);
+            nodeMap = nodeMap.put(node, edges.isEmpty() ?
+                    Collections.emptySet() : Collections.unmodifiableSet(edges));
+            edgeCount += edges.size();
+        }
+        return new PersistentLGraph<>(nodeMap, edgeCount);
+    }
+
+    /**
+     * Returns the number of nodes in this graph.
+     *
+     * @return the number of nodes in this graph.
+     */
+    public int nodeCount() {
+        return nodeMap.size();
+    }
+
+    /**
+     * Returns the number of edges in this graph.
+     *
+     * @return the number of edges in this graph.
+     */
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    @Override
+    public Set<N> getNodes() {
+        return new HashSet<>(getNodesView());
+    }
+
+    /**
+     * Returns a read-only view of the nodes in this version of the graph.
+     * Since a version never changes, neither does the view.
+     *
+     * @return A read-only view of the nodes contained in this graph.
+     */
+    @Override
+    public Set<N> getNodesView() {
+        return new AbstractSet<N>() {
+            @Override
+            public Iterator<N> iterator() {
+                Iterator<Map.Entry<N, Set<Edge<N,E>>>> entries = nodeMap.iterator();
+                return new Iterator<N>() {
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public N next() {
+                        return entries.next().getKey();
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object node) {
+                return nodeMap.containsKey(node);
+            }
+
+            @Override
+            public int size() {
+                return nodeMap.size();
+            }
+        };
+    }
+
+    @Override
+    public Set<Edge<N,E>> getEdges(N node) {
+        return new HashSet<>(edgesOf(node));
+    }
+
+    /**
+     * Returns a read-only view of the edges from the specified node in
+     * this version of the graph. Since a version never changes, neither
+     * does the view.
+     *
+     * @param node The node to be queried.
+     * @throws NullPointerException if node == null or node is not in
+     * this graph.
+     * @return A read-only view of the edges from this node.
+     */
+    @Override
+    public Set<Edge<N,E>> getEdgesView(N node) {
+        return edgesOf(node);
+    }
+
+    @Override
+    public void forEachEdge(N node, BiConsumer<? super N, ? super E> action) {
+        if (action == null) {
+            throw new NullPointerException("Action cannot be null.");
+        }
+
+        for (Edge<N,E> edge : edgesOf(node)) {
+            action.accept(edge.getDest(), edge.getLabel());
+        }
+    }
+
+    @Override
+    public void forEachChild(N node, Consumer<? super N> action) {
+        if (action == null) {
+            throw new NullPointerException("Action cannot be null.");
+        }
+
+        for (Edge<N,E> edge : edgesOf(node)) {
+            action.accept(edge.getDest());
+        }
+    }
+
+    @Override
+    public boolean hasNode(N node) {
+        return nodeMap.containsKey(node);
+    }
+
+    @Override
+    public boolean hasEdge(N source, N dest, E label) {
+        if (source == null || dest == null || label == null) {
+            return false;
+        }
+
+        Set<Edge<N,E>> edgeSet = nodeMap.get(source);
+        return edgeSet != null && edgeSet.contains(new Edge<>(source, dest, label));
+    }
+
+    @Override
+    public Set<N> listChildren(N node) {
+        Set<N> children = new HashSet<>();
+        forEachChild(node, children::add);
+        return children;
+    }
+
+    /**
+     * Returns a version of this graph with a node added.
+     *
+     * @param node The new node to be added.
+     * @throws NullPointerException if node == null
+     * @return a new version containing the node, or this graph if the
+     * node already exists.
+     */
+    public PersistentLGraph<N,E> addNode(N node) {
+        if (node == null) {
+            throw new NullPointerException("Node cannot be null.");
+        } else if (hasNode(node)) {
+            return this;
+        }
+
+        return new PersistentLGraph<>(nodeMap.put(node, Collections.emptySet()),
+                edgeCount);
+    }
+
+    /**
+     * Returns a version of this graph with a node and every edge to or
+     * from it removed. Finding the edges to the node takes time
+     * proportional to the size of the graph.
+     *
+     * @param node The node to be removed.
+     * @return a new version without the node, or this graph if the node
+     * does not exist.
+     */
+    public PersistentLGraph<N,E> removeNode(N node) {
+        if (node == null || !hasNode(node)) {
+            return this;
+        }
+
+        HashTrie<N, Set<Edge<N,E>>> newMap = nodeMap.remove(node);
+        int newEdgeCount = edgeCount - nodeMap.get(node).size();
+        for (Map.Entry<N, Set<Edge<N,E>>> entry : newMap) {
+            Set<Edge<N,E>> kept = new HashSet<>(entry.getValue());
+            if (kept.removeIf(edge -> edge.getDest().equals(node))) {
+                newEdgeCount -= entry.getValue().size() - kept.size();
+                newMap = newMap.put(entry.getKey(), frozen(kept));
+            }
+        }
+
+        return new PersistentLGraph<>(newMap, newEdgeCount);
+    }
+
+    /**
+     * Returns a version of this graph with a labeled edge added between
+     * two nodes.
+     *
+     * @param source The starting node of the edge.
+     * @param dest   The ending node of the edge.
+     * @param label  The label of the new edge to be added.
+     * @throws NullPointerException if any argument is null.
+     * @return a new version containing the edge, or this graph if the edge
+     * already exists or the source or destination nodes do not exist.
+     */
+    public PersistentLGraph<N,E> addEdge(N source, N dest, E label) {
+        if (source == null || dest == null || label == null) {
+            throw new NullPointerException("Source, destination, or label" +
+                    " cannot be null.");
+        } else if (!hasNode(source) || !hasNode(dest) || hasEdge(source, dest, label)) {
+            return this;
+        }
+
+        Set<Edge<N,E>> edges = new HashSet<>(nodeMap.get(source));
+        edges.add(new Edge<>(source, dest, label));
+        return new PersistentLGraph<>(nodeMap.put(source, frozen(edges)),
+                edgeCount + 1);
+    }
+
+    /**
+     * Returns a version of this graph with an edge removed.
+     *
+     * @param source The starting node of the edge.
+     * @param dest   The ending node of the edge.
+     * @param label  The label of the edge to be removed.
+     * @return a new version without the edge, or this graph if the edge
+     * does not exist.
+     */
+    public PersistentLGraph<N,E> removeEdge(N source, N dest, E label) {
+        if (!hasEdge(source, dest, label)) {
+            return this;
+        }
+
+        Set<Edge<N,E>> edges = new HashSet<>(nodeMap.get(source));
+        edges.remove(new Edge<>(source, dest, label));
+        return new PersistentLGraph<>(nodeMap.put(source, frozen(edges)),
+                edgeCount - 1);
+    }
+
+    /**
+     * Returns a mutable DirectLGraph copy of this version.
+     *
+     * @return a new DirectLGraph with the same nodes and edges.
+     */
+    public DirectLGraph<N,E> toDirectLGraph() {
+        DirectLGraph<N,E> graph = new DirectLGraph<>();
+        for (Map.Entry<N, Set<Edge<N,E>>> entry : nodeMap) {
+            graph.addNode(entry.getKey());
+        }
+        for (Map.Entry<N, Set<Edge<N,E>>> entry : nodeMap) {
+            for (Edge<N,E> edge : entry.getValue()) {
+                graph.addEdge(edge.getSource(), edge.getDest(), edge.getLabel());
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Returns a string representation of this graph, containing the
+     * nodes and edges from each node.
+     *
+     * @return a string of the map of this graph or "{}" if the map is
+     * empty.
+     */
+    @Override
+    public String toString() {
+        if (nodeMap.size() == 0) {
+            return "{}";
+        }
+
+        StringBuilder result = new StringBuilder();
+
+        for (Map.Entry<N, Set<Edge<N,E>>> entry : nodeMap) {
+            result.append(entry.getKey()).append(": ");
+
+            for (Edge<N,E> edge : entry.getValue()) {
+                result.append(edge.toString()).append(" ");
+            }
+            result.append("\n");
+        }
+
+        return result.toString();
+    }
+
+    // Returns the edge set of node, throwing an exception if the node is
+    // null or not in this graph.
+    private Set<Edge<N,E>> edgesOf(N node) {
+        Set<Edge<N,E>> edges = nodeMap.get(node);
+        if (edges == null) {
+            throw new NullPointerException("Node cannot be null.");
+        }
+        return edges;
+    }
+
+    // Returns an unmodifiable set with the same edges as a freshly
+    // built set.
+    private static <N,E> Set<Edge<N,E>> frozen(Set<Edge<N,E>> edges) {
+        return edges.isEmpty() ? Collections.emptySet() :
+                Collections.unmodifiableSet(edges);
+    }
+
+    // Checks if the rep invariant holds. Throws exception if the
+    // rep invariant is violated.
+    private void checkRep() {
+        if (DEBUG) {
+            int count = 0;
+            for (Map.Entry<N, Set<Edge<N,E>>> entry : nodeMap) {
+                for (Edge<N,E> edge : entry.getValue()) {
+                    assert edge != null;
+                    assert edge.getSource().equals(entry.getKey());
+                    assert nodeMap.containsKey(edge.getDest());
+                }
+                count += entry.getValue().size();
+            }
+            assert count == edgeCount;
+        }
+    }
+}
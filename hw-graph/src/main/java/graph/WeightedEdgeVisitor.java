@@ -0,0 +1,19 @@
+package graph;
+
+/**
+ * <b>WeightedEdgeVisitor</b> receives the outgoing edges of a node in a
+ * WeightedGraph one at a time, as a destination node id and a primitive
+ * weight, so that walking a node's edges needs no Edge objects or boxed
+ * labels.
+ */
+@FunctionalInterface
+public interface WeightedEdgeVisitor {
+
+    /**
+     * Visits a single edge.
+     *
+     * @param dest   The id of the node that the edge points to.
+     * @param weight The weight of the edge.
+     */
+    void visit(int dest, double weight);
+}
@@ -0,0 +1,76 @@
+package graph;
+
+/**
+ * <b>WeightedGraph</b> is the read-only view of a directed multigraph with
+ * primitive double edge weights that shortest path searches run on.
+ *
+ * Each node has a dense integer id in [0..nodeCount() - 1], which stays
+ * the same for as long as the node is in the graph. Searches look nodes up
+ * by id and walk their edges through a WeightedEdgeVisitor, so no Edge
+ * objects or boxed weights are created.
+ *
+ * @param <N> The type of nodes in the graph.
+ */
+public interface WeightedGraph<N> {
+
+    /**
+     * Returns the number of nodes in this graph.
+     *
+     * @return the number of nodes in this graph.
+     */
+    int nodeCount();
+
+    /**
+     * Returns the number of edges in this graph, counting each parallel
+     * edge separately.
+     *
+     * @return the number of edges in this graph.
+     */
+    int edgeCount();
+
+    /**
+     * Returns whether this graph contains the specified node.
+     *
+     * @param node The node to be queried.
+     * @return TRUE if this graph contains the node; FALSE if not.
+     */
+    default boolean hasNode(N node) {
+        return indexOf(node) >= 0;
+    }
+
+    /**
+     * Returns the id of the specified node.
+     *
+     * @param node The node to be queried.
+     * @return the id of the node, or -1 if the node is not in this graph.
+     */
+    int indexOf(N node);
+
+    /**
+     * Returns the node with the specified id.
+     *
+     * @param id The id of the node.
+     * @throws IndexOutOfBoundsException if id is not a node id of this graph.
+     * @return the node with the specified id.
+     */
+    N getNode(int id);
+
+    /**
+     * Returns the number of edges leaving the specified node.
+     *
+     * @param id The id of the node.
+     * @throws IndexOutOfBoundsException if id is not a node id of this graph.
+     * @return the out-degree of the node.
+     */
+    int outDegree(int id);
+
+    /**
+     * Passes each edge leaving the specified node to a visitor.
+     *
+     * @param id      The id of the node.
+     * @param visitor The visitor that receives each edge.
+     * @throws IndexOutOfBoundsException if id is not a node id of this graph.
+     * @spec.requires visitor != null
+     */
+    void forEachEdge(int id, WeightedEdgeVisitor visitor);
+}
@@ -0,0 +1,134 @@
+package graph.implTest;
+
+import graph.ConcurrentDirectLGraph;
+import graph.Edge;
+import org.junit.*;
+import org.junit.rules.Timeout;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * TestConcurrentGraph provides implementation tests for the
+ * ConcurrentDirectLGraph class, including reads that overlap with writes.
+ */
+
+public final class TestConcurrentGraph {
+    private static ConcurrentDirectLGraph<String, String> testGraph = null;
+
+    @Rule   // 10 seconds max per method tested
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    @Before
+    public void setup() {
+        testGraph = new ConcurrentDirectLGraph<>();
+    }
+
+    @After
+    public void reset() {
+        testGraph = null;
+    }
+
+    /**
+     * Tests adding and removing edges on a single thread.
+     */
+    @Test
+    public void testAddAndRemoveEdges() {
+        TestGraphs.createNodes(testGraph::addNode, 2);
+
+        Assert.assertFalse(testGraph.addNode("n1"));
+        Assert.assertTrue(testGraph.addEdge("n1", "n2", "edge1"));
+        Assert.assertFalse(testGraph.addEdge("n1", "n2", "edge1"));
+        Assert.assertFalse(testGraph.addEdge("n1", "a", "edge1"));
+        Assert.assertTrue(testGraph.addEdge("n1", "n2", "edge2"));
+        Assert.assertTrue(testGraph.hasEdge("n1", "n2", "edge2"));
+        Assert.assertEquals(Set.of("n2"), testGraph.listChildren("n1"));
+
+        Assert.assertTrue(testGraph.removeEdge("n1", "n2", "edge1"));
+        Assert.assertFalse(testGraph.removeEdge("n1", "n2", "edge1"));
+        Assert.assertEquals(1, testGraph.getEdges("n1").size());
+    }
+
+    /**
+     * Tests that an edge view is a snapshot which later writes do not
+     * change.
+     */
+    @Test
+    public void testEdgesViewIsSnapshot() {
+        TestGraphs.createNodes(testGraph::addNode, 2);
+        testGraph.addEdge("n1", "n2", "edge1");
+
+        Set<Edge<String, String>> view = testGraph.getEdgesView("n1");
+        testGraph.addEdge("n1", "n2", "edge2");
+        testGraph.removeEdge("n1", "n2", "edge1");
+
+        Assert.assertEquals(Set.of(new Edge<>("n1", "n2", "edge1")), view);
+        Assert.assertEquals(Set.of(new Edge<>("n1", "n2", "edge2")),
+                testGraph.getEdgesView("n1"));
+    }
+
+    /**
+     * Tests that readers always see a whole edge set while writers close
+     * and reopen edges on other threads.
+     */
+    @Test
+    public void testReadsDuringWrites() throws Exception {
+        TestGraphs.createNodes(testGraph::addNode, 8);
+        for (int i = 1; i <= 8; i++) {
+            testGraph.addEdge("n" + i, "n" + (i % 8 + 1), "open");
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(6);
+        AtomicBoolean stop = new AtomicBoolean(false);
+        List<Future<?>> tasks = new ArrayList<>();
+
+        // Each writer swaps the single label on its own nodes' edges.
+        for (int w = 0; w < 2; w++) {
+            int first = 1 + 4 * w;
+            tasks.add(pool.submit(() -> {
+                for (int round = 0; round < 2000; round++) {
+                    for (int i = first; i < first + 4; i++) {
+                        String node = "n" + i;
+                        String next = "n" + (i % 8 + 1);
+                        testGraph.addEdge(node, next, "closed");
+                        testGraph.removeEdge(node, next, "open");
+                        testGraph.addEdge(node, next, "open");
+                        testGraph.removeEdge(node, next, "closed");
+                    }
+                }
+                return null;
+            }));
+        }
+
+        // Each reader checks that every node always has one or two edges
+        // to its successor, and never a mix of other destinations.
+        for (int r = 0; r < 4; r++) {
+            tasks.add(pool.submit(() -> {
+                while (!stop.get()) {
+                    for (int i = 1; i <= 8; i++) {
+                        Set<Edge<String, String>> edges = testGraph.getEdgesView("n" + i);
+                        Assert.assertTrue(edges.size() == 1 || edges.size() == 2);
+                        for (Edge<String, String> edge : edges) {
+                            Assert.assertEquals("n" + (i % 8 + 1), edge.getDest());
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+
+        tasks.get(0).get();
+        tasks.get(1).get();
+        stop.set(true);
+        for (Future<?> task : tasks) {
+            task.get();
+        }
+        pool.shutdown();
+
+        for (int i = 1; i <= 8; i++) {
+            Assert.assertEquals(Set.of(new Edge<>("n" + i, "n" + (i % 8 + 1), "open")),
+                    testGraph.getEdges("n" + i));
+        }
+    }
+}
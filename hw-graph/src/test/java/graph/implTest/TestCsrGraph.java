@@ -0,0 +1,157 @@
+package graph.implTest;
+
+import graph.BufferCsrGraph;
+import graph.CsrGraph;
+import graph.DirectLGraph;
+import org.junit.*;
+import org.junit.rules.Timeout;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * TestCsrGraph provides implementation tests for the CsrGraph snapshots
+ * produced by DirectLGraph.freeze, and for off-heap copies and reverses
+ * of them.
+ */
+
+public final class TestCsrGraph {
+    private static DirectLGraph<String, Double> testGraph = null;
+
+    @Rule   // 10 seconds max per method tested
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    @Before
+    public void setup() {
+        testGraph = new DirectLGraph<>();
+    }
+
+    @After
+    public void reset() {
+        testGraph = null;
+    }
+
+    /**
+     * Tests freezing an empty graph.
+     */
+    @Test
+    public void testFreezeEmptyGraph() {
+        CsrGraph<String> csr = testGraph.freeze(Double::doubleValue);
+
+        Assert.assertEquals(0, csr.nodeCount());
+        Assert.assertEquals(0, csr.edgeCount());
+        Assert.assertEquals(-1, csr.indexOf("n1"));
+        Assert.assertEquals("{}", csr.toString());
+    }
+
+    /**
+     * Tests that every node and edge, including parallel and reflexive
+     * edges, is carried over to the snapshot.
+     */
+    @Test
+    public void testFreezeKeepsNodesAndEdges() {
+        TestGraphs.createNodes(testGraph::addNode, 3);
+        testGraph.addEdge("n1", "n2", 1.0);
+        testGraph.addEdge("n1", "n2", 2.5);
+        testGraph.addEdge("n1", "n1", 4.0);
+        testGraph.addEdge("n3", "n1", 3.0);
+
+        CsrGraph<String> csr = testGraph.freeze(Double::doubleValue);
+        Assert.assertEquals(3, csr.nodeCount());
+        Assert.assertEquals(4, csr.edgeCount());
+
+        int n1 = csr.indexOf("n1");
+        Assert.assertEquals("n1", csr.getNode(n1));
+        Assert.assertEquals(3, csr.outDegree(n1));
+        Assert.assertEquals(0, csr.outDegree(csr.indexOf("n2")));
+
+        Set<String> edges = new HashSet<>();
+        for (int e = csr.edgesStart(n1); e < csr.edgesEnd(n1); e++) {
+            edges.add(csr.getNode(csr.edgeDest(e)) + "(" + csr.edgeWeight(e) + ")");
+        }
+        Assert.assertEquals(Set.of("n2(1.0)", "n2(2.5)", "n1(4.0)"), edges);
+    }
+
+    /**
+     * Tests that changing the graph after freezing does not change the
+     * snapshot.
+     */
+    @Test
+    public void testSnapshotIsIndependent() {
+        TestGraphs.createNodes(testGraph::addNode, 2);
+        testGraph.addEdge("n1", "n2", 1.0);
+
+        CsrGraph<String> csr = testGraph.freeze(Double::doubleValue);
+        testGraph.addNode("n3");
+        testGraph.addEdge("n1", "n3", 2.0);
+        testGraph.removeEdge("n1", "n2", 1.0);
+
+        Assert.assertEquals(2, csr.nodeCount());
+        Assert.assertEquals(1, csr.edgeCount());
+        Assert.assertFalse(csr.hasNode("n3"));
+        Assert.assertEquals(2, csr.getNodes().size());
+    }
+
+    /**
+     * Tests that an off-heap copy has the same node ids, nodes and edges,
+     * in the same order, as the graph it was copied from.
+     */
+    @Test
+    public void testOffHeapCopy() {
+        TestGraphs.createNodes(testGraph::addNode, 3);
+        testGraph.addEdge("n1", "n2", 1.0);
+        testGraph.addEdge("n1", "n2", 2.5);
+        testGraph.addEdge("n1", "n1", 4.0);
+        testGraph.addEdge("n3", "n1", 3.0);
+
+        CsrGraph<String> csr = testGraph.freeze(Double::doubleValue);
+        BufferCsrGraph<String> offHeap = BufferCsrGraph.offHeapCopy(csr);
+        Assert.assertEquals(3, offHeap.nodeCount());
+        Assert.assertEquals(4, offHeap.edgeCount());
+        Assert.assertEquals(csr.getNodes(), offHeap.getNodes());
+        Assert.assertEquals(csr.toString(), offHeap.toString());
+        for (int i = 0; i < csr.nodeCount(); i++) {
+            Assert.assertEquals(csr.edgesStart(i), offHeap.edgesStart(i));
+            Assert.assertEquals(csr.edgesEnd(i), offHeap.edgesEnd(i));
+        }
+        for (int e = 0; e < csr.edgeCount(); e++) {
+            Assert.assertEquals(csr.edgeDest(e), offHeap.edgeDest(e));
+            Assert.assertEquals(csr.edgeWeight(e), offHeap.edgeWeight(e), 0.0);
+        }
+
+        BufferCsrGraph<String> empty = BufferCsrGraph.offHeapCopy(
+                new DirectLGraph<String, Double>().freeze(Double::doubleValue));
+        Assert.assertEquals(0, empty.nodeCount());
+        Assert.assertEquals("{}", empty.toString());
+    }
+
+    /**
+     * Tests that reversing a graph keeps its node ids and turns around
+     * every edge, including parallel and reflexive edges.
+     */
+    @Test
+    public void testReverseOf() {
+        TestGraphs.createNodes(testGraph::addNode, 3);
+        testGraph.addEdge("n1", "n2", 1.0);
+        testGraph.addEdge("n1", "n2", 2.5);
+        testGraph.addEdge("n1", "n1", 4.0);
+        testGraph.addEdge("n3", "n1", 3.0);
+
+        CsrGraph<String> csr = testGraph.freeze(Double::doubleValue);
+        CsrGraph<String> reverse = CsrGraph.reverseOf(csr);
+        Assert.assertEquals(csr.getNodes(), reverse.getNodes());
+        Assert.assertEquals(4, reverse.edgeCount());
+
+        int n1 = reverse.indexOf("n1");
+        Assert.assertEquals(2, reverse.outDegree(n1));
+        Assert.assertEquals(0, reverse.outDegree(reverse.indexOf("n3")));
+
+        Set<String> edges = new HashSet<>();
+        for (int e = reverse.edgesStart(reverse.indexOf("n2"));
+             e < reverse.edgesEnd(reverse.indexOf("n2")); e++) {
+            edges.add(reverse.getNode(reverse.edgeDest(e)) + "(" + reverse.edgeWeight(e) + ")");
+        }
+        Assert.assertEquals(Set.of("n1(1.0)", "n1(2.5)"), edges);
+        Assert.assertEquals(4, CsrGraph.reverseOf(reverse).edgeCount());
+    }
+}
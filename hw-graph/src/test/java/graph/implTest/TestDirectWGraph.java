@@ -0,0 +1,124 @@
+package graph.implTest;
+
+import graph.CsrGraph;
+import graph.DirectWGraph;
+import org.junit.*;
+import org.junit.rules.Timeout;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * TestDirectWGraph provides implementation tests for the DirectWGraph
+ * class and its primitive edge visitor.
+ */
+
+public final class TestDirectWGraph {
+    private static DirectWGraph<String> testGraph = null;
+
+    @Rule   // 10 seconds max per method tested
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    @Before
+    public void setup() {
+        testGraph = new DirectWGraph<>();
+    }
+
+    @After
+    public void reset() {
+        testGraph = null;
+    }
+
+    /**
+     * Helper method: Lists the edges of a node as "dest(weight)" strings.
+     */
+    private Set<String> edgesOf(DirectWGraph<String> graph, String node) {
+        Set<String> edges = new HashSet<>();
+        graph.forEachEdge(graph.indexOf(node), (dest, weight) ->
+                edges.add(graph.getNode(dest) + "(" + weight + ")"));
+        return edges;
+    }
+
+    /**
+     * Tests that node ids are assigned in insertion order.
+     */
+    @Test
+    public void testNodeIds() {
+        TestGraphs.createNodes(testGraph::addNode, 3);
+
+        Assert.assertFalse(testGraph.addNode("n1"));
+        Assert.assertEquals(3, testGraph.nodeCount());
+        Assert.assertEquals(0, testGraph.indexOf("n1"));
+        Assert.assertEquals(2, testGraph.indexOf("n3"));
+        Assert.assertEquals(-1, testGraph.indexOf("a"));
+        Assert.assertEquals("n2", testGraph.getNode(1));
+    }
+
+    /**
+     * Tests adding parallel, reflexive, and duplicate edges.
+     */
+    @Test
+    public void testAddEdges() {
+        TestGraphs.createNodes(testGraph::addNode, 2);
+
+        Assert.assertTrue(testGraph.addEdge("n1", "n2", 1.0));
+        Assert.assertTrue(testGraph.addEdge("n1", "n2", 2.0));
+        Assert.assertTrue(testGraph.addEdge("n1", "n1", 3.0));
+        Assert.assertFalse(testGraph.addEdge("n1", "n2", 1.0));
+        Assert.assertFalse(testGraph.addEdge("n1", "a", 1.0));
+
+        Assert.assertEquals(3, testGraph.edgeCount());
+        Assert.assertEquals(3, testGraph.outDegree(0));
+        Assert.assertTrue(testGraph.hasEdge("n1", "n2", 2.0));
+        Assert.assertFalse(testGraph.hasEdge("n2", "n1", 1.0));
+        Assert.assertEquals(Set.of("n2(1.0)", "n2(2.0)", "n1(3.0)"),
+                edgesOf(testGraph, "n1"));
+        Assert.assertEquals(Set.of("n1", "n2"), testGraph.listChildren("n1"));
+    }
+
+    /**
+     * Tests that non-finite weights are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddNaNWeight() {
+        TestGraphs.createNodes(testGraph::addNode, 2);
+        testGraph.addEdge("n1", "n2", Double.NaN);
+    }
+
+    /**
+     * Tests removing edges, including one that does not exist.
+     */
+    @Test
+    public void testRemoveEdge() {
+        TestGraphs.createNodes(testGraph::addNode, 3);
+        testGraph.addEdge("n1", "n2", 1.0);
+        testGraph.addEdge("n1", "n3", 2.0);
+        testGraph.addEdge("n1", "n3", 5.0);
+
+        Assert.assertTrue(testGraph.removeEdge("n1", "n2", 1.0));
+        Assert.assertFalse(testGraph.removeEdge("n1", "n2", 1.0));
+        Assert.assertFalse(testGraph.removeEdge("a", "n2", 1.0));
+
+        Assert.assertEquals(2, testGraph.edgeCount());
+        Assert.assertEquals(Set.of("n3(2.0)", "n3(5.0)"),
+                edgesOf(testGraph, "n1"));
+    }
+
+    /**
+     * Tests that freezing keeps node ids and edges.
+     */
+    @Test
+    public void testFreeze() {
+        TestGraphs.createNodes(testGraph::addNode, 3);
+        testGraph.addEdge("n1", "n2", 1.0);
+        testGraph.addEdge("n3", "n1", 2.0);
+
+        CsrGraph<String> csr = testGraph.freeze();
+        Assert.assertEquals(3, csr.nodeCount());
+        Assert.assertEquals(2, csr.edgeCount());
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(testGraph.getNode(i), csr.getNode(i));
+            Assert.assertEquals(testGraph.outDegree(i), csr.outDegree(i));
+        }
+    }
+}
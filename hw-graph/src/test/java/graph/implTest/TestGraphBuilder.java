@@ -0,0 +1,232 @@
+package graph.implTest;
+
+import graph.CsrGraph;
+import graph.DirectWGraph;
+import graph.GraphBuilder;
+import org.junit.*;
+import org.junit.rules.Timeout;
+
+import java.util.*;
+
+/**
+ * TestGraphBuilder provides implementation tests for the GraphBuilder
+ * class, checking that the graphs it builds match graphs built one edge
+ * at a time.
+ */
+
+public final class TestGraphBuilder {
+    private static GraphBuilder<String> builder = null;
+
+    @Rule   // 10 seconds max per method tested
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    @Before
+    public void setup() {
+        builder = new GraphBuilder<>(4, 4);
+    }
+
+    @After
+    public void reset() {
+        builder = null;
+    }
+
+    /**
+     * Helper method: Returns the destinations and weights of the edges
+     * from a node, in the order they are visited.
+     */
+    private List<String> edgesOf(DirectWGraph<String> graph, String node) {
+        List<String> edges = new ArrayList<>();
+        graph.forEachEdge(graph.indexOf(node),
+                (dest, weight) -> edges.add(graph.getNode(dest) + ":" + weight));
+        return edges;
+    }
+
+    /**
+     * Tests that edges add their nodes and keep the order they were added.
+     */
+    @Test
+    public void testBuild() {
+        builder.addNode("n0");
+        builder.addEdge("n1", "n2", 1.0);
+        builder.addEdge("n2", "n1", 2.0);
+        builder.addEdge("n1", "n3", 3.0);
+        builder.addEdge("n1", "n2", 4.0);
+        DirectWGraph<String> graph = builder.build();
+
+        Assert.assertEquals(List.of("n0", "n1", "n2", "n3"), graph.getNodes());
+        Assert.assertEquals(4, graph.edgeCount());
+        Assert.assertEquals(List.of("n2:1.0", "n3:3.0", "n2:4.0"), edgesOf(graph, "n1"));
+        Assert.assertEquals(List.of(), edgesOf(graph, "n0"));
+
+        // The built graph can still be changed.
+        Assert.assertTrue(graph.addNode("n4"));
+        Assert.assertTrue(graph.addEdge("n0", "n4", 5.0));
+        Assert.assertEquals(List.of("n4:5.0"), edgesOf(graph, "n0"));
+    }
+
+    /**
+     * Tests that an edge repeating an earlier one is dropped.
+     */
+    @Test
+    public void testRepeatedEdgesDropped() {
+        builder.addEdge("n1", "n2", 1.0);
+        builder.addEdge("n1", "n2", 1.0);
+        builder.addEdge("n1", "n2", 2.0);
+        Assert.assertEquals(3, builder.edgeCount());
+
+        CsrGraph<String> graph = builder.buildSnapshot();
+        Assert.assertEquals(2, graph.edgeCount());
+        Assert.assertEquals(2, graph.outDegree(graph.indexOf("n1")));
+    }
+
+    /**
+     * Tests that repeated edges are dropped from a node with many edges,
+     * keeping the first of each in the order they were added.
+     */
+    @Test
+    public void testRepeatedEdgesDroppedHighDegree() {
+        for (int k = 0; k < 200000; k++) {
+            builder.addEdge("hub", "n" + k % 40000, (k / 40000) % 2);
+        }
+        builder.addEdge("n0", "hub", 1.0);
+        builder.addEdge("n0", "hub", 1.0);
+
+        CsrGraph<String> graph = builder.buildSnapshot();
+        Assert.assertEquals(80001, graph.edgeCount());
+        List<String> edges = new ArrayList<>();
+        graph.forEachEdge(graph.indexOf("hub"),
+                (dest, weight) -> edges.add(graph.getNode(dest) + ":" + weight));
+        Assert.assertEquals(80000, edges.size());
+        Assert.assertEquals("n0:0.0", edges.get(0));
+        Assert.assertEquals("n39999:0.0", edges.get(39999));
+        Assert.assertEquals("n0:1.0", edges.get(40000));
+        Assert.assertEquals("n39999:1.0", edges.get(79999));
+        Assert.assertEquals(1, graph.outDegree(graph.indexOf("n0")));
+    }
+
+    /**
+     * Tests adding a batch of edges past the expected counts.
+     */
+    @Test
+    public void testAddEdges() {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(i);
+        }
+        builder.addEdges(items, i -> "n" + i, i -> "n" + (i + 1) % 100, i -> i);
+        DirectWGraph<String> built = builder.build();
+
+        DirectWGraph<String> expected = new DirectWGraph<>();
+        for (int i = 0; i < 100; i++) {
+            expected.addNode("n" + i);
+        }
+        for (int i = 0; i < 100; i++) {
+            expected.addEdge("n" + i, "n" + (i + 1) % 100, i);
+        }
+        Assert.assertEquals(expected.toString(), built.toString());
+    }
+
+    /**
+     * Tests that a builder cannot build twice.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testBuildTwice() {
+        builder.addEdge("n1", "n2", 1.0);
+        builder.build();
+        builder.buildSnapshot();
+    }
+
+    /**
+     * Tests that an infinite weight throws an exception.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInfiniteWeight() {
+        builder.addEdge("n1", "n2", Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Tests that adding a large batch in parallel gives the same node ids
+     * and edge order as adding it on one thread.
+     */
+    @Test
+    public void testAddEdgesParallel() {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            items.add(i);
+        }
+        builder.addEdge("first", "n7", 0.5);
+        builder.addEdgesParallel(items, i -> "n" + (i * 7919) % 5003,
+                i -> "n" + i % 3001, i -> i % 10);
+        DirectWGraph<String> parallel = builder.build();
+
+        GraphBuilder<String> sequential = new GraphBuilder<>(0, 0);
+        sequential.addEdge("first", "n7", 0.5);
+        sequential.addEdges(items, i -> "n" + (i * 7919) % 5003,
+                i -> "n" + i % 3001, i -> i % 10);
+        DirectWGraph<String> expected = sequential.build();
+
+        Assert.assertEquals(expected.getNodes(), parallel.getNodes());
+        Assert.assertEquals(expected.edgeCount(), parallel.edgeCount());
+        for (String node : expected.getNodes()) {
+            Assert.assertEquals(edgesOf(expected, node), edgesOf(parallel, node));
+        }
+    }
+
+    /**
+     * Tests that forcing a batch into chunks, including chunks much
+     * smaller than a processor would get and empty chunks, gives the same
+     * node ids and edge order as adding it on one thread, on any machine.
+     */
+    @Test
+    public void testAddEdgesParallelChunks() {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            items.add(i);
+        }
+        for (int chunkCount : new int[] {1, 2, 3, 7, 64, 1500}) {
+            GraphBuilder<String> chunked = new GraphBuilder<>(0, 0);
+            chunked.addEdge("first", "n7", 0.5);
+            chunked.addEdge("n3", "first", 1.5);
+            chunked.addEdgesParallel(items, i -> "n" + (i * 31) % 97,
+                    i -> "n" + i % 53, i -> i % 10, chunkCount);
+            Assert.assertEquals(1002, chunked.edgeCount());
+            DirectWGraph<String> parallel = chunked.build();
+
+            GraphBuilder<String> sequential = new GraphBuilder<>(0, 0);
+            sequential.addEdge("first", "n7", 0.5);
+            sequential.addEdge("n3", "first", 1.5);
+            sequential.addEdges(items, i -> "n" + (i * 31) % 97,
+                    i -> "n" + i % 53, i -> i % 10);
+            DirectWGraph<String> expected = sequential.build();
+
+            Assert.assertEquals(expected.getNodes(), parallel.getNodes());
+            Assert.assertEquals(expected.edgeCount(), parallel.edgeCount());
+            for (String node : expected.getNodes()) {
+                Assert.assertEquals(expected.indexOf(node), parallel.indexOf(node));
+                Assert.assertEquals(edgesOf(expected, node), edgesOf(parallel, node));
+            }
+        }
+    }
+
+    /**
+     * Tests that asking for no chunks throws an exception.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddEdgesParallelNoChunks() {
+        builder.addEdgesParallel(Arrays.asList(1, 2), i -> "n" + i, i -> "n" + i,
+                i -> 1.0, 0);
+    }
+
+    /**
+     * Tests that a parallel batch with a bad weight throws an exception.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddEdgesParallelBadWeight() {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 50000; i++) {
+            items.add(i);
+        }
+        builder.addEdgesParallel(items, i -> "n" + i, i -> "n" + (i + 1),
+                i -> i == 40000 ? Double.NaN : 1.0);
+    }
+}
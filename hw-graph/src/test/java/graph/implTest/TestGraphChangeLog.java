@@ -0,0 +1,158 @@
+package graph.implTest;
+
+import graph.DirectLGraph;
+import graph.GraphChange;
+import graph.GraphChangeLog;
+import graph.GraphListener;
+import org.junit.*;
+import org.junit.rules.Timeout;
+
+import java.util.*;
+
+/**
+ * TestGraphChangeLog provides implementation tests for the listeners and
+ * versions of DirectLGraph and for the GraphChangeLog class.
+ */
+
+public final class TestGraphChangeLog {
+    private static DirectLGraph<String, String> testGraph = null;
+
+    @Rule   // 10 seconds max per method tested
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    @Before
+    public void setup() {
+        testGraph = new DirectLGraph<>();
+    }
+
+    @After
+    public void reset() {
+        testGraph = null;
+    }
+
+    /**
+     * Tests that a listener hears of each change, including each edge
+     * removed along with a node, and that failed changes are not reported.
+     */
+    @Test
+    public void testListener() {
+        List<String> events = new ArrayList<>();
+        GraphListener<String, String> listener = new GraphListener<String, String>() {
+            @Override
+            public void nodeAdded(String node) {
+                events.add("+" + node);
+            }
+
+            @Override
+            public void nodeRemoved(String node) {
+                events.add("-" + node);
+            }
+
+            @Override
+            public void edgeAdded(String source, String dest, String label) {
+                events.add("+" + source + label + dest);
+            }
+
+            @Override
+            public void edgeRemoved(String source, String dest, String label) {
+                events.add("-" + source + label + dest);
+            }
+        };
+
+        for (DirectLGraph<String, String> graph : List.of(testGraph,
+                new DirectLGraph<String, String>(true))) {
+            events.clear();
+            graph.addListener(listener);
+            graph.addNode("a");
+            graph.addNode("b");
+            graph.addNode("a");
+            graph.addEdge("a", "b", "1");
+            graph.addEdge("b", "a", "2");
+            graph.addEdge("a", "a", "3");
+            graph.addEdge("a", "b", "1");
+            graph.removeEdge("a", "b", "9");
+            graph.removeEdge("a", "b", "1");
+            graph.removeNode("a");
+
+            Assert.assertEquals(List.of("+a", "+b", "+a1b", "+b2a", "+a3a", "-a1b",
+                    "-a3a", "-b2a", "-a"), events);
+            Assert.assertEquals(9, graph.version());
+
+            Assert.assertTrue(graph.removeListener(listener));
+            graph.addNode("c");
+            Assert.assertEquals(9, events.size());
+            Assert.assertEquals(10, graph.version());
+        }
+    }
+
+    /**
+     * Tests that versions count edges removed with a node even when no
+     * listener is registered.
+     */
+    @Test
+    public void testVersionWithoutListeners() {
+        testGraph.addNode("a");
+        testGraph.addNode("b");
+        testGraph.addEdge("a", "b", "1");
+        testGraph.addEdge("b", "a", "2");
+        testGraph.removeNode("b");
+        Assert.assertEquals(7, testGraph.version());
+    }
+
+    /**
+     * Tests listing the changes since a version, and that changes which
+     * have been dropped from a full log are reported as unavailable.
+     */
+    @Test
+    public void testChangesSince() {
+        testGraph.addNode("a");
+        GraphChangeLog<String, String> log = GraphChangeLog.attach(testGraph, 3);
+        Assert.assertEquals(1, log.oldestVersion());
+        Assert.assertEquals(List.of(), log.changesSince(1));
+        Assert.assertNull(log.changesSince(0));
+
+        testGraph.addNode("b");
+        testGraph.addEdge("a", "b", "1");
+        List<GraphChange<String, String>> changes = log.changesSince(1);
+        Assert.assertEquals(2, changes.size());
+        Assert.assertEquals(GraphChange.Kind.NODE_ADDED, changes.get(0).getKind());
+        Assert.assertEquals("b", changes.get(0).getSource());
+        Assert.assertEquals(2, changes.get(0).getVersion());
+        Assert.assertEquals(GraphChange.Kind.EDGE_ADDED, changes.get(1).getKind());
+        Assert.assertEquals("1", changes.get(1).getLabel());
+        Assert.assertEquals(3, changes.get(1).getVersion());
+
+        testGraph.removeEdge("a", "b", "1");
+        testGraph.addNode("c");
+        Assert.assertEquals(3, log.size());
+        Assert.assertEquals(2, log.oldestVersion());
+        Assert.assertNull(log.changesSince(1));
+        Assert.assertEquals(2, log.changesSince(3).size());
+        Assert.assertEquals(GraphChange.Kind.EDGE_REMOVED,
+                log.changesSince(3).get(0).getKind());
+    }
+
+    /**
+     * Tests that changes made while a log is detached make the changes
+     * since then unavailable.
+     */
+    @Test
+    public void testDetach() {
+        GraphChangeLog<String, String> log = GraphChangeLog.attach(testGraph, 10);
+        testGraph.addNode("a");
+        log.detach();
+        testGraph.addNode("b");
+
+        Assert.assertNull(log.changesSince(0));
+        Assert.assertEquals(List.of(), log.changesSince(2));
+    }
+
+    /**
+     * Tests that asking for changes after the current version throws an
+     * exception.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testFutureVersion() {
+        GraphChangeLog.attach(testGraph, 10).changesSince(1);
+    }
+}
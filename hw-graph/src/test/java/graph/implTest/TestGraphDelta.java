@@ -0,0 +1,114 @@
+package graph.implTest;
+
+import graph.DirectLGraph;
+import graph.Edge;
+import graph.GraphDelta;
+import org.junit.*;
+import org.junit.rules.Timeout;
+
+import java.util.*;
+
+/**
+ * TestGraphDelta provides implementation tests for the GraphDelta class,
+ * checking that computed deltas turn one graph into another and that a
+ * delta which does not fit a graph leaves it unchanged.
+ */
+
+public final class TestGraphDelta {
+
+    @Rule   // 10 seconds max per method tested
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    /**
+     * Tests that applying the delta between two graphs to a copy of the
+     * first makes it equal to the second.
+     */
+    @Test
+    public void testBetweenAndApply() {
+        DirectLGraph<String, String> before = new DirectLGraph<>(true);
+        TestGraphs.createNodes(before::addNode, 4);
+        before.addEdge("n1", "n2", "a");
+        before.addEdge("n1", "n2", "b");
+        before.addEdge("n2", "n3", "c");
+        before.addEdge("n3", "n4", "d");
+        before.addEdge("n4", "n1", "e");
+
+        DirectLGraph<String, String> after = new DirectLGraph<>();
+        TestGraphs.createNodes(after::addNode, 3);
+        after.addNode("n5");
+        after.addEdge("n1", "n2", "a");
+        after.addEdge("n2", "n3", "c2");
+        after.addEdge("n3", "n5", "f");
+
+        GraphDelta<String, String> delta = GraphDelta.between(before, after);
+        Assert.assertEquals(Set.of("n4"), delta.removedNodes());
+        Assert.assertEquals(Set.of("n5"), delta.addedNodes());
+        Assert.assertEquals(Set.of(new Edge<>("n1", "n2", "b"), new Edge<>("n2", "n3", "c"),
+                new Edge<>("n3", "n4", "d"), new Edge<>("n4", "n1", "e")),
+                delta.removedEdges());
+        Assert.assertEquals(Set.of(new Edge<>("n2", "n3", "c2"), new Edge<>("n3", "n5", "f")),
+                delta.addedEdges());
+
+        delta.applyTo(before);
+        Assert.assertEquals(after.getNodes(), before.getNodes());
+        for (String node : after.getNodes()) {
+            Assert.assertEquals(after.getEdges(node), before.getEdges(node));
+        }
+        Assert.assertTrue(GraphDelta.between(before, after).isEmpty());
+    }
+
+    /**
+     * Tests that a node can be removed and added again in one delta,
+     * which clears its edges.
+     */
+    @Test
+    public void testReplaceNode() {
+        DirectLGraph<String, String> graph = new DirectLGraph<>();
+        TestGraphs.createNodes(graph::addNode, 2);
+        graph.addEdge("n1", "n2", "a");
+
+        GraphDelta.of(List.of("n2"), List.of("n2"), List.of(),
+                List.of(new Edge<>("n2", "n1", "b"))).applyTo(graph);
+        Assert.assertEquals(Set.of(), graph.getEdges("n1"));
+        Assert.assertEquals(Set.of(new Edge<>("n2", "n1", "b")), graph.getEdges("n2"));
+    }
+
+    /**
+     * Tests that deltas which do not fit a graph are rejected without
+     * changing the graph.
+     */
+    @Test
+    public void testApplyIsAllOrNothing() {
+        DirectLGraph<String, String> graph = new DirectLGraph<>();
+        TestGraphs.createNodes(graph::addNode, 2);
+        graph.addEdge("n1", "n2", "a");
+        String original = graph.toString();
+
+        List<GraphDelta<String, String>> bad = List.of(
+                GraphDelta.of(List.of(), List.of("n3"), List.of(new Edge<>("n1", "n2", "a")),
+                        List.of(new Edge<>("n3", "n4", "x"))),
+                GraphDelta.of(List.of("n9"), List.of(), List.of(), List.of()),
+                GraphDelta.of(List.of(), List.of("n1"), List.of(), List.of()),
+                GraphDelta.of(List.of(), List.of(), List.of(new Edge<>("n1", "n2", "z")),
+                        List.of()),
+                GraphDelta.of(List.of(), List.of("n3"), List.of(),
+                        List.of(new Edge<>("n1", "n3", "b"), new Edge<>("n1", "n2", "a"))));
+        for (GraphDelta<String, String> delta : bad) {
+            try {
+                delta.applyTo(graph);
+                Assert.fail("Expected delta to be rejected: " + delta);
+            } catch (IllegalArgumentException e) {
+                Assert.assertEquals(original, graph.toString());
+            }
+        }
+    }
+
+    /**
+     * Tests that a delta cannot hold null nodes.
+     */
+    @Test(expected = NullPointerException.class)
+    public void testNullNode() {
+        GraphDelta.of(Arrays.asList("n1", null), List.of(), List.of(),
+                List.<Edge<String, String>>of());
+    }
+}
@@ -5,6 +5,11 @@ import graph.Edge;
 import org.junit.*;
 import org.junit.rules.Timeout;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.*;
+import java.util.stream.Collectors;
+
 /**
  * TestGraphImpl provides implementation tests for the DirectLGraph class.
  * It tests remove methods and various special cases.
@@ -158,7 +163,8 @@ public final class TestGraphImpl {
         // Test printing parallel edge
         testGraph.addEdge("n1", "n2", "edge5");
 
-        Assert.assertEquals("n1: (n1 --[edge2]--> n2) (n1 --[edge1]--> n2) " +
+        // Edges are printed in the order they were added.
+        Assert.assertEquals("n1: (n1 --[edge1]--> n2) (n1 --[edge2]--> n2) " +
                         "(n1 --[edge4]--> n1) (n1 --[edge5]--> n2) " + "\n" + "n2: " +
                         "\n" + "n3: (n3 --[edge3]--> n4) " + "\n" + "n4: " + "\n",
                 testGraph.toString());
@@ -185,4 +191,289 @@ public final class TestGraphImpl {
         Assert.assertNotEquals(edge1,edge3);
         Assert.assertNotEquals(edge1, edge4);
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that node and edge views reflect later changes to the graph.
+     */
+    @Test
+    public void testViewsAreLive() {
+        createNodes(testGraph, 2);
+        Set<String> nodes = testGraph.getNodesView();
+        Set<Edge<String, String>> edges = testGraph.getEdgesView("n1");
+        Assert.assertEquals(2, nodes.size());
+        Assert.assertEquals(0, edges.size());
+
+        testGraph.addNode("n3");
+        testGraph.addEdge("n1", "n2", "edge1");
+        Assert.assertEquals(3, nodes.size());
+        Assert.assertTrue(edges.contains(new Edge<>("n1", "n2", "edge1")));
+
+        testGraph.removeEdge("n1", "n2", "edge1");
+        Assert.assertTrue(edges.isEmpty());
+    }
+
+    /**
+     * Tests that views cannot be used to modify the graph.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testEdgesViewIsReadOnly() {
+        createNodes(testGraph, 2);
+        testGraph.getEdgesView("n1").add(new Edge<>("n1", "n2", "edge1"));
+    }
+
+    /**
+     * Tests iterating over the edges and children of a node in place.
+     */
+    @Test
+    public void testForEachEdgeAndChild() {
+        createNodes(testGraph, 3);
+        testGraph.addEdge("n1", "n2", "edge1");
+        testGraph.addEdge("n1", "n2", "edge2");
+        testGraph.addEdge("n1", "n3", "edge3");
+
+        Set<String> edges = new TreeSet<>();
+        testGraph.forEachEdge("n1", (dest, label) -> edges.add(dest + "(" + label + ")"));
+        Assert.assertEquals("[n2(edge1), n2(edge2), n3(edge3)]", edges.toString());
+
+        List<String> children = new ArrayList<>();
+        testGraph.forEachChild("n1", children::add);
+        Collections.sort(children);
+        Assert.assertEquals(List.of("n2", "n2", "n3"), children);
+        Assert.assertEquals(Set.of("n2", "n3"), testGraph.listChildren("n1"));
+    }
+
+    /**
+     * Helper method: Builds a small graph with a reflexive edge and a
+     * parallel edge.
+     */
+    private void createParentGraph(DirectLGraph<String, String> graph) {
+        createNodes(graph, 3);
+        graph.addEdge("n1", "n2", "edge1");
+        graph.addEdge("n1", "n2", "edge2");
+        graph.addEdge("n3", "n2", "edge3");
+        graph.addEdge("n2", "n2", "edge4");
+        graph.addEdge("n2", "n3", "edge5");
+    }
+
+    /**
+     * Tests incoming edge queries with and without the incoming index.
+     */
+    @Test
+    public void testIncomingEdges() {
+        DirectLGraph<String, String> indexed = new DirectLGraph<>(true);
+        createParentGraph(indexed);
+        createParentGraph(testGraph);
+
+        Assert.assertTrue(indexed.hasIncomingIndex());
+        Assert.assertFalse(testGraph.hasIncomingIndex());
+        for (DirectLGraph<String, String> graph : List.of(indexed, testGraph)) {
+            Assert.assertEquals(4, graph.getIncomingEdges("n2").size());
+            Assert.assertEquals(Set.of("n1", "n2", "n3"), graph.listParents("n2"));
+            Assert.assertEquals(Set.of(), graph.listParents("n1"));
+        }
+
+        indexed.removeEdge("n1", "n2", "edge1");
+        indexed.removeEdge("n1", "n2", "edge2");
+        Assert.assertEquals(Set.of("n2", "n3"), indexed.listParents("n2"));
+    }
+
+    /**
+     * Tests that removing a node removes every edge to or from it.
+     */
+    @Test
+    public void testRemoveNode() {
+        DirectLGraph<String, String> indexed = new DirectLGraph<>(true);
+        createParentGraph(indexed);
+        createParentGraph(testGraph);
+
+        for (DirectLGraph<String, String> graph : List.of(indexed, testGraph)) {
+            Assert.assertTrue(graph.removeNode("n2"));
+            Assert.assertFalse(graph.removeNode("n2"));
+            Assert.assertFalse(graph.hasNode("n2"));
+            Assert.assertEquals(0, graph.listChildren("n1").size());
+            Assert.assertEquals(0, graph.listChildren("n3").size());
+            Assert.assertEquals(0, graph.getIncomingEdges("n3").size());
+
+            // The node can be added again without its old edges.
+            graph.addNode("n2");
+            Assert.assertEquals(0, graph.listParents("n2").size());
+        }
+    }
+
+    /**
+     * Tests looking up the cheapest of several parallel edges as edges
+     * are added and removed.
+     */
+    @Test
+    public void testCheapestEdge() {
+        createParentGraph(testGraph);
+
+        Assert.assertEquals("edge1", testGraph.getCheapestEdge("n1", "n2").getLabel());
+        Assert.assertNull(testGraph.getCheapestEdge("n2", "n1"));
+        Assert.assertNull(testGraph.getCheapestEdge("a", "n1"));
+
+        testGraph.addEdge("n1", "n2", "edge0");
+        Assert.assertEquals("edge0", testGraph.getCheapestEdge("n1", "n2").getLabel());
+        testGraph.removeEdge("n1", "n2", "edge0");
+        Assert.assertEquals("edge1", testGraph.getCheapestEdge("n1", "n2").getLabel());
+        testGraph.removeEdge("n1", "n2", "edge1");
+        testGraph.removeEdge("n1", "n2", "edge2");
+        Assert.assertNull(testGraph.getCheapestEdge("n1", "n2"));
+        Assert.assertFalse(testGraph.hasEdge("n1", "n2", "edge2"));
+    }
+
+    /**
+     * Tests visiting only the cheapest edge to each child.
+     */
+    @Test
+    public void testForEachCheapestEdge() {
+        createParentGraph(testGraph);
+        testGraph.addEdge("n1", "n3", "edge6");
+
+        Map<String, String> cheapest = new HashMap<>();
+        testGraph.forEachCheapestEdge("n1", cheapest::put);
+        Assert.assertEquals(Map.of("n2", "edge1", "n3", "edge6"), cheapest);
+    }
+
+    /**
+     * Tests that removing a node also removes the cheapest edges to it.
+     */
+    @Test
+    public void testCheapestEdgeAfterRemoveNode() {
+        DirectLGraph<String, String> indexed = new DirectLGraph<>(true);
+        createParentGraph(indexed);
+        createParentGraph(testGraph);
+
+        for (DirectLGraph<String, String> graph : List.of(indexed, testGraph)) {
+            graph.removeNode("n2");
+            graph.addNode("n2");
+            Assert.assertNull(graph.getCheapestEdge("n1", "n2"));
+            Assert.assertNull(graph.getCheapestEdge("n2", "n3"));
+            Assert.assertTrue(graph.addEdge("n1", "n2", "edge2"));
+            Assert.assertEquals("edge2", graph.getCheapestEdge("n1", "n2").getLabel());
+        }
+    }
+
+    /**
+     * Tests that the node and edge streams, sequential and parallel, hold
+     * every node and edge exactly once.
+     */
+    @Test
+    public void testStreams() {
+        createNodes(testGraph, 200);
+        Set<Edge<String, String>> expected = new HashSet<>();
+        for (int i = 1; i <= 200; i++) {
+            for (int j = 1; j <= 5; j++) {
+                String dest = "n" + ((i * j) % 200 + 1);
+                testGraph.addEdge("n" + i, dest, "e" + j);
+                expected.add(new Edge<>("n" + i, dest, "e" + j));
+            }
+        }
+
+        Assert.assertEquals(200, testGraph.nodes().count());
+        Assert.assertEquals(testGraph.getNodes(), testGraph.nodes().parallel()
+                .collect(Collectors.toSet()));
+        Assert.assertEquals(1000, testGraph.edges().count());
+        Assert.assertEquals(1000, testGraph.edges().parallel().count());
+        Assert.assertEquals(expected, testGraph.edges().parallel()
+                .collect(Collectors.toSet()));
+        Assert.assertEquals(0, testGraph2.edges().count());
+    }
+
+    /**
+     * Tests a node whose edges grow past the inline limit, so that they
+     * are stored hashed by child, and then shrink back, checking that
+     * the edges, parallel edges, cheapest edges and incoming index stay
+     * the same throughout.
+     */
+    @Test
+    public void testHighDegreeNode() {
+        DirectLGraph<String, String> indexed = new DirectLGraph<>(true);
+        for (DirectLGraph<String, String> graph : List.of(indexed, testGraph)) {
+            createNodes(graph, 20);
+            Set<Edge<String, String>> expected = new HashSet<>();
+            for (int i = 1; i <= 20; i++) {
+                graph.addEdge("n1", "n" + i, "b" + i);
+                graph.addEdge("n1", "n" + i, "a" + i);
+                expected.add(new Edge<>("n1", "n" + i, "b" + i));
+                expected.add(new Edge<>("n1", "n" + i, "a" + i));
+            }
+            Assert.assertFalse(graph.addEdge("n1", "n5", "a5"));
+            Assert.assertFalse(graph.removeEdge("n1", "n5", null));
+            Assert.assertFalse(graph.removeEdge("n1", null, "a5"));
+            Assert.assertEquals(expected, graph.getEdges("n1"));
+            Assert.assertEquals(40, graph.getEdgesView("n1").size());
+            Assert.assertTrue(graph.getEdgesView("n1").contains(
+                    new Edge<>("n1", "n7", "b7")));
+            Assert.assertEquals("a7", graph.getCheapestEdge("n1", "n7").getLabel());
+            Assert.assertEquals(Set.of(new Edge<>("n1", "n7", "a7"),
+                    new Edge<>("n1", "n7", "b7")), graph.getIncomingEdges("n7"));
+
+            for (int i = 4; i <= 20; i++) {
+                Assert.assertTrue(graph.removeEdge("n1", "n" + i, "a" + i));
+                Assert.assertTrue(graph.removeNode("n" + i));
+            }
+            Assert.assertEquals(Set.of(new Edge<>("n1", "n1", "a1"),
+                    new Edge<>("n1", "n1", "b1"), new Edge<>("n1", "n2", "a2"),
+                    new Edge<>("n1", "n2", "b2"), new Edge<>("n1", "n3", "a3"),
+                    new Edge<>("n1", "n3", "b3")), graph.getEdges("n1"));
+            Assert.assertTrue(graph.removeEdge("n1", "n2", "a2"));
+            Assert.assertFalse(graph.removeEdge("n1", "n2", null));
+            Assert.assertFalse(graph.removeEdge("n1", null, "b2"));
+            Assert.assertEquals("b2", graph.getCheapestEdge("n1", "n2").getLabel());
+            Assert.assertEquals(Set.of("n1", "n2", "n3"), graph.listChildren("n1"));
+            Assert.assertEquals(Set.of("n1"), graph.listParents("n3"));
+        }
+    }
+
+    /**
+     * Tests that writeTo writes nodes and edges in the order they were
+     * added, matches toString except for an empty graph, and passes on
+     * exceptions from its output.
+     */
+    @Test
+    public void testWriteTo() throws IOException {
+        testGraph.addNode("z");
+        testGraph.addNode("a");
+        testGraph.addNode("m");
+        testGraph.addEdge("z", "m", "e2");
+        testGraph.addEdge("z", "a", "e1");
+        testGraph.addEdge("z", "m", "e0");
+        testGraph.addEdge("m", "z", "e3");
+        testGraph.removeEdge("z", "m", "e2");
+
+        StringWriter out = new StringWriter();
+        testGraph.writeTo(out);
+        Assert.assertEquals("z: (z --[e1]--> a) (z --[e0]--> m) \n" + "a: \n" +
+                "m: (m --[e3]--> z) \n", out.toString());
+        Assert.assertEquals(out.toString(), testGraph.toString());
+
+        StringWriter empty = new StringWriter();
+        testGraph2.writeTo(empty);
+        Assert.assertEquals("", empty.toString());
+        Assert.assertEquals("{}", testGraph2.toString());
+
+        try {
+            testGraph.writeTo(new Appendable() {
+                @Override
+                public Appendable append(CharSequence csq) throws IOException {
+                    throw new IOException("full");
+                }
+
+                @Override
+                public Appendable append(CharSequence csq, int start, int end)
+                        throws IOException {
+                    throw new IOException("full");
+                }
+
+                @Override
+                public Appendable append(char c) throws IOException {
+                    throw new IOException("full");
+                }
+            });
+            Assert.fail("Expected an IOException.");
+        } catch (IOException e) {
+            Assert.assertEquals("full", e.getMessage());
+        }
+    }
+}
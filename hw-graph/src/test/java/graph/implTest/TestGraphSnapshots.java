@@ -0,0 +1,323 @@
+package graph.implTest;
+
+import graph.*;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * TestGraphSnapshots provides implementation tests for the GraphSnapshots
+ * class, checking that saved graphs load back with the same nodes and
+ * edges and that bad files are rejected.
+ */
+
+public final class TestGraphSnapshots {
+
+    @Rule   // 10 seconds max per method tested
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Helper method: Returns a weighted graph with a specified amount of
+     * nodes, each with edges to the next two nodes.
+     *
+     * @param numNodes  the number of nodes to generate in the graph.
+     */
+    private DirectWGraph<String> createGraph(int numNodes) {
+        DirectWGraph<String> graph = new DirectWGraph<>();
+        for (int i = 0; i < numNodes; i++) {
+            graph.addNode("n" + i);
+        }
+        for (int i = 0; i < numNodes; i++) {
+            graph.addEdge("n" + i, "n" + (i + 1) % numNodes, i + 0.5);
+            graph.addEdge("n" + i, "n" + (i + 2) % numNodes, -i);
+        }
+        return graph;
+    }
+
+    /**
+     * Tests that a mapped weighted graph has the same ids, nodes and edges
+     * as the saved graph.
+     */
+    @Test
+    public void testWeightedRoundTrip() throws IOException {
+        DirectWGraph<String> graph = createGraph(50);
+        Path file = folder.getRoot().toPath().resolve("graph.bin");
+        GraphSnapshots.writeWeighted(graph, GraphCodec.strings(), file);
+
+        BufferCsrGraph<String> loaded = GraphSnapshots.mapWeighted(file, GraphCodec.strings());
+        Assert.assertEquals(graph.nodeCount(), loaded.nodeCount());
+        Assert.assertEquals(graph.edgeCount(), loaded.edgeCount());
+        Assert.assertEquals(graph.toString(), loaded.toString());
+        Assert.assertEquals(7, loaded.indexOf("n7"));
+        Assert.assertEquals(-1, loaded.indexOf("a"));
+        Assert.assertEquals(2, loaded.outDegree(3));
+    }
+
+    /**
+     * Tests looking up the nodes of a mapped graph one at a time, before
+     * anything has decoded them all.
+     */
+    @Test
+    public void testMappedNodeLookups() throws IOException {
+        DirectWGraph<String> graph = createGraph(300);
+        Path file = folder.getRoot().toPath().resolve("graph.bin");
+        GraphSnapshots.writeWeighted(graph, GraphCodec.strings(), file);
+
+        BufferCsrGraph<String> loaded = GraphSnapshots.mapWeighted(file, GraphCodec.strings());
+        for (int i = 0; i < 300; i++) {
+            Assert.assertEquals(i, loaded.indexOf("n" + i));
+            Assert.assertEquals("n" + i, loaded.getNode(i));
+        }
+        Assert.assertEquals(-1, loaded.indexOf("n300"));
+        Assert.assertEquals(-1, loaded.indexOf(""));
+        Assert.assertEquals(-1, loaded.indexOf(null));
+        Assert.assertEquals(graph.toString(), loaded.toString());
+    }
+
+    /**
+     * Tests that looking up a node id out of range of a mapped graph
+     * throws an exception.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testMappedNodeOutOfRange() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("graph.bin");
+        GraphSnapshots.writeWeighted(createGraph(3), GraphCodec.strings(), file);
+        GraphSnapshots.mapWeighted(file, GraphCodec.strings()).getNode(3);
+    }
+
+    /**
+     * Tests that a paged graph has the same ids, nodes and edges as the
+     * saved graph while keeping no more pages than its cache allows.
+     */
+    @Test
+    public void testPagedRoundTrip() throws IOException {
+        DirectWGraph<String> graph = createGraph(200);
+        graph.addNode("hub");
+        for (int i = 0; i < 200; i++) {
+            graph.addEdge("hub", "n" + i, i);
+        }
+        Path file = folder.getRoot().toPath().resolve("graph.bin");
+        GraphSnapshots.writeWeighted(graph, GraphCodec.strings(), file);
+
+        try (PagedCsrGraph<String> paged = GraphSnapshots.openPaged(file,
+                GraphCodec.strings(), 64, 256)) {
+            // Nothing is read until it is used.
+            Assert.assertEquals(0, paged.cachedPages());
+            Assert.assertEquals(graph.nodeCount(), paged.nodeCount());
+            Assert.assertEquals(graph.edgeCount(), paged.edgeCount());
+            Assert.assertEquals(graph.toString(), paged.toString());
+            Assert.assertEquals(200, paged.outDegree(paged.indexOf("hub")));
+            Assert.assertEquals(2, paged.outDegree(3));
+            Assert.assertTrue(paged.cachedPages() <= 4);
+            Assert.assertTrue(paged.pageMisses() > 4);
+
+            // Looking up the same node again reads no new pages.
+            long misses = paged.pageMisses();
+            paged.forEachEdge(5, (dest, weight) -> { });
+            paged.forEachEdge(5, (dest, weight) -> { });
+            Assert.assertTrue(paged.pageMisses() <= misses + 3);
+            Assert.assertTrue(paged.pageHits() > 0);
+        }
+    }
+
+    /**
+     * Tests that a paged graph finds the id of every node and decodes
+     * every node through its node table, and finds no id for nodes not in
+     * the graph.
+     */
+    @Test
+    public void testPagedNodes() throws IOException {
+        DirectWGraph<String> graph = createGraph(500);
+        Path file = folder.getRoot().toPath().resolve("graph.bin");
+        GraphSnapshots.writeWeighted(graph, GraphCodec.strings(), file);
+
+        try (PagedCsrGraph<String> paged = GraphSnapshots.openPaged(file,
+                GraphCodec.strings(), 16, 64)) {
+            for (int i = 0; i < 500; i++) {
+                Assert.assertEquals(i, paged.indexOf("n" + i));
+                Assert.assertEquals("n" + i, paged.getNode(i));
+            }
+            Assert.assertEquals(-1, paged.indexOf("n500"));
+            Assert.assertEquals(-1, paged.indexOf(""));
+            Assert.assertEquals(-1, paged.indexOf(null));
+            Assert.assertEquals(graph.getNodes(), paged.getNodes());
+            Assert.assertTrue(paged.cachedPages() <= 4);
+        }
+
+        // An empty graph has an empty node table.
+        GraphSnapshots.writeWeighted(new DirectWGraph<String>(), GraphCodec.strings(), file);
+        try (PagedCsrGraph<String> paged = GraphSnapshots.openPaged(file,
+                GraphCodec.strings(), 16, 64)) {
+            Assert.assertEquals(-1, paged.indexOf("n0"));
+            Assert.assertEquals("{}", paged.toString());
+        }
+    }
+
+    /**
+     * Tests that threads sharing a paged graph with a small cache each
+     * read the same edges as the saved graph.
+     */
+    @Test
+    public void testPagedThreads() throws Exception {
+        DirectWGraph<String> graph = createGraph(300);
+        Path file = folder.getRoot().toPath().resolve("graph.bin");
+        GraphSnapshots.writeWeighted(graph, GraphCodec.strings(), file);
+
+        try (PagedCsrGraph<String> paged = GraphSnapshots.openPaged(file,
+                GraphCodec.strings(), 32, 256)) {
+            List<Thread> threads = new ArrayList<>();
+            List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+            for (int t = 0; t < 4; t++) {
+                int first = t;
+                threads.add(new Thread(() -> {
+                    try {
+                        for (int round = 0; round < 20; round++) {
+                            for (int i = first; i < 300; i += 4) {
+                                Assert.assertEquals(i, paged.indexOf("n" + i));
+                                double[] sum = {0.0};
+                                paged.forEachEdge(i, (dest, weight) -> sum[0] += weight);
+                                Assert.assertEquals(0.5, sum[0], 0.0);
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            Assert.assertEquals(List.of(), failures);
+            Assert.assertTrue(paged.cachedPages() <= 8);
+        }
+    }
+
+    /**
+     * Tests that a paged graph rejects page sizes that are not multiples
+     * of 8.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testPagedBadPageSize() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("graph.bin");
+        GraphSnapshots.writeWeighted(createGraph(3), GraphCodec.strings(), file);
+        GraphSnapshots.openPaged(file, GraphCodec.strings(), 12, 1024);
+    }
+
+    /**
+     * Tests saving and mapping an empty weighted graph.
+     */
+    @Test
+    public void testEmptyWeighted() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("empty.bin");
+        GraphSnapshots.writeWeighted(new DirectWGraph<String>(), GraphCodec.strings(), file);
+
+        BufferCsrGraph<String> loaded = GraphSnapshots.mapWeighted(file, GraphCodec.strings());
+        Assert.assertEquals(0, loaded.nodeCount());
+        Assert.assertEquals(0, loaded.edgeCount());
+        Assert.assertEquals("{}", loaded.toString());
+    }
+
+    /**
+     * Tests that a labeled graph loads back with the same nodes and edges,
+     * including parallel and reflexive edges.
+     */
+    @Test
+    public void testLabeledRoundTrip() throws IOException {
+        DirectLGraph<String, Double> graph = new DirectLGraph<>();
+        graph.addNode("n1");
+        graph.addNode("n2");
+        graph.addNode("ünïcode");
+        graph.addEdge("n1", "n2", 1.0);
+        graph.addEdge("n1", "n2", 2.0);
+        graph.addEdge("n2", "n2", 3.0);
+        graph.addEdge("ünïcode", "n1", 4.0);
+        Path file = folder.getRoot().toPath().resolve("labeled.bin");
+        GraphSnapshots.writeLabeled(graph, GraphCodec.strings(), GraphCodec.doubles(), file);
+
+        DirectLGraph<String, Double> loaded = GraphSnapshots.readLabeled(file,
+                GraphCodec.strings(), GraphCodec.doubles());
+        Assert.assertEquals(graph.getNodes(), loaded.getNodes());
+        for (String node : graph.getNodes()) {
+            Assert.assertEquals(graph.getEdges(node), loaded.getEdges(node));
+        }
+    }
+
+    /**
+     * Tests that the source fingerprint and scale saved with a snapshot are
+     * read back, and that snapshots saved without them read as 0.
+     */
+    @Test
+    public void testReadSourceAndScale() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("graph.bin");
+        GraphSnapshots.writeWeighted(createGraph(5), GraphCodec.strings(), file,
+                0x123456789ABCDEFL, 2.5);
+        Assert.assertEquals(0x123456789ABCDEFL, GraphSnapshots.readSource(file));
+        Assert.assertEquals(2.5, GraphSnapshots.readScale(file), 0.0);
+        Assert.assertEquals(createGraph(5).toString(),
+                GraphSnapshots.mapWeighted(file, GraphCodec.strings()).toString());
+
+        GraphSnapshots.writeWeighted(createGraph(5), GraphCodec.strings(), file);
+        Assert.assertEquals(0, GraphSnapshots.readSource(file));
+        Assert.assertEquals(0.0, GraphSnapshots.readScale(file), 0.0);
+        GraphSnapshots.writeLabeled(new DirectLGraph<String, Double>(),
+                GraphCodec.strings(), GraphCodec.doubles(), file);
+        Assert.assertEquals(0, GraphSnapshots.readSource(file));
+    }
+
+    /**
+     * Tests that loading a snapshot as the wrong kind of graph throws an
+     * exception.
+     */
+    @Test(expected = IOException.class)
+    public void testWrongKind() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("graph.bin");
+        GraphSnapshots.writeWeighted(createGraph(3), GraphCodec.strings(), file);
+        GraphSnapshots.readLabeled(file, GraphCodec.strings(), GraphCodec.doubles());
+    }
+
+    /**
+     * Tests that a file that is not a snapshot is rejected.
+     */
+    @Test(expected = IOException.class)
+    public void testNotASnapshot() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("text.bin");
+        Files.write(file, "not a graph".getBytes());
+        GraphSnapshots.mapWeighted(file, GraphCodec.strings());
+    }
+
+    /**
+     * Tests that a snapshot of another format version is rejected.
+     */
+    @Test(expected = IOException.class)
+    public void testOtherVersion() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("graph.bin");
+        GraphSnapshots.writeWeighted(createGraph(3), GraphCodec.strings(), file);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[7]--;
+        Files.write(file, bytes);
+        GraphSnapshots.mapWeighted(file, GraphCodec.strings());
+    }
+
+    /**
+     * Tests that a truncated snapshot is rejected.
+     */
+    @Test(expected = IOException.class)
+    public void testTruncated() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("graph.bin");
+        GraphSnapshots.writeWeighted(createGraph(20), GraphCodec.strings(), file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, 100));
+        GraphSnapshots.mapWeighted(file, GraphCodec.strings());
+    }
+}
@@ -0,0 +1,115 @@
+package graph.implTest;
+
+import graph.*;
+import org.junit.*;
+import org.junit.rules.Timeout;
+
+import java.util.*;
+
+/**
+ * TestGraphStats provides implementation tests for the GraphStats class,
+ * checking counts, degree distributions and parallel edges, and that
+ * memory estimates grow with the graph.
+ */
+
+public final class TestGraphStats {
+
+    @Rule   // 10 seconds max per method tested
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    /**
+     * Tests the statistics of a labeled graph with parallel and reflexive
+     * edges.
+     */
+    @Test
+    public void testLabeledStats() {
+        DirectLGraph<String, Double> graph = new DirectLGraph<>();
+        TestGraphs.createNodes(graph::addNode, 4);
+        graph.addEdge("n1", "n2", 1.0);
+        graph.addEdge("n1", "n2", 2.0);
+        graph.addEdge("n1", "n2", 3.0);
+        graph.addEdge("n1", "n3", 1.0);
+        graph.addEdge("n2", "n2", 1.0);
+
+        GraphStats stats = GraphStats.of(graph);
+        Assert.assertEquals(4, stats.nodeCount());
+        Assert.assertEquals(5, stats.edgeCount());
+        Assert.assertEquals(2, stats.parallelEdgeCount());
+        Assert.assertEquals(4, stats.maxOutDegree());
+        Assert.assertEquals(1.25, stats.averageOutDegree(), 1e-9);
+        Assert.assertEquals(Map.of(0, 2, 1, 1, 4, 1), stats.outDegreeDistribution());
+        Assert.assertTrue(stats.estimatedBytes() > 5 * 24);
+    }
+
+    /**
+     * Tests that a weighted graph and its CSR snapshot have the same
+     * statistics apart from their size, and that the snapshot is smaller.
+     */
+    @Test
+    public void testWeightedStats() {
+        DirectLGraph<String, Double> graph = new DirectLGraph<>();
+        TestGraphs.createNodes(graph::addNode, 100);
+        for (int i = 1; i <= 100; i++) {
+            graph.addEdge("n" + i, "n" + (i % 100 + 1), 1.0);
+            graph.addEdge("n" + i, "n" + (i % 100 + 1), 2.0);
+        }
+        CsrGraph<String> snapshot = graph.freeze(Double::doubleValue);
+
+        GraphStats labeled = GraphStats.of(graph);
+        GraphStats weighted = GraphStats.of(snapshot);
+        Assert.assertEquals(labeled.nodeCount(), weighted.nodeCount());
+        Assert.assertEquals(labeled.edgeCount(), weighted.edgeCount());
+        Assert.assertEquals(100, weighted.parallelEdgeCount());
+        Assert.assertEquals(labeled.outDegreeDistribution(), weighted.outDegreeDistribution());
+        Assert.assertTrue(weighted.estimatedBytes() < labeled.estimatedBytes());
+    }
+
+    /**
+     * Tests that the buffers of an off-heap copy are reported apart from
+     * its heap bytes.
+     */
+    @Test
+    public void testOffHeapBytes() {
+        DirectLGraph<String, Double> graph = new DirectLGraph<>();
+        TestGraphs.createNodes(graph::addNode, 100);
+        for (int i = 1; i <= 100; i++) {
+            graph.addEdge("n" + i, "n" + (i % 100 + 1), 1.0);
+        }
+        CsrGraph<String> snapshot = graph.freeze(Double::doubleValue);
+
+        GraphStats onHeap = GraphStats.of(snapshot);
+        GraphStats offHeap = GraphStats.of(BufferCsrGraph.offHeapCopy(snapshot));
+        Assert.assertEquals(0, onHeap.offHeapBytes());
+        Assert.assertEquals(0, GraphStats.of(graph).offHeapBytes());
+        Assert.assertEquals(4 * 101 + 4 * 100 + 8 * 100, offHeap.offHeapBytes());
+        Assert.assertTrue(offHeap.estimatedBytes() < onHeap.estimatedBytes());
+        Assert.assertTrue(offHeap.toString().endsWith(" + 1604 bytes off-heap"));
+    }
+
+    /**
+     * Tests the statistics of an empty graph.
+     */
+    @Test
+    public void testEmpty() {
+        GraphStats stats = GraphStats.of(new DirectWGraph<String>());
+        Assert.assertEquals(0, stats.nodeCount());
+        Assert.assertEquals(0, stats.maxOutDegree());
+        Assert.assertEquals(0.0, stats.averageOutDegree(), 0.0);
+        Assert.assertEquals(0.0, stats.bytesPerEdge(), 0.0);
+        Assert.assertTrue(stats.outDegreeDistribution().isEmpty());
+    }
+
+    /**
+     * Tests that the memory estimate grows as edges are added.
+     */
+    @Test
+    public void testEstimateGrows() {
+        DirectLGraph<String, Double> graph = new DirectLGraph<>(true);
+        TestGraphs.createNodes(graph::addNode, 10);
+        long before = GraphStats.of(graph).estimatedBytes();
+        for (int i = 1; i <= 10; i++) {
+            graph.addEdge("n1", "n" + i, 1.0);
+        }
+        Assert.assertTrue(GraphStats.of(graph).estimatedBytes() > before);
+    }
+}
@@ -0,0 +1,27 @@
+package graph.implTest;
+
+import java.util.function.Consumer;
+
+/**
+ * TestGraphs holds the helpers that the implementation tests share for
+ * filling graphs.
+ */
+public final class TestGraphs {
+
+    private TestGraphs() {
+    }
+
+    /**
+     * Helper method: Fills a graph with a specified amount of nodes, named
+     * "n1" to "n" + numNodes.
+     *
+     * @param addNode   the method that adds a node to the graph, such as
+     *                  graph::addNode.
+     * @param numNodes  the number of nodes to generate in the graph.
+     */
+    public static void createNodes(Consumer<String> addNode, int numNodes) {
+        for (int i = 1; i <= numNodes; i++) {
+            addNode.accept("n" + i);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package graph.implTest;
+
+import graph.IndexedMinHeap;
+import org.junit.*;
+import org.junit.rules.Timeout;
+
+import java.util.*;
+
+/**
+ * TestIndexedMinHeap provides implementation tests for the IndexedMinHeap
+ * class, checking that ids come out in key order and that keys can be
+ * lowered in place.
+ */
+
+public final class TestIndexedMinHeap {
+
+    @Rule   // 10 seconds max per method tested
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    /**
+     * Tests that ids are polled in order of their keys.
+     */
+    @Test
+    public void testPollOrder() {
+        IndexedMinHeap heap = new IndexedMinHeap(10);
+        double[] keys = {5, 3, 8, 1, 9, 2, 7, 0, 6, 4};
+        for (int id = 0; id < keys.length; id++) {
+            Assert.assertTrue(heap.offer(id, keys[id]));
+        }
+        Assert.assertEquals(10, heap.size());
+
+        List<Integer> order = new ArrayList<>();
+        while (!heap.isEmpty()) {
+            order.add(heap.poll());
+        }
+        Assert.assertEquals(List.of(7, 3, 5, 1, 9, 0, 8, 6, 2, 4), order);
+    }
+
+    /**
+     * Tests that offering a held id lowers its key only if the new key is
+     * smaller, without adding another entry.
+     */
+    @Test
+    public void testDecreaseKey() {
+        IndexedMinHeap heap = new IndexedMinHeap(3);
+        heap.offer(0, 5);
+        heap.offer(1, 6);
+        heap.offer(2, 7);
+
+        Assert.assertFalse(heap.offer(0, 9));
+        Assert.assertEquals(5, heap.key(0), 0);
+        Assert.assertTrue(heap.offer(2, 1));
+        Assert.assertEquals(3, heap.size());
+        Assert.assertEquals(2, heap.peek());
+        Assert.assertEquals(2, heap.poll());
+        Assert.assertFalse(heap.contains(2));
+        Assert.assertEquals(1, heap.key(2), 0);
+        Assert.assertEquals(0, heap.poll());
+    }
+
+    /**
+     * Tests the heap against sorting, with random keys lowered at random.
+     */
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(331);
+        IndexedMinHeap heap = new IndexedMinHeap(200);
+        double[] keys = new double[200];
+        for (int id = 0; id < 200; id++) {
+            keys[id] = random.nextDouble();
+            heap.offer(id, keys[id]);
+        }
+        for (int k = 0; k < 500; k++) {
+            int id = random.nextInt(200);
+            double key = random.nextDouble();
+            heap.offer(id, key);
+            keys[id] = Math.min(keys[id], key);
+        }
+
+        double[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        for (double key : sorted) {
+            int id = heap.poll();
+            Assert.assertEquals(key, keys[id], 0);
+        }
+        Assert.assertTrue(heap.isEmpty());
+    }
+
+    /**
+     * Tests that ids with equal keys are polled in the order their keys
+     * were set, including keys lowered to equal another id's.
+     */
+    @Test
+    public void testEqualKeysFirstSetFirstOut() {
+        IndexedMinHeap heap = new IndexedMinHeap(20);
+        for (int id = 19; id >= 0; id--) {
+            heap.offer(id, id % 2 == 0 ? 1 : 2);
+        }
+        heap.offer(7, 1);
+        heap.offer(3, 0.5);
+        heap.offer(5, 1);
+
+        List<Integer> order = new ArrayList<>();
+        while (!heap.isEmpty()) {
+            order.add(heap.poll());
+        }
+        Assert.assertEquals(List.of(3, 18, 16, 14, 12, 10, 8, 6, 4, 2, 0, 7, 5,
+                19, 17, 15, 13, 11, 9, 1), order);
+    }
+
+    /**
+     * Tests that clearing the heap removes every id.
+     */
+    @Test
+    public void testClear() {
+        IndexedMinHeap heap = new IndexedMinHeap(4);
+        heap.offer(1, 1);
+        heap.offer(3, 3);
+        heap.clear();
+        Assert.assertTrue(heap.isEmpty());
+        Assert.assertFalse(heap.contains(1));
+        Assert.assertTrue(heap.offer(1, 2));
+        Assert.assertEquals(1, heap.size());
+    }
+
+    /**
+     * Tests that polling an empty heap throws an exception.
+     */
+    @Test(expected = NoSuchElementException.class)
+    public void testPollEmpty() {
+        new IndexedMinHeap(4).poll();
+    }
+}
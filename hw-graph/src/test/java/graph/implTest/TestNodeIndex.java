@@ -0,0 +1,68 @@
+package graph.implTest;
+
+import graph.NodeIndex;
+import org.junit.*;
+import org.junit.rules.Timeout;
+
+import java.util.*;
+
+/**
+ * TestNodeIndex provides implementation tests for the NodeIndex class,
+ * checking that ids are dense, assigned in order, and stable.
+ */
+
+public final class TestNodeIndex {
+
+    @Rule   // 10 seconds max per method tested
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    /**
+     * Tests that ids are assigned in the order nodes are interned and that
+     * interning a node again returns its existing id.
+     */
+    @Test
+    public void testInternAssignsDenseIds() {
+        NodeIndex<String> index = new NodeIndex<>();
+        Assert.assertEquals(0, index.intern("a"));
+        Assert.assertEquals(1, index.intern("b"));
+        Assert.assertEquals(0, index.intern("a"));
+        Assert.assertEquals(2, index.intern("c"));
+
+        Assert.assertEquals(3, index.size());
+        Assert.assertEquals("b", index.get(1));
+        Assert.assertEquals(2, index.indexOf("c"));
+        Assert.assertEquals(-1, index.indexOf("d"));
+        Assert.assertEquals(-1, index.indexOf(null));
+        Assert.assertTrue(index.contains("a"));
+        Assert.assertFalse(index.contains("d"));
+        Assert.assertEquals(List.of("a", "b", "c"), index.asList());
+    }
+
+    /**
+     * Tests building an index from a collection with repeated nodes.
+     */
+    @Test
+    public void testOf() {
+        NodeIndex<String> index = NodeIndex.of(List.of("x", "y", "x", "z"));
+        Assert.assertEquals(List.of("x", "y", "z"), index.asList());
+        Assert.assertEquals(1, index.indexOf("y"));
+    }
+
+    /**
+     * Tests that interning null throws an exception.
+     */
+    @Test(expected = NullPointerException.class)
+    public void testInternNull() {
+        new NodeIndex<String>().intern(null);
+    }
+
+    /**
+     * Tests that the list view cannot be modified.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAsListUnmodifiable() {
+        NodeIndex<String> index = new NodeIndex<>();
+        index.intern("a");
+        index.asList().add("b");
+    }
+}
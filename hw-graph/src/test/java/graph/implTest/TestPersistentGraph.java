@@ -0,0 +1,172 @@
+package graph.implTest;
+
+import graph.DirectLGraph;
+import graph.PersistentLGraph;
+import org.junit.*;
+import org.junit.rules.Timeout;
+
+import java.util.*;
+
+/**
+ * TestPersistentGraph provides implementation tests for the
+ * PersistentLGraph class, checking that old versions are unchanged by
+ * later edits and that versions share untouched edge sets.
+ */
+
+public final class TestPersistentGraph {
+
+    @Rule   // 10 seconds max per method tested
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    /**
+     * Helper method: Returns a graph with a specified amount of nodes.
+     *
+     * @param numNodes  the number of nodes to generate in the graph.
+     */
+    private PersistentLGraph<String, String> createNodes(int numNodes) {
+        PersistentLGraph<String, String> graph = PersistentLGraph.empty();
+        for (int i = 1; i <= numNodes; i++) {
+            graph = graph.addNode("n" + i);
+        }
+        return graph;
+    }
+
+    /**
+     * Tests that each edit returns a new version and leaves the old one
+     * unchanged.
+     */
+    @Test
+    public void testOldVersionsUnchanged() {
+        PersistentLGraph<String, String> v1 = createNodes(2);
+        PersistentLGraph<String, String> v2 = v1.addEdge("n1", "n2", "edge1");
+        PersistentLGraph<String, String> v3 = v2.removeEdge("n1", "n2", "edge1");
+
+        Assert.assertFalse(v1.hasEdge("n1", "n2", "edge1"));
+        Assert.assertTrue(v2.hasEdge("n1", "n2", "edge1"));
+        Assert.assertFalse(v3.hasEdge("n1", "n2", "edge1"));
+        Assert.assertEquals(0, v1.edgeCount());
+        Assert.assertEquals(1, v2.edgeCount());
+        Assert.assertEquals(0, v3.edgeCount());
+        Assert.assertTrue(PersistentLGraph.<String, String>empty().getNodes().isEmpty());
+    }
+
+    /**
+     * Tests that edits which change nothing return the same version.
+     */
+    @Test
+    public void testNoOpEditsReturnSameVersion() {
+        PersistentLGraph<String, String> v1 = createNodes(2).addEdge("n1", "n2", "edge1");
+
+        Assert.assertSame(v1, v1.addNode("n1"));
+        Assert.assertSame(v1, v1.addEdge("n1", "n2", "edge1"));
+        Assert.assertSame(v1, v1.addEdge("n1", "a", "edge1"));
+        Assert.assertSame(v1, v1.removeEdge("n2", "n1", "edge1"));
+        Assert.assertSame(v1, v1.removeNode("a"));
+    }
+
+    /**
+     * Tests that a new version reuses the edge sets of untouched nodes.
+     */
+    @Test
+    public void testUntouchedEdgesShared() {
+        PersistentLGraph<String, String> v1 = createNodes(3)
+                .addEdge("n1", "n2", "edge1")
+                .addEdge("n3", "n2", "edge2");
+        PersistentLGraph<String, String> v2 = v1.addEdge("n1", "n3", "edge3");
+
+        Assert.assertSame(v1.getEdgesView("n3"), v2.getEdgesView("n3"));
+        Assert.assertNotSame(v1.getEdgesView("n1"), v2.getEdgesView("n1"));
+    }
+
+    /**
+     * Tests removing a node along with the edges to and from it.
+     */
+    @Test
+    public void testRemoveNode() {
+        PersistentLGraph<String, String> v1 = createNodes(3)
+                .addEdge("n1", "n2", "edge1")
+                .addEdge("n2", "n3", "edge2")
+                .addEdge("n2", "n2", "edge3")
+                .addEdge("n3", "n1", "edge4");
+        PersistentLGraph<String, String> v2 = v1.removeNode("n2");
+
+        Assert.assertEquals(3, v1.nodeCount());
+        Assert.assertEquals(4, v1.edgeCount());
+        Assert.assertEquals(Set.of("n1", "n3"), v2.getNodes());
+        Assert.assertEquals(1, v2.edgeCount());
+        Assert.assertEquals(Set.of(), v2.listChildren("n1"));
+        Assert.assertEquals(Set.of("n1"), v2.listChildren("n3"));
+    }
+
+    /**
+     * Tests a long sequence of random edits against a DirectLGraph,
+     * including nodes whose hash codes collide.
+     */
+    @Test
+    public void testMatchesDirectLGraph() {
+        // "Aa" and "BB" have the same hash code, so every string made of
+        // four such blocks has the same hash code as every other.
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            StringBuilder name = new StringBuilder();
+            for (int b = 0; b < 4; b++) {
+                name.append(((i >> b) & 1) == 0 ? "Aa" : "BB");
+            }
+            names.add(name.toString());
+        }
+        for (int i = 0; i < 300; i++) {
+            names.add("n" + i);
+        }
+
+        Random random = new Random(331);
+        DirectLGraph<String, String> expected = new DirectLGraph<>();
+        PersistentLGraph<String, String> actual = PersistentLGraph.empty();
+        List<PersistentLGraph<String, String>> versions = new ArrayList<>();
+        List<String> snapshots = new ArrayList<>();
+
+        for (int step = 0; step < 3000; step++) {
+            String a = names.get(random.nextInt(names.size()));
+            String b = names.get(random.nextInt(names.size()));
+            String label = "e" + random.nextInt(3);
+            int op = random.nextInt(10);
+            if (op < 4) {
+                expected.addNode(a);
+                actual = actual.addNode(a);
+            } else if (op < 8) {
+                expected.addEdge(a, b, label);
+                actual = actual.addEdge(a, b, label);
+            } else if (op < 9) {
+                expected.removeEdge(a, b, label);
+                actual = actual.removeEdge(a, b, label);
+            } else {
+                expected.removeNode(a);
+                actual = actual.removeNode(a);
+            }
+
+            if (step % 500 == 0) {
+                versions.add(actual);
+                snapshots.add(describe(actual));
+            }
+        }
+
+        Assert.assertEquals(expected.getNodes(), actual.getNodes());
+        for (String node : expected.getNodes()) {
+            Assert.assertEquals(expected.getEdges(node), actual.getEdges(node));
+        }
+        for (int i = 0; i < versions.size(); i++) {
+            Assert.assertEquals(snapshots.get(i), describe(versions.get(i)));
+        }
+    }
+
+    // Returns a description of a graph that does not depend on the
+    // order nodes and edges are stored in.
+    private static String describe(PersistentLGraph<String, String> graph) {
+        Map<String, Set<String>> sorted = new TreeMap<>();
+        for (String node : graph.getNodes()) {
+            Set<String> edges = new TreeSet<>();
+            graph.forEachEdge(node, (dest, label) -> edges.add(dest + "(" + label + ")"));
+            sorted.put(node, edges);
+        }
+        return sorted.toString();
+    }
+}
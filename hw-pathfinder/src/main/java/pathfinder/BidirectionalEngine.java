@@ -0,0 +1,278 @@
+package pathfinder;
+
+import graph.CsrGraph;
+import graph.IndexedMinHeap;
+import graph.WeightedEdgeVisitor;
+import graph.WeightedGraph;
+import pathfinder.datastructures.Path;
+import pathfinder.datastructures.PathLink;
+
+import java.util.*;
+
+/**
+ * <b>BidirectionalEngine</b> finds lowest-cost paths in one WeightedGraph
+ * with a bidirectional Dijkstra search. A forward search grows from the
+ * start over the graph's edges while a backward search grows from the
+ * destination over the edges of the reverse graph, each settling nodes
+ * in order of their cost from its own end. The side whose next node is
+ * nearer to its end goes next, so both grow to about the same radius.
+ *
+ * Whenever an edge leads one search to a node the other has reached, the
+ * two costs give a path through that node, and the cheapest such path is
+ * kept. The search stops once the costs of the next nodes of the two
+ * sides add up to at least the cost of that path, since no path through
+ * an unsettled node can then be cheaper. On a map, where the nodes
+ * within a cost of a point grow with the square of the cost, two searches
+ * of half the radius settle about half the nodes of one full search.
+ *
+ * The reverse graph is built once, when the engine is created, and may
+ * be shared between engines. Like DijkstraEngine, an engine keeps its
+ * search state in arrays indexed by node id and is not safe to use from
+ * several threads at once.
+ *
+ * @param <N> The type of nodes in the graph.
+ */
+public final class BidirectionalEngine<N> {
+
+    // ABSTRACTION FUNCTION:
+    //      AF(r) = a bidirectional search over graph, in which forward is
+    //      the search from the start over graph and backward is the
+    //      search from the destination over reverse, and the cheapest
+    //      path found through both searches goes through node meeting and
+    //      costs best (meeting == -1 and best == infinity if none has been
+    //      found).
+
+    // REPRESENTATION INVARIANT:
+    //      graph, reverse, forward, backward != null.
+    //      reverse has the same nodes and ids as graph and an edge from j
+    //      to i of weight w for each edge from i to j of weight w of graph.
+    //      forward searches graph and backward searches reverse.
+
+
+    // Debug flag; change to TRUE to enable checkReps.
+    private static final boolean DEBUG = false;
+
+    private final WeightedGraph<N> graph;
+    private final WeightedGraph<N> reverse;
+    private final Side forward;
+    private final Side backward;
+
+    private double best;
+    private int meeting;
+    private int settledCount;
+
+    /**
+     * Creates a new engine for a graph, building its reverse graph.
+     *
+     * @param graph The graph to search. It must not change while the
+     *              engine is in use.
+     * @throws NullPointerException if graph == null
+     * @spec.effects Constructs a new BidirectionalEngine.
+     */
+    public BidirectionalEngine(WeightedGraph<N> graph) {
+        this(graph, CsrGraph.reverseOf(graph));
+    }
+
+    /**
+     * Creates a new engine for a graph whose reverse has already been
+     * built, so that engines for several threads can share one reverse.
+     *
+     * @param graph   The graph to search. It must not change while the
+     *                engine is in use.
+     * @param reverse The reverse of graph, as built by CsrGraph.reverseOf.
+     * @throws NullPointerException if graph or reverse is null.
+     * @throws IllegalArgumentException if reverse has a different number
+     * of nodes or edges than graph.
+     * @spec.requires reverse is the reverse of graph, with the same node
+     * ids.
+     * @spec.effects Constructs a new BidirectionalEngine.
+     */
+    public BidirectionalEngine(WeightedGraph<N> graph, WeightedGraph<N> reverse) {
+        if (reverse.nodeCount() != graph.nodeCount() ||
+                reverse.edgeCount() != graph.edgeCount()) {
+            throw new IllegalArgumentException("Reverse graph does not match the graph.");
+        }
+        this.graph = graph;
+        this.reverse = reverse;
+        this.forward = new Side(graph);
+        this.backward = new Side(reverse);
+        this.forward.other = backward;
+        this.backward.other = forward;
+        checkRep();
+    }
+
+    /**
+     * Finds the lowest-cost path between two nodes of the graph.
+     *
+     * @param start The starting node that the path begins at.
+     * @param dest  The destination node where the path ends.
+     * @spec.requires Graph contains non-negative edge weights.
+     * @throws IllegalArgumentException if start is not in the graph.
+     * @return A new Path corresponding to the lowest-cost path
+     * from the start to the destination. If no path exists,
+     * return null.
+     */
+    public Path<N> findShortestPath(N start, N dest) {
+        settledCount = 0;
+        if (start.equals(dest)) {
+            return new Path<>(start);
+        }
+
+        int startId = graph.indexOf(start);
+        int destId = graph.indexOf(dest);
+        if (startId < 0) {
+            throw new IllegalArgumentException("Start is not in the graph.");
+        } else if (destId < 0) {
+            return null;
+        }
+
+        forward.reset();
+        backward.reset();
+        best = Double.POSITIVE_INFINITY;
+        meeting = -1;
+        forward.reach(startId, 0.0, -1, 0.0);
+        backward.reach(destId, 0.0, -1, 0.0);
+
+        while (!forward.frontier.isEmpty() && !backward.frontier.isEmpty()) {
+            double forwardNext = forward.frontier.key(forward.frontier.peek());
+            double backwardNext = backward.frontier.key(backward.frontier.peek());
+            if (forwardNext + backwardNext >= best) {
+                break;
+            }
+            (forwardNext <= backwardNext ? forward : backward).settleNext();
+        }
+
+        return meeting < 0 ? null : buildPath();
+    }
+
+    /**
+     * Returns the number of nodes the last search settled in both
+     * directions, which is the number whose edges it read.
+     *
+     * @return the number of nodes settled by the last call to
+     * findShortestPath, or 0 if it returned without searching.
+     */
+    public int lastSettledCount() {
+        return settledCount;
+    }
+
+    // Returns the path from the start to the meeting node found forward,
+    // followed by the path from it to the destination found backward.
+    private Path<N> buildPath() {
+        int length = 0;
+        for (int id = meeting; forward.parents[id] >= 0; id = forward.parents[id]) {
+            length++;
+        }
+        int[] ids = new int[length + 1];
+        for (int id = meeting, k = length; k >= 0; id = forward.parents[id], k--) {
+            ids[k] = id;
+        }
+
+        PathLink<N> path = new PathLink<>(graph.getNode(ids[0]));
+        for (int k = 1; k <= length; k++) {
+            path = path.extend(graph.getNode(ids[k]), forward.parentCosts[ids[k]]);
+        }
+        for (int id = meeting; backward.parents[id] >= 0; id = backward.parents[id]) {
+            path = path.extend(graph.getNode(backward.parents[id]), backward.parentCosts[id]);
+        }
+        return path.toPath();
+    }
+
+    // The state of the search in one direction. Its parents lead back to
+    // its own end, so a backward parent is the next node toward the
+    // destination.
+    private final class Side {
+        private final WeightedGraph<N> edges;
+        private final double[] costs;
+        private final int[] parents;
+        private final double[] parentCosts;
+        private final boolean[] settled;
+        private final IndexedMinHeap frontier;
+        private final WeightedEdgeVisitor relax = this::relax;
+        private Side other;
+
+        // Ids whose entries the current search has changed.
+        private int[] touched = new int[16];
+        private int touchedCount;
+
+        // The node whose edges are being relaxed.
+        private int current;
+
+        private Side(WeightedGraph<N> edges) {
+            int n = edges.nodeCount();
+            this.edges = edges;
+            this.costs = new double[n];
+            this.parents = new int[n];
+            this.parentCosts = new double[n];
+            this.settled = new boolean[n];
+            this.frontier = new IndexedMinHeap(n);
+            Arrays.fill(costs, Double.POSITIVE_INFINITY);
+            Arrays.fill(parents, -1);
+        }
+
+        // Settles the node nearest this side's end and relaxes its edges.
+        private void settleNext() {
+            current = frontier.poll();
+            settled[current] = true;
+            settledCount++;
+            edges.forEachEdge(current, relax);
+        }
+
+        // Lowers the cost of dest if the edge from current leads to it more
+        // cheaply, and keeps the path through dest if it meets the other
+        // side's search there more cheaply than any path found so far.
+        private void relax(int dest, double weight) {
+            if (!settled[dest]) {
+                double cost = costs[current] + weight;
+                if (cost < costs[dest]) {
+                    reach(dest, cost, current, weight);
+                }
+            }
+
+            double through = costs[dest] + other.costs[dest];
+            if (through < best) {
+                best = through;
+                meeting = dest;
+            }
+        }
+
+        // Records that id can be reached at cost, by an edge of cost
+        // edgeCost from parent.
+        private void reach(int id, double cost, int parent, double edgeCost) {
+            if (costs[id] == Double.POSITIVE_INFINITY) {
+                if (touchedCount == touched.length) {
+                    touched = Arrays.copyOf(touched, 2 * touched.length);
+                }
+                touched[touchedCount++] = id;
+            }
+            costs[id] = cost;
+            parents[id] = parent;
+            parentCosts[id] = edgeCost;
+            frontier.offer(id, cost);
+        }
+
+        // Clears the entries changed by the last search.
+        private void reset() {
+            for (int k = 0; k < touchedCount; k++) {
+                int id = touched[k];
+                costs[id] = Double.POSITIVE_INFINITY;
+                parents[id] = -1;
+                settled[id] = false;
+            }
+            touchedCount = 0;
+            frontier.clear();
+        }
+    }
+
+    // Checks if the rep invariant holds. Throws exception if the
+    // rep invariant is violated.
+    private void checkRep() {
+        if (DEBUG) {
+            assert graph != null && reverse != null;
+            assert forward != null && backward != null;
+            assert forward.edges == graph && backward.edges == reverse;
+            assert reverse.nodeCount() == graph.nodeCount();
+            assert reverse.edgeCount() == graph.edgeCount();
+        }
+    }
+}
@@ -11,14 +11,27 @@
 
 package pathfinder;
 
+import graph.BufferCsrGraph;
 import graph.DirectLGraph;
-import graph.Edge;
+import graph.DirectWGraph;
+import graph.GraphBuilder;
+import graph.GraphCodec;
+import graph.GraphSnapshots;
+import graph.GraphStats;
+import graph.WeightedGraph;
 import pathfinder.datastructures.Path;
 import pathfinder.datastructures.Point;
+import pathfinder.hierarchy.ContractionHierarchy;
+import pathfinder.hierarchy.HierarchyQuery;
 import pathfinder.parser.CampusBuilding;
 import pathfinder.parser.CampusPath;
 import pathfinder.parser.CampusPathsParser;
 
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.util.*;
 
 /**
@@ -36,28 +49,60 @@ public class CampusMap implements ModelAPI {
     //      campus which stores non-null CampusBuildings from
     //      [0..size - 1].
     //
-    //      AF(r) = CampusMap as a DirectLGraph<Point, Double> g such that
+    //      AF(r) = CampusMap as a WeightedGraph<Point> g such that
     //          "Graph is empty" = if g is empty.
     //          "(x,y):" = if g contains Point (x,y) with no children.
     //          "(x,y): ((x,y) --[weight]--> (x2,y2))" = if g contains Point
     //          (x,y) connected to Point (x2,y2) one-way by an edge with
     //          weight as a double value.
+    //      g = campusSnapshot, an immutable graph that shortest path
+    //      queries are answered from.
+    //      pathsList is null until the paths are needed, if the graph
+    //      was loaded from a saved snapshot.
+    //      straightLine estimates the distance between two points as
+    //      their pixel distance times the least distance per pixel of
+    //      any edge of g, which guides searches toward the destination.
+    //      hierarchy is a contraction hierarchy of g that queries are
+    //      answered from instead, or null if it was not asked for.
+    //      engines holds one DijkstraEngine over g for each thread
+    //      that has searched it, and queries one HierarchyQuery of
+    //      hierarchy for each thread, or is null if hierarchy is.
 
     // REPRESENTATION INVARIANT:
-    //      All points and edges in campusGraph != null.
+    //      All points and edges in campusSnapshot != null.
     //      All CampusBuildings in buildingsList != null.
     //      All edge weights are non-negative.
     //      No duplicate points are stored.
     //      No two edges share the same source, destination, and label.
+    //      engines != null, and queries == null exactly when
+    //      hierarchy == null.
 
 
     // Debug flag; change to TRUE to enable checkReps.
     private static final boolean DEBUG = false;
 
+    // Encodes a Point as its x and y coordinates.
+    private static final GraphCodec<Point> POINT_CODEC = new GraphCodec<Point>() {
+        @Override
+        public void encode(Point point, DataOutput out) throws IOException {
+            out.writeDouble(point.getX());
+            out.writeDouble(point.getY());
+        }
+
+        @Override
+        public Point decode(ByteBuffer in) {
+            return new Point(in.getDouble(), in.getDouble());
+        }
+    };
+
     private List<CampusBuilding> buildingsList;
-    private DirectLGraph<Point, Double> campusGraph;
+    private WeightedGraph<Point> campusSnapshot;
     private List<CampusPath> pathsList;
     private Map<String, String> buildingNames;
+    private Heuristic<Point> straightLine;
+    private ContractionHierarchy<Point> hierarchy;
+    private ThreadLocal<DijkstraEngine<Point>> engines;
+    private ThreadLocal<HierarchyQuery<Point>> queries;
 
     /**
      * Constructs a new CampusMap from data provided in
@@ -66,12 +111,112 @@ public class CampusMap implements ModelAPI {
      * @spec.effects Constructs a new CampusMap.
      */
     public CampusMap () {
+        this(false);
+    }
+
+    /**
+     * Constructs a new CampusMap from data provided in
+     * campus_buildings.tsv and campus_paths.tsv, optionally
+     * building a contraction hierarchy of the campus graph to
+     * answer shortest path queries from. The hierarchy makes
+     * starting up slower and each query much faster, which
+     * suits a long-running server.
+     *
+     * @param useHierarchy Whether to answer queries with a
+     *                     contraction hierarchy rather than
+     *                     an A* search.
+     * @spec.effects Constructs a new CampusMap.
+     */
+    public CampusMap (boolean useHierarchy) {
+        this(useHierarchy, false);
+    }
+
+    /**
+     * Constructs a new CampusMap from data provided in
+     * campus_buildings.tsv and campus_paths.tsv, optionally
+     * building a contraction hierarchy and optionally keeping
+     * the edges of the campus graph in direct buffers outside
+     * the heap. Off the heap the edges add nothing to garbage
+     * collection pauses, but every edge is read through a
+     * buffer, so this only pays off for maps far larger than
+     * the campus.
+     *
+     * @param useHierarchy Whether to answer queries with a
+     *                     contraction hierarchy rather than
+     *                     an A* search.
+     * @param offHeap      Whether to keep the edges outside
+     *                     the heap.
+     * @spec.effects Constructs a new CampusMap.
+     */
+    public CampusMap (boolean useHierarchy, boolean offHeap) {
         this.buildingsList = CampusPathsParser.
                 parseCampusBuildings("campus_buildings.tsv");
         this.pathsList = CampusPathsParser.
                 parseCampusPaths("campus_paths.tsv");
 
-        this.campusGraph = buildGraph(new DirectLGraph<>());
+        if (offHeap) {
+            this.campusSnapshot = BufferCsrGraph.offHeapCopy(buildWeightedGraph());
+        } else {
+            this.campusSnapshot = buildWeightedGraph().freeze();
+        }
+        this.straightLine = Heuristic.straightLine(
+                Heuristic.straightLineScale(campusSnapshot));
+        this.engines = ThreadLocal.withInitial(
+                () -> new DijkstraEngine<>(campusSnapshot));
+        if (useHierarchy) {
+            this.hierarchy = ContractionHierarchy.build(campusSnapshot);
+            this.queries = ThreadLocal.withInitial(hierarchy::newQuery);
+        }
+        this.buildingNames = new HashMap<>();
+        this.buildingNames = buildingNames();
+
+        checkRep();
+    }
+
+    /**
+     * Constructs a new CampusMap whose graph is loaded from a
+     * saved snapshot file, so that starting up does not parse
+     * campus_paths.tsv or rebuild the graph. The snapshot is
+     * mapped into memory and nodes and edges are read from it
+     * as queries use them, and the scale of the straight-line
+     * heuristic is saved with it, so starting up reads only
+     * the header of the snapshot and the bytes of
+     * campus_paths.tsv to check that they still match. If the
+     * file does not exist yet, cannot be read, or was saved from
+     * a campus_paths.tsv with different contents, the graph is
+     * built from campus_paths.tsv as usual and saved to the
+     * file for next time.
+     *
+     * @param snapshotFile The file the graph is saved in.
+     * @throws UncheckedIOException if the snapshot cannot be
+     * read or written.
+     * @spec.effects Constructs a new CampusMap.
+     */
+    public CampusMap (java.nio.file.Path snapshotFile) {
+        this.buildingsList = CampusPathsParser.
+                parseCampusBuildings("campus_buildings.tsv");
+
+        long source = CampusPathsParser.fingerprint("campus_paths.tsv");
+        double scale;
+        try {
+            if (isCurrent(snapshotFile, source)) {
+                this.campusSnapshot = GraphSnapshots.mapWeighted(
+                        snapshotFile, POINT_CODEC);
+                scale = GraphSnapshots.readScale(snapshotFile);
+            } else {
+                this.pathsList = CampusPathsParser.
+                        parseCampusPaths("campus_paths.tsv");
+                this.campusSnapshot = buildWeightedGraph().freeze();
+                scale = Heuristic.straightLineScale(campusSnapshot);
+                GraphSnapshots.writeWeighted(campusSnapshot, POINT_CODEC,
+                        snapshotFile, source, scale);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.straightLine = Heuristic.straightLine(scale);
+        this.engines = ThreadLocal.withInitial(
+                () -> new DijkstraEngine<>(campusSnapshot));
         this.buildingNames = new HashMap<>();
         this.buildingNames = buildingNames();
 
@@ -83,11 +228,13 @@ public class CampusMap implements ModelAPI {
      * points contained in the map and the distances
      * between them.
      *
-     * @return a new DirectLGraph<Point, Double> storing
-     * the campus map data.
+     * @param campusGraph The graph to add the campus
+     *                    map data to.
+     * @return campusGraph, storing the campus map data.
      */
     public DirectLGraph<Point, Double> buildGraph (
             DirectLGraph<Point, Double> campusGraph) {
+        loadPaths();
 
         // Add each path to this graph as a new Point.
         for (CampusPath path : this.pathsList) {
@@ -110,6 +257,59 @@ public class CampusMap implements ModelAPI {
         return campusGraph;
     }
 
+    /**
+     * Builds a new weighted graph storing the coordinate
+     * points contained in the map and the distances
+     * between them, with primitive weights rather than
+     * the Double labels of buildGraph.
+     *
+     * @return a new DirectWGraph<Point> storing
+     * the campus map data.
+     */
+    public DirectWGraph<Point> buildWeightedGraph() {
+        loadPaths();
+
+        // Capacity hints only: every path adds one edge, and since
+        // campus_paths.tsv lists each path in both directions, most
+        // points are shared and the path count covers the nodes too.
+        GraphBuilder<Point> builder = new GraphBuilder<>(this.pathsList.size(),
+                this.pathsList.size());
+
+        // Add an edge from each path's start Point to its end Point. The
+        // edge weight is the distance of the path between points. Large
+        // maps are split across cores; the campus is small enough that
+        // this runs on one thread.
+        builder.addEdgesParallel(this.pathsList,
+                path -> new Point(path.getX1(), path.getY1()),
+                path -> new Point(path.getX2(), path.getY2()),
+                CampusPath::getDistance);
+
+        return builder.build();
+    }
+
+    // Returns whether a snapshot file exists and was saved from
+    // campus paths with the given fingerprint. A file that is not
+    // a snapshot of the current format is treated as out of date.
+    private static boolean isCurrent(java.nio.file.Path snapshotFile,
+                                     long source) {
+        if (!Files.exists(snapshotFile)) {
+            return false;
+        }
+        try {
+            return GraphSnapshots.readSource(snapshotFile) == source;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Parses campus_paths.tsv if it has not been parsed yet.
+    private void loadPaths() {
+        if (this.pathsList == null) {
+            this.pathsList = CampusPathsParser.
+                    parseCampusPaths("campus_paths.tsv");
+        }
+    }
+
     @Override
     public Map<String, String> buildingNames() {
         for (CampusBuilding building : this.buildingsList) {
@@ -167,40 +367,54 @@ public class CampusMap implements ModelAPI {
         Point endBuilding = getPointFromShortName(endShortName);
 
         checkRep();
-        return ShortestPathFinder.findShortestPath(campusGraph,
-                startBuilding, endBuilding);
+        // Engines and queries allocate arrays the size of the graph,
+        // so each thread keeps its own and reuses it, which also keeps
+        // CampusMap safe to share between threads.
+        if (hierarchy != null) {
+            return queries.get().findShortestPath(startBuilding,
+                    endBuilding);
+        }
+        return engines.get().findShortestPath(startBuilding, endBuilding,
+                straightLine);
+    }
+
+    /**
+     * Returns statistics of the campus graph that queries are
+     * answered from, including its node and edge counts, an
+     * estimate of the heap memory it uses, and the memory its
+     * edges use outside the heap if they are kept there.
+     *
+     * @return the statistics of the campus graph.
+     */
+    public GraphStats graphStats() {
+        return GraphStats.of(campusSnapshot);
     }
 
     // Checks if the rep invariant holds. Throws exception if the
     // rep invariant is violated.
     private void checkRep() {
 
-        // Check for duplicate coordinates.
-        Set<Point> checkNodes = new HashSet<>(campusGraph.getNodes());
-        assert (checkNodes.size() == campusGraph.getNodes().size());
-
-        // All points in campusGraph != null.
-        assert !(campusGraph.hasNode(null));
+        assert (campusSnapshot != null);
+        assert (engines != null);
+        assert ((queries == null) == (hierarchy == null));
 
         if (DEBUG) {
-            // All edges in campusGraph are non-null and have
-            // non-negative edge weights.
-            for (Point point : campusGraph.getNodes()) {
-                for (Edge<Point,Double> edge :
-                        campusGraph.getEdges(point)) {
-                    assert edge != null;
-                    assert edge.getLabel() >= 0.0;
-                }
+            // All points are non-null, and there are no duplicate
+            // coordinates.
+            Set<Point> checkNodes = new HashSet<>();
+            for (int i = 0; i < campusSnapshot.nodeCount(); i++) {
+                assert (campusSnapshot.getNode(i) != null);
+                checkNodes.add(campusSnapshot.getNode(i));
             }
-
-            // Check for any identical edges.
-            for (Point point : checkNodes) {
-                Set<Edge<Point,Double>> checkEdges = new HashSet<>
-                        (campusGraph.getEdges(point));
-                assert (checkEdges.size() == campusGraph.
-                        getEdges(point).size());
-
+            assert (checkNodes.size() == campusSnapshot.nodeCount());
+
+            // All edges have non-negative edge weights. The graph
+            // builder itself drops identical edges.
+            for (int i = 0; i < campusSnapshot.nodeCount(); i++) {
+                campusSnapshot.forEachEdge(i, (dest, weight) -> {
+                    assert weight >= 0.0;
+                });
             }
         }
     }
-}
\ No newline at end of file
+}
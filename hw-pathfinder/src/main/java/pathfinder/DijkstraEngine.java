@@ -0,0 +1,270 @@
+package pathfinder;
+
+import graph.IndexedMinHeap;
+import graph.WeightedEdgeVisitor;
+import graph.WeightedGraph;
+import pathfinder.datastructures.Path;
+import pathfinder.datastructures.PathLink;
+
+import java.util.*;
+
+/**
+ * <b>DijkstraEngine</b> finds lowest-cost paths in one WeightedGraph with
+ * Dijkstra's algorithm, keeping all of its search state in arrays indexed
+ * by node id. The frontier is an IndexedMinHeap of node ids, which lowers
+ * a node's cost in place when a cheaper way to it is found, so it never
+ * holds more than one entry per node. Each node reached records its cost
+ * and the node and edge cost it was reached by, and the Path is built
+ * only once, for the destination.
+ *
+ * Given a Heuristic, the engine runs an A* search instead: the frontier
+ * is ordered by the cost to a node plus the heuristic's estimate of the
+ * cost from it to the destination, so the search settles nodes toward the
+ * destination first and stops after settling far fewer of them.
+ *
+ * Without a heuristic, the engine returns exactly the path that
+ * ShortestPathFinder returns for the same WeightedGraph, even when
+ * several paths share the lowest cost: a node keeps the first way to it
+ * that reached its lowest cost, and the heap settles nodes of equal cost
+ * in the order their costs were set, which is the order ShortestPathFinder
+ * queued the same paths in. With a heuristic, nodes are settled in a
+ * different order, so a tie may resolve to a different path of the same
+ * cost.
+ *
+ * The arrays are allocated once, when the engine is created, and only
+ * the entries a search touched are reset before the next one, so a
+ * query that settles a small part of a large graph costs time in
+ * proportion to that part. An engine is not safe to use from several
+ * threads at once; create one per thread.
+ *
+ * @param <N> The type of nodes in the graph.
+ */
+public final class DijkstraEngine<N> {
+
+    // ABSTRACTION FUNCTION:
+    //      AF(r) = a shortest-path search over graph, in which, for each
+    //      node id i reached by the current search, costs[i] is the cost of
+    //      the cheapest path found from the start to i, and that path is
+    //      the cheapest path found to parents[i] followed by an edge of
+    //      cost parentCosts[i] (parents[i] == -1 for the start), and
+    //      estimates[i] is the heuristic's estimate of the cost from i to
+    //      the destination.
+    //      settledCount = the number of nodes the last search settled.
+
+    // REPRESENTATION INVARIANT:
+    //      graph, costs, parents, parentCosts, estimates, settled,
+    //      frontier, touched != null.
+    //      costs, parents, parentCosts, estimates and settled have length
+    //      graph.nodeCount().
+    //      costs[i] == Double.POSITIVE_INFINITY, parents[i] == -1 and
+    //      !settled[i] for every id i not in touched[0..touchedCount-1].
+
+
+    // Debug flag; change to TRUE to enable checkReps.
+    private static final boolean DEBUG = false;
+
+    private final WeightedGraph<N> graph;
+    private final double[] costs;
+    private final int[] parents;
+    private final double[] parentCosts;
+    private final double[] estimates;
+    private final boolean[] settled;
+    private final IndexedMinHeap frontier;
+
+    // Ids whose entries the current search has changed.
+    private int[] touched;
+    private int touchedCount;
+    private int settledCount;
+
+    // The heuristic and destination of the current search.
+    private Heuristic<? super N> heuristic;
+    private N target;
+
+    // The node whose edges are being relaxed, and the visitor that
+    // relaxes them.
+    private int current;
+    private final WeightedEdgeVisitor relax = this::relax;
+
+    /**
+     * Creates a new engine for a graph.
+     *
+     * @param graph The graph to search. It must not change while the
+     *              engine is in use.
+     * @throws NullPointerException if graph == null
+     * @spec.effects Constructs a new DijkstraEngine.
+     */
+    public DijkstraEngine(WeightedGraph<N> graph) {
+        int n = graph.nodeCount();
+        this.graph = graph;
+        this.costs = new double[n];
+        this.parents = new int[n];
+        this.parentCosts = new double[n];
+        this.estimates = new double[n];
+        this.settled = new boolean[n];
+        this.frontier = new IndexedMinHeap(n);
+        this.touched = new int[16];
+        Arrays.fill(costs, Double.POSITIVE_INFINITY);
+        Arrays.fill(parents, -1);
+        checkRep();
+    }
+
+    /**
+     * Finds the lowest-cost path between two nodes of the graph.
+     *
+     * @param start The starting node that the path begins at.
+     * @param dest  The destination node where the path ends.
+     * @spec.requires Graph contains non-negative edge weights.
+     * @throws IllegalArgumentException if start is not in the graph.
+     * @return A new Path corresponding to the lowest-cost path
+     * from the start to the destination that ShortestPathFinder
+     * returns. If no path exists, return null.
+     */
+    public Path<N> findShortestPath(N start, N dest) {
+        return findShortestPath(start, dest, null);
+    }
+
+    /**
+     * Finds the lowest-cost path between two nodes of the graph with an A*
+     * search guided by a heuristic.
+     *
+     * @param start     The starting node that the path begins at.
+     * @param dest      The destination node where the path ends.
+     * @param heuristic The heuristic estimating costs to dest, or null
+     *                  to search with Dijkstra's algorithm.
+     * @spec.requires Graph contains non-negative edge weights, and
+     * heuristic is consistent for the graph.
+     * @throws IllegalArgumentException if start is not in the graph.
+     * @return A new Path corresponding to the lowest-cost path
+     * from the start to the destination. If no path exists,
+     * return null.
+     */
+    public Path<N> findShortestPath(N start, N dest, Heuristic<? super N> heuristic) {
+        settledCount = 0;
+        if (start.equals(dest)) {
+            return new Path<>(start);
+        }
+
+        int startId = graph.indexOf(start);
+        int destId = graph.indexOf(dest);
+        if (startId < 0) {
+            throw new IllegalArgumentException("Start is not in the graph.");
+        }
+
+        reset();
+        this.heuristic = heuristic;
+        this.target = dest;
+        try {
+            reach(startId, 0.0, -1, 0.0);
+            while (!frontier.isEmpty()) {
+                int min = frontier.poll();
+                settled[min] = true;
+                settledCount++;
+                if (min == destId) {
+                    return buildPath(destId);
+                }
+
+                current = min;
+                graph.forEachEdge(min, relax);
+            }
+        } finally {
+            this.heuristic = null;
+            this.target = null;
+        }
+
+        // No path exists from start to dest.
+        return null;
+    }
+
+    /**
+     * Returns the number of nodes the last search settled, which is the
+     * number whose edges it read, counting the destination.
+     *
+     * @return the number of nodes settled by the last call to
+     * findShortestPath, or 0 if it returned without searching.
+     */
+    public int lastSettledCount() {
+        return settledCount;
+    }
+
+    // Lowers the cost of dest if the edge from current to it, of the
+    // given weight, leads to it more cheaply.
+    private void relax(int dest, double weight) {
+        if (!settled[dest]) {
+            double cost = costs[current] + weight;
+            if (cost < costs[dest]) {
+                reach(dest, cost, current, weight);
+            }
+        }
+    }
+
+    // Records that id can be reached at cost, by an edge of cost
+    // edgeCost from parent.
+    private void reach(int id, double cost, int parent, double edgeCost) {
+        if (costs[id] == Double.POSITIVE_INFINITY) {
+            if (touchedCount == touched.length) {
+                touched = Arrays.copyOf(touched, 2 * touched.length);
+            }
+            touched[touchedCount++] = id;
+            estimates[id] = heuristic == null ? 0.0
+                    : heuristic.estimate(graph.getNode(id), target);
+        }
+        costs[id] = cost;
+        parents[id] = parent;
+        parentCosts[id] = edgeCost;
+        frontier.offer(id, cost + estimates[id]);
+    }
+
+    // Returns the path recorded from the start to destId.
+    private Path<N> buildPath(int destId) {
+        int length = 0;
+        for (int id = destId; parents[id] >= 0; id = parents[id]) {
+            length++;
+        }
+
+        int[] ids = new int[length + 1];
+        for (int id = destId, k = length; k >= 0; id = parents[id], k--) {
+            ids[k] = id;
+        }
+
+        PathLink<N> path = new PathLink<>(graph.getNode(ids[0]));
+        for (int k = 1; k <= length; k++) {
+            path = path.extend(graph.getNode(ids[k]), parentCosts[ids[k]]);
+        }
+        return path.toPath();
+    }
+
+    // Clears the entries changed by the last search.
+    private void reset() {
+        for (int k = 0; k < touchedCount; k++) {
+            int id = touched[k];
+            costs[id] = Double.POSITIVE_INFINITY;
+            parents[id] = -1;
+            settled[id] = false;
+        }
+        touchedCount = 0;
+        settledCount = 0;
+        frontier.clear();
+        checkRep();
+    }
+
+    // Checks if the rep invariant holds. Throws exception if the
+    // rep invariant is violated.
+    private void checkRep() {
+        if (DEBUG) {
+            int n = graph.nodeCount();
+            assert costs.length == n && parents.length == n;
+            assert parentCosts.length == n && estimates.length == n;
+            assert settled.length == n;
+            BitSet inTouched = new BitSet(n);
+            for (int k = 0; k < touchedCount; k++) {
+                inTouched.set(touched[k]);
+            }
+            for (int i = 0; i < n; i++) {
+                if (!inTouched.get(i)) {
+                    assert costs[i] == Double.POSITIVE_INFINITY;
+                    assert parents[i] == -1 && !settled[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package pathfinder;
+
+import graph.WeightedGraph;
+import pathfinder.datastructures.Point;
+
+/**
+ * <b>Heuristic</b> estimates the cost of the lowest-cost path from a node to
+ * a destination, to guide an A* search with DijkstraEngine. A search with a
+ * heuristic still finds lowest-cost paths if the heuristic is consistent:
+ * it never estimates more than the cost of an edge plus the estimate from
+ * the edge's destination, and estimates 0 from the destination itself.
+ * Every consistent heuristic is admissible, never overestimating a path.
+ *
+ * The better a heuristic estimates costs, the fewer nodes a search settles
+ * before it reaches the destination. The heuristic that estimates 0
+ * everywhere gives Dijkstra's algorithm.
+ *
+ * @param <N> The type of nodes whose paths are estimated.
+ */
+@FunctionalInterface
+public interface Heuristic<N> {
+
+    /**
+     * Estimates the cost of the lowest-cost path from a node to a
+     * destination.
+     *
+     * @param node The node the path starts at.
+     * @param dest The destination the path ends at.
+     * @return a non-negative estimate of the cost from node to dest.
+     */
+    double estimate(N node, N dest);
+
+    /**
+     * Returns the heuristic that estimates 0 for every path.
+     *
+     * @param <N> The type of nodes whose paths are estimated.
+     * @return the heuristic that makes A* search Dijkstra's algorithm.
+     */
+    static <N> Heuristic<N> zero() {
+        return (node, dest) -> 0.0;
+    }
+
+    /**
+     * Returns the heuristic that estimates the cost between two Points as
+     * their straight-line distance times a scale. It is consistent for a
+     * graph whose every edge costs at least scale times the distance
+     * between its ends, such as one whose edge costs are the lengths of
+     * the paths they follow, in the same units as the coordinates, with a
+     * scale of 1.
+     *
+     * @param scale The least cost of an edge per unit of distance.
+     * @throws IllegalArgumentException if scale is negative, infinite or
+     * NaN.
+     * @return a straight-line heuristic with the given scale.
+     */
+    static Heuristic<Point> straightLine(double scale) {
+        if (!(scale >= 0.0) || Double.isInfinite(scale)) {
+            throw new IllegalArgumentException("Scale must be finite and non-negative.");
+        }
+        return (node, dest) -> scale * Math.hypot(node.getX() - dest.getX(),
+                node.getY() - dest.getY());
+    }
+
+    /**
+     * Returns the largest scale for which straightLine is consistent for a
+     * graph: the least ratio of an edge's cost to the distance between its
+     * ends, over every edge whose ends differ. The ratio is lowered by a
+     * billionth, so that rounding in the estimates cannot make them
+     * inconsistent.
+     *
+     * @param graph The graph to find the scale of.
+     * @return the largest consistent scale, or 0 if graph has no edges
+     * between different Points.
+     */
+    static double straightLineScale(WeightedGraph<Point> graph) {
+        double[] least = {Double.POSITIVE_INFINITY};
+        for (int i = 0; i < graph.nodeCount(); i++) {
+            Point source = graph.getNode(i);
+            graph.forEachEdge(i, (dest, weight) -> {
+                Point end = graph.getNode(dest);
+                double distance = Math.hypot(source.getX() - end.getX(),
+                        source.getY() - end.getY());
+                if (distance > 0.0) {
+                    least[0] = Math.min(least[0], weight / distance);
+                }
+            });
+        }
+        return least[0] == Double.POSITIVE_INFINITY ? 0.0 : least[0] * (1.0 - 1e-9);
+    }
+}
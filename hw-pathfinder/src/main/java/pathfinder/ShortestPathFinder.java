@@ -1,8 +1,11 @@
 package pathfinder;
 
-import graph.DirectLGraph;
-import graph.Edge;
+import graph.LGraphView;
+import graph.NodeIndex;
+import graph.WeightedEdgeVisitor;
+import graph.WeightedGraph;
 import pathfinder.datastructures.Path;
+import pathfinder.datastructures.PathLink;
 
 import java.util.*;
 
@@ -10,6 +13,9 @@ import java.util.*;
  * <b>ShortestPathFinder</b> finds the lowest-cost path in
  * a directed labeled multigraph.
  *
+ * When several paths share the lowest cost, the one queued
+ * first wins, so the same path is returned on every run.
+ *
  */
 public class ShortestPathFinder {
 
@@ -21,7 +27,8 @@ public class ShortestPathFinder {
      * algorithm retrieves the path with the lowest cost
      * as determined by the sum of the numerical edge weights.
      *
-     * @param graph The DirectLGraph to find the path from.
+     * @param graph The graph to find the path from, such as a
+     *              DirectLGraph or a ConcurrentDirectLGraph.
      * @param start The starting node that the path begins at.
      * @param dest  The destination node where the path ends.
      * @param <N>   The type of nodes in the graph.
@@ -31,54 +38,224 @@ public class ShortestPathFinder {
      * return null.
      */
     public static <N> Path<N> findShortestPath
-                            (DirectLGraph<N, Double> graph, N start, N dest) {
+                            (LGraphView<N, Double> graph, N start, N dest) {
 
         // A path's “priority" in the queue is the total cost of that path.
-        Comparator<Path<N>> comparePathCost = Comparator.comparing(Path::getCost);
-        PriorityQueue<Path<N>> active = new PriorityQueue<>(comparePathCost);
+        // Paths are kept as PathLinks, which share the path they extend,
+        // so that queueing a path does not copy its segments.
+        PriorityQueue<Frontier<N>> active = new PriorityQueue<>(Frontier.byCost());
+        long[] added = {0};
+
+        // Nodes are given ids as the search reaches them, so that each node
+        // is hashed once per relaxation and finished is a BitSet of ids.
+        NodeIndex<N> reached = new NodeIndex<>();
 
-        // Set of nodes for which we know the min-cost path from start
-        Set<N> finished = new HashSet<>();
+        // Set of ids of nodes for which we know the min-cost path from start
+        BitSet finished = new BitSet();
 
         //Add a path from start to itself to active
-        active.add(new Path<>(start));
+        active.add(new Frontier<>(new PathLink<>(start), reached.intern(start),
+                added[0]++));
 
         while (!active.isEmpty()) {
             // minPath is the lowest-cost path in active and,
             // if minDest isn't already 'finished,' is the
             // minimum-cost path to the node minDest
-            Path<N> minPath = active.poll();
+            Frontier<N> min = active.poll();
+            PathLink<N> minPath = min.path;
             N minDest = minPath.getEnd();
 
             if (minDest.equals(dest)) {
-                return minPath;
+                return minPath.toPath();
             }
 
-            if (finished.contains(minDest)) {
+            if (finished.get(min.node)) {
                 continue;
             }
 
-            // For all children of minDest:
-            Set<Edge<N, Double>> childrenEdges = graph.getEdges(minDest);
-            for (Edge<N, Double> edge : childrenEdges) {
+            // add minDest to finished
+            finished.set(min.node);
+
+            // For all children of minDest (read in place, since the
+            // search does not modify the graph):
+            graph.forEachEdge(minDest, (childNode, cost) -> {
+                int child = reached.intern(childNode);
 
                 // If we don't know the minimum-cost path from start to child,
                 // examine the path we've just found
-                if (!finished.contains(edge.getDest())) {
+                if (!finished.get(child)) {
 
                     // newPath = minPath + e
-                    Path<N> newPath = minPath.extend(edge.getDest(), edge.getLabel());
+                    PathLink<N> newPath = minPath.extend(childNode, cost);
 
                     // add newPath to active
-                    active.add(newPath);
+                    active.add(new Frontier<>(newPath, child, added[0]++));
                 }
+            });
+        }
+
+        // No path exists from start to dest.
+        return null;
+    }
 
-                // add minDest to finished
-                finished.add(minDest);
+    /**
+     * Finds the lowest-cost path using Dijkstra's algorithm between
+     * two nodes of a WeightedGraph, such as an immutable CsrGraph
+     * snapshot. Nodes are tracked by their integer ids and edges are
+     * read as primitive weights, so the search does no hashing, edge set
+     * copying or unboxing once the start node has been looked up.
+     *
+     * @param graph The WeightedGraph to find the path from.
+     * @param start The starting node that the path begins at.
+     * @param dest  The destination node where the path ends.
+     * @param <N>   The type of nodes in the graph.
+     * @spec.requires Graph contains non-negative edge weights.
+     * @throws IllegalArgumentException if start is not in the graph.
+     * @return A new Path corresponding to the lowest-cost path
+     * from the start to the destination. If no path exists,
+     * return null.
+     */
+    public static <N> Path<N> findShortestPath
+                            (WeightedGraph<N> graph, N start, N dest) {
+        if (start.equals(dest)) {
+            return new Path<>(start);
+        }
+
+        int startId = graph.indexOf(start);
+        int destId = graph.indexOf(dest);
+        if (startId < 0) {
+            throw new IllegalArgumentException("Start is not in the graph.");
+        }
+
+        WeightedSearch<N> search = new WeightedSearch<>(graph);
+        search.active.add(new Frontier<>(new PathLink<>(start), startId,
+                search.added++));
+
+        while (!search.active.isEmpty()) {
+            Frontier<N> min = search.active.poll();
+
+            if (min.node == destId) {
+                return min.path.toPath();
+            }
+
+            if (search.finished[min.node]) {
+                continue;
             }
+
+            // Queue min.path extended by each edge to an unfinished child.
+            search.current = min.path;
+            graph.forEachEdge(min.node, search);
+            search.finished[min.node] = true;
         }
 
         // No path exists from start to dest.
         return null;
     }
+
+    /**
+     * Finds the cost of the lowest-cost path from one node of a
+     * WeightedGraph to every node, using Dijkstra's algorithm without
+     * building the paths themselves.
+     *
+     * @param graph   The WeightedGraph to search.
+     * @param startId The id of the node the paths begin at.
+     * @param <N>     The type of nodes in the graph.
+     * @spec.requires Graph contains non-negative edge weights.
+     * @throws IndexOutOfBoundsException if startId is not a node id of
+     * the graph.
+     * @return a new array whose element i is the cost of the lowest-cost
+     * path from the start to node i, or Double.POSITIVE_INFINITY if node i
+     * cannot be reached.
+     */
+    public static <N> double[] findDistances(WeightedGraph<N> graph, int startId) {
+        double[] distances = new double[graph.nodeCount()];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        boolean[] finished = new boolean[graph.nodeCount()];
+        PriorityQueue<Reached> active = new PriorityQueue<>(
+                Comparator.comparingDouble(reached -> reached.cost));
+
+        distances[startId] = 0.0;
+        active.add(new Reached(startId, 0.0));
+        while (!active.isEmpty()) {
+            Reached min = active.poll();
+            if (finished[min.node]) {
+                continue;
+            }
+            finished[min.node] = true;
+
+            graph.forEachEdge(min.node, (dest, weight) -> {
+                double cost = min.cost + weight;
+                if (cost < distances[dest]) {
+                    distances[dest] = cost;
+                    active.add(new Reached(dest, cost));
+                }
+            });
+        }
+        return distances;
+    }
+
+    // A node id in the active queue of findDistances, with the cost of
+    // the path that reached it.
+    private static final class Reached {
+        private final int node;
+        private final double cost;
+
+        private Reached(int node, double cost) {
+            this.node = node;
+            this.cost = cost;
+        }
+    }
+
+    // A path in the active queue, paired with the id of its last node
+    // and the number of paths added to the queue before it.
+    private static final class Frontier<N> {
+        private final PathLink<N> path;
+        private final int node;
+        private final long order;
+
+        private Frontier(PathLink<N> path, int node, long order) {
+            this.path = path;
+            this.node = node;
+            this.order = order;
+        }
+
+        // Orders frontiers by the cost of their paths, and paths of equal
+        // cost by when they were added, so that ties are broken the same
+        // way on every run and the same way DijkstraEngine breaks them.
+        private static <N> Comparator<Frontier<N>> byCost() {
+            return Comparator.<Frontier<N>>comparingDouble(
+                    frontier -> frontier.path.getCost())
+                    .thenComparingLong(frontier -> frontier.order);
+        }
+    }
+
+    // The state of one search over a WeightedGraph. It visits the edges
+    // of the node at the end of current, so a single instance serves
+    // every expansion without allocating a visitor per node.
+    private static final class WeightedSearch<N> implements WeightedEdgeVisitor {
+        private final WeightedGraph<N> graph;
+
+        // A path's "priority" in the queue is the total cost of that path.
+        private final PriorityQueue<Frontier<N>> active = new PriorityQueue<>(
+                Frontier.byCost());
+        private long added;
+
+        // Nodes for which we know the min-cost path from start
+        private final boolean[] finished;
+
+        private PathLink<N> current;
+
+        private WeightedSearch(WeightedGraph<N> graph) {
+            this.graph = graph;
+            this.finished = new boolean[graph.nodeCount()];
+        }
+
+        @Override
+        public void visit(int dest, double weight) {
+            if (!finished[dest]) {
+                active.add(new Frontier<>(current.extend(graph.getNode(dest), weight),
+                        dest, added++));
+            }
+        }
+    }
 }
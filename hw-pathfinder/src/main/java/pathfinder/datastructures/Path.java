@@ -92,6 +92,19 @@ public class Path<N> implements Iterable<Path<N>.Segment> {
         return extendedPath;
     }
 
+    /**
+     * Appends a new single segment to the end of this path in place, without copying the
+     * existing segments. This is only for building a new path that has not yet been shared,
+     * such as in PathLink#toPath().
+     *
+     * @param newEnd      The point being added at the end of the segment being appended to this path
+     * @param segmentCost The cost of the segment being added to the end of this path.
+     */
+    void appendInPlace(N newEnd, double segmentCost) {
+        path.add(new Segment(this.getEnd(), newEnd, segmentCost));
+        cost = cost + segmentCost;
+    }
+
     /**
      * @return The total cost along this path.
      */
@@ -0,0 +1,149 @@
+package pathfinder.datastructures;
+
+/**
+ * This represents an immutable path as a linked list of its steps, in which each path holds
+ * its last point and the path it extends. Extending a PathLink takes constant time and space,
+ * and every path extended from the same PathLink shares it, so a search can keep one PathLink
+ * per path it reaches without copying any segments. Only the path the search returns needs to
+ * be turned into a Path, with PathLink#toPath().
+ *
+ * @param <N> The type of nodes in the path.
+ */
+public final class PathLink<N> {
+
+    // AF(this) =
+    //      the path from start to itself => previous == null
+    //      the path previous, extended by a segment to end of cost segmentCost => otherwise
+    //      total cost along the path => cost
+    //      number of segments in the path => length
+
+    // Rep Invariant:
+    //      start != null &&
+    //      end != null &&
+    //      (previous == null) == (length == 0) &&
+    //      if previous == null, end == start and cost == 0 &&
+    //      if previous != null, previous.start == start, length == previous.length + 1 and
+    //          cost == previous.cost + segmentCost
+
+    /**
+     * The point at the beginning of this path.
+     */
+    private final N start;
+
+    /**
+     * The point at the end of this path.
+     */
+    private final N end;
+
+    /**
+     * The cost of the last segment of this path.
+     */
+    private final double segmentCost;
+
+    /**
+     * The total cost along all the segments in this path.
+     */
+    private final double cost;
+
+    /**
+     * The number of segments in this path.
+     */
+    private final int length;
+
+    /**
+     * This path without its last segment, or null if it has no segments.
+     */
+    private final PathLink<N> previous;
+
+    /**
+     * Creates a new, empty path containing a start point.
+     *
+     * @param start The starting point of the path.
+     * @throws NullPointerException if start is null.
+     */
+    public PathLink(N start) {
+        this(start, start, 0, 0, 0, null);
+    }
+
+    private PathLink(N start, N end, double segmentCost, double cost, int length,
+                     PathLink<N> previous) {
+        if(end == null) {
+            throw new NullPointerException("Paths cannot have null points.");
+        }
+        this.start = start;
+        this.end = end;
+        this.segmentCost = segmentCost;
+        this.cost = cost;
+        this.length = length;
+        this.previous = previous;
+    }
+
+    /**
+     * Returns this path extended by a segment to {@code newEnd} of cost {@code segmentCost}.
+     * This path is shared by the result, not copied.
+     *
+     * @param newEnd      The point at the end of the new segment.
+     * @param segmentCost The cost of the new segment.
+     * @return A new path representing this path with the given segment appended to the end.
+     * @throws NullPointerException if newEnd is null.
+     */
+    public PathLink<N> extend(N newEnd, double segmentCost) {
+        return new PathLink<>(start, newEnd, segmentCost, cost + segmentCost, length + 1, this);
+    }
+
+    /**
+     * @return The point at the beginning of this path.
+     */
+    public N getStart() {
+        return start;
+    }
+
+    /**
+     * @return The point at the end of this path, which is the start point if this path contains
+     * no segments.
+     */
+    public N getEnd() {
+        return end;
+    }
+
+    /**
+     * @return The total cost along this path, added up in the same order as by Path#extend.
+     */
+    public double getCost() {
+        return cost;
+    }
+
+    /**
+     * @return The number of segments in this path.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns the Path with the same segments as this path, in time proportional to its length.
+     *
+     * @return A new Path equal to the one built by extending a Path from the start point by each
+     * segment of this path in turn.
+     */
+    public Path<N> toPath() {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        PathLink<N>[] links = (PathLink<N>[]) new PathLink[length];
+        PathLink<N> link = this;
+        for(int i = length - 1; i >= 0; i--) {
+            links[i] = link;
+            link = link.previous;
+        }
+
+        Path<N> path = new Path<>(start);
+        for(PathLink<N> step : links) {
+            path.appendInPlace(step.end, step.segmentCost);
+        }
+        return path;
+    }
+
+    @Override
+    public String toString() {
+        return toPath().toString();
+    }
+}
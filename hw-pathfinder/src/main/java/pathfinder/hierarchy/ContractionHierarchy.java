@@ -0,0 +1,259 @@
+package pathfinder.hierarchy;
+
+import graph.LGraphView;
+import graph.NodeIndex;
+import graph.WeightedGraph;
+
+import java.util.*;
+
+/**
+ * <b>ContractionHierarchy</b> is an immutable index of a weighted graph
+ * that answers lowest-cost path queries after settling only a few
+ * hundred nodes, however large the graph is.
+ *
+ * Building it ranks the nodes by importance and contracts them in that
+ * order, adding shortcut arcs that keep the costs between the remaining
+ * nodes unchanged (see Contractor). Every lowest-cost path then has the
+ * same cost as a path that climbs to higher-ranked nodes over upward arcs
+ * and then descends over downward arcs, so a query searches upward from
+ * both ends with a HierarchyQuery and meets at the top. A shortcut stands
+ * for two arcs through the node whose contraction added it, so each arc
+ * of the result is unpacked into the edges of the graph it stands for.
+ *
+ * Building takes much longer than a single search, so a hierarchy pays
+ * off for graphs that answer many queries and do not change. Like a
+ * CsrGraph, a hierarchy is safe to share between threads; each thread
+ * queries it with its own HierarchyQuery.
+ *
+ * @param <N> The type of nodes in the graph.
+ */
+public final class ContractionHierarchy<N> {
+
+    // ABSTRACTION FUNCTION:
+    //      AF(r) = the hierarchy of the graph with nodes index.get(i), in
+    //      which arc a goes from node arcSources[a] to node arcDests[a]
+    //      with cost arcCosts[a], and is an edge of the graph if
+    //      arcMiddles[a] == -1 or else a shortcut through node
+    //      arcMiddles[a].
+    //      The upward arcs out of node v are the arcs in
+    //      [upOffsets[v]..upOffsets[v + 1] - 1], and the downward arcs into
+    //      node v are the arcs in [downOffsets[v]..downOffsets[v + 1] - 1].
+
+    // REPRESENTATION INVARIANT:
+    //      index and every array != null.
+    //      upOffsets.length == downOffsets.length == index.size() + 1, and
+    //      both are non-decreasing, with upOffsets[0] == 0,
+    //      upOffsets[index.size()] == downOffsets[0], and
+    //      downOffsets[index.size()] == the length of each arc array.
+    //      ranks[arcSources[a]] < ranks[arcDests[a]] for each upward arc a,
+    //      and ranks[arcSources[a]] > ranks[arcDests[a]] for each downward
+    //      arc a.
+    //      For a shortcut a through m, m has a lower rank than both ends of
+    //      a, and there is a downward arc from arcSources[a] into m and an
+    //      upward arc from m to arcDests[a] whose costs add up to
+    //      arcCosts[a].
+
+
+    // Debug flag; change to TRUE to enable checkReps.
+    private static final boolean DEBUG = false;
+
+    // Fields are read by HierarchyQuery.
+    final NodeIndex<N> index;
+    final int[] ranks;
+    final int[] upOffsets;
+    final int[] downOffsets;
+    final int[] arcSources;
+    final int[] arcDests;
+    final double[] arcCosts;
+    final int[] arcMiddles;
+
+    private ContractionHierarchy(NodeIndex<N> index, Contractor contractor) {
+        int n = index.size();
+        this.index = index;
+        this.ranks = contractor.ranks();
+        this.upOffsets = new int[n + 1];
+        this.downOffsets = new int[n + 1];
+
+        int arcCount = 0;
+        for (int v = 0; v < n; v++) {
+            arcCount += contractor.upArcs(v).size() + contractor.downArcs(v).size();
+        }
+        this.arcSources = new int[arcCount];
+        this.arcDests = new int[arcCount];
+        this.arcCosts = new double[arcCount];
+        this.arcMiddles = new int[arcCount];
+
+        int next = 0;
+        for (int v = 0; v < n; v++) {
+            upOffsets[v] = next;
+            for (Contractor.Arc arc : contractor.upArcs(v)) {
+                store(next++, arc);
+            }
+        }
+        upOffsets[n] = next;
+        for (int v = 0; v < n; v++) {
+            downOffsets[v] = next;
+            for (Contractor.Arc arc : contractor.downArcs(v)) {
+                store(next++, arc);
+            }
+        }
+        downOffsets[n] = next;
+        checkRep();
+    }
+
+    /**
+     * Builds the contraction hierarchy of a labeled graph whose labels are
+     * edge costs, such as a DirectLGraph.
+     *
+     * @param graph The graph to build the hierarchy of.
+     * @param <N>   The type of nodes in the graph.
+     * @spec.requires Graph contains non-negative edge weights.
+     * @throws NullPointerException if graph == null
+     * @return a new hierarchy of graph.
+     */
+    public static <N> ContractionHierarchy<N> build(LGraphView<N, Double> graph) {
+        NodeIndex<N> index = NodeIndex.of(graph.getNodesView());
+        Contractor contractor = new Contractor(index.size());
+        for (int i = 0; i < index.size(); i++) {
+            int source = i;
+            graph.forEachEdge(index.get(i), (dest, cost) ->
+                    contractor.addEdge(source, index.indexOf(dest), cost));
+        }
+        contractor.contractAll();
+        return new ContractionHierarchy<>(index, contractor);
+    }
+
+    /**
+     * Builds the contraction hierarchy of a weighted graph, such as a
+     * CsrGraph snapshot. The hierarchy gives nodes the same ids as graph.
+     *
+     * @param graph The graph to build the hierarchy of.
+     * @param <N>   The type of nodes in the graph.
+     * @spec.requires Graph contains non-negative edge weights.
+     * @throws NullPointerException if graph == null
+     * @return a new hierarchy of graph.
+     */
+    public static <N> ContractionHierarchy<N> build(WeightedGraph<N> graph) {
+        NodeIndex<N> index = new NodeIndex<>(graph.nodeCount());
+        Contractor contractor = new Contractor(graph.nodeCount());
+        for (int i = 0; i < graph.nodeCount(); i++) {
+            index.intern(graph.getNode(i));
+            int source = i;
+            graph.forEachEdge(i, (dest, cost) -> contractor.addEdge(source, dest, cost));
+        }
+        contractor.contractAll();
+        return new ContractionHierarchy<>(index, contractor);
+    }
+
+    /**
+     * Returns the number of nodes in the hierarchy.
+     *
+     * @return the number of nodes of the graph it was built from.
+     */
+    public int nodeCount() {
+        return index.size();
+    }
+
+    /**
+     * Returns the number of arcs in the hierarchy, counting both edges of
+     * the graph and shortcuts.
+     *
+     * @return the number of arcs.
+     */
+    public int arcCount() {
+        return arcSources.length;
+    }
+
+    /**
+     * Returns the number of shortcut arcs that building the hierarchy
+     * added.
+     *
+     * @return the number of shortcuts.
+     */
+    public int shortcutCount() {
+        int count = 0;
+        for (int middle : arcMiddles) {
+            if (middle >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns a new query over this hierarchy. A query keeps arrays with
+     * an entry per node, which it reuses from one search to the next, so
+     * a thread that answers many queries should keep its own.
+     *
+     * @return a new HierarchyQuery over this hierarchy.
+     */
+    public HierarchyQuery<N> newQuery() {
+        return new HierarchyQuery<>(this);
+    }
+
+    private void store(int a, Contractor.Arc arc) {
+        arcSources[a] = arc.source;
+        arcDests[a] = arc.dest;
+        arcCosts[a] = arc.cost;
+        arcMiddles[a] = arc.middle;
+    }
+
+    /**
+     * Returns the id of the upward arc from m to dest.
+     *
+     * @param m    The lower end of the arc.
+     * @param dest The upper end of the arc.
+     * @spec.requires the arc exists.
+     * @return the arc's id.
+     */
+    int upArc(int m, int dest) {
+        int a = upOffsets[m];
+        while (arcDests[a] != dest) {
+            a++;
+        }
+        return a;
+    }
+
+    /**
+     * Returns the id of the downward arc from source to m.
+     *
+     * @param source The upper end of the arc.
+     * @param m      The lower end of the arc.
+     * @spec.requires the arc exists.
+     * @return the arc's id.
+     */
+    int downArc(int source, int m) {
+        int a = downOffsets[m];
+        while (arcSources[a] != source) {
+            a++;
+        }
+        return a;
+    }
+
+    // Checks if the rep invariant holds. Throws exception if the
+    // rep invariant is violated.
+    private void checkRep() {
+        if (DEBUG) {
+            int n = index.size();
+            assert upOffsets.length == n + 1 && downOffsets.length == n + 1;
+            assert upOffsets[0] == 0 && upOffsets[n] == downOffsets[0];
+            assert downOffsets[n] == arcSources.length;
+            for (int v = 0; v < n; v++) {
+                for (int a = upOffsets[v]; a < upOffsets[v + 1]; a++) {
+                    assert arcSources[a] == v && ranks[v] < ranks[arcDests[a]];
+                }
+                for (int a = downOffsets[v]; a < downOffsets[v + 1]; a++) {
+                    assert arcDests[a] == v && ranks[arcSources[a]] > ranks[v];
+                }
+            }
+            for (int a = 0; a < arcSources.length; a++) {
+                int m = arcMiddles[a];
+                if (m >= 0) {
+                    assert ranks[m] < ranks[arcSources[a]] && ranks[m] < ranks[arcDests[a]];
+                    assert arcCosts[downArc(arcSources[a], m)] +
+                            arcCosts[upArc(m, arcDests[a])] == arcCosts[a];
+                }
+            }
+        }
+    }
+}
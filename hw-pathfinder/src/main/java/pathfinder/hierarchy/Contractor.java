@@ -0,0 +1,306 @@
+package pathfinder.hierarchy;
+
+import graph.IndexedMinHeap;
+
+import java.util.*;
+
+/**
+ * <b>Contractor</b> builds the arcs of a contraction hierarchy from a
+ * graph whose nodes are the ids 0 to n - 1. It contracts the nodes one at
+ * a time, least important first: contracting a node removes it from the
+ * graph, and adds a shortcut arc from u to w for each pair of remaining
+ * neighbors u and w whose only lowest-cost path, among the remaining
+ * nodes, went through it. The order of contraction is the nodes' rank.
+ *
+ * A node's importance is its edge difference, the number of shortcuts
+ * contracting it would add less the number of arcs it would remove, plus
+ * the number of its neighbors already contracted, which spreads the
+ * contractions evenly over the graph. Importances change as neighbors
+ * are contracted, so a node's importance is brought up to date when it
+ * reaches the front of the queue, and it is put back if it is no longer
+ * the least important.
+ *
+ * Whether a shortcut is needed is decided by a witness search: a bounded
+ * Dijkstra search from u that avoids the node being contracted. It gives
+ * up after settling WITNESS_LIMIT nodes, which may add a shortcut that is
+ * not needed, but never leaves out one that is.
+ */
+final class Contractor {
+
+    // ABSTRACTION FUNCTION:
+    //      AF(r) = the graph of the uncontracted nodes i (!contracted[i]),
+    //      with the arcs out.get(i).values() out of node i and
+    //      in.get(i).values() into it, together with the arcs recorded in
+    //      up and down for the contracted nodes, in order of contraction.
+
+    // REPRESENTATION INVARIANT:
+    //      out.get(u).get(w) == in.get(w).get(u) for every arc, and every
+    //      arc in out and in joins two uncontracted nodes.
+    //      up.get(v) and down.get(v) are empty unless contracted[v].
+
+
+    // Debug flag; change to TRUE to enable checkReps.
+    private static final boolean DEBUG = false;
+
+    // Most nodes a witness search settles before it gives up.
+    private static final int WITNESS_LIMIT = 200;
+
+    private final int nodeCount;
+    private final List<Map<Integer, Arc>> out;
+    private final List<Map<Integer, Arc>> in;
+    private final boolean[] contracted;
+    private final int[] contractedNeighbors;
+    private final int[] ranks;
+
+    // The arcs of each contracted node to nodes contracted after it:
+    // up.get(v) holds the arcs out of v, and down.get(v) the arcs into v.
+    private final List<List<Arc>> up;
+    private final List<List<Arc>> down;
+
+    // State of the witness search, reset after each search.
+    private final double[] witnessCosts;
+    private final IndexedMinHeap witnessFrontier;
+    private final List<Integer> witnessTouched = new ArrayList<>();
+
+    /**
+     * An arc of the hierarchy: an edge of the graph, or a shortcut that
+     * stands for the arc from its source to its middle node followed by
+     * the arc from the middle node to its destination.
+     */
+    static final class Arc {
+        final int source;
+        final int dest;
+        double cost;
+        int middle;
+
+        Arc(int source, int dest, double cost, int middle) {
+            this.source = source;
+            this.dest = dest;
+            this.cost = cost;
+            this.middle = middle;
+        }
+    }
+
+    /**
+     * Creates a new contractor for a graph of nodeCount nodes with no
+     * edges.
+     *
+     * @param nodeCount The number of nodes in the graph.
+     * @spec.effects Constructs a new Contractor.
+     */
+    Contractor(int nodeCount) {
+        this.nodeCount = nodeCount;
+        this.out = new ArrayList<>(nodeCount);
+        this.in = new ArrayList<>(nodeCount);
+        this.up = new ArrayList<>(nodeCount);
+        this.down = new ArrayList<>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            out.add(new HashMap<>());
+            in.add(new HashMap<>());
+            up.add(new ArrayList<>());
+            down.add(new ArrayList<>());
+        }
+        this.contracted = new boolean[nodeCount];
+        this.contractedNeighbors = new int[nodeCount];
+        this.ranks = new int[nodeCount];
+        this.witnessCosts = new double[nodeCount];
+        this.witnessFrontier = new IndexedMinHeap(nodeCount);
+        Arrays.fill(witnessCosts, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Adds an edge of the graph. Of several edges between the same nodes,
+     * only the cheapest is kept, and edges from a node to itself are
+     * dropped, since no lowest-cost path uses them.
+     *
+     * @param source The id of the edge's source.
+     * @param dest   The id of the edge's destination.
+     * @param cost   The cost of the edge.
+     * @spec.requires cost >= 0 and nothing has been contracted.
+     * @spec.effects Adds the edge.
+     */
+    void addEdge(int source, int dest, double cost) {
+        if (source != dest) {
+            addArc(source, dest, cost, -1);
+        }
+    }
+
+    /**
+     * Contracts every node.
+     *
+     * @spec.effects Contracts every node, recording its rank and arcs.
+     */
+    void contractAll() {
+        IndexedMinHeap queue = new IndexedMinHeap(nodeCount);
+        for (int v = 0; v < nodeCount; v++) {
+            queue.offer(v, importance(v));
+        }
+
+        int rank = 0;
+        while (!queue.isEmpty()) {
+            int v = queue.poll();
+            double importance = importance(v);
+            if (!queue.isEmpty() && importance > queue.key(queue.peek())) {
+                queue.offer(v, importance);
+                continue;
+            }
+            contract(v);
+            ranks[v] = rank++;
+        }
+        checkRep();
+    }
+
+    /**
+     * Returns the rank of each node, the order in which it was contracted.
+     *
+     * @return an array whose element i is the rank of node i.
+     */
+    int[] ranks() {
+        return ranks;
+    }
+
+    /**
+     * Returns the arcs out of a node to nodes of higher rank.
+     *
+     * @param v The node.
+     * @return the list of the upward arcs out of v.
+     */
+    List<Arc> upArcs(int v) {
+        return up.get(v);
+    }
+
+    /**
+     * Returns the arcs into a node from nodes of higher rank.
+     *
+     * @param v The node.
+     * @return the list of the downward arcs into v.
+     */
+    List<Arc> downArcs(int v) {
+        return down.get(v);
+    }
+
+    // Adds an arc, or lowers the cost of the arc already between source
+    // and dest if this one is cheaper.
+    private void addArc(int source, int dest, double cost, int middle) {
+        Arc arc = out.get(source).get(dest);
+        if (arc == null) {
+            arc = new Arc(source, dest, cost, middle);
+            out.get(source).put(dest, arc);
+            in.get(dest).put(source, arc);
+        } else if (cost < arc.cost) {
+            arc.cost = cost;
+            arc.middle = middle;
+        }
+    }
+
+    // Returns the edge difference of v plus its contracted neighbors.
+    private double importance(int v) {
+        int removed = out.get(v).size() + in.get(v).size();
+        return shortcutsFor(v).size() - removed + contractedNeighbors[v];
+    }
+
+    // Removes v from the graph, records its arcs and adds the shortcuts
+    // its removal needs.
+    private void contract(int v) {
+        List<Arc> shortcuts = shortcutsFor(v);
+
+        for (Arc arc : out.get(v).values()) {
+            in.get(arc.dest).remove(v);
+            contractedNeighbors[arc.dest]++;
+            up.get(v).add(arc);
+        }
+        for (Arc arc : in.get(v).values()) {
+            out.get(arc.source).remove(v);
+            contractedNeighbors[arc.source]++;
+            down.get(v).add(arc);
+        }
+        out.get(v).clear();
+        in.get(v).clear();
+        contracted[v] = true;
+
+        for (Arc shortcut : shortcuts) {
+            addArc(shortcut.source, shortcut.dest, shortcut.cost, v);
+        }
+    }
+
+    // Returns the shortcuts that contracting v needs, as new arcs that are
+    // not in the graph.
+    private List<Arc> shortcutsFor(int v) {
+        List<Arc> shortcuts = new ArrayList<>();
+        Collection<Arc> outArcs = out.get(v).values();
+        for (Arc first : in.get(v).values()) {
+            double limit = -1.0;
+            for (Arc second : outArcs) {
+                if (second.dest != first.source) {
+                    limit = Math.max(limit, first.cost + second.cost);
+                }
+            }
+            if (limit < 0.0) {
+                // Every arc out of v leads back to first.source.
+                continue;
+            }
+
+            witnessSearch(first.source, v, limit);
+            for (Arc second : outArcs) {
+                double cost = first.cost + second.cost;
+                if (second.dest != first.source && witnessCosts[second.dest] > cost) {
+                    shortcuts.add(new Arc(first.source, second.dest, cost, v));
+                }
+            }
+            clearWitnessSearch();
+        }
+        return shortcuts;
+    }
+
+    // Finds the costs of paths from source that avoid skipped, up to
+    // limit, settling at most WITNESS_LIMIT nodes.
+    private void witnessSearch(int source, int skipped, double limit) {
+        reachWitness(source, 0.0);
+        int settled = 0;
+        while (!witnessFrontier.isEmpty() && settled < WITNESS_LIMIT) {
+            int u = witnessFrontier.poll();
+            if (witnessCosts[u] > limit) {
+                break;
+            }
+            settled++;
+            for (Arc arc : out.get(u).values()) {
+                double cost = witnessCosts[u] + arc.cost;
+                if (arc.dest != skipped && cost < witnessCosts[arc.dest]) {
+                    reachWitness(arc.dest, cost);
+                }
+            }
+        }
+    }
+
+    private void reachWitness(int node, double cost) {
+        if (witnessCosts[node] == Double.POSITIVE_INFINITY) {
+            witnessTouched.add(node);
+        }
+        witnessCosts[node] = cost;
+        witnessFrontier.offer(node, cost);
+    }
+
+    private void clearWitnessSearch() {
+        for (int node : witnessTouched) {
+            witnessCosts[node] = Double.POSITIVE_INFINITY;
+        }
+        witnessTouched.clear();
+        witnessFrontier.clear();
+    }
+
+    // Checks if the rep invariant holds. Throws exception if the
+    // rep invariant is violated.
+    private void checkRep() {
+        if (DEBUG) {
+            for (int u = 0; u < nodeCount; u++) {
+                for (Arc arc : out.get(u).values()) {
+                    assert in.get(arc.dest).get(u) == arc;
+                    assert !contracted[u] && !contracted[arc.dest];
+                }
+                if (!contracted[u]) {
+                    assert up.get(u).isEmpty() && down.get(u).isEmpty();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package pathfinder.hierarchy;
+
+import graph.IndexedMinHeap;
+import pathfinder.datastructures.Path;
+import pathfinder.datastructures.PathLink;
+
+import java.util.*;
+
+/**
+ * <b>HierarchyQuery</b> finds lowest-cost paths with a ContractionHierarchy.
+ * A forward search from the start follows upward arcs and a backward
+ * search from the destination follows downward arcs in reverse, so both
+ * only ever climb to nodes of higher rank. Each node settled by both
+ * searches gives a path through it, and the cheapest is kept; a side
+ * stops once the cost of its next node is at least that path's cost. The
+ * arcs of the path found are then unpacked into the edges of the graph.
+ *
+ * A query keeps its search state in arrays with an entry per node and
+ * resets only the entries a search touched, so it should be reused for
+ * many searches. It is not safe to use from several threads at once.
+ *
+ * @param <N> The type of nodes in the graph.
+ */
+public final class HierarchyQuery<N> {
+
+    // ABSTRACTION FUNCTION:
+    //      AF(r) = a search over hierarchy, in which forward is the upward
+    //      search from the start and backward the upward search from the
+    //      destination over reversed downward arcs, and the cheapest path
+    //      found through both goes through node meeting and costs best
+    //      (meeting == -1 and best == infinity if none has been found).
+
+    // REPRESENTATION INVARIANT:
+    //      hierarchy, forward, backward != null.
+    //      forward follows upward arcs and backward follows downward arcs.
+
+
+    // Debug flag; change to TRUE to enable checkReps.
+    private static final boolean DEBUG = false;
+
+    private final ContractionHierarchy<N> hierarchy;
+    private final Side forward;
+    private final Side backward;
+
+    private double best;
+    private int meeting;
+    private int settledCount;
+
+    /**
+     * Creates a new query over a hierarchy.
+     *
+     * @param hierarchy The hierarchy to search.
+     * @spec.effects Constructs a new HierarchyQuery.
+     */
+    HierarchyQuery(ContractionHierarchy<N> hierarchy) {
+        this.hierarchy = hierarchy;
+        this.forward = new Side(hierarchy.upOffsets, true);
+        this.backward = new Side(hierarchy.downOffsets, false);
+        this.forward.other = backward;
+        this.backward.other = forward;
+        checkRep();
+    }
+
+    /**
+     * Finds the lowest-cost path between two nodes of the graph.
+     *
+     * @param start The starting node that the path begins at.
+     * @param dest  The destination node where the path ends.
+     * @throws IllegalArgumentException if start is not in the graph.
+     * @return A new Path corresponding to the lowest-cost path from the
+     * start to the destination, made of edges of the graph. If no path
+     * exists, return null.
+     */
+    public Path<N> findShortestPath(N start, N dest) {
+        settledCount = 0;
+        if (start.equals(dest)) {
+            return new Path<>(start);
+        }
+
+        int startId = hierarchy.index.indexOf(start);
+        int destId = hierarchy.index.indexOf(dest);
+        if (startId < 0) {
+            throw new IllegalArgumentException("Start is not in the graph.");
+        } else if (destId < 0) {
+            return null;
+        }
+
+        forward.reset();
+        backward.reset();
+        best = Double.POSITIVE_INFINITY;
+        meeting = -1;
+        forward.reach(startId, 0.0, -1);
+        backward.reach(destId, 0.0, -1);
+
+        while (true) {
+            boolean forwardOn = forward.nextCost() < best;
+            boolean backwardOn = backward.nextCost() < best;
+            if (!forwardOn && !backwardOn) {
+                break;
+            } else if (forwardOn && (!backwardOn || forward.nextCost() <= backward.nextCost())) {
+                forward.settleNext();
+            } else {
+                backward.settleNext();
+            }
+        }
+
+        return meeting < 0 ? null : buildPath(startId);
+    }
+
+    /**
+     * Returns the number of nodes the last search settled in both
+     * directions.
+     *
+     * @return the number of nodes settled by the last call to
+     * findShortestPath, or 0 if it returned without searching.
+     */
+    public int lastSettledCount() {
+        return settledCount;
+    }
+
+    // Returns the path through the meeting node, with each arc unpacked.
+    private Path<N> buildPath(int startId) {
+        int length = 0;
+        for (int id = meeting; forward.parentArcs[id] >= 0;
+             id = hierarchy.arcSources[forward.parentArcs[id]]) {
+            length++;
+        }
+        int[] arcs = new int[length];
+        for (int id = meeting, k = length - 1; k >= 0;
+             id = hierarchy.arcSources[forward.parentArcs[id]], k--) {
+            arcs[k] = forward.parentArcs[id];
+        }
+
+        PathLink<N> path = new PathLink<>(hierarchy.index.get(startId));
+        for (int arc : arcs) {
+            path = unpack(arc, path);
+        }
+        for (int id = meeting; backward.parentArcs[id] >= 0;
+             id = hierarchy.arcDests[backward.parentArcs[id]]) {
+            path = unpack(backward.parentArcs[id], path);
+        }
+        return path.toPath();
+    }
+
+    // Returns path extended by the edges of the graph that an arc stands
+    // for. Shortcuts are expanded with a stack rather than recursion, as
+    // they can nest as deeply as the hierarchy is tall.
+    private PathLink<N> unpack(int arc, PathLink<N> path) {
+        Deque<Integer> pending = new ArrayDeque<>();
+        pending.push(arc);
+        while (!pending.isEmpty()) {
+            int a = pending.pop();
+            int middle = hierarchy.arcMiddles[a];
+            if (middle < 0) {
+                path = path.extend(hierarchy.index.get(hierarchy.arcDests[a]),
+                        hierarchy.arcCosts[a]);
+            } else {
+                pending.push(hierarchy.upArc(middle, hierarchy.arcDests[a]));
+                pending.push(hierarchy.downArc(hierarchy.arcSources[a], middle));
+            }
+        }
+        return path;
+    }
+
+    // The state of the search from one end. The forward side follows the
+    // upward arcs out of each node to their destinations; the backward
+    // side follows the downward arcs into each node to their sources.
+    private final class Side {
+        private final int[] offsets;
+        private final boolean upward;
+        private final double[] costs;
+        private final int[] parentArcs;
+        private final boolean[] settled;
+        private final IndexedMinHeap frontier;
+        private Side other;
+
+        // Ids whose entries the current search has changed.
+        private int[] touched = new int[16];
+        private int touchedCount;
+
+        private Side(int[] offsets, boolean upward) {
+            int n = hierarchy.nodeCount();
+            this.offsets = offsets;
+            this.upward = upward;
+            this.costs = new double[n];
+            this.parentArcs = new int[n];
+            this.settled = new boolean[n];
+            this.frontier = new IndexedMinHeap(n);
+            Arrays.fill(costs, Double.POSITIVE_INFINITY);
+            Arrays.fill(parentArcs, -1);
+        }
+
+        // Returns the cost of the next node to settle, or infinity if
+        // there is none.
+        private double nextCost() {
+            return frontier.isEmpty() ? Double.POSITIVE_INFINITY
+                    : frontier.key(frontier.peek());
+        }
+
+        // Settles the nearest unsettled node, keeps the path through it if
+        // the other side has reached it more cheaply than best, and relaxes
+        // its arcs.
+        private void settleNext() {
+            int v = frontier.poll();
+            settled[v] = true;
+            settledCount++;
+
+            double through = costs[v] + other.costs[v];
+            if (through < best) {
+                best = through;
+                meeting = v;
+            }
+
+            for (int a = offsets[v]; a < offsets[v + 1]; a++) {
+                int next = upward ? hierarchy.arcDests[a] : hierarchy.arcSources[a];
+                double cost = costs[v] + hierarchy.arcCosts[a];
+                if (!settled[next] && cost < costs[next]) {
+                    reach(next, cost, a);
+                }
+            }
+        }
+
+        // Records that id can be reached at cost over arc parentArc.
+        private void reach(int id, double cost, int parentArc) {
+            if (costs[id] == Double.POSITIVE_INFINITY) {
+                if (touchedCount == touched.length) {
+                    touched = Arrays.copyOf(touched, 2 * touched.length);
+                }
+                touched[touchedCount++] = id;
+            }
+            costs[id] = cost;
+            parentArcs[id] = parentArc;
+            frontier.offer(id, cost);
+        }
+
+        // Clears the entries changed by the last search.
+        private void reset() {
+            for (int k = 0; k < touchedCount; k++) {
+                int id = touched[k];
+                costs[id] = Double.POSITIVE_INFINITY;
+                parentArcs[id] = -1;
+                settled[id] = false;
+            }
+            touchedCount = 0;
+            frontier.clear();
+        }
+    }
+
+    // Checks if the rep invariant holds. Throws exception if the
+    // rep invariant is violated.
+    private void checkRep() {
+        if (DEBUG) {
+            assert hierarchy != null && forward != null && backward != null;
+            assert forward.upward && !backward.upward;
+            assert forward.offsets == hierarchy.upOffsets;
+            assert backward.offsets == hierarchy.downOffsets;
+        }
+    }
+}
@@ -0,0 +1,2 @@
+/** Classes that precompute a contraction hierarchy of a graph and answer path queries with it */
+package pathfinder.hierarchy;
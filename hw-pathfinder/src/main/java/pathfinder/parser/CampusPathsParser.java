@@ -24,6 +24,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.CRC32;
 
 /**
  * A utility class capable of parsing data in campus buildings and
@@ -108,6 +109,37 @@ public class CampusPathsParser {
         return paths;
     }
 
+    /**
+     * Returns a fingerprint of the contents of a data file (in
+     * src/main/resources/data/), made of its size and a CRC-32 of its
+     * bytes, so that data derived from the file can tell when it has
+     * changed.
+     *
+     * @param file The simple filename of a data file.
+     * @return a number that changes whenever the size or contents of the
+     * file change, except in the rare case of a CRC collision.
+     * @throws ParserException if the file cannot be found or read
+     */
+    public static long fingerprint(String file) {
+        CRC32 crc = new CRC32();
+        long size = 0;
+        try (InputStream stream = CampusPathsParser.class.getResourceAsStream("/data/" + file)) {
+            if(stream == null) {
+                throw new FileNotFoundException("No such file: " + file);
+            }
+            byte[] buffer = new byte[8192];
+            int read;
+            while((read = stream.read(buffer)) >= 0) {
+                crc.update(buffer, 0, read);
+                size += read;
+            }
+        } catch(IOException e) {
+            throw new ParserException("Cannot read file.", e);
+        }
+        // The CRC fills the low 32 bits, so the size goes above it.
+        return (size << 32) ^ crc.getValue();
+    }
+
     /**
      * Initializes a CSV reader with the provided filename, relative to the
      * classpath of this parser class. The returned reader is configured
@@ -0,0 +1,210 @@
+package pathfinder.partition;
+
+import graph.CsrGraph;
+import graph.GraphCodec;
+import graph.GraphSnapshots;
+import graph.WeightedGraph;
+import pathfinder.ShortestPathFinder;
+import pathfinder.datastructures.Path;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+/**
+ * <b>PartitionWorker</b> answers routing questions about one partition of
+ * a graph for a PartitionedRouter. It can run as its own process, reading
+ * requests from standard input and writing answers to standard output,
+ * or inside the router's process, answering its requests directly.
+ *
+ * The partition is a weighted graph whose nodes are the global ids of
+ * the nodes it owns, holding only the edges between them. A worker reads
+ * one request per line and writes one answer per line:
+ *
+ *   BOUNDARY g1 g2 ...   sets the boundary nodes; answers OK.
+ *   FROM g               answers the cost from g to each boundary node.
+ *   TO g                 answers the cost from each boundary node to g.
+ *   PATH g1 g2           answers the lowest-cost path from g1 to g2 as
+ *                        g1 followed by the node and cost of each
+ *                        segment, or NONE if there is no path.
+ *   QUIT                 stops the worker.
+ *
+ * Costs are written with Double.toString, which reads back exactly, and
+ * "Infinity" for a boundary node that cannot be reached. Any other line,
+ * or a request about a node the partition does not own, is answered
+ * with ERROR followed by a message.
+ */
+public final class PartitionWorker {
+
+    // ABSTRACTION FUNCTION:
+    //      AF(r) = a worker for the partition graph, whose boundary nodes
+    //      are the nodes of graph with ids boundary[0..boundary.length-1].
+
+    // REPRESENTATION INVARIANT:
+    //      graph, reverse, boundary != null.
+    //      reverse has the same nodes and ids as graph, and an edge from
+    //      j to i for each edge from i to j of graph.
+    //      Every element of boundary is a node id of graph.
+
+
+    // Debug flag; change to TRUE to enable checkReps.
+    private static final boolean DEBUG = false;
+
+    private final WeightedGraph<Integer> graph;
+    private final WeightedGraph<Integer> reverse;
+    private int[] boundary;
+
+    /**
+     * Creates a new worker for a partition.
+     *
+     * @param graph The partition, with the global ids of its nodes as
+     *              nodes.
+     * @throws NullPointerException if graph == null
+     * @spec.effects Constructs a new PartitionWorker with no boundary nodes.
+     */
+    public PartitionWorker(WeightedGraph<Integer> graph) {
+        this.graph = graph;
+        this.reverse = CsrGraph.reverseOf(graph);
+        this.boundary = new int[0];
+        checkRep();
+    }
+
+    /**
+     * Runs a worker as a process. The only argument is the partition's
+     * snapshot file, written by GraphSnapshots.writeWeighted with
+     * GraphCodec.integers() as the node codec. Requests are read from
+     * standard input until QUIT or the end of input.
+     *
+     * @param args The command-line arguments provided to the worker.
+     * @throws IOException if the snapshot or standard input cannot be
+     * read.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: PartitionWorker <partition snapshot>");
+            System.exit(1);
+        }
+
+        WeightedGraph<Integer> graph = GraphSnapshots.mapWeighted(
+                Paths.get(args[0]), GraphCodec.integers());
+        new PartitionWorker(graph).serve(System.in, System.out);
+    }
+
+    /**
+     * Answers requests read from in, writing each answer to out, until
+     * QUIT or the end of in.
+     *
+     * @param in  The stream to read requests from.
+     * @param out The stream to write answers to.
+     * @throws IOException if in cannot be read or out cannot be written.
+     * @spec.effects Reads from in and writes to out.
+     */
+    public void serve(InputStream in, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(in, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+        String request;
+        while ((request = reader.readLine()) != null && !request.equals("QUIT")) {
+            writer.write(respond(request));
+            writer.write('\n');
+            writer.flush();
+        }
+    }
+
+    /**
+     * Returns the answer to one request other than QUIT.
+     *
+     * @param request The request, without its line terminator.
+     * @return the answer to the request, without a line terminator.
+     */
+    String respond(String request) {
+        try {
+            return answer(request.trim().split("\\s+"));
+        } catch (RuntimeException e) {
+            return "ERROR " + e.getMessage();
+        }
+    }
+
+    // Returns the answer to a request split into words.
+    private String answer(String[] words) {
+        switch (words[0]) {
+            case "BOUNDARY":
+                int[] ids = new int[words.length - 1];
+                for (int k = 1; k < words.length; k++) {
+                    ids[k - 1] = localId(words[k]);
+                }
+                boundary = ids;
+                checkRep();
+                return "OK";
+            case "FROM":
+                return boundaryCosts(graph, words);
+            case "TO":
+                return boundaryCosts(reverse, words);
+            case "PATH":
+                if (words.length != 3) {
+                    throw new IllegalArgumentException("PATH needs two nodes.");
+                }
+                localId(words[1]);
+                localId(words[2]);
+                Path<Integer> path = ShortestPathFinder.findShortestPath(graph,
+                        Integer.valueOf(words[1]), Integer.valueOf(words[2]));
+                return path == null ? "NONE" : format(path);
+            default:
+                throw new IllegalArgumentException("Unknown request " + words[0] + ".");
+        }
+    }
+
+    // Returns the costs from the node named by words[1] to each boundary
+    // node in search, separated by spaces.
+    private String boundaryCosts(WeightedGraph<Integer> search, String[] words) {
+        if (words.length != 2) {
+            throw new IllegalArgumentException(words[0] + " needs one node.");
+        }
+
+        double[] costs = ShortestPathFinder.findDistances(search, localId(words[1]));
+        StringBuilder answer = new StringBuilder();
+        for (int id : boundary) {
+            if (answer.length() > 0) {
+                answer.append(' ');
+            }
+            answer.append(costs[id]);
+        }
+        return answer.toString();
+    }
+
+    // Returns the id in this partition of the node with the given global
+    // id.
+    private int localId(String word) {
+        int id = graph.indexOf(Integer.valueOf(word));
+        if (id < 0) {
+            throw new IllegalArgumentException("Node " + word + " is not in" +
+                    " this partition.");
+        }
+        return id;
+    }
+
+    // Returns a path as its start followed by the end and cost of each
+    // segment.
+    private static String format(Path<Integer> path) {
+        StringBuilder answer = new StringBuilder().append(path.getStart());
+        for (Path<Integer>.Segment segment : path) {
+            answer.append(' ').append(segment.getEnd()).append(' ').append(segment.getCost());
+        }
+        return answer.toString();
+    }
+
+    // Checks if the rep invariant holds. Throws exception if the
+    // rep invariant is violated.
+    private void checkRep() {
+        if (DEBUG) {
+            assert graph != null && reverse != null && boundary != null;
+            assert reverse.nodeCount() == graph.nodeCount();
+            assert reverse.edgeCount() == graph.edgeCount();
+            for (int id : boundary) {
+                assert id >= 0 && id < graph.nodeCount();
+            }
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package pathfinder.partition;
+
+import graph.CsrGraph;
+import graph.DirectLGraph;
+import graph.GraphBuilder;
+import graph.GraphCodec;
+import graph.GraphSnapshots;
+import graph.NodeIndex;
+import graph.WeightedGraph;
+import pathfinder.ShortestPathFinder;
+import pathfinder.datastructures.Path;
+import pathfinder.datastructures.PathLink;
+import pathfinder.datastructures.Point;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * <b>PartitionedRouter</b> finds lowest-cost paths in a graph of Points
+ * that has been split into partitions, each owned by a PartitionWorker.
+ * The graph is cut into vertical strips holding equal numbers of nodes,
+ * so that each worker holds the nodes of one area and the edges between
+ * them. The router itself keeps only the nodes and a small overlay graph.
+ *
+ * A boundary node is a node with an edge to or from another partition.
+ * The overlay graph holds the boundary nodes, each edge between
+ * partitions, and a shortcut edge between each pair of boundary nodes of
+ * a partition whose cost is the cost of the lowest-cost path between them
+ * inside the partition. A query asks the workers of the start and
+ * destination for the costs to and from their boundary nodes, searches
+ * the overlay with those costs added, and then asks the workers for the
+ * paths that the shortcuts it used stand for.
+ *
+ * Workers run either in separate processes, started by the router and
+ * connected by pipes, or in the router's own process. A router is safe
+ * to share between threads; queries are answered one at a time. If a
+ * worker cannot be reached, answers to requests already sent to other
+ * workers may be left unread, so the router refuses every later query.
+ */
+public final class PartitionedRouter implements Closeable {
+
+    // ABSTRACTION FUNCTION:
+    //      AF(r) = the graph with the nodes nodes.get(i), whose edges are
+    //      the edges of partition k's graph, held by workers.get(k), for
+    //      all k, and the edges between partitions held in overlay, where
+    //      node nodes.get(i) has global id i and is in partition
+    //      partitionOf[i].
+
+    // REPRESENTATION INVARIANT:
+    //      nodes, partitionOf, workers, boundaries, overlay != null.
+    //      partitionOf.length == nodes.size() and
+    //      0 <= partitionOf[i] < workers.size() for all i.
+    //      boundaries.size() == workers.size(), and boundaries.get(k) holds
+    //      the global ids of the boundary nodes of partition k, in the
+    //      order sent to workers.get(k).
+    //      The nodes of overlay are the boundary nodes of every partition;
+    //      overlay has no virtual nodes outside of findShortestPath.
+    //      Unless broken, every answer to a request sent to a worker has
+    //      been received outside of findShortestPath.
+
+
+    // Debug flag; change to TRUE to enable checkReps.
+    private static final boolean DEBUG = false;
+
+    // Overlay nodes standing for the start and destination of a query.
+    private static final Integer START = -1;
+    private static final Integer DEST = -2;
+
+    private final NodeIndex<Point> nodes;
+    private final int[] partitionOf;
+    private final List<WorkerConnection> workers;
+    private final List<int[]> boundaries;
+    private final DirectLGraph<Integer, Double> overlay;
+
+    // Whether a worker could not be reached during a query.
+    private boolean broken;
+
+    private PartitionedRouter(NodeIndex<Point> nodes, int[] partitionOf,
+                              List<WorkerConnection> workers, List<int[]> boundaries,
+                              List<double[]> crossEdges) throws IOException {
+        this.nodes = nodes;
+        this.partitionOf = partitionOf;
+        this.workers = workers;
+        this.boundaries = boundaries;
+        this.overlay = new DirectLGraph<>(true);
+        buildOverlay(crossEdges);
+        checkRep();
+    }
+
+    /**
+     * Splits a graph into partitions and starts a worker process for each
+     * one. Each partition is saved as a snapshot file in a directory, which
+     * its worker loads; the files are left in place when the router is
+     * closed. The workers run the java command of this JVM with its class
+     * path.
+     *
+     * @param graph      The graph to split.
+     * @param partitions The number of partitions to split the graph into.
+     * @param dir        The directory to save the partitions in.
+     * @throws NullPointerException if graph or dir is null.
+     * @throws IllegalArgumentException if partitions < 1
+     * @throws IOException if a partition cannot be saved or a worker
+     * cannot be started.
+     * @spec.requires Graph contains non-negative edge weights.
+     * @spec.effects Creates or replaces the files partition-k.bin in dir
+     * and starts a process for each partition.
+     * @return a new router over graph's partitions.
+     */
+    public static PartitionedRouter startProcesses(WeightedGraph<Point> graph, int partitions,
+                                                   java.nio.file.Path dir) throws IOException {
+        if (dir == null) {
+            throw new NullPointerException("Directory cannot be null.");
+        }
+
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String classPath = System.getProperty("java.class.path");
+        return split(graph, partitions, (k, part) -> {
+            java.nio.file.Path file = dir.resolve("partition-" + k + ".bin");
+            GraphSnapshots.writeWeighted(part, GraphCodec.integers(), file);
+            Process process = new ProcessBuilder(java, "-cp", classPath,
+                    PartitionWorker.class.getName(), file.toString())
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            return WorkerConnection.process(process);
+        });
+    }
+
+    /**
+     * Splits a graph into partitions served by workers in this process.
+     * The router talks to them with the same requests as to worker
+     * processes, so this is useful for testing and for graphs that fit in
+     * one JVM.
+     *
+     * @param graph      The graph to split.
+     * @param partitions The number of partitions to split the graph into.
+     * @throws NullPointerException if graph is null.
+     * @throws IllegalArgumentException if partitions < 1
+     * @spec.requires Graph contains non-negative edge weights.
+     * @return a new router over graph's partitions.
+     */
+    public static PartitionedRouter startLocal(WeightedGraph<Point> graph, int partitions) {
+        try {
+            return split(graph, partitions,
+                    (k, part) -> WorkerConnection.local(new PartitionWorker(part)));
+        } catch (IOException e) {
+            // Local workers do no I/O.
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the number of partitions.
+     *
+     * @return the number of workers this router uses.
+     */
+    public int partitionCount() {
+        return workers.size();
+    }
+
+    /**
+     * Returns the number of boundary nodes in all partitions, which is
+     * the number of nodes in the overlay graph.
+     *
+     * @return the number of boundary nodes.
+     */
+    public synchronized int boundaryCount() {
+        return overlay.getNodesView().size();
+    }
+
+    /**
+     * Finds the lowest-cost path between two nodes of the graph.
+     *
+     * @param start The starting node that the path begins at.
+     * @param dest  The destination node where the path ends.
+     * @throws IllegalArgumentException if start or dest is not in the graph.
+     * @throws UncheckedIOException if a worker cannot be reached.
+     * @throws IllegalStateException if a worker answers with an error or
+     * an earlier query could not reach a worker.
+     * @return A new Path corresponding to the lowest-cost path from the
+     * start to the destination. If no path exists, return null.
+     */
+    public synchronized Path<Point> findShortestPath(Point start, Point dest) {
+        if (broken) {
+            throw new IllegalStateException("A worker could not be reached" +
+                    " during an earlier query.");
+        }
+
+        int s = nodes.indexOf(start);
+        int t = nodes.indexOf(dest);
+        if (s < 0 || t < 0) {
+            throw new IllegalArgumentException("Start and destination must be in the graph.");
+        } else if (s == t) {
+            return new Path<>(start);
+        }
+
+        try {
+            WorkerConnection from = workers.get(partitionOf[s]);
+            WorkerConnection to = workers.get(partitionOf[t]);
+            boolean samePartition = from == to;
+
+            // Send every request before reading any answer, so that the
+            // two workers can search at the same time. Every answer is read
+            // before any is checked, so that none is left in a pipe to be
+            // taken as the answer to a later request.
+            from.send("FROM " + s);
+            to.send("TO " + t);
+            if (samePartition) {
+                to.send("PATH " + s + " " + t);
+            }
+            String fromAnswer = from.receive();
+            String toAnswer = to.receive();
+            String localAnswer = samePartition ? to.receive() : null;
+
+            double[] fromCosts = parseCosts(fromAnswer, boundaries.get(partitionOf[s]));
+            double[] toCosts = parseCosts(toAnswer, boundaries.get(partitionOf[t]));
+            String localPath = samePartition ? checkAnswer(localAnswer) : null;
+
+            overlay.addNode(START);
+            overlay.addNode(DEST);
+            try {
+                addVirtualEdges(fromCosts, boundaries.get(partitionOf[s]), true);
+                addVirtualEdges(toCosts, boundaries.get(partitionOf[t]), false);
+                if (localPath != null && !localPath.equals("NONE")) {
+                    Path<Integer> local = parsePath(localPath);
+                    overlay.addEdge(START, DEST, local.getCost());
+                }
+
+                Path<Integer> route = ShortestPathFinder.findShortestPath(overlay, START, DEST);
+                return route == null ? null : unpack(route, s, t, localPath);
+            } finally {
+                overlay.removeNode(START);
+                overlay.removeNode(DEST);
+                checkRep();
+            }
+        } catch (IOException e) {
+            broken = true;
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stops every worker.
+     *
+     * @throws IOException if a worker cannot be stopped cleanly.
+     * @spec.effects Stops the workers; no path can be found afterward.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        IOException failure = null;
+        for (WorkerConnection worker : workers) {
+            try {
+                worker.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // Starts a worker for a partition, given its number and graph.
+    @FunctionalInterface
+    private interface WorkerStarter {
+        WorkerConnection start(int k, CsrGraph<Integer> partition) throws IOException;
+    }
+
+    // Splits graph into vertical strips, starts a worker for each, and
+    // returns a router over them.
+    private static PartitionedRouter split(WeightedGraph<Point> graph, int partitions,
+                                           WorkerStarter starter) throws IOException {
+        if (graph == null) {
+            throw new NullPointerException("Graph cannot be null.");
+        } else if (partitions < 1) {
+            throw new IllegalArgumentException("There must be at least one partition.");
+        }
+
+        int n = graph.nodeCount();
+        NodeIndex<Point> nodes = new NodeIndex<>(n);
+        Integer[] byX = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            nodes.intern(graph.getNode(i));
+            byX[i] = i;
+        }
+
+        // Equal-count strips, ordered by x and then by y.
+        Arrays.sort(byX, Comparator.comparingDouble((Integer i) -> graph.getNode(i).getX())
+                .thenComparingDouble(i -> graph.getNode(i).getY()));
+        int[] partitionOf = new int[n];
+        for (int rank = 0; rank < n; rank++) {
+            partitionOf[byX[rank]] = (int) ((long) rank * partitions / n);
+        }
+
+        List<GraphBuilder<Integer>> builders = new ArrayList<>(partitions);
+        List<Set<Integer>> boundarySets = new ArrayList<>(partitions);
+        for (int k = 0; k < partitions; k++) {
+            builders.add(new GraphBuilder<>(n / partitions + 1, 0));
+            boundarySets.add(new TreeSet<>());
+        }
+        for (int i = 0; i < n; i++) {
+            builders.get(partitionOf[i]).addNode(i);
+        }
+
+        List<double[]> crossEdges = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            int source = i;
+            graph.forEachEdge(i, (dest, weight) -> {
+                if (partitionOf[source] == partitionOf[dest]) {
+                    builders.get(partitionOf[source]).addEdge(source, dest, weight);
+                } else {
+                    boundarySets.get(partitionOf[source]).add(source);
+                    boundarySets.get(partitionOf[dest]).add(dest);
+                    crossEdges.add(new double[] {source, dest, weight});
+                }
+            });
+        }
+
+        List<WorkerConnection> workers = new ArrayList<>(partitions);
+        List<int[]> boundaries = new ArrayList<>(partitions);
+        try {
+            for (int k = 0; k < partitions; k++) {
+                workers.add(starter.start(k, builders.get(k).buildSnapshot()));
+                builders.set(k, null);
+                boundaries.add(boundarySets.get(k).stream().mapToInt(Integer::intValue).toArray());
+            }
+            return new PartitionedRouter(nodes, partitionOf, workers, boundaries, crossEdges);
+        } catch (IOException | RuntimeException e) {
+            for (WorkerConnection worker : workers) {
+                try {
+                    worker.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw e;
+        }
+    }
+
+    // Tells each worker its boundary nodes, and adds the boundary nodes,
+    // the edges between partitions and the shortcut edges to the overlay.
+    private void buildOverlay(List<double[]> crossEdges) throws IOException {
+        for (int k = 0; k < workers.size(); k++) {
+            StringBuilder request = new StringBuilder("BOUNDARY");
+            for (int b : boundaries.get(k)) {
+                request.append(' ').append(b);
+                overlay.addNode(b);
+            }
+            checkAnswer(workers.get(k).call(request.toString()));
+        }
+        for (double[] edge : crossEdges) {
+            overlay.addEdge((int) edge[0], (int) edge[1], edge[2]);
+        }
+
+        // Ask every worker for the costs from its j-th boundary node in
+        // the same round, so that worker processes search in parallel.
+        // Only one request per worker is outstanding, so no pipe fills up.
+        int rounds = 0;
+        for (int[] boundary : boundaries) {
+            rounds = Math.max(rounds, boundary.length);
+        }
+        for (int j = 0; j < rounds; j++) {
+            for (int k = 0; k < workers.size(); k++) {
+                if (j < boundaries.get(k).length) {
+                    workers.get(k).send("FROM " + boundaries.get(k)[j]);
+                }
+            }
+            for (int k = 0; k < workers.size(); k++) {
+                int[] boundary = boundaries.get(k);
+                if (j < boundary.length) {
+                    double[] costs = parseCosts(workers.get(k).receive(), boundary);
+                    for (int m = 0; m < boundary.length; m++) {
+                        if (m != j && costs[m] != Double.POSITIVE_INFINITY) {
+                            overlay.addEdge(boundary[j], boundary[m], costs[m]);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Adds an edge from the start to each reachable boundary node, or
+    // from each boundary node that reaches the destination to it.
+    private void addVirtualEdges(double[] costs, int[] boundary, boolean fromStart) {
+        for (int m = 0; m < boundary.length; m++) {
+            if (costs[m] != Double.POSITIVE_INFINITY) {
+                if (fromStart) {
+                    overlay.addEdge(START, boundary[m], costs[m]);
+                } else {
+                    overlay.addEdge(boundary[m], DEST, costs[m]);
+                }
+            }
+        }
+    }
+
+    // Returns the path of Points that a route through the overlay from
+    // START to DEST stands for, where s and t are the global ids of the
+    // start and destination and localPath is the answer to PATH s t, if
+    // it was asked.
+    private Path<Point> unpack(Path<Integer> route, int s, int t, String localPath)
+            throws IOException {
+        PathLink<Point> path = new PathLink<>(nodes.get(s));
+        for (Path<Integer>.Segment segment : route) {
+            int a = segment.getStart().equals(START) ? s : segment.getStart();
+            int b = segment.getEnd().equals(DEST) ? t : segment.getEnd();
+            if (partitionOf[a] != partitionOf[b]) {
+                // An edge between partitions, which the overlay holds.
+                path = path.extend(nodes.get(b), segment.getCost());
+            } else {
+                String answer = (a == s && b == t) ? localPath
+                        : checkAnswer(workers.get(partitionOf[a]).call("PATH " + a + " " + b));
+                for (Path<Integer>.Segment leg : parsePath(answer)) {
+                    path = path.extend(nodes.get(leg.getEnd()), leg.getCost());
+                }
+            }
+        }
+        return path.toPath();
+    }
+
+    // Returns the costs in an answer to FROM or TO, one for each node of
+    // boundary.
+    private static double[] parseCosts(String answer, int[] boundary) {
+        checkAnswer(answer);
+        double[] costs = new double[boundary.length];
+        if (boundary.length == 0) {
+            return costs;
+        }
+
+        String[] words = answer.split(" ");
+        if (words.length != boundary.length) {
+            throw new IllegalStateException("Worker answered " + words.length +
+                    " costs for " + boundary.length + " boundary nodes.");
+        }
+        for (int m = 0; m < words.length; m++) {
+            costs[m] = Double.parseDouble(words[m]);
+        }
+        return costs;
+    }
+
+    // Returns the path of global ids in an answer to PATH.
+    private static Path<Integer> parsePath(String answer) {
+        checkAnswer(answer);
+        if (answer.equals("NONE")) {
+            throw new IllegalStateException("Worker found no path along a shortcut.");
+        }
+
+        String[] words = answer.split(" ");
+        PathLink<Integer> path = new PathLink<>(Integer.valueOf(words[0]));
+        for (int w = 1; w + 1 < words.length; w += 2) {
+            path = path.extend(Integer.valueOf(words[w]), Double.parseDouble(words[w + 1]));
+        }
+        return path.toPath();
+    }
+
+    // Returns answer, or throws IllegalStateException if it is an error.
+    private static String checkAnswer(String answer) {
+        if (answer.startsWith("ERROR")) {
+            throw new IllegalStateException("Worker failed: " + answer.substring(5).trim());
+        }
+        return answer;
+    }
+
+    // Checks if the rep invariant holds. Throws exception if the
+    // rep invariant is violated.
+    private void checkRep() {
+        if (DEBUG) {
+            assert nodes != null && partitionOf != null && workers != null;
+            assert boundaries != null && overlay != null;
+            assert partitionOf.length == nodes.size();
+            assert boundaries.size() == workers.size();
+            for (int k : partitionOf) {
+                assert k >= 0 && k < workers.size();
+            }
+            assert !overlay.hasNode(START) && !overlay.hasNode(DEST);
+        }
+    }
+}
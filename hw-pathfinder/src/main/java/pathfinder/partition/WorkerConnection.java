@@ -0,0 +1,124 @@
+package pathfinder.partition;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * <b>WorkerConnection</b> carries requests from a PartitionedRouter to one
+ * PartitionWorker and the worker's answers back, in the order they were
+ * sent. Several requests can be sent before their answers are received,
+ * so that workers in separate processes can work at the same time.
+ */
+abstract class WorkerConnection implements Closeable {
+
+    /**
+     * Sends a request to the worker.
+     *
+     * @param request The request, without a line terminator.
+     * @throws IOException if the request cannot be sent.
+     * @spec.effects Queues request for the worker.
+     */
+    abstract void send(String request) throws IOException;
+
+    /**
+     * Waits for and returns the answer to the oldest request whose answer
+     * has not been received.
+     *
+     * @throws IOException if the answer cannot be read or the worker has
+     * stopped.
+     * @return the answer, without its line terminator.
+     */
+    abstract String receive() throws IOException;
+
+    /**
+     * Sends a request and returns its answer.
+     *
+     * @param request The request, without a line terminator.
+     * @spec.requires every answer to an earlier request has been received.
+     * @throws IOException if the request cannot be sent or answered.
+     * @return the answer to request.
+     */
+    String call(String request) throws IOException {
+        send(request);
+        return receive();
+    }
+
+    /**
+     * Returns a connection to a worker in this process, which answers each
+     * request as it is sent.
+     *
+     * @param worker The worker to connect to.
+     * @return a new connection to worker.
+     */
+    static WorkerConnection local(PartitionWorker worker) {
+        return new WorkerConnection() {
+            private final Queue<String> answers = new ArrayDeque<>();
+
+            @Override
+            void send(String request) {
+                answers.add(worker.respond(request));
+            }
+
+            @Override
+            String receive() throws IOException {
+                if (answers.isEmpty()) {
+                    throw new IOException("No request is waiting for an answer.");
+                }
+                return answers.remove();
+            }
+
+            @Override
+            public void close() {
+                answers.clear();
+            }
+        };
+    }
+
+    /**
+     * Returns a connection to a worker process started by the caller, which
+     * reads requests from its standard input and writes answers to its
+     * standard output.
+     *
+     * @param process The worker process.
+     * @return a new connection to process.
+     */
+    static WorkerConnection process(Process process) {
+        BufferedReader in = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        Writer out = new BufferedWriter(
+                new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+
+        return new WorkerConnection() {
+            @Override
+            void send(String request) throws IOException {
+                out.write(request);
+                out.write('\n');
+                out.flush();
+            }
+
+            @Override
+            String receive() throws IOException {
+                String answer = in.readLine();
+                if (answer == null) {
+                    throw new IOException("Worker process stopped.");
+                }
+                return answer;
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    send("QUIT");
+                    out.close();
+                    process.waitFor();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    process.destroy();
+                    in.close();
+                }
+            }
+        };
+    }
+}
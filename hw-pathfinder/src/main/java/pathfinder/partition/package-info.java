@@ -0,0 +1,2 @@
+/** Classes that split routing between worker processes, each owning one partition of the graph */
+package pathfinder.partition;
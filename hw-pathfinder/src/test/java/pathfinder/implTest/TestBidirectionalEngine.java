@@ -0,0 +1,84 @@
+package pathfinder.implTest;
+
+import graph.CsrGraph;
+import graph.GraphBuilder;
+import org.junit.*;
+import org.junit.rules.Timeout;
+import pathfinder.BidirectionalEngine;
+import pathfinder.DijkstraEngine;
+import pathfinder.datastructures.Path;
+
+import java.util.*;
+
+/**
+ * TestBidirectionalEngine provides implementation tests for the
+ * BidirectionalEngine class, comparing it with DijkstraEngine.
+ */
+public final class TestBidirectionalEngine {
+
+    @Rule   // 10 seconds max per method tested
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    /**
+     * Tests that the engine finds the same paths as DijkstraEngine,
+     * including paths that do not exist, reusing one engine for every
+     * query.
+     */
+    @Test
+    public void testMatchesDijkstra() {
+        CsrGraph<Integer> graph = TestGraphs.randomGraph(80, 200, new Random(331));
+        DijkstraEngine<Integer> dijkstra = new DijkstraEngine<>(graph);
+        BidirectionalEngine<Integer> engine = new BidirectionalEngine<>(graph);
+        for (int start = 0; start < 80; start++) {
+            for (int dest = 0; dest < 80; dest++) {
+                Assert.assertEquals(dijkstra.findShortestPath(start, dest),
+                        engine.findShortestPath(start, dest));
+            }
+        }
+    }
+
+    /**
+     * Tests that on a grid the two searches together settle fewer nodes
+     * than one search from the start.
+     */
+    @Test
+    public void testSettlesFewerNodes() {
+        CsrGraph<Integer> graph = TestGraphs.grid(30, new Random(0));
+        DijkstraEngine<Integer> dijkstra = new DijkstraEngine<>(graph);
+        BidirectionalEngine<Integer> engine = new BidirectionalEngine<>(graph,
+                CsrGraph.reverseOf(graph));
+
+        Path<Integer> expected = dijkstra.findShortestPath(30 * 5 + 5, 30 * 24 + 24);
+        Assert.assertEquals(expected, engine.findShortestPath(30 * 5 + 5, 30 * 24 + 24));
+        Assert.assertTrue(engine.lastSettledCount() < dijkstra.lastSettledCount());
+    }
+
+    /**
+     * Tests a path from a node to itself, and to a node not in the graph.
+     */
+    @Test
+    public void testTrivialPaths() {
+        GraphBuilder<String> builder = new GraphBuilder<>(2, 1);
+        builder.addEdge("a", "b", 1);
+        BidirectionalEngine<String> engine = new BidirectionalEngine<>(builder.buildSnapshot());
+
+        Assert.assertEquals(new Path<>("a"), engine.findShortestPath("a", "a"));
+        Assert.assertEquals(0, engine.lastSettledCount());
+        Assert.assertNull(engine.findShortestPath("a", "c"));
+        Assert.assertNull(engine.findShortestPath("b", "a"));
+        Assert.assertEquals(new Path<>("a").extend("b", 1), engine.findShortestPath("a", "b"));
+    }
+
+    /**
+     * Tests that a reverse graph with different edges is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testMismatchedReverse() {
+        GraphBuilder<String> builder = new GraphBuilder<>(2, 1);
+        builder.addEdge("a", "b", 1);
+        GraphBuilder<String> other = new GraphBuilder<>(2, 0);
+        other.addNode("a");
+        other.addNode("b");
+        new BidirectionalEngine<>(builder.buildSnapshot(), other.buildSnapshot());
+    }
+}
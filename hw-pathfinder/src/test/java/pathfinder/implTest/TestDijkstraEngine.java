@@ -0,0 +1,144 @@
+package pathfinder.implTest;
+
+import graph.CsrGraph;
+import graph.GraphBuilder;
+import org.junit.*;
+import org.junit.rules.Timeout;
+import pathfinder.DijkstraEngine;
+import pathfinder.Heuristic;
+import pathfinder.ShortestPathFinder;
+import pathfinder.datastructures.Path;
+import pathfinder.datastructures.Point;
+
+import java.util.*;
+
+/**
+ * TestDijkstraEngine provides implementation tests for the DijkstraEngine
+ * class, comparing it with ShortestPathFinder, with and without a
+ * heuristic.
+ */
+public final class TestDijkstraEngine {
+
+    @Rule   // 10 seconds max per method tested
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    /**
+     * Tests that the engine finds the same paths as ShortestPathFinder on
+     * a graph where every lowest-cost path is unique, reusing one engine
+     * for every query.
+     */
+    @Test
+    public void testMatchesShortestPathFinder() {
+        CsrGraph<Integer> graph = TestGraphs.randomGraph(60, 150, new Random(331));
+        DijkstraEngine<Integer> engine = new DijkstraEngine<>(graph);
+        for (int start = 0; start < 60; start++) {
+            for (int dest = 0; dest < 60; dest++) {
+                Assert.assertEquals(ShortestPathFinder.findShortestPath(graph, start, dest),
+                        engine.findShortestPath(start, dest));
+            }
+        }
+    }
+
+    /**
+     * Tests that on graphs with many paths of equal cost, including edges
+     * of cost 0, parallel edges and edges from nodes to themselves, the
+     * engine picks exactly the same paths as ShortestPathFinder.
+     */
+    @Test
+    public void testTiesMatchShortestPathFinder() {
+        Random random = new Random(331);
+        for (int round = 0; round < 5; round++) {
+            CsrGraph<Integer> graph = TestGraphs.randomGraph(40, 80 + 40 * round, 2, random);
+            DijkstraEngine<Integer> engine = new DijkstraEngine<>(graph);
+            for (int start = 0; start < 40; start++) {
+                for (int dest = 0; dest < 40; dest++) {
+                    Assert.assertEquals(ShortestPathFinder.findShortestPath(graph, start, dest),
+                            engine.findShortestPath(start, dest));
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests a path through a cheaper, longer route, and that a node with no
+     * way to it has no path.
+     */
+    @Test
+    public void testSmallGraph() {
+        GraphBuilder<String> builder = new GraphBuilder<>(4, 4);
+        builder.addEdge("a", "c", 10);
+        builder.addEdge("a", "b", 1);
+        builder.addEdge("b", "c", 2);
+        builder.addNode("d");
+        DijkstraEngine<String> engine = new DijkstraEngine<>(builder.buildSnapshot());
+
+        Path<String> path = engine.findShortestPath("a", "c");
+        Assert.assertEquals(new Path<>("a").extend("b", 1).extend("c", 2), path);
+        Assert.assertNull(engine.findShortestPath("a", "d"));
+        Assert.assertNull(engine.findShortestPath("c", "a"));
+        Assert.assertEquals(new Path<>("d"), engine.findShortestPath("d", "d"));
+        Assert.assertEquals(path, engine.findShortestPath("a", "c"));
+    }
+
+    /**
+     * Tests that an A* search with the straight-line heuristic finds the
+     * same paths as Dijkstra's algorithm, settling fewer nodes.
+     */
+    @Test
+    public void testStraightLineMatchesDijkstra() {
+        CsrGraph<Point> graph = TestGraphs.pointGrid(20, 20, new Random(331));
+        double scale = Heuristic.straightLineScale(graph);
+        Assert.assertTrue(scale > 1.99 && scale < 2.1);
+        Heuristic<Point> straightLine = Heuristic.straightLine(scale);
+
+        DijkstraEngine<Point> engine = new DijkstraEngine<>(graph);
+        Random random = new Random(0);
+        long dijkstraSettled = 0;
+        long aStarSettled = 0;
+        for (int k = 0; k < 50; k++) {
+            Point start = graph.getNode(random.nextInt(graph.nodeCount()));
+            Point dest = graph.getNode(random.nextInt(graph.nodeCount()));
+            Path<Point> expected = engine.findShortestPath(start, dest);
+            dijkstraSettled += engine.lastSettledCount();
+            Assert.assertEquals(expected, engine.findShortestPath(start, dest, straightLine));
+            aStarSettled += engine.lastSettledCount();
+        }
+        Assert.assertTrue(aStarSettled < dijkstraSettled);
+    }
+
+    /**
+     * Tests the straight-line heuristic and its scale on a small graph.
+     */
+    @Test
+    public void testStraightLine() {
+        GraphBuilder<Point> builder = new GraphBuilder<>(3, 2);
+        builder.addEdge(new Point(0, 0), new Point(3, 4), 10);
+        builder.addEdge(new Point(3, 4), new Point(3, 0), 12);
+        Assert.assertEquals(2.0, Heuristic.straightLineScale(builder.buildSnapshot()), 1e-6);
+        Assert.assertEquals(0.0, Heuristic.straightLineScale(
+                new GraphBuilder<Point>(0, 0).buildSnapshot()), 0.0);
+
+        Heuristic<Point> straightLine = Heuristic.straightLine(2.0);
+        Assert.assertEquals(10.0, straightLine.estimate(new Point(0, 0), new Point(3, 4)), 1e-9);
+        Assert.assertEquals(0.0, Heuristic.<Point>zero().estimate(
+                new Point(0, 0), new Point(3, 4)), 0.0);
+    }
+
+    /**
+     * Tests that a negative straight-line scale throws an exception.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeScale() {
+        Heuristic.straightLine(-1.0);
+    }
+
+    /**
+     * Tests that starting from a node not in the graph throws an exception.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingStart() {
+        GraphBuilder<String> builder = new GraphBuilder<>(1, 0);
+        builder.addNode("a");
+        new DijkstraEngine<>(builder.buildSnapshot()).findShortestPath("b", "a");
+    }
+}
@@ -0,0 +1,139 @@
+package pathfinder.implTest;
+
+import graph.CsrGraph;
+import graph.GraphBuilder;
+import org.junit.Assert;
+import pathfinder.datastructures.Path;
+import pathfinder.datastructures.Point;
+
+import java.util.*;
+
+/**
+ * TestGraphs creates the random graphs and grids that the implementation
+ * tests search, and checks the paths found in them.
+ */
+public final class TestGraphs {
+    private static final double EPSILON = 1e-9;
+
+    private TestGraphs() {
+    }
+
+    /**
+     * Creates a random graph of nodes 0 to n - 1 with distinct weights, so
+     * that every lowest-cost path is unique.
+     */
+    public static CsrGraph<Integer> randomGraph(int n, int edges, Random random) {
+        GraphBuilder<Integer> builder = new GraphBuilder<>(n, edges);
+        for (int i = 0; i < n; i++) {
+            builder.addNode(i);
+        }
+        for (int e = 0; e < edges; e++) {
+            builder.addEdge(random.nextInt(n), random.nextInt(n),
+                    1 + random.nextInt(1000) + e / (double) edges);
+        }
+        return builder.buildSnapshot();
+    }
+
+    /**
+     * Creates a random graph of nodes 0 to n - 1 with whole weights from 0
+     * to maxWeight, with parallel edges and edges from nodes to themselves.
+     * Small values of maxWeight give many lowest-cost paths of equal cost.
+     */
+    public static CsrGraph<Integer> randomGraph(int n, int edges, int maxWeight, Random random) {
+        GraphBuilder<Integer> builder = new GraphBuilder<>(n, edges);
+        for (int i = 0; i < n; i++) {
+            builder.addNode(i);
+        }
+        for (int e = 0; e < edges; e++) {
+            builder.addEdge(random.nextInt(n), random.nextInt(n), random.nextInt(maxWeight + 1));
+        }
+        return builder.buildSnapshot();
+    }
+
+    /**
+     * Creates a width by width grid, whose node at row x and column y is
+     * width * x + y, with edges of random cost both ways between neighbors.
+     */
+    public static CsrGraph<Integer> grid(int width, Random random) {
+        GraphBuilder<Integer> builder = new GraphBuilder<>(width * width, 4 * width * width);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < width; y++) {
+                int id = width * x + y;
+                builder.addNode(id);
+                if (x > 0) {
+                    builder.addEdge(id, id - width, 1 + random.nextDouble());
+                    builder.addEdge(id - width, id, 1 + random.nextDouble());
+                }
+                if (y > 0) {
+                    builder.addEdge(id, id - 1, 1 + random.nextDouble());
+                    builder.addEdge(id - 1, id, 1 + random.nextDouble());
+                }
+            }
+        }
+        return builder.buildSnapshot();
+    }
+
+    /**
+     * Creates a grid of width by height Points with edges between
+     * neighbors, each costing between 2 and 3 times its length and one way
+     * one time in five, and the point (-10, -10) with no edges.
+     */
+    public static CsrGraph<Point> pointGrid(int width, int height, Random random) {
+        GraphBuilder<Point> builder = new GraphBuilder<>(width * height + 1, 4 * width * height);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                builder.addNode(new Point(x, y));
+            }
+        }
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                Point here = new Point(x, y);
+                if (x + 1 < width) {
+                    link(builder, here, new Point(x + 1, y), random);
+                }
+                if (y + 1 < height) {
+                    link(builder, here, new Point(x, y + 1), random);
+                }
+            }
+        }
+        builder.addNode(new Point(-10, -10));
+        return builder.buildSnapshot();
+    }
+
+    /**
+     * Adds edges between two neighboring points, one way one time in five.
+     */
+    private static void link(GraphBuilder<Point> builder, Point a, Point b, Random random) {
+        builder.addEdge(a, b, 2 + random.nextDouble());
+        if (random.nextInt(5) != 0) {
+            builder.addEdge(b, a, 2 + random.nextDouble());
+        }
+    }
+
+    /**
+     * Checks that a path has the same ends and cost as the expected
+     * lowest-cost path, and is made of the cheapest edges of the graph
+     * between its nodes.
+     */
+    public static <N> void assertLowestCost(CsrGraph<N> graph, Path<N> expected,
+                                            Path<N> actual) {
+        if (expected == null) {
+            Assert.assertNull(actual);
+            return;
+        }
+
+        Assert.assertNotNull(actual);
+        Assert.assertEquals(expected.getStart(), actual.getStart());
+        Assert.assertEquals(expected.getEnd(), actual.getEnd());
+        Assert.assertEquals(expected.getCost(), actual.getCost(), EPSILON);
+        for (Path<N>.Segment segment : actual) {
+            double[] cheapest = {Double.POSITIVE_INFINITY};
+            graph.forEachEdge(graph.indexOf(segment.getStart()), (dest, weight) -> {
+                if (graph.getNode(dest).equals(segment.getEnd())) {
+                    cheapest[0] = Math.min(cheapest[0], weight);
+                }
+            });
+            Assert.assertEquals(cheapest[0], segment.getCost(), 0.0);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package pathfinder.implTest.datastructures;
+
+import org.junit.Test;
+import pathfinder.datastructures.Path;
+import pathfinder.datastructures.PathLink;
+import pathfinder.datastructures.Point;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class TestPathLink {
+
+    private static final double EPSILON = Math.pow(10.0D, -9.0D); // Accuracy required to 1 PPB
+
+    @Test
+    public void testEmptyPathLink() {
+        PathLink<Point> link = new PathLink<>(new Point(1.0, 2.0));
+        assertEquals(0, link.getCost(), EPSILON);
+        assertEquals(0, link.length());
+        assertEquals(new Point(1.0, 2.0), link.getEnd());
+        assertEquals(new Path<>(new Point(1.0, 2.0)), link.toPath());
+    }
+
+    @Test
+    public void testToPathMatchesExtend() {
+        Point a = new Point(0.0, 0.0);
+        Point b = new Point(1.0, 0.0);
+        Point c = new Point(1.0, 1.0);
+        PathLink<Point> link = new PathLink<>(a).extend(b, 0.1).extend(c, 0.2).extend(a, 0.3);
+        Path<Point> path = new Path<>(a).extend(b, 0.1).extend(c, 0.2).extend(a, 0.3);
+
+        assertEquals(3, link.length());
+        assertEquals(path, link.toPath());
+        assertEquals(path.getCost(), link.getCost(), 0.0);
+        assertEquals(path.getCost(), link.toPath().getCost(), 0.0);
+        assertEquals(path.toString(), link.toString());
+    }
+
+    @Test
+    public void testExtendSharesPrefix() {
+        Point a = new Point(0.0, 0.0);
+        PathLink<Point> prefix = new PathLink<>(a).extend(new Point(1.0, 0.0), 1.0);
+        PathLink<Point> left = prefix.extend(new Point(2.0, 0.0), 1.0);
+        PathLink<Point> right = prefix.extend(new Point(1.0, 1.0), 2.0);
+
+        assertSame(a, left.getStart());
+        assertEquals(2.0, left.getCost(), EPSILON);
+        assertEquals(3.0, right.getCost(), EPSILON);
+        assertEquals(1, prefix.length());
+        assertEquals(new Point(1.0, 0.0), prefix.getEnd());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testExtendNull() {
+        new PathLink<>(new Point(0.0, 0.0)).extend(null, 1.0);
+    }
+}
@@ -0,0 +1,108 @@
+package pathfinder.implTest.hierarchy;
+
+import graph.CsrGraph;
+import graph.DirectLGraph;
+import org.junit.*;
+import org.junit.rules.Timeout;
+import pathfinder.DijkstraEngine;
+import pathfinder.datastructures.Path;
+import pathfinder.hierarchy.ContractionHierarchy;
+import pathfinder.hierarchy.HierarchyQuery;
+import pathfinder.implTest.TestGraphs;
+
+import java.util.*;
+
+/**
+ * TestContractionHierarchy provides implementation tests for the
+ * ContractionHierarchy and HierarchyQuery classes, comparing them with
+ * DijkstraEngine.
+ */
+public final class TestContractionHierarchy {
+    @Rule   // 10 seconds max per method tested
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    /**
+     * Tests that queries find lowest-cost paths between every pair of
+     * nodes of random graphs, including pairs with no path, reusing one
+     * query for every pair.
+     */
+    @Test
+    public void testMatchesDijkstra() {
+        Random random = new Random(331);
+        for (int round = 0; round < 5; round++) {
+            CsrGraph<Integer> graph = TestGraphs.randomGraph(40, 40 + 30 * round, 19, random);
+            DijkstraEngine<Integer> dijkstra = new DijkstraEngine<>(graph);
+            HierarchyQuery<Integer> query = ContractionHierarchy.build(graph).newQuery();
+            for (int start = 0; start < 40; start++) {
+                for (int dest = 0; dest < 40; dest++) {
+                    TestGraphs.assertLowestCost(graph, dijkstra.findShortestPath(start, dest),
+                            query.findShortestPath(start, dest));
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that on a grid the hierarchy adds shortcuts and queries settle
+     * fewer nodes than Dijkstra's algorithm.
+     */
+    @Test
+    public void testGrid() {
+        CsrGraph<Integer> graph = TestGraphs.grid(25, new Random(0));
+        ContractionHierarchy<Integer> hierarchy = ContractionHierarchy.build(graph);
+        Assert.assertEquals(625, hierarchy.nodeCount());
+        Assert.assertTrue(hierarchy.shortcutCount() > 0);
+        Assert.assertEquals(graph.edgeCount() + hierarchy.shortcutCount(), hierarchy.arcCount());
+
+        DijkstraEngine<Integer> dijkstra = new DijkstraEngine<>(graph);
+        HierarchyQuery<Integer> query = hierarchy.newQuery();
+        Random random = new Random(1);
+        long dijkstraSettled = 0;
+        long querySettled = 0;
+        for (int k = 0; k < 100; k++) {
+            int start = random.nextInt(625);
+            int dest = random.nextInt(625);
+            TestGraphs.assertLowestCost(graph, dijkstra.findShortestPath(start, dest),
+                    query.findShortestPath(start, dest));
+            dijkstraSettled += dijkstra.lastSettledCount();
+            querySettled += query.lastSettledCount();
+        }
+        Assert.assertTrue(querySettled < dijkstraSettled);
+    }
+
+    /**
+     * Tests building a hierarchy from a DirectLGraph, whose cheapest
+     * parallel edge is used.
+     */
+    @Test
+    public void testBuildFromLabeledGraph() {
+        DirectLGraph<String, Double> graph = new DirectLGraph<>();
+        for (String node : List.of("a", "b", "c", "d")) {
+            graph.addNode(node);
+        }
+        graph.addEdge("a", "b", 4.0);
+        graph.addEdge("a", "b", 1.0);
+        graph.addEdge("b", "c", 2.0);
+        graph.addEdge("a", "c", 5.0);
+        graph.addEdge("c", "a", 1.0);
+
+        HierarchyQuery<String> query = ContractionHierarchy.build(graph).newQuery();
+        Assert.assertEquals(new Path<>("a").extend("b", 1.0).extend("c", 2.0),
+                query.findShortestPath("a", "c"));
+        Assert.assertEquals(new Path<>("c").extend("a", 1.0).extend("b", 1.0),
+                query.findShortestPath("c", "b"));
+        Assert.assertNull(query.findShortestPath("a", "d"));
+        Assert.assertNull(query.findShortestPath("a", "e"));
+        Assert.assertEquals(new Path<>("d"), query.findShortestPath("d", "d"));
+    }
+
+    /**
+     * Tests that starting from a node not in the graph throws an exception.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingStart() {
+        DirectLGraph<String, Double> graph = new DirectLGraph<>();
+        graph.addNode("a");
+        ContractionHierarchy.build(graph).newQuery().findShortestPath("b", "a");
+    }
+}
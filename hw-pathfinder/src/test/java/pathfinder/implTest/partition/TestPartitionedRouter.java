@@ -0,0 +1,109 @@
+package pathfinder.implTest.partition;
+
+import graph.CsrGraph;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+import pathfinder.ShortestPathFinder;
+import pathfinder.datastructures.Point;
+import pathfinder.implTest.TestGraphs;
+import pathfinder.partition.PartitionedRouter;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * TestPartitionedRouter provides implementation tests for routing over a
+ * graph split between partition workers.
+ */
+public final class TestPartitionedRouter {
+    private static CsrGraph<Point> testGraph = null;
+
+    @Rule   // 10 seconds max per method tested
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setup() {
+        testGraph = TestGraphs.pointGrid(6, 5, new Random(331));
+    }
+
+    @After
+    public void reset() {
+        testGraph = null;
+    }
+
+    /**
+     * Checks that a route from start to dest has the lowest cost, as found
+     * by ShortestPathFinder, and follows edges of the graph.
+     */
+    private static void assertLowestCost(PartitionedRouter router, Point start, Point dest) {
+        TestGraphs.assertLowestCost(testGraph,
+                ShortestPathFinder.findShortestPath(testGraph, start, dest),
+                router.findShortestPath(start, dest));
+    }
+
+    /**
+     * Tests that routes between every pair of points have the lowest cost
+     * and follow edges of the graph, for one to several partitions.
+     */
+    @Test
+    public void testMatchesWholeGraph() {
+        for (int partitions : new int[] {1, 2, 3, 7}) {
+            PartitionedRouter router = PartitionedRouter.startLocal(testGraph, partitions);
+            Assert.assertEquals(partitions, router.partitionCount());
+            for (Point start : testGraph.getNodes()) {
+                for (Point dest : testGraph.getNodes()) {
+                    assertLowestCost(router, start, dest);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that a single partition has no boundary nodes, and that more
+     * partitions have some.
+     */
+    @Test
+    public void testBoundaryCount() {
+        Assert.assertEquals(0, PartitionedRouter.startLocal(testGraph, 1).boundaryCount());
+        Assert.assertTrue(PartitionedRouter.startLocal(testGraph, 3).boundaryCount() > 0);
+    }
+
+    /**
+     * Tests routing through worker processes that load their partitions
+     * from snapshot files.
+     */
+    @Test
+    public void testProcesses() throws IOException {
+        try (PartitionedRouter router = PartitionedRouter.startProcesses(testGraph, 2,
+                folder.getRoot().toPath())) {
+            Random random = new Random(0);
+            List<Point> nodes = testGraph.getNodes();
+            for (int k = 0; k < 20; k++) {
+                assertLowestCost(router, nodes.get(random.nextInt(nodes.size())),
+                        nodes.get(random.nextInt(nodes.size())));
+            }
+        }
+    }
+
+    /**
+     * Tests that routing from a point that is not in the graph throws an
+     * exception.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingNode() {
+        PartitionedRouter.startLocal(testGraph, 2).findShortestPath(
+                new Point(100, 100), new Point(0, 0));
+    }
+
+    /**
+     * Tests that a router needs at least one partition.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoPartitions() {
+        PartitionedRouter.startLocal(testGraph, 0);
+    }
+}